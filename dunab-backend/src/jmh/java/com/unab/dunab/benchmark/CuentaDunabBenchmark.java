@@ -0,0 +1,48 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Dunab;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la aritmética de montos de CuentaDunab usada en cada transacción.
+ * Ejecutar con -prof gc para ver las asignaciones por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CuentaDunabBenchmark {
+
+    private CuentaDunab cuenta;
+    private Dunab[] montos;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = DatosBenchmark.random();
+        montos = new Dunab[1024];
+        for (int i = 0; i < montos.length; i++) {
+            montos[i] = DatosBenchmark.monto(random);
+        }
+        cuenta = DatosBenchmark.cuenta(1);
+    }
+
+    @Benchmark
+    public Dunab creditoYDebito() {
+        Dunab monto = montos[siguiente++ & (montos.length - 1)];
+        cuenta.agregarDunab(monto);
+        cuenta.restarDunab(monto);
+        return cuenta.getSaldoActual();
+    }
+
+    @Benchmark
+    public boolean tieneSaldoSuficiente() {
+        return cuenta.tieneSaldoSuficiente(montos[siguiente++ & (montos.length - 1)]);
+    }
+}
@@ -0,0 +1,91 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.model.*;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Generador de datos de prueba para los benchmarks.
+ * Usa una semilla fija para que las mediciones sean reproducibles entre ejecuciones.
+ */
+public final class DatosBenchmark {
+
+    private static final LocalDateTime FECHA_BASE = LocalDateTime.of(2025, 1, 15, 10, 0);
+
+    private DatosBenchmark() {
+    }
+
+    public static Random random() {
+        return new Random(42);
+    }
+
+    public static User estudiante(long id) {
+        return User.builder()
+                .id(id)
+                .nombre("Estudiante" + id)
+                .apellido("Apellido" + id)
+                .email("estudiante" + id + "@unab.edu.co")
+                .password("$2a$10$hashDePruebaNoUsadoEnLosBenchmarks")
+                .codigoEstudiante(String.format("U%08d", id))
+                .activo(true)
+                .fechaCreacion(FECHA_BASE)
+                .build();
+    }
+
+    public static CuentaDunab cuenta(long id) {
+        return CuentaDunab.builder()
+                .id(id)
+                .estudiante(estudiante(id))
+                .saldoActual(Dunab.deCentavos(50_000))
+                .totalGanado(Dunab.deCentavos(50_000))
+                .totalGastado(Dunab.CERO)
+                .estado(AccountStatus.ACTIVA)
+                .limiteTransaccion(Dunab.deCentavos(1_000_000))
+                .fechaCreacion(FECHA_BASE)
+                .build();
+    }
+
+    /**
+     * Monto con dos decimales entre 1.00 y 500.00
+     */
+    public static Dunab monto(Random random) {
+        return Dunab.deCentavos(100 + random.nextInt(49_901));
+    }
+
+    public static Transaccion transaccion(long id, CuentaDunab cuenta, Random random) {
+        boolean credito = random.nextBoolean();
+        Dunab monto = monto(random);
+        return Transaccion.builder()
+                .id(id)
+                .cuenta(cuenta)
+                .tipo(credito ? TransactionType.CREDITO : TransactionType.DEBITO)
+                .monto(monto)
+                .categoria(CategoriaTransaccion.builder()
+                        .id(credito ? 1L : 2L)
+                        .nombre(credito ? CategoriaTransaccion.EVENTO_ASISTENCIA : CategoriaTransaccion.SERVICIO)
+                        .tipo(credito ? TransactionType.CREDITO : TransactionType.DEBITO)
+                        .activa(true)
+                        .build())
+                .descripcion("Transacción de prueba " + id)
+                .referencia("REF-" + id)
+                .estado(TransactionStatus.COMPLETADA)
+                .saldoAnterior(cuenta.getSaldoActual())
+                .saldoPosterior(cuenta.getSaldoActual().sumar(monto))
+                .creadoPor(cuenta.getEstudiante())
+                .fechaCreacion(FECHA_BASE.plusMinutes(id))
+                .fechaActualizacion(FECHA_BASE.plusMinutes(id))
+                .build();
+    }
+
+    public static Notificacion notificacion(long id, User estudiante) {
+        return Notificacion.builder()
+                .id(id)
+                .estudiante(estudiante)
+                .tipo(Notificacion.TIPO_CREDITO)
+                .mensaje("Has recibido 25.00 DUNAB por asistencia al evento " + id)
+                .leida(false)
+                .fechaCreacion(FECHA_BASE.plusMinutes(id))
+                .build();
+    }
+}
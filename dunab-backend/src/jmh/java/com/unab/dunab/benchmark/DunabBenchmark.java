@@ -0,0 +1,90 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.model.Dunab;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara Dunab (long de centavos) con BigDecimal en las operaciones de montos de cada
+ * transacción: verificar el saldo, debitar o acreditar, y sumar montos como en las estadísticas
+ * y la conciliación. Cada operación procesa 1024 montos.
+ * Ejecutar con -prof gc para ver las asignaciones por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DunabBenchmark {
+
+    private static final int MONTOS = 1024;
+
+    private Dunab[] montos;
+    private BigDecimal[] montosDecimales;
+    private boolean[] debitos;
+    private Dunab saldoInicial;
+    private BigDecimal saldoInicialDecimal;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = DatosBenchmark.random();
+        montos = new Dunab[MONTOS];
+        montosDecimales = new BigDecimal[MONTOS];
+        debitos = new boolean[MONTOS];
+        for (int i = 0; i < MONTOS; i++) {
+            montos[i] = DatosBenchmark.monto(random);
+            montosDecimales[i] = montos[i].toBigDecimal();
+            debitos[i] = random.nextBoolean();
+        }
+        saldoInicial = Dunab.deCentavos(50_000);
+        saldoInicialDecimal = saldoInicial.toBigDecimal();
+    }
+
+    @Benchmark
+    public Dunab movimientosDunab() {
+        Dunab saldo = saldoInicial;
+        for (int i = 0; i < MONTOS; i++) {
+            if (!debitos[i]) {
+                saldo = saldo.sumar(montos[i]);
+            } else if (!saldo.esMenorQue(montos[i])) {
+                saldo = saldo.restar(montos[i]);
+            }
+        }
+        return saldo;
+    }
+
+    @Benchmark
+    public BigDecimal movimientosBigDecimal() {
+        BigDecimal saldo = saldoInicialDecimal;
+        for (int i = 0; i < MONTOS; i++) {
+            if (!debitos[i]) {
+                saldo = saldo.add(montosDecimales[i]);
+            } else if (saldo.compareTo(montosDecimales[i]) >= 0) {
+                saldo = saldo.subtract(montosDecimales[i]);
+            }
+        }
+        return saldo;
+    }
+
+    @Benchmark
+    public long sumaCentavos() {
+        long total = 0;
+        for (Dunab monto : montos) {
+            total = Math.addExact(total, monto.getCentavos());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal sumaBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal monto : montosDecimales) {
+            total = total.add(monto);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,72 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.dto.response.EventoResponse;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.utils.EventCalendar;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la consulta de los próximos eventos del calendario en memoria (lo que responde
+ * /api/events/upcoming) y el movimiento de un evento a otra fecha, con calendarios de distinto
+ * tamaño: la consulta solo debería depender del límite.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventCalendarBenchmark {
+
+    @Param({"100", "10000"})
+    private int eventos;
+
+    @Param({"3", "20"})
+    private int limite;
+
+    private final LocalDateTime ahora = LocalDateTime.of(2025, 1, 15, 10, 0);
+
+    private EventCalendar calendario;
+    private EventoResponse[] movidos;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        calendario = new EventCalendar();
+        for (int i = 0; i < eventos; i++) {
+            calendario.poner(evento(i + 1, ahora.plusHours(1 + i)));
+        }
+        movidos = new EventoResponse[1024];
+        for (int i = 0; i < movidos.length; i++) {
+            movidos[i] = evento((i % eventos) + 1, ahora.plusHours(1 + (i * 7L) % eventos).plusMinutes(i % 60));
+        }
+    }
+
+    @Benchmark
+    public List<EventoResponse> proximos() {
+        return calendario.proximos(ahora, limite);
+    }
+
+    @Benchmark
+    public void moverEvento() {
+        calendario.poner(movidos[siguiente++ & (movidos.length - 1)]);
+    }
+
+    private static EventoResponse evento(long id, LocalDateTime fecha) {
+        return EventoResponse.builder()
+                .id(id)
+                .nombre("Evento" + id)
+                .fechaEvento(fecha)
+                .capacidadMaxima(100)
+                .cuposOcupados(0)
+                .costoDunab(Dunab.CERO)
+                .recompensaDunab(Dunab.valueOf("10.00"))
+                .requiereConfirmacion(false)
+                .activo(true)
+                .build();
+    }
+}
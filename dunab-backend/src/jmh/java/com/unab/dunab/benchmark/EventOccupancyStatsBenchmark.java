@@ -0,0 +1,71 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.utils.EventOccupancyStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las estadísticas de ocupación en memoria: contar una inscripción (histograma por hora y
+ * reordenamiento del ranking), el ranking de ocupación y la serie de una semana de un evento, con
+ * pocos y muchos eventos. Consultar no debería depender de cuántos eventos hay.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventOccupancyStatsBenchmark {
+
+    private static final long HORA_MS = 3_600_000;
+
+    @Param({"100", "10000"})
+    private int eventos;
+
+    private final long ahora = System.currentTimeMillis();
+
+    private EventOccupancyStats estadisticas;
+    private long[] eventoIds;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = new Random(42);
+        estadisticas = new EventOccupancyStats();
+        eventoIds = new long[1024];
+        LocalDateTime fecha = LocalDateTime.of(2025, 6, 1, 10, 0);
+        for (int i = 0; i < eventos; i++) {
+            int capacidad = 50 + random.nextInt(500);
+            estadisticas.registrarEvento((long) i + 1, "Evento " + i, fecha.plusHours(i), capacidad,
+                    random.nextInt(capacidad));
+        }
+        // Una semana de inscripciones repartidas entre los eventos
+        for (int i = 0; i < eventos * 20; i++) {
+            estadisticas.inscripcion((long) random.nextInt(eventos) + 1,
+                    ahora - random.nextInt(EventOccupancyStats.HORAS) * HORA_MS);
+        }
+        estadisticas.tomarPendientes();
+        for (int i = 0; i < eventoIds.length; i++) {
+            eventoIds[i] = random.nextInt(eventos) + 1;
+        }
+    }
+
+    @Benchmark
+    public void inscripcion() {
+        estadisticas.inscripcion(eventoIds[siguiente++ & (eventoIds.length - 1)], ahora);
+    }
+
+    @Benchmark
+    public List<EventOccupancyStats.Ocupacion> ranking() {
+        return estadisticas.ranking(10, ahora);
+    }
+
+    @Benchmark
+    public List<EventOccupancyStats.Hora> serieSemana() {
+        return estadisticas.serie(eventoIds[siguiente++ & (eventoIds.length - 1)], EventOccupancyStats.HORAS, ahora);
+    }
+}
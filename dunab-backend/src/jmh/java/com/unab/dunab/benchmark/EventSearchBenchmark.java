@@ -0,0 +1,101 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.dto.response.EventoResponse;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.utils.EventSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las búsquedas de GET /api/events/search sobre el índice invertido de eventos (texto exacto,
+ * prefijo, ubicación, ventana de fechas y filtros de costo y recompensa combinados) y la
+ * construcción del índice, con decenas de miles de eventos. Las búsquedas deberían quedar por
+ * debajo del milisegundo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSearchBenchmark {
+
+    private static final String[] TEMAS = {"Conferencia", "Taller", "Seminario", "Foro", "Concierto",
+            "Torneo", "Feria", "Charla", "Congreso", "Exposición"};
+    private static final String[] AREAS = {"inteligencia artificial", "emprendimiento", "música andina",
+            "programación", "bienestar", "investigación", "robótica", "economía", "derecho", "diseño"};
+    private static final String[] LUGARES = {"Auditorio Mayor", "Biblioteca", "Edificio Ingenierías",
+            "Coliseo", "Campus El Jardín", "Sala de Música", "Laboratorio de Robótica", "Plazoleta Central"};
+
+    @Param({"10000", "50000"})
+    private int eventos;
+
+    private final LocalDateTime inicio = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    private List<EventoResponse> catalogo;
+    private EventSearchIndex indice;
+
+    private final EventSearchIndex.Consulta texto =
+            new EventSearchIndex.Consulta("Taller robótica", null, null, null, null, null);
+    private final EventSearchIndex.Consulta prefijo =
+            new EventSearchIndex.Consulta("progra", null, null, null, null, null);
+    private final EventSearchIndex.Consulta combinada = new EventSearchIndex.Consulta("conferencia",
+            "auditorio", inicio.plusDays(30), inicio.plusDays(120), true, true);
+    private final EventSearchIndex.Consulta fechas =
+            new EventSearchIndex.Consulta(null, null, inicio.plusDays(10), inicio.plusDays(40), false, null);
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = new Random(42);
+        catalogo = new ArrayList<>(eventos);
+        for (int i = 0; i < eventos; i++) {
+            String area = AREAS[random.nextInt(AREAS.length)];
+            catalogo.add(EventoResponse.builder()
+                    .id((long) i + 1)
+                    .nombre(TEMAS[random.nextInt(TEMAS.length)] + " de " + area + " " + i)
+                    .descripcion("Encuentro de la comunidad UNAB sobre " + area
+                            + " con invitados nacionales e internacionales")
+                    .fechaEvento(inicio.plusMinutes(random.nextInt(365 * 24 * 60)))
+                    .ubicacion(LUGARES[random.nextInt(LUGARES.length)])
+                    .capacidadMaxima(100)
+                    .cuposOcupados(0)
+                    .costoDunab(random.nextInt(3) == 0 ? Dunab.CERO : Dunab.valueOf("20.00"))
+                    .recompensaDunab(random.nextBoolean() ? Dunab.valueOf("10.00") : Dunab.CERO)
+                    .requiereConfirmacion(false)
+                    .activo(true)
+                    .build());
+        }
+        indice = EventSearchIndex.construir(catalogo);
+    }
+
+    @Benchmark
+    public EventSearchIndex.Resultado buscarTexto() {
+        return indice.buscar(texto, 0, 10);
+    }
+
+    @Benchmark
+    public EventSearchIndex.Resultado buscarPrefijo() {
+        return indice.buscar(prefijo, 0, 10);
+    }
+
+    @Benchmark
+    public EventSearchIndex.Resultado buscarCombinada() {
+        return indice.buscar(combinada, 0, 10);
+    }
+
+    @Benchmark
+    public EventSearchIndex.Resultado buscarFechas() {
+        return indice.buscar(fechas, 3, 10);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public EventSearchIndex construir() {
+        return EventSearchIndex.construir(catalogo);
+    }
+}
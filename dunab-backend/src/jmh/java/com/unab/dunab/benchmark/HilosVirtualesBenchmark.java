@@ -0,0 +1,121 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Transaccion;
+import com.unab.dunab.utils.TransactionHistoryStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compara hilos de plataforma (pool de 200, como el máximo por defecto de Tomcat) con hilos
+ * virtuales bajo carga bloqueante. Cada operación atiende un lote de peticiones simuladas que
+ * bloquean {@code demoraMs} (como una consulta JDBC) y registran la transacción en la pila.
+ *
+ * bloqueoEnSynchronized muestra el efecto del pinning: un hilo virtual que bloquea dentro de
+ * un bloque synchronized no libera su hilo portador.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HilosVirtualesBenchmark {
+
+    @Param({"plataforma", "virtual"})
+    private String hilos;
+
+    @Param({"2000"})
+    private int peticiones;
+
+    @Param({"2"})
+    private int demoraMs;
+
+    private ExecutorService executor;
+    private TransactionHistoryStack stack;
+    private Transaccion[] transacciones;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        executor = "virtual".equals(hilos)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(200);
+
+        Random random = DatosBenchmark.random();
+        CuentaDunab cuenta = DatosBenchmark.cuenta(1);
+        transacciones = new Transaccion[peticiones];
+        for (int i = 0; i < peticiones; i++) {
+            transacciones[i] = DatosBenchmark.transaccion(i + 1, cuenta, random);
+        }
+        stack = new TransactionHistoryStack();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int bloqueo() throws Exception {
+        return atender(i -> {
+            dormir();
+            stack.push(transacciones[i]);
+        });
+    }
+
+    @Benchmark
+    public int bloqueoConLock() throws Exception {
+        return atender(i -> {
+            ReentrantLock lock = new ReentrantLock();
+            lock.lock();
+            try {
+                dormir();
+            } finally {
+                lock.unlock();
+            }
+            stack.push(transacciones[i]);
+        });
+    }
+
+    @Benchmark
+    public int bloqueoEnSynchronized() throws Exception {
+        return atender(i -> {
+            synchronized (new Object()) {
+                dormir();
+            }
+            stack.push(transacciones[i]);
+        });
+    }
+
+    private int atender(IntConsumerBloqueante peticion) throws Exception {
+        List<Future<?>> pendientes = new ArrayList<>(peticiones);
+        for (int i = 0; i < peticiones; i++) {
+            int indice = i;
+            pendientes.add(executor.submit(() -> {
+                peticion.aceptar(indice);
+                return null;
+            }));
+        }
+        for (Future<?> pendiente : pendientes) {
+            pendiente.get();
+        }
+        return stack.size();
+    }
+
+    private void dormir() throws InterruptedException {
+        Thread.sleep(demoraMs);
+    }
+
+    @FunctionalInterface
+    private interface IntConsumerBloqueante {
+        void aceptar(int indice) throws Exception;
+    }
+}
@@ -0,0 +1,48 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el costo de generar y validar tokens JWT. validarYExtraerEmail reproduce
+ * lo que hace JwtAuthenticationFilter en cada petición autenticada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "your-256-bit-secret-key-change-this-in-production-make-it-very-long-and-secure");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 86_400_000L);
+        ReflectionTestUtils.setField(tokenProvider, "jwtRefreshExpirationMs", 604_800_000L);
+        token = tokenProvider.generateTokenFromEmail("estudiante1@unab.edu.co");
+    }
+
+    @Benchmark
+    public String generarToken() {
+        return tokenProvider.generateTokenFromEmail("estudiante1@unab.edu.co");
+    }
+
+    @Benchmark
+    public boolean validarToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String validarYExtraerEmail() {
+        return tokenProvider.validateToken(token) ? tokenProvider.getEmailFromToken(token) : null;
+    }
+}
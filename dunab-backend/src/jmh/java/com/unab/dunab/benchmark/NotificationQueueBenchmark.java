@@ -0,0 +1,61 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.model.Notificacion;
+import com.unab.dunab.model.User;
+import com.unab.dunab.utils.NotificationQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide enqueue/dequeue sobre una cola con carga sostenida y la búsqueda
+ * de notificaciones por estudiante (recorrido completo de la cola).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationQueueBenchmark {
+
+    @Param({"100", "10000"})
+    private int tamanoCola;
+
+    private static final int ESTUDIANTES = 500;
+
+    private NotificationQueue queue;
+    private Notificacion[] notificaciones;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        User[] estudiantes = new User[ESTUDIANTES];
+        for (int i = 0; i < ESTUDIANTES; i++) {
+            estudiantes[i] = DatosBenchmark.estudiante(i + 1);
+        }
+
+        notificaciones = new Notificacion[1024];
+        for (int i = 0; i < notificaciones.length; i++) {
+            notificaciones[i] = DatosBenchmark.notificacion(i + 1, estudiantes[i % ESTUDIANTES]);
+        }
+
+        queue = new NotificationQueue();
+        for (int i = 0; i < tamanoCola; i++) {
+            queue.enqueue(notificaciones[i % notificaciones.length]);
+        }
+    }
+
+    @Benchmark
+    public Optional<Notificacion> enqueueDequeue() {
+        queue.enqueue(notificaciones[siguiente++ & (notificaciones.length - 1)]);
+        return queue.dequeue();
+    }
+
+    @Benchmark
+    public List<Notificacion> getNotificacionesByEstudiante() {
+        return queue.getNotificacionesByEstudiante((long) (siguiente++ % ESTUDIANTES) + 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.unab.dunab.benchmark;
+
+import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Transaccion;
+import com.unab.dunab.utils.TransactionHistoryStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide push y consultas sobre la pila de historial llena (tamaño máximo),
+ * que es el estado normal en producción: cada push desplaza la transacción más antigua.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionHistoryStackBenchmark {
+
+    @Param({"50", "1000"})
+    private int cuentas;
+
+    private TransactionHistoryStack stack;
+    private Transaccion[] transacciones;
+    private long[] cuentasConsultadas;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = DatosBenchmark.random();
+        CuentaDunab[] pool = new CuentaDunab[cuentas];
+        for (int i = 0; i < cuentas; i++) {
+            pool[i] = DatosBenchmark.cuenta(i + 1);
+        }
+
+        transacciones = new Transaccion[4096];
+        for (int i = 0; i < transacciones.length; i++) {
+            transacciones[i] = DatosBenchmark.transaccion(i + 1, pool[random.nextInt(cuentas)], random);
+        }
+
+        cuentasConsultadas = new long[1024];
+        for (int i = 0; i < cuentasConsultadas.length; i++) {
+            cuentasConsultadas[i] = random.nextInt(cuentas) + 1;
+        }
+
+        stack = new TransactionHistoryStack();
+        for (Transaccion transaccion : transacciones) {
+            stack.push(transaccion);
+        }
+    }
+
+    @Benchmark
+    public int push() {
+        stack.push(transacciones[siguiente++ & (transacciones.length - 1)]);
+        return stack.size();
+    }
+
+    @Benchmark
+    public List<Transaccion> getRecent() {
+        return stack.getRecent(10);
+    }
+
+    @Benchmark
+    public List<Transaccion> getRecentByCuenta() {
+        return stack.getRecentByCuenta(cuentasConsultadas[siguiente++ & (cuentasConsultadas.length - 1)], 10);
+    }
+}
@@ -0,0 +1,55 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.benchmark.DatosBenchmark;
+import com.unab.dunab.dto.response.TransaccionResponse;
+import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Transaccion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide TransactionService.mapToResponse para una transacción y para una página
+ * típica del historial. Está en el paquete service porque el método no es público.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionMappingBenchmark {
+
+    private static final int TAMANO_PAGINA = 50;
+
+    private TransactionService transactionService;
+    private List<Transaccion> pagina;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        // mapToResponse no accede a repositorios, solo al grafo de la entidad
+        transactionService = new TransactionService(null, null, null, null, null, null, null, null, null, new SimpleMeterRegistry());
+
+        Random random = DatosBenchmark.random();
+        CuentaDunab cuenta = DatosBenchmark.cuenta(1);
+        pagina = new ArrayList<>(TAMANO_PAGINA);
+        for (int i = 0; i < TAMANO_PAGINA; i++) {
+            pagina.add(DatosBenchmark.transaccion(i + 1, cuenta, random));
+        }
+    }
+
+    @Benchmark
+    public TransaccionResponse mapearTransaccion() {
+        return transactionService.mapToResponse(pagina.get(siguiente++ % TAMANO_PAGINA));
+    }
+
+    @Benchmark
+    public List<TransaccionResponse> mapearPagina() {
+        return pagina.stream().map(transactionService::mapToResponse).toList();
+    }
+}
@@ -0,0 +1,41 @@
+package com.unab.dunab.loadtest;
+
+import com.unab.dunab.DunabApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arranque de la aplicación para las herramientas de este módulo: perfil dev,
+ * puerto aleatorio y logs mínimos.
+ */
+final class AplicacionDunab {
+
+    private AplicacionDunab() {
+    }
+
+    /**
+     * Los argumentos adicionales se agregan al final y tienen prioridad
+     * (por ejemplo --spring.datasource.url=... para usar PostgreSQL).
+     */
+    static ConfigurableApplicationContext iniciar(String... argumentosAdicionales) {
+        // DevTools reinicia la aplicación volviendo a invocar main() sin argumentos
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // Argumentos de línea de comandos: tienen prioridad sobre application-dev.properties
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--spring.profiles.active=dev",
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.unab.dunab=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.hibernate.SQL=WARN"));
+        argumentos.addAll(Arrays.asList(argumentosAdicionales));
+        return SpringApplication.run(DunabApplication.class, argumentos.toArray(String[]::new));
+    }
+}
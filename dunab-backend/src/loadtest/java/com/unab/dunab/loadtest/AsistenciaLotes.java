@@ -0,0 +1,153 @@
+package com.unab.dunab.loadtest;
+
+import com.unab.dunab.dto.response.AsistenciaEventoResponse;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.service.AsistenciaEventoService;
+import com.unab.dunab.service.DunabService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prueba de la confirmación de asistencia por lotes de un evento con recompensa.
+ *
+ * Siembra los estudiantes con sus cuentas y sus inscripciones (algunas canceladas) y confirma la
+ * asistencia en tres envíos: primero una parte de la lista de ids, como un envío interrumpido;
+ * después el archivo del registro de entrada completo por código de estudiante, con algunos
+ * códigos repetidos, inexistentes y de inscripciones canceladas; y por último el mismo archivo otra
+ * vez. Mide el envío completo contra el objetivo de tiempo y verifica que cada asistente quedó en
+ * ASISTIO con exactamente una recompensa enlazada y reflejada en su saldo, que el segundo envío
+ * del archivo no pagó nada y que las inscripciones canceladas no se pagaron. Termina con código 1
+ * si algo no se cumple.
+ *
+ * Los argumentos --spring.* y --dunab.* se pasan a la aplicación (por ejemplo para PostgreSQL).
+ *
+ * Ejecutar con: mvn -Ploadtest test-compile exec:exec@asistencia-lotes
+ */
+public class AsistenciaLotes {
+
+    public static void main(String[] args) throws Exception {
+        PruebaCarga.Argumentos argumentos = PruebaCarga.leerArgumentos(args,
+                "--logging.level.com.unab.dunab.service.AsistenciaEventoService=INFO");
+        int asistentes = argumentos.entero("asistentes", 2000);
+        int canceladas = argumentos.entero("canceladas", 50);
+        Dunab recompensa = argumentos.dunab("recompensa", "15.00");
+        double objetivoSegundos = argumentos.decimal("objetivo-s", 5);
+
+        PruebaCarga.ejecutar(argumentos,
+                contexto -> ejecutar(contexto, asistentes, canceladas, recompensa, objetivoSegundos));
+    }
+
+    private static boolean ejecutar(ConfigurableApplicationContext contexto, int cantidadAsistentes, int canceladas,
+                                    Dunab recompensa, double objetivoSegundos) throws IOException {
+        AsistenciaEventoService servicio = contexto.getBean(AsistenciaEventoService.class);
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        // El primer estudiante sembrado hace de organizador: confirma la asistencia pero no asiste
+        List<Long> estudiantes = PruebaCarga.sembrarEstudiantes(
+                contexto, "asistencia", 'A', cantidadAsistentes + canceladas + 1);
+        Long organizadorId = estudiantes.get(0);
+        List<Long> asistentes = estudiantes.subList(1, cantidadAsistentes + 1);
+        List<Long> cancelados = estudiantes.subList(cantidadAsistentes + 1, estudiantes.size());
+        Long eventoId = contexto.getBean(EventoRepository.class).save(Evento.builder()
+                .nombre("Prueba de asistencia por lotes")
+                .fechaEvento(LocalDateTime.now().minusHours(2))
+                .cuposOcupados(0)
+                .costoDunab(Dunab.CERO)
+                .recompensaDunab(recompensa)
+                .requiereConfirmacion(true)
+                .activo(true)
+                .build()).getId();
+        // Inscripciones confirmadas de los asistentes y canceladas de los demás
+        PruebaCarga.sembrarInscripciones(jdbcTemplate, List.of(eventoId), estudiantes.subList(1, estudiantes.size()),
+                i -> i < asistentes.size() ? "CONFIRMADA" : "CANCELADA");
+
+        List<String> fallas = new ArrayList<>();
+
+        // Envío interrumpido: solo llegó una parte de la lista
+        List<Long> parcial = new ArrayList<>(asistentes.subList(0, asistentes.size() / 3));
+        AsistenciaEventoResponse primero = servicio.confirmarLista(eventoId, parcial, organizadorId);
+        imprimir("Lista parcial", primero);
+        PruebaCarga.esperar(fallas, "confirmadas en la lista parcial", primero.getConfirmadas(), parcial.size());
+
+        // Archivo completo, en el orden de llegada, con repetidos, códigos inexistentes y cancelados
+        Map<Long, String> codigos = new HashMap<>();
+        jdbcTemplate.query("SELECT id, codigo_estudiante FROM users WHERE email LIKE 'asistencia%'",
+                rs -> {
+                    codigos.put(rs.getLong(1), rs.getString(2));
+                });
+        List<Long> llegada = new ArrayList<>(asistentes);
+        llegada.addAll(cancelados);
+        Collections.shuffle(llegada);
+        StringBuilder archivo = new StringBuilder("codigoEstudiante,hora\n");
+        llegada.forEach(id -> archivo.append(codigos.get(id)).append(",08:00\n"));
+        int repetidos = Math.min(20, asistentes.size());
+        asistentes.subList(0, repetidos).forEach(id -> archivo.append(codigos.get(id)).append(",08:05\n"));
+        archivo.append("Z99999999,08:10\n");
+        byte[] contenido = archivo.toString().getBytes(StandardCharsets.UTF_8);
+
+        AsistenciaEventoResponse completo = servicio.confirmarArchivo(
+                eventoId, new ByteArrayInputStream(contenido), organizadorId);
+        imprimir("Archivo completo", completo);
+        PruebaCarga.esperar(fallas, "confirmadas en el archivo completo", completo.getConfirmadas(),
+                asistentes.size() - parcial.size());
+        PruebaCarga.esperar(fallas, "ya confirmadas en el archivo completo", completo.getYaConfirmadas(),
+                parcial.size());
+        PruebaCarga.esperar(fallas, "rechazadas en el archivo completo", completo.getRechazadas(),
+                cancelados.size() + repetidos + 1);
+        if (completo.getDuracionMs() / 1000.0 > objetivoSegundos) {
+            fallas.add(String.format("el archivo completo tardó %.1f s (objetivo %.1f s)",
+                    completo.getDuracionMs() / 1000.0, objetivoSegundos));
+        }
+
+        // Repetir el archivo no paga nada
+        AsistenciaEventoResponse repetido = servicio.confirmarArchivo(
+                eventoId, new ByteArrayInputStream(contenido), organizadorId);
+        imprimir("Archivo repetido", repetido);
+        PruebaCarga.esperar(fallas, "confirmadas al repetir el archivo", repetido.getConfirmadas(), 0);
+        PruebaCarga.esperar(fallas, "ya confirmadas al repetir el archivo", repetido.getYaConfirmadas(),
+                asistentes.size());
+
+        verificar(jdbcTemplate, eventoId, recompensa, asistentes.size(), fallas);
+        return PruebaCarga.reportar(fallas, asistentes.size() + " asistencias confirmadas con una recompensa de "
+                + recompensa + " cada una, enlazada y reflejada en el saldo");
+    }
+
+    private static void imprimir(String envio, AsistenciaEventoResponse resultado) {
+        System.out.printf("%s: %d asistentes, %d confirmadas, %d ya confirmadas, %d rechazadas, %s acreditados "
+                        + "en %d ms%n", envio, resultado.getTotalAsistentes(), resultado.getConfirmadas(),
+                resultado.getYaConfirmadas(), resultado.getRechazadas(), resultado.getMontoAcreditado(),
+                resultado.getDuracionMs());
+    }
+
+    private static void verificar(JdbcTemplate jdbcTemplate, Long eventoId, Dunab recompensa, int asistentes,
+                                  List<String> fallas) {
+        PruebaCarga.verificarRecompensas(jdbcTemplate, eventoId, recompensa, asistentes, fallas);
+
+        PruebaCarga.esperar(fallas, "inscripciones canceladas con recompensa", PruebaCarga.contar(jdbcTemplate,
+                "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? AND estado = 'CANCELADA' "
+                        + "AND transaccion_recompensa_id IS NOT NULL", eventoId), 0);
+
+        PruebaCarga.esperar(fallas, "estudiantes con un saldo que no corresponde a su asistencia",
+                PruebaCarga.contar(jdbcTemplate, """
+                        SELECT COUNT(*) FROM cuentas_dunab c JOIN users u ON u.id = c.estudiante_id
+                        LEFT JOIN inscripciones_evento i
+                               ON i.estudiante_id = u.id AND i.evento_id = ? AND i.estado = 'ASISTIO'
+                        WHERE u.email LIKE 'asistencia%'
+                          AND (c.saldo_actual <> ? + CASE WHEN i.id IS NULL THEN 0 ELSE ? END
+                               OR c.total_ganado <> ? + CASE WHEN i.id IS NULL THEN 0 ELSE ? END)""",
+                        eventoId, DunabService.SALDO_INICIAL.toBigDecimal(), recompensa.toBigDecimal(),
+                        DunabService.SALDO_INICIAL.toBigDecimal(), recompensa.toBigDecimal()), 0);
+    }
+}
@@ -0,0 +1,76 @@
+package com.unab.dunab.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Cliente HTTP mínimo para la API DUNAB. Las llamadas son bloqueantes: cada
+ * usuario virtual corre en su propio hilo virtual.
+ */
+public class ClienteDunab {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(TIMEOUT)
+            .build();
+
+    public ClienteDunab(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * POST /api/auth/login. Devuelve la respuesta completa para poder medir el código de estado.
+     */
+    public HttpResponse<String> login(String email, String password) throws IOException, InterruptedException {
+        return postJson("/api/auth/login", null, Map.of("email", email, "password", password));
+    }
+
+    /**
+     * Extrae el token JWT de una respuesta de login exitosa
+     */
+    public String extraerToken(HttpResponse<String> respuesta) throws IOException {
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException("Login fallido (" + respuesta.statusCode() + "): " + respuesta.body());
+        }
+        JsonNode data = objectMapper.readTree(respuesta.body()).path("data");
+        return data.path("token").asText();
+    }
+
+    public HttpResponse<String> get(String ruta, String token) throws IOException, InterruptedException {
+        return enviar(peticion(ruta, token).GET().build());
+    }
+
+    public HttpResponse<String> postJson(String ruta, String token, Object cuerpo)
+            throws IOException, InterruptedException {
+        return enviar(peticion(ruta, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(cuerpo)))
+                .build());
+    }
+
+    private HttpRequest.Builder peticion(String ruta, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + ruta)).timeout(TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> enviar(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,75 @@
+package com.unab.dunab.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parámetros de la prueba de carga, recibidos como argumentos --clave=valor.
+ *
+ * @param estudiantes   estudiantes y cuentas DUNAB creados antes de la prueba
+ * @param usuarios      usuarios virtuales concurrentes (un hilo virtual cada uno)
+ * @param calentamiento tiempo inicial cuyas mediciones se descartan
+ * @param duracion      tiempo medido
+ * @param mezcla        peso relativo de cada operación
+ * @param reporte       archivo JSON de salida
+ * @param etiqueta      texto libre para identificar la ejecución (p. ej. el commit)
+ * @param hilosVirtuales levanta la aplicación con spring.threads.virtual.enabled=true
+ */
+public record ConfiguracionCarga(
+        int estudiantes,
+        int usuarios,
+        Duration calentamiento,
+        Duration duracion,
+        Map<Operacion, Integer> mezcla,
+        Path reporte,
+        String etiqueta,
+        boolean hilosVirtuales) {
+
+    private static final String MEZCLA_POR_DEFECTO =
+            "login=5,crear-transaccion=30,historial=35,no-leidas=20,ranking=10";
+
+    public static ConfiguracionCarga desdeArgumentos(String[] args) {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg + " (se espera --clave=valor)");
+            }
+            int igual = arg.indexOf('=');
+            valores.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+
+        return new ConfiguracionCarga(
+                Integer.parseInt(valores.getOrDefault("estudiantes", "200")),
+                Integer.parseInt(valores.getOrDefault("usuarios", "50")),
+                Duration.ofSeconds(Long.parseLong(valores.getOrDefault("calentamiento", "10"))),
+                Duration.ofSeconds(Long.parseLong(valores.getOrDefault("duracion", "60"))),
+                parsearMezcla(valores.getOrDefault("mezcla", MEZCLA_POR_DEFECTO)),
+                Path.of(valores.getOrDefault("reporte", "target/loadtest/loadtest-report.json")),
+                valores.getOrDefault("etiqueta", ""),
+                Boolean.parseBoolean(valores.getOrDefault("hilos-virtuales", "false")));
+    }
+
+    /**
+     * Convierte "login=5,historial=35" en pesos por operación
+     */
+    static Map<Operacion, Integer> parsearMezcla(String texto) {
+        Map<Operacion, Integer> mezcla = new EnumMap<>(Operacion.class);
+        for (String parte : texto.split(",")) {
+            String[] claveValor = parte.trim().split("=");
+            if (claveValor.length != 2) {
+                throw new IllegalArgumentException("Mezcla inválida: " + parte);
+            }
+            int peso = Integer.parseInt(claveValor[1].trim());
+            if (peso > 0) {
+                mezcla.put(Operacion.desdeNombre(claveValor[0].trim()), peso);
+            }
+        }
+        if (mezcla.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla de tráfico no tiene operaciones");
+        }
+        return mezcla;
+    }
+}
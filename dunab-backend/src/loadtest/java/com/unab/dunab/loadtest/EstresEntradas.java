@@ -0,0 +1,173 @@
+package com.unab.dunab.loadtest;
+
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.service.EntradaEventoService;
+import com.unab.dunab.utils.CheckInBuffer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de estrés de las entradas a un evento con token QR.
+ *
+ * Siembra los estudiantes, sus cuentas y sus inscripciones confirmadas a un evento con
+ * recompensa, genera el token de entrada de cada uno y luego, desde varios hilos, escanea todos
+ * los tokens en orden aleatorio junto con escaneos repetidos, tokens alterados y tokens de otro
+ * evento. Mide los escaneos por segundo contra el objetivo, espera a que el escritor por lotes
+ * vacíe las entradas pendientes y verifica que cada estudiante quedó en ASISTIO una sola vez con
+ * su recompensa, que los repetidos se informaron como tales y que ningún token inválido se
+ * aceptó. Termina con código 1 si algo no se cumple.
+ *
+ * Los argumentos --spring.* y --dunab.* se pasan a la aplicación (por ejemplo para PostgreSQL).
+ *
+ * Ejecutar con: mvn -Ploadtest test-compile exec:exec@estres-entradas
+ */
+public class EstresEntradas {
+
+    private static final long ESPERA_ESCRITURA_MS = 60_000;
+
+    private record Resultado(AtomicLong registradas, AtomicLong repetidas, AtomicLong rechazadas,
+                             Map<String, Long> errores) {
+
+        Resultado() {
+            this(new AtomicLong(), new AtomicLong(), new AtomicLong(), new ConcurrentHashMap<>());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        PruebaCarga.Argumentos argumentos = PruebaCarga.leerArgumentos(args);
+        int estudiantes = argumentos.entero("estudiantes", 5000);
+        int hilos = argumentos.entero("hilos", 16);
+        int repetidos = argumentos.entero("repetidos", 1000);
+        int invalidos = argumentos.entero("invalidos", 200);
+        double objetivoPorSegundo = argumentos.decimal("objetivo-por-segundo", 2000);
+
+        PruebaCarga.ejecutar(argumentos,
+                contexto -> ejecutar(contexto, estudiantes, hilos, repetidos, invalidos, objetivoPorSegundo));
+    }
+
+    private static boolean ejecutar(ConfigurableApplicationContext contexto, int cantidadEstudiantes, int hilos,
+                                    int repetidos, int invalidos, double objetivoPorSegundo)
+            throws InterruptedException {
+        EntradaEventoService servicio = contexto.getBean(EntradaEventoService.class);
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        Dunab recompensa = Dunab.valueOf("10.00");
+
+        // El primer estudiante sembrado hace de portero: registra las entradas pero no asiste
+        List<Long> estudiantes = PruebaCarga.sembrarEstudiantes(contexto, "entrada", 'E', cantidadEstudiantes + 1);
+        Long porteroId = estudiantes.get(0);
+        List<Long> asistentes = estudiantes.subList(1, estudiantes.size());
+        Long eventoId = crearEvento(contexto, recompensa);
+        Long otroEventoId = crearEvento(contexto, recompensa);
+        PruebaCarga.sembrarInscripciones(jdbcTemplate, List.of(eventoId), asistentes, i -> "CONFIRMADA");
+        PruebaCarga.sembrarInscripciones(jdbcTemplate, List.of(otroEventoId),
+                asistentes.subList(0, Math.min(invalidos, asistentes.size())), i -> "CONFIRMADA");
+
+        long inicio = System.nanoTime();
+        List<String> tokens = asistentes.stream()
+                .map(id -> servicio.generarToken(eventoId, id).getToken())
+                .toList();
+        System.out.printf("%d tokens generados en %.1f s, %d caracteres cada uno%n", tokens.size(),
+                (System.nanoTime() - inicio) / 1e9, tokens.get(0).length());
+
+        // Escaneos: uno por asistente, repetidos, tokens alterados y tokens de otro evento
+        List<String> escaneos = new ArrayList<>(tokens);
+        escaneos.addAll(tokens.subList(0, Math.min(repetidos, tokens.size())));
+        List<String> tokensInvalidos = new ArrayList<>();
+        for (int i = 0; i < invalidos && i < asistentes.size(); i++) {
+            String token = tokens.get(i);
+            // La firma de un estudiante con el id de otro
+            tokensInvalidos.add(eventoId + "." + asistentes.get((i + 1) % asistentes.size())
+                    + token.substring(token.lastIndexOf('.')));
+            tokensInvalidos.add(servicio.generarToken(otroEventoId, asistentes.get(i)).getToken());
+        }
+        escaneos.addAll(tokensInvalidos);
+        Collections.shuffle(escaneos);
+
+        Resultado resultado = new Resultado();
+        System.out.printf("%d escaneos (%d repetidos, %d inválidos) con %d hilos%n", escaneos.size(),
+                Math.min(repetidos, tokens.size()), tokensInvalidos.size(), hilos);
+        inicio = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(hilos)) {
+            escaneos.forEach(token -> executor.submit(() -> escanear(servicio, eventoId, token, porteroId, resultado)));
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        double porSegundo = escaneos.size() / segundos;
+        System.out.printf("%d registradas, %d repetidas, %d rechazadas en %.2f s (%.0f escaneos/s)%n",
+                resultado.registradas().get(), resultado.repetidas().get(), resultado.rechazadas().get(),
+                segundos, porSegundo);
+
+        inicio = System.nanoTime();
+        esperarEscritura(contexto.getBean(CheckInBuffer.class), jdbcTemplate, eventoId, asistentes.size());
+        System.out.printf("Entradas escritas %.2f s después del último escaneo%n", (System.nanoTime() - inicio) / 1e9);
+
+        List<String> fallas = new ArrayList<>();
+        resultado.errores().forEach((error, veces) -> fallas.add(veces + " escaneos fallaron: " + error));
+        PruebaCarga.esperar(fallas, "entradas registradas", resultado.registradas().get(), asistentes.size());
+        PruebaCarga.esperar(fallas, "entradas repetidas", resultado.repetidas().get(),
+                Math.min(repetidos, tokens.size()));
+        PruebaCarga.esperar(fallas, "tokens rechazados", resultado.rechazadas().get(), tokensInvalidos.size());
+        if (porSegundo < objetivoPorSegundo) {
+            fallas.add(String.format("%.0f escaneos/s no alcanzan el objetivo de %.0f", porSegundo, objetivoPorSegundo));
+        }
+        PruebaCarga.verificarRecompensas(jdbcTemplate, eventoId, recompensa, asistentes.size(), fallas);
+        PruebaCarga.esperar(fallas, "inscripciones en ASISTIO en el otro evento", PruebaCarga.contar(jdbcTemplate,
+                "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? AND estado = 'ASISTIO'",
+                otroEventoId), 0);
+        return PruebaCarga.reportar(fallas, asistentes.size() + " entradas confirmadas una vez cada una con su "
+                + "recompensa; repetidos y tokens inválidos rechazados");
+    }
+
+    private static void escanear(EntradaEventoService servicio, Long eventoId, String token, Long porteroId,
+                                 Resultado resultado) {
+        try {
+            boolean repetida = servicio.registrarEntrada(eventoId, token, porteroId).isRepetida();
+            (repetida ? resultado.repetidas() : resultado.registradas()).incrementAndGet();
+        } catch (InvalidOperationException e) {
+            resultado.rechazadas().incrementAndGet();
+        } catch (RuntimeException e) {
+            resultado.errores().merge(e.getClass().getSimpleName() + ": " + e.getMessage(), 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Espera a que el escritor vacíe las entradas pendientes y las confirme
+     */
+    private static void esperarEscritura(CheckInBuffer buffer, JdbcTemplate jdbcTemplate, Long eventoId,
+                                         int esperadas) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_ESCRITURA_MS;
+        while (System.currentTimeMillis() < limite) {
+            Integer asistio = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? AND estado = 'ASISTIO'",
+                    Integer.class, eventoId);
+            if (buffer.pendientes() == 0 && asistio != null && asistio >= esperadas) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static Long crearEvento(ConfigurableApplicationContext contexto, Dunab recompensa) {
+        return contexto.getBean(EventoRepository.class).save(Evento.builder()
+                .nombre("Prueba de estrés de entradas")
+                .fechaEvento(LocalDateTime.now().plusMinutes(30))
+                .cuposOcupados(0)
+                .costoDunab(Dunab.CERO)
+                .recompensaDunab(recompensa)
+                .requiereConfirmacion(true)
+                .activo(true)
+                .build()).getId();
+    }
+}
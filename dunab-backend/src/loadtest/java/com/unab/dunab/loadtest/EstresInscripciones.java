@@ -0,0 +1,324 @@
+package com.unab.dunab.loadtest;
+
+import com.unab.dunab.dto.response.EstadisticasEventoResponse;
+import com.unab.dunab.exception.DuplicateResourceException;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.EstadoInscripcion;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.service.DunabService;
+import com.unab.dunab.service.EstadisticaEventoService;
+import com.unab.dunab.service.InscripcionEventoService;
+import com.unab.dunab.utils.EventWaitlist;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de estrés de las inscripciones a un evento con cupo limitado y costo en DUNAB, en dos
+ * olas concurrentes. En la primera miles de estudiantes se inscriben a la vez (algunos dos veces):
+ * el evento se llena y el resto queda en la lista de espera. En la segunda algunos inscritos y
+ * algunos en espera cancelan y vuelven a inscribirse mientras los demás en espera reintentan; los
+ * cupos liberados se llenan desde la fila.
+ *
+ * Al terminar espera a que la lista de espera ocupe los cupos liberados y verifica que ninguna
+ * inscripción falló por un error distinto de inscripción duplicada, que eventos.cupos_ocupados
+ * coincide con las inscripciones activas y no supera la capacidad, que no quedan cupos libres con
+ * estudiantes esperando, que se promovió un estudiante por cupo liberado y en orden de turno, que cada inscripción
+ * activa tiene exactamente un pago completado por el costo del evento (las canceladas su pago
+ * anulado y las en espera ninguno), que no quedaron cobros sin inscripción, que el saldo de cada
+ * estudiante refleja solo los cobros de inscripciones activas y que las estadísticas de ocupación,
+ * contadas en memoria inscripción por inscripción, dan los mismos cupos ocupados (en memoria y en
+ * estadisticas_evento_hora). Termina con código 1 si algo no se cumple.
+ *
+ * Los argumentos --spring.* y --dunab.* se pasan a la aplicación (por ejemplo para PostgreSQL).
+ *
+ * Ejecutar con: mvn -Ploadtest test-compile exec:exec@estres-inscripciones
+ */
+public class EstresInscripciones {
+
+    private static final long ESPERA_PROMOCIONES_MS = 120_000;
+
+    private record Resultado(AtomicLong inscritas, AtomicLong enEspera, AtomicLong duplicadas,
+                             AtomicLong canceladas, Map<String, Long> errores) {
+
+        Resultado() {
+            this(new AtomicLong(), new AtomicLong(), new AtomicLong(), new AtomicLong(), new ConcurrentHashMap<>());
+        }
+
+        /**
+         * Reinicia los contadores de la ola; los errores se conservan
+         */
+        void reiniciar() {
+            inscritas.set(0);
+            enEspera.set(0);
+            duplicadas.set(0);
+            canceladas.set(0);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        PruebaCarga.Argumentos argumentos = PruebaCarga.leerArgumentos(args,
+                // Los cobros de reinscripción no deben chocar con los límites de gasto
+                "--dunab.limites.debito-diario=0",
+                "--dunab.limites.debito-semanal=0",
+                // Las estadísticas no se recargan de la tabla eventos durante la prueba: se verifica
+                // lo contado en memoria
+                "--dunab.eventos.estadisticas.intervalo-recarga-ms=3600000");
+        int estudiantes = argumentos.entero("estudiantes", 10000);
+        int capacidad = argumentos.entero("capacidad", 7500);
+        int hilos = argumentos.entero("hilos", 64);
+        Dunab costo = argumentos.dunab("costo", "5.00");
+        int duplicados = argumentos.entero("duplicados", 1000);
+        int cancelaciones = argumentos.entero("cancelaciones", 500);
+
+        PruebaCarga.ejecutar(argumentos,
+                contexto -> ejecutar(contexto, estudiantes, capacidad, hilos, costo, duplicados, cancelaciones));
+    }
+
+    private static boolean ejecutar(ConfigurableApplicationContext contexto, int cantidadEstudiantes, int capacidad,
+                                    int hilos, Dunab costo, int duplicados, int cancelaciones)
+            throws InterruptedException {
+        InscripcionEventoService inscripcionEventoService = contexto.getBean(InscripcionEventoService.class);
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        List<Long> estudiantes = PruebaCarga.sembrarEstudiantes(contexto, "inscripcion", 'I', cantidadEstudiantes);
+        Evento evento = contexto.getBean(EventoRepository.class).save(Evento.builder()
+                .nombre("Prueba de estrés de inscripciones")
+                .fechaEvento(LocalDateTime.now().plusDays(7))
+                .capacidadMaxima(capacidad)
+                .cuposOcupados(0)
+                .costoDunab(costo)
+                .recompensaDunab(Dunab.CERO)
+                .requiereConfirmacion(false)
+                .activo(true)
+                .build());
+        Long eventoId = evento.getId();
+        // Lo que hace EventoService al crear el evento
+        EstadisticaEventoService estadisticaEventoService = contexto.getBean(EstadisticaEventoService.class);
+        estadisticaEventoService.actualizarEvento(evento);
+
+        // Primera ola: una inscripción por estudiante, más las repetidas, en orden aleatorio. El
+        // evento se llena y el resto queda en la lista de espera.
+        Resultado resultado = new Resultado();
+        List<Long> mezclados = new ArrayList<>(estudiantes);
+        Collections.shuffle(mezclados);
+        List<Runnable> inscripciones = new ArrayList<>();
+        mezclados.forEach(id -> inscripciones.add(() -> inscribir(inscripcionEventoService, eventoId, id, resultado)));
+        mezclados.stream().limit(duplicados)
+                .forEach(id -> inscripciones.add(() -> inscribir(inscripcionEventoService, eventoId, id, resultado)));
+        Collections.shuffle(inscripciones);
+        System.out.printf("Ola 1: %d inscripciones de %d estudiantes a un evento de %d cupos con %d hilos%n",
+                inscripciones.size(), estudiantes.size(), capacidad, hilos);
+        double segundos = ejecutarTareas(inscripciones, hilos);
+        imprimir(resultado, inscripciones.size(), segundos);
+
+        // Segunda ola: inscritos y estudiantes en espera cancelan y vuelven a inscribirse (al final
+        // de la fila) mientras los que esperan reintentan; cada cupo liberado es para la fila
+        List<Long> inscritos = idsPorEstado(jdbcTemplate, eventoId, "CONFIRMADA", cancelaciones);
+        List<Long> enEspera = idsPorEstado(jdbcTemplate, eventoId, "EN_ESPERA", duplicados + cancelaciones / 5);
+        Integer esperandoAntes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? AND estado = 'EN_ESPERA'",
+                Integer.class, eventoId);
+        List<Runnable> cambios = new ArrayList<>();
+        Collections.shuffle(enEspera);
+        List<Long> retiros = new ArrayList<>(inscritos);
+        retiros.addAll(enEspera.subList(0, Math.min(cancelaciones / 5, enEspera.size())));
+        retiros.forEach(id -> cambios.add(() -> {
+            try {
+                inscripcionEventoService.cancelar(eventoId, id);
+                resultado.canceladas().incrementAndGet();
+            } catch (RuntimeException e) {
+                registrarError(resultado, "cancelar", e);
+                return;
+            }
+            inscribir(inscripcionEventoService, eventoId, id, resultado);
+        }));
+        enEspera.forEach(id -> cambios.add(() -> inscribir(inscripcionEventoService, eventoId, id, resultado)));
+        Collections.shuffle(cambios);
+        System.out.printf("Ola 2: %d cancelaciones de inscritos, %d de estudiantes en espera, %d reintentos%n",
+                inscritos.size(), retiros.size() - inscritos.size(), enEspera.size());
+        resultado.reiniciar();
+        segundos = ejecutarTareas(cambios, hilos);
+        imprimir(resultado, cambios.size() + retiros.size(), segundos);
+
+        esperarPromociones(jdbcTemplate, eventoId, capacidad);
+        // Cada cupo liberado en la segunda ola se llena desde la fila, si alcanzaba
+        int promocionesEsperadas = Math.min(inscritos.size(), esperandoAntes - (retiros.size() - inscritos.size()));
+        estadisticaEventoService.guardar();
+        return verificar(jdbcTemplate, eventoId, capacidad, costo, resultado, promocionesEsperadas,
+                contexto.getBean(EventWaitlist.class).size(), estadisticaEventoService.getEstadisticas(eventoId, 24));
+    }
+
+    private static double ejecutarTareas(List<Runnable> tareas, int hilos) {
+        long inicio = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(hilos)) {
+            tareas.forEach(executor::submit);
+        }
+        return (System.nanoTime() - inicio) / 1e9;
+    }
+
+    private static void imprimir(Resultado resultado, int operaciones, double segundos) {
+        long conError = resultado.errores().values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("%d inscritas, %d en espera, %d duplicadas, %d canceladas, %d con error "
+                        + "en %.1f s (%.0f operaciones/s)%n",
+                resultado.inscritas().get(), resultado.enEspera().get(), resultado.duplicadas().get(),
+                resultado.canceladas().get(), conError, segundos, operaciones / segundos);
+    }
+
+    private static List<Long> idsPorEstado(JdbcTemplate jdbcTemplate, Long eventoId, String estado, int cantidad) {
+        List<Long> ids = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT estudiante_id FROM inscripciones_evento WHERE evento_id = ? AND estado = ?",
+                Long.class, eventoId, estado));
+        Collections.shuffle(ids);
+        return new ArrayList<>(ids.subList(0, Math.min(cantidad, ids.size())));
+    }
+
+    /**
+     * @return estado de la inscripción o null si no quedó registrada
+     */
+    private static EstadoInscripcion inscribir(InscripcionEventoService servicio, Long eventoId, Long estudianteId,
+                                               Resultado resultado) {
+        try {
+            EstadoInscripcion estado = servicio.inscribir(eventoId, estudianteId).getEstado();
+            (estado == EstadoInscripcion.EN_ESPERA ? resultado.enEspera() : resultado.inscritas()).incrementAndGet();
+            return estado;
+        } catch (DuplicateResourceException e) {
+            resultado.duplicadas().incrementAndGet();
+        } catch (RuntimeException e) {
+            registrarError(resultado, "inscribir", e);
+        }
+        return null;
+    }
+
+    /**
+     * Espera a que la lista de espera ocupe los cupos liberados por las cancelaciones
+     */
+    private static void esperarPromociones(JdbcTemplate jdbcTemplate, Long eventoId, int capacidad)
+            throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_PROMOCIONES_MS;
+        while (System.currentTimeMillis() < limite) {
+            Integer cupos = jdbcTemplate.queryForObject(
+                    "SELECT cupos_ocupados FROM eventos WHERE id = ?", Integer.class, eventoId);
+            Integer enEspera = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? AND estado = 'EN_ESPERA'",
+                    Integer.class, eventoId);
+            if (cupos != null && cupos >= capacidad || enEspera == null || enEspera == 0) {
+                return;
+            }
+            Thread.sleep(200);
+        }
+    }
+
+    private static void registrarError(Resultado resultado, String operacion, RuntimeException e) {
+        resultado.errores().merge(operacion + " - " + e.getClass().getSimpleName() + ": " + e.getMessage(),
+                1L, Long::sum);
+    }
+
+    private static boolean verificar(JdbcTemplate jdbcTemplate, Long eventoId, int capacidad, Dunab costo,
+                                     Resultado resultado, int promocionesEsperadas, int enEsperaEnMemoria,
+                                     EstadisticasEventoResponse estadisticas) {
+        List<String> fallas = new ArrayList<>();
+        resultado.errores().forEach((error, veces) -> fallas.add(veces + " operaciones fallaron: " + error));
+
+        Integer cuposOcupados = jdbcTemplate.queryForObject(
+                "SELECT cupos_ocupados FROM eventos WHERE id = ?", Integer.class, eventoId);
+        Integer activas = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? AND estado IN ('CONFIRMADA', 'PENDIENTE')",
+                Integer.class, eventoId);
+        Integer enEspera = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? AND estado = 'EN_ESPERA'",
+                Integer.class, eventoId);
+        if (!Objects.equals(cuposOcupados, activas)) {
+            fallas.add("cupos_ocupados es " + cuposOcupados + " y hay " + activas + " inscripciones activas");
+        }
+        if (activas == null || activas > capacidad) {
+            fallas.add(activas + " inscripciones activas superan la capacidad de " + capacidad);
+        }
+        if (enEspera != null && enEspera > 0 && activas != null && activas < capacidad) {
+            fallas.add((capacidad - activas) + " cupos libres con " + enEspera + " estudiantes en espera");
+        }
+        if (enEspera == null || enEspera != enEsperaEnMemoria) {
+            fallas.add(enEspera + " inscripciones en espera y " + enEsperaEnMemoria + " en la lista en memoria");
+        }
+
+        // Los promovidos conservan su turno: ninguno puede ser posterior a alguien que sigue esperando
+        Integer fueraDeTurno = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM inscripciones_evento p
+                WHERE p.evento_id = ? AND p.estado IN ('CONFIRMADA', 'PENDIENTE') AND p.turno_espera IS NOT NULL
+                  AND p.turno_espera > (SELECT MIN(e.turno_espera) FROM inscripciones_evento e
+                                        WHERE e.evento_id = p.evento_id AND e.estado = 'EN_ESPERA')""",
+                Integer.class, eventoId);
+        Integer promovidas = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? "
+                        + "AND estado IN ('CONFIRMADA', 'PENDIENTE') AND turno_espera IS NOT NULL",
+                Integer.class, eventoId);
+        if (promovidas == null || promovidas != promocionesEsperadas) {
+            fallas.add(promovidas + " inscripciones promovidas desde la lista de espera; se esperaban "
+                    + promocionesEsperadas);
+        }
+        if (fueraDeTurno != null && fueraDeTurno > 0) {
+            fallas.add(fueraDeTurno + " estudiantes promovidos antes que alguien con un turno anterior");
+        }
+
+        Integer pagosIncorrectos = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM inscripciones_evento i
+                LEFT JOIN transacciones t ON t.id = i.transaccion_pago_id
+                WHERE i.evento_id = ?
+                  AND ((i.estado IN ('CONFIRMADA', 'PENDIENTE')
+                        AND (t.id IS NULL OR t.tipo <> 'DEBITO' OR t.monto <> ? OR t.estado <> 'COMPLETADA'))
+                    OR (i.estado = 'EN_ESPERA' AND i.transaccion_pago_id IS NOT NULL)
+                    OR (i.estado = 'CANCELADA' AND t.id IS NOT NULL AND t.estado <> 'ANULADA'))""",
+                Integer.class, eventoId, costo.toBigDecimal());
+        if (pagosIncorrectos != null && pagosIncorrectos > 0) {
+            fallas.add(pagosIncorrectos + " inscripciones sin su pago o con el pago en un estado incorrecto");
+        }
+
+        Integer cobros = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transacciones WHERE referencia = ? AND estado = 'COMPLETADA'",
+                Integer.class, "EVT-" + eventoId);
+        if (!Objects.equals(cobros, activas)) {
+            fallas.add(cobros + " cobros completados para " + activas + " inscripciones activas");
+        }
+
+        Integer saldosIncorrectos = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM cuentas_dunab c JOIN users u ON u.id = c.estudiante_id
+                LEFT JOIN inscripciones_evento i
+                       ON i.estudiante_id = u.id AND i.evento_id = ? AND i.estado IN ('CONFIRMADA', 'PENDIENTE')
+                WHERE u.email LIKE 'inscripcion%'
+                  AND c.saldo_actual <> ? - CASE WHEN i.id IS NULL THEN 0 ELSE ? END""",
+                Integer.class, eventoId, DunabService.SALDO_INICIAL.toBigDecimal(), costo.toBigDecimal());
+        if (saldosIncorrectos != null && saldosIncorrectos > 0) {
+            fallas.add(saldosIncorrectos + " estudiantes con un saldo que no corresponde a sus inscripciones");
+        }
+
+        // Inscripciones que ocuparon cupo menos cancelaciones que lo liberaron = cupos ocupados
+        Long guardadas = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(inscripciones - cancelaciones), 0) FROM estadisticas_evento_hora WHERE evento_id = ?",
+                Long.class, eventoId);
+        if (!Objects.equals(estadisticas.getCuposOcupados(), activas)
+                || estadisticas.getInscripciones() - estadisticas.getCancelaciones() != activas) {
+            fallas.add("las estadísticas en memoria cuentan " + estadisticas.getCuposOcupados() + " cupos ocupados ("
+                    + estadisticas.getInscripciones() + " inscripciones, " + estadisticas.getCancelaciones()
+                    + " cancelaciones) y hay " + activas + " inscripciones activas");
+        }
+        if (guardadas == null || activas == null || guardadas.longValue() != activas) {
+            fallas.add("estadisticas_evento_hora suma " + guardadas + " cupos ocupados y hay " + activas
+                    + " inscripciones activas");
+        }
+
+        return PruebaCarga.reportar(fallas, activas + " inscripciones activas de " + capacidad + " cupos ("
+                + promovidas + " promovidas desde la lista de espera), " + enEspera
+                + " en espera, pagos, saldos y estadísticas consistentes");
+    }
+}
@@ -0,0 +1,169 @@
+package com.unab.dunab.loadtest;
+
+import com.unab.dunab.dto.request.TransaccionRequest;
+import com.unab.dunab.dto.request.TransferenciaRequest;
+import com.unab.dunab.exception.InsufficientBalanceException;
+import com.unab.dunab.model.TransactionType;
+import com.unab.dunab.service.DunabService;
+import com.unab.dunab.service.SubSaldoService;
+import com.unab.dunab.service.TransactionService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de estrés de las transferencias: miles de transferencias aleatorias concurrentes entre
+ * pocas cuentas (muchas en sentidos opuestos entre el mismo par) y verificación de consistencia.
+ *
+ * Al terminar verifica que ninguna transferencia falló por un error distinto de saldo
+ * insuficiente (un deadlock o un timeout de bloqueo cuentan como fallo), que la suma de los
+ * saldos no cambió, que ningún saldo es negativo, que el saldo y los totales de cada cuenta
+ * coinciden con sus transacciones y que cada transferencia tiene exactamente un débito y un
+ * crédito. Termina con código 1 si algo no se cumple.
+ *
+ * Con --sub-saldos=N la mitad de las cuentas usa N sub-saldos (SubSaldoService): sus créditos
+ * bloquean la cuenta en modo compartido y sus débitos compactan los sub-saldos. Los sub-saldos
+ * se compactan antes de verificar.
+ *
+ * Los argumentos --spring.* y --dunab.* se pasan a la aplicación (por ejemplo para PostgreSQL).
+ *
+ * Ejecutar con: mvn -Ploadtest test-compile exec:exec@estres-transferencias
+ */
+public class EstresTransferencias {
+
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+
+    public static void main(String[] args) throws Exception {
+        PruebaCarga.Argumentos argumentos = PruebaCarga.leerArgumentos(args,
+                // Los límites de gasto rechazarían parte de las transferencias; aquí se prueban los bloqueos
+                "--dunab.limites.debito-diario=0",
+                "--dunab.limites.debito-semanal=0");
+        int cuentas = argumentos.entero("cuentas", 20);
+        int transferencias = argumentos.entero("transferencias", 5000);
+        int hilos = argumentos.entero("hilos", 32);
+        int subSaldos = argumentos.entero("sub-saldos", 0);
+
+        PruebaCarga.ejecutar(argumentos, contexto -> ejecutar(contexto, cuentas, transferencias, hilos, subSaldos));
+    }
+
+    private static boolean ejecutar(ConfigurableApplicationContext contexto, int cuentas, int transferencias,
+                                    int hilos, int subSaldos) throws IOException, InterruptedException {
+        TransactionService transactionService = contexto.getBean(TransactionService.class);
+        SubSaldoService subSaldoService = contexto.getBean(SubSaldoService.class);
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        // id de usuario → id de cuenta, cada cuenta con SALDO_INICIAL
+        Map<Long, Long> cuentaPorUsuario = PruebaCarga.importarEstudiantes(contexto, "estres", 'E', cuentas);
+        List<Long> usuarios = new ArrayList<>(cuentaPorUsuario.keySet());
+        for (Long usuarioId : usuarios) {
+            transactionService.crearTransaccion(new TransaccionRequest(cuentaPorUsuario.get(usuarioId),
+                    TransactionType.CREDITO, SALDO_INICIAL, null, "Saldo inicial", null), usuarioId);
+        }
+        if (subSaldos > 0) {
+            for (int i = 0; i < usuarios.size(); i += 2) {
+                subSaldoService.configurar(cuentaPorUsuario.get(usuarios.get(i)), subSaldos);
+            }
+        }
+        BigDecimal totalInicial = sumaSaldos(jdbcTemplate);
+
+        AtomicLong exitosas = new AtomicLong();
+        AtomicLong sinSaldo = new AtomicLong();
+        Map<String, Long> errores = new ConcurrentHashMap<>();
+        System.out.printf("Ejecutando %d transferencias entre %d cuentas con %d hilos (sub-saldos: %d)%n",
+                transferencias, usuarios.size(), hilos, subSaldos);
+
+        long inicio = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(hilos)) {
+            for (int i = 0; i < transferencias; i++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    Long origen = usuarios.get(random.nextInt(usuarios.size()));
+                    Long destino;
+                    do {
+                        destino = usuarios.get(random.nextInt(usuarios.size()));
+                    } while (destino.equals(origen));
+                    BigDecimal monto = BigDecimal.valueOf(random.nextLong(1, 30_001), 2);
+                    try {
+                        transactionService.transferir(new TransferenciaRequest(
+                                cuentaPorUsuario.get(destino), monto, "Prueba de estrés"), origen);
+                        exitosas.incrementAndGet();
+                    } catch (InsufficientBalanceException e) {
+                        sinSaldo.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        errores.merge(e.getClass().getSimpleName() + ": " + e.getMessage(), 1L, Long::sum);
+                    }
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("%d exitosas, %d rechazadas por saldo, %d con error en %.1f s (%.0f transferencias/s)%n",
+                exitosas.get(), sinSaldo.get(), errores.values().stream().mapToLong(Long::longValue).sum(),
+                segundos, transferencias / segundos);
+
+        subSaldoService.compactarProgramado();
+        List<String> fallas = new ArrayList<>();
+        errores.forEach((error, veces) -> fallas.add(veces + " transferencias fallaron: " + error));
+
+        BigDecimal totalFinal = sumaSaldos(jdbcTemplate);
+        if (totalFinal.compareTo(totalInicial) != 0) {
+            fallas.add("La suma de saldos cambió: " + totalInicial + " → " + totalFinal);
+        }
+
+        Integer negativos = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cuentas_dunab WHERE saldo_actual < 0", Integer.class);
+        if (negativos != null && negativos > 0) {
+            fallas.add(negativos + " cuentas con saldo negativo");
+        }
+
+        jdbcTemplate.query("""
+                SELECT c.id, c.saldo_actual, c.total_ganado, c.total_gastado,
+                       COALESCE(SUM(CASE WHEN t.tipo = 'CREDITO' THEN t.monto END), 0),
+                       COALESCE(SUM(CASE WHEN t.tipo = 'DEBITO' THEN t.monto END), 0)
+                FROM cuentas_dunab c JOIN users u ON u.id = c.estudiante_id
+                LEFT JOIN transacciones t ON t.cuenta_id = c.id AND t.estado = 'COMPLETADA'
+                WHERE u.email LIKE 'estres%'
+                GROUP BY c.id, c.saldo_actual, c.total_ganado, c.total_gastado""", rs -> {
+            // Las cuentas se crean con el saldo inicial, que no tiene transacción
+            BigDecimal creditos = rs.getBigDecimal(5).add(DunabService.SALDO_INICIAL.toBigDecimal());
+            BigDecimal debitos = rs.getBigDecimal(6);
+            if (rs.getBigDecimal(2).compareTo(creditos.subtract(debitos)) != 0
+                    || rs.getBigDecimal(3).compareTo(creditos) != 0
+                    || rs.getBigDecimal(4).compareTo(debitos) != 0) {
+                fallas.add(String.format("Cuenta %d: saldo %s, ganado %s, gastado %s; esperado: +%s -%s",
+                        rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3), rs.getBigDecimal(4),
+                        creditos, debitos));
+            }
+        });
+
+        Long referencias = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT referencia) FROM transacciones WHERE referencia LIKE 'TRF-%'", Long.class);
+        if (referencias == null || referencias != exitosas.get()) {
+            fallas.add("Se esperaban " + exitosas.get() + " transferencias registradas y hay " + referencias);
+        }
+        Integer malFormadas = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM (
+                    SELECT referencia FROM transacciones WHERE referencia LIKE 'TRF-%' GROUP BY referencia
+                    HAVING COUNT(*) <> 2 OR SUM(CASE WHEN tipo = 'DEBITO' THEN 1 ELSE 0 END) <> 1
+                        OR MIN(monto) <> MAX(monto) OR MIN(cuenta_id) = MAX(cuenta_id)) x""", Integer.class);
+        if (malFormadas != null && malFormadas > 0) {
+            fallas.add(malFormadas + " transferencias sin exactamente un débito y un crédito del mismo monto");
+        }
+
+        return PruebaCarga.reportar(fallas, "saldos consistentes (total " + totalFinal + ")");
+    }
+
+    private static BigDecimal sumaSaldos(JdbcTemplate jdbcTemplate) {
+        BigDecimal total = jdbcTemplate.queryForObject("SELECT SUM(saldo_actual) FROM cuentas_dunab", BigDecimal.class);
+        return total != null ? total : BigDecimal.ZERO;
+    }
+}
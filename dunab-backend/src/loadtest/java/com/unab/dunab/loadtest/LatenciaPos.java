@@ -0,0 +1,176 @@
+package com.unab.dunab.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unab.dunab.security.JwtTokenProvider;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark de latencia de los débitos de punto de venta, comparados con el débito por la ruta
+ * general (POST /api/dunab/transactions) en las mismas condiciones.
+ *
+ * Varias cajas concurrentes envían débitos por HTTP intercalando las tres rutas (código de
+ * estudiante, código QR y ruta general) sobre estudiantes al azar. Las primeras peticiones son
+ * de calentamiento y no se miden. Imprime p50/p99/p999 por ruta y termina con código 1 si el p99
+ * de alguna ruta de punto de venta supera el objetivo o si hubo errores.
+ *
+ * Los argumentos --spring.* y --dunab.* se pasan a la aplicación (por ejemplo para PostgreSQL).
+ *
+ * Ejecutar con: mvn -Ploadtest test-compile exec:exec@latencia-pos
+ */
+public class LatenciaPos {
+
+    private static final String PASSWORD = LoadTestRunner.PASSWORD;
+
+    private enum Ruta {
+        POS_CODIGO("pos-codigo"),
+        POS_QR("pos-qr"),
+        GENERAL("general");
+
+        private final String nombre;
+
+        Ruta(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    private record Estudiante(long usuarioId, long cuentaId, String codigo, String tokenQr) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PruebaCarga.Argumentos argumentos = PruebaCarga.leerArgumentos(args,
+                // Se mide la latencia del débito, no los límites de gasto
+                "--dunab.limites.debito-diario=0",
+                "--dunab.limites.debito-semanal=0",
+                // Los tokens QR se generan al inicio y deben durar toda la ejecución
+                "--jwt.qr-expiration=3600000");
+        int estudiantes = argumentos.entero("estudiantes", 200);
+        int cajas = argumentos.entero("cajas", 8);
+        int debitos = argumentos.entero("debitos", 6000);
+        int calentamiento = argumentos.entero("calentamiento", 3000);
+        double objetivoP99Ms = argumentos.decimal("objetivo-p99-ms", 20);
+
+        PruebaCarga.ejecutar(argumentos,
+                contexto -> ejecutar(contexto, estudiantes, cajas, debitos, calentamiento, objetivoP99Ms));
+    }
+
+    private static boolean ejecutar(ConfigurableApplicationContext contexto, int cantidadEstudiantes, int cajas,
+                                    int debitos, int calentamiento, double objetivoP99Ms) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+        ClienteDunab cliente = new ClienteDunab("http://localhost:" + puerto, objectMapper);
+
+        List<Estudiante> estudiantes = sembrarEstudiantes(contexto, cantidadEstudiantes);
+        // El primer estudiante hace de cajero
+        String token = cliente.extraerToken(cliente.login("pos1@unab.edu.co", PASSWORD));
+
+        Map<Ruta, RegistroLatencias> registros = new EnumMap<>(Ruta.class);
+        for (Ruta ruta : Ruta.values()) {
+            registros.put(ruta, new RegistroLatencias());
+        }
+        Map<String, Integer> errores = new ConcurrentHashMap<>();
+        AtomicInteger siguiente = new AtomicInteger();
+        int total = calentamiento + debitos;
+        System.out.printf("Ejecutando %d débitos (%d de calentamiento) con %d cajas sobre %d estudiantes%n",
+                total, calentamiento, cajas, estudiantes.size());
+
+        long inicio = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < cajas; i++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int numero;
+                    while ((numero = siguiente.getAndIncrement()) < total) {
+                        Ruta ruta = Ruta.values()[numero % Ruta.values().length];
+                        Estudiante estudiante = estudiantes.get(random.nextInt(estudiantes.size()));
+                        BigDecimal monto = BigDecimal.valueOf(random.nextInt(1, 101), 2);
+                        long antes = System.nanoTime();
+                        try {
+                            HttpResponse<String> respuesta = debitar(cliente, token, ruta, estudiante, monto);
+                            if (numero >= calentamiento) {
+                                registros.get(ruta).registrar(System.nanoTime() - antes, respuesta.statusCode());
+                            }
+                            if (respuesta.statusCode() != 201) {
+                                registrarError(errores, ruta.nombre + " " + respuesta.statusCode() + ": "
+                                        + respuesta.body());
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (Exception e) {
+                            registros.get(ruta).registrarFallo();
+                            registrarError(errores, ruta.nombre + " " + e);
+                        }
+                    }
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.printf("%n%-12s %10s %8s %10s %10s %10s %10s%n",
+                "ruta", "débitos", "errores", "p50 ms", "p99 ms", "p999 ms", "máx ms");
+        boolean correcto = true;
+        for (Ruta ruta : Ruta.values()) {
+            RegistroLatencias.ResumenOperacion resumen = registros.get(ruta).resumir(segundos);
+            System.out.printf("%-12s %10d %8d %10.2f %10.2f %10.2f %10.2f%n",
+                    ruta.nombre, resumen.peticiones(), resumen.errores(),
+                    resumen.p50Ms(), resumen.p99Ms(), resumen.p999Ms(), resumen.maxMs());
+            if (ruta != Ruta.GENERAL && resumen.p99Ms() > objetivoP99Ms) {
+                System.out.printf("FAIL %s: p99 %.2f ms supera el objetivo de %.2f ms%n",
+                        ruta.nombre, resumen.p99Ms(), objetivoP99Ms);
+                correcto = false;
+            }
+        }
+        errores.entrySet().stream().limit(20).forEach(error ->
+                System.out.println("FAIL " + error.getValue() + " veces: " + error.getKey()));
+        correcto &= errores.isEmpty();
+        System.out.printf("%.1f s (%.0f débitos/s)%n", segundos, total / segundos);
+        return correcto;
+    }
+
+    private static HttpResponse<String> debitar(ClienteDunab cliente, String token, Ruta ruta, Estudiante estudiante,
+                                                BigDecimal monto) throws IOException, InterruptedException {
+        return switch (ruta) {
+            case POS_CODIGO -> cliente.postJson("/api/dunab/pos/debits", token, Map.of(
+                    "codigoEstudiante", estudiante.codigo(), "monto", monto, "descripcion", "Almuerzo"));
+            case POS_QR -> cliente.postJson("/api/dunab/pos/debits", token, Map.of(
+                    "tokenQr", estudiante.tokenQr(), "monto", monto, "descripcion", "Almuerzo"));
+            case GENERAL -> cliente.postJson("/api/dunab/transactions", token, Map.of(
+                    "cuentaId", estudiante.cuentaId(), "tipo", "DEBITO", "monto", monto, "descripcion", "Almuerzo"));
+        };
+    }
+
+    private static void registrarError(Map<String, Integer> errores, String error) {
+        errores.merge(error.length() > 200 ? error.substring(0, 200) : error, 1, Integer::sum);
+    }
+
+    /**
+     * Crea los estudiantes con la importación CSV, con un token QR para cada uno
+     */
+    private static List<Estudiante> sembrarEstudiantes(ConfigurableApplicationContext contexto, int cantidad)
+            throws IOException {
+        JwtTokenProvider jwtTokenProvider = contexto.getBean(JwtTokenProvider.class);
+        List<Estudiante> estudiantes = new ArrayList<>();
+        Map<Long, Long> cuentas = PruebaCarga.importarEstudiantes(contexto, "pos", 'P', cantidad);
+        // Los usuarios vienen en el orden de la importación: el i-ésimo tiene el código P{i}
+        int numero = 1;
+        for (Map.Entry<Long, Long> cuenta : cuentas.entrySet()) {
+            estudiantes.add(new Estudiante(cuenta.getKey(), cuenta.getValue(), String.format("P%08d", numero++),
+                    jwtTokenProvider.generarTokenQr(cuenta.getKey())));
+        }
+        return estudiantes;
+    }
+}
@@ -0,0 +1,257 @@
+package com.unab.dunab.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.unab.dunab.dto.response.ImportacionEstudiantesResponse;
+import com.unab.dunab.service.ImportacionEstudiantesService;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Prueba de carga de extremo a extremo contra una instancia con el perfil dev (H2 en memoria).
+ *
+ * 1. Levanta la aplicación en un puerto aleatorio.
+ * 2. Crea los estudiantes y sus cuentas con la importación masiva.
+ * 3. Cada usuario virtual inicia sesión y ejecuta la mezcla de tráfico en un hilo virtual.
+ * 4. Escribe un reporte JSON con p50/p99/p999 y throughput por endpoint.
+ *
+ * Ejecutar con: mvn -Ploadtest test-compile exec:exec
+ */
+public class LoadTestRunner {
+
+    static final String PASSWORD = "Carga2025*";
+
+    private final ConfiguracionCarga configuracion;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<Operacion, RegistroLatencias> registros = new EnumMap<>(Operacion.class);
+    private final Operacion[] operacionesPonderadas;
+
+    private List<Sesion> sesiones;
+    private List<String> emails;
+    private ClienteDunab cliente;
+
+    public LoadTestRunner(ConfiguracionCarga configuracion) {
+        this.configuracion = configuracion;
+        configuracion.mezcla().keySet().forEach(operacion -> registros.put(operacion, new RegistroLatencias()));
+
+        // Tabla de selección: cada operación aparece tantas veces como su peso
+        List<Operacion> tabla = new ArrayList<>();
+        configuracion.mezcla().forEach((operacion, peso) -> tabla.addAll(Collections.nCopies(peso, operacion)));
+        this.operacionesPonderadas = tabla.toArray(Operacion[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracionCarga configuracion = ConfiguracionCarga.desdeArgumentos(args);
+        int codigoSalida = new LoadTestRunner(configuracion).ejecutar();
+        System.exit(codigoSalida);
+    }
+
+    /**
+     * Usuario virtual autenticado con su cuenta DUNAB
+     */
+    record Sesion(String email, String token, long cuentaId) {
+    }
+
+    int ejecutar() throws Exception {
+        try (ConfigurableApplicationContext contexto = AplicacionDunab.iniciar(
+                "--spring.threads.virtual.enabled=" + configuracion.hilosVirtuales())) {
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            cliente = new ClienteDunab("http://localhost:" + puerto, objectMapper);
+
+            long inicioSemilla = System.nanoTime();
+            Map<String, Long> cuentasPorEmail = sembrarEstudiantes(contexto);
+            emails = new ArrayList<>(cuentasPorEmail.keySet());
+            sesiones = iniciarSesiones(cuentasPorEmail);
+            long duracionSemillaMs = (System.nanoTime() - inicioSemilla) / 1_000_000;
+            System.out.printf("Datos preparados en %d ms: %d estudiantes, %d sesiones%n",
+                    duracionSemillaMs, emails.size(), sesiones.size());
+
+            double segundosMedidos = generarCarga();
+            Map<String, Object> reporte = construirReporte(duracionSemillaMs, segundosMedidos);
+            Files.createDirectories(configuracion.reporte().toAbsolutePath().getParent());
+            objectMapper.writeValue(configuracion.reporte().toFile(), reporte);
+            imprimirResumen(segundosMedidos);
+            System.out.println("Reporte: " + configuracion.reporte().toAbsolutePath());
+        }
+        return 0;
+    }
+
+    /**
+     * Crea los estudiantes con la importación CSV y devuelve email → id de cuenta
+     */
+    private Map<String, Long> sembrarEstudiantes(ConfigurableApplicationContext contexto) throws IOException {
+        StringBuilder csv = new StringBuilder("nombre,apellido,email,password,codigoEstudiante\n");
+        for (int i = 1; i <= configuracion.estudiantes(); i++) {
+            csv.append("Estudiante").append(',')
+                    .append("Carga").append(i).append(',')
+                    .append("carga").append(i).append("@unab.edu.co").append(',')
+                    .append(PASSWORD).append(',')
+                    .append(String.format("C%08d", i)).append('\n');
+        }
+
+        ImportacionEstudiantesResponse resultado = contexto.getBean(ImportacionEstudiantesService.class)
+                .importar(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        if (resultado.getRechazados() > 0) {
+            throw new IllegalStateException("La importación rechazó filas: " + resultado.getErrores());
+        }
+
+        Map<String, Long> cuentasPorEmail = new LinkedHashMap<>();
+        contexto.getBean(JdbcTemplate.class).query(
+                "SELECT u.email, c.id FROM users u JOIN cuentas_dunab c ON c.estudiante_id = u.id ORDER BY u.id",
+                rs -> {
+                    cuentasPorEmail.put(rs.getString(1), rs.getLong(2));
+                });
+        return cuentasPorEmail;
+    }
+
+    /**
+     * Un usuario virtual por estudiante (o por cada uno de los primeros si hay más estudiantes que usuarios)
+     */
+    private List<Sesion> iniciarSesiones(Map<String, Long> cuentasPorEmail) throws Exception {
+        List<Future<Sesion>> pendientes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < configuracion.usuarios(); i++) {
+                String email = emails.get(i % emails.size());
+                pendientes.add(executor.submit(() -> new Sesion(
+                        email, cliente.extraerToken(cliente.login(email, PASSWORD)), cuentasPorEmail.get(email))));
+            }
+        }
+        List<Sesion> resultado = new ArrayList<>(pendientes.size());
+        for (Future<Sesion> pendiente : pendientes) {
+            resultado.add(pendiente.get());
+        }
+        return resultado;
+    }
+
+    /**
+     * Ejecuta la mezcla durante calentamiento + duración. Devuelve los segundos realmente medidos.
+     */
+    private double generarCarga() {
+        long inicio = System.nanoTime();
+        long finCalentamiento = inicio + configuracion.calentamiento().toNanos();
+        long fin = finCalentamiento + configuracion.duracion().toNanos();
+        System.out.printf("Generando carga: %d usuarios virtuales, %ds de calentamiento + %ds medidos%n",
+                sesiones.size(), configuracion.calentamiento().toSeconds(), configuracion.duracion().toSeconds());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Sesion sesion : sesiones) {
+                executor.submit(() -> usuarioVirtual(sesion, finCalentamiento, fin));
+            }
+        }
+        return Math.max(0, System.nanoTime() - finCalentamiento) / 1e9;
+    }
+
+    private void usuarioVirtual(Sesion sesion, long finCalentamiento, long fin) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long inicio;
+        while ((inicio = System.nanoTime()) < fin) {
+            Operacion operacion = operacionesPonderadas[random.nextInt(operacionesPonderadas.length)];
+            boolean medir = inicio >= finCalentamiento;
+            try {
+                int codigo = ejecutarOperacion(operacion, sesion, random).statusCode();
+                if (medir) {
+                    registros.get(operacion).registrar(System.nanoTime() - inicio, codigo);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (medir) {
+                    registros.get(operacion).registrarFallo();
+                }
+            }
+        }
+    }
+
+    private HttpResponse<String> ejecutarOperacion(Operacion operacion, Sesion sesion, ThreadLocalRandom random)
+            throws IOException, InterruptedException {
+        return switch (operacion) {
+            case LOGIN -> cliente.login(emails.get(random.nextInt(emails.size())), PASSWORD);
+            case CREAR_TRANSACCION -> cliente.postJson("/api/dunab/transactions", sesion.token(), Map.of(
+                    "cuentaId", sesion.cuentaId(),
+                    "tipo", random.nextBoolean() ? "CREDITO" : "DEBITO",
+                    "monto", BigDecimal.valueOf(random.nextInt(100, 2_001), 2),
+                    "descripcion", "Prueba de carga"));
+            case HISTORIAL -> cliente.get("/api/dunab/transactions/mis-transacciones?page=0&size=10", sesion.token());
+            case NO_LEIDAS -> cliente.get("/api/notifications/unread-count", sesion.token());
+            case RANKING -> cliente.get("/api/dunab/ranking", sesion.token());
+        };
+    }
+
+    private Map<String, Object> construirReporte(long duracionSemillaMs, double segundosMedidos) {
+        Map<String, Object> configuracionReporte = new LinkedHashMap<>();
+        configuracionReporte.put("estudiantes", configuracion.estudiantes());
+        configuracionReporte.put("usuariosVirtuales", sesiones.size());
+        configuracionReporte.put("hilosVirtuales", configuracion.hilosVirtuales());
+        configuracionReporte.put("calentamientoSegundos", configuracion.calentamiento().toSeconds());
+        configuracionReporte.put("duracionSegundos", configuracion.duracion().toSeconds());
+        Map<String, Integer> mezcla = new LinkedHashMap<>();
+        configuracion.mezcla().forEach((operacion, peso) -> mezcla.put(operacion.getNombre(), peso));
+        configuracionReporte.put("mezcla", mezcla);
+
+        Map<String, Object> operaciones = new LinkedHashMap<>();
+        long totalPeticiones = 0;
+        long totalErrores = 0;
+        for (Map.Entry<Operacion, RegistroLatencias> entrada : registros.entrySet()) {
+            RegistroLatencias.ResumenOperacion resumen = entrada.getValue().resumir(segundosMedidos);
+            Map<String, Object> detalle = new LinkedHashMap<>();
+            detalle.put("endpoint", entrada.getKey().getEndpoint());
+            detalle.put("resumen", resumen);
+            operaciones.put(entrada.getKey().getNombre(), detalle);
+            totalPeticiones += resumen.peticiones();
+            totalErrores += resumen.errores();
+        }
+
+        Map<String, Object> total = new LinkedHashMap<>();
+        total.put("peticiones", totalPeticiones);
+        total.put("errores", totalErrores);
+        total.put("throughputPorSegundo", segundosMedidos > 0 ? totalPeticiones / segundosMedidos : 0);
+
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("etiqueta", configuracion.etiqueta());
+        reporte.put("fecha", LocalDateTime.now());
+        reporte.put("java", Runtime.version().toString());
+        reporte.put("procesadores", Runtime.getRuntime().availableProcessors());
+        reporte.put("configuracion", configuracionReporte);
+        reporte.put("preparacionMs", duracionSemillaMs);
+        reporte.put("segundosMedidos", segundosMedidos);
+        reporte.put("total", total);
+        reporte.put("operaciones", operaciones);
+        return reporte;
+    }
+
+    private void imprimirResumen(double segundosMedidos) {
+        System.out.printf("%n%-20s %10s %8s %10s %10s %10s %10s%n",
+                "operación", "peticiones", "errores", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        registros.forEach((operacion, registro) -> {
+            RegistroLatencias.ResumenOperacion resumen = registro.resumir(segundosMedidos);
+            System.out.printf("%-20s %10d %8d %10.1f %10.2f %10.2f %10.2f%n",
+                    operacion.getNombre(), resumen.peticiones(), resumen.errores(),
+                    resumen.throughputPorSegundo(), resumen.p50Ms(), resumen.p99Ms(), resumen.p999Ms());
+        });
+    }
+}
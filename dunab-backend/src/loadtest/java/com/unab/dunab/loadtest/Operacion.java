@@ -0,0 +1,37 @@
+package com.unab.dunab.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Operaciones de la mezcla de tráfico, con el nombre usado en la configuración y en el reporte
+ */
+public enum Operacion {
+    LOGIN("login", "POST /api/auth/login"),
+    CREAR_TRANSACCION("crear-transaccion", "POST /api/dunab/transactions"),
+    HISTORIAL("historial", "GET /api/dunab/transactions/mis-transacciones"),
+    NO_LEIDAS("no-leidas", "GET /api/notifications/unread-count"),
+    RANKING("ranking", "GET /api/dunab/ranking");
+
+    private final String nombre;
+    private final String endpoint;
+
+    Operacion(String nombre, String endpoint) {
+        this.nombre = nombre;
+        this.endpoint = endpoint;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public static Operacion desdeNombre(String nombre) {
+        return Arrays.stream(values())
+                .filter(operacion -> operacion.nombre.equals(nombre))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Operación desconocida: " + nombre));
+    }
+}
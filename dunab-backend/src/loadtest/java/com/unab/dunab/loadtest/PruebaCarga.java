@@ -0,0 +1,269 @@
+package com.unab.dunab.loadtest;
+
+import com.unab.dunab.dto.response.ImportacionEstudiantesResponse;
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.service.DunabService;
+import com.unab.dunab.service.ImportacionEstudiantesService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Lo que comparten las pruebas de carga que se ejecutan con exec:exec: la lectura de los
+ * argumentos, el arranque de la aplicación y el código de salida, la siembra de estudiantes e
+ * inscripciones y las verificaciones sobre la base de datos.
+ *
+ * Los estudiantes se siembran por JDBC con una misma contraseña ya cifrada (la importación cifra
+ * cada contraseña con BCrypt, lo que con miles de estudiantes tarda más que la prueba misma), o
+ * con la importación CSV cuando la prueba necesita pocos.
+ */
+final class PruebaCarga {
+
+    static final int TAMANO_LOTE = 1000;
+
+    private static final int FALLAS_IMPRESAS = 50;
+
+    private PruebaCarga() {
+    }
+
+    /**
+     * Cuerpo de una prueba: devuelve false si algo no se cumple
+     */
+    @FunctionalInterface
+    interface Prueba {
+        boolean ejecutar(ConfigurableApplicationContext contexto) throws Exception;
+    }
+
+    /**
+     * Argumentos de una prueba
+     *
+     * @param valores     Los --clave=valor propios de la prueba
+     * @param aplicacion  Los que se pasan a la aplicación: los fijos de la prueba y los --spring.* y --dunab.*
+     */
+    record Argumentos(Map<String, String> valores, List<String> aplicacion) {
+
+        int entero(String clave, int porDefecto) {
+            return valores.containsKey(clave) ? Integer.parseInt(valores.get(clave)) : porDefecto;
+        }
+
+        double decimal(String clave, double porDefecto) {
+            return valores.containsKey(clave) ? Double.parseDouble(valores.get(clave)) : porDefecto;
+        }
+
+        Dunab dunab(String clave, String porDefecto) {
+            return Dunab.valueOf(valores.getOrDefault(clave, porDefecto));
+        }
+    }
+
+    /**
+     * Separa los argumentos de la línea de comandos: --spring.* y --dunab.* van a la aplicación
+     * después de los fijos de la prueba (así pueden reemplazarlos); los demás --clave=valor son de
+     * la prueba
+     */
+    static Argumentos leerArgumentos(String[] args, String... fijosAplicacion) {
+        Map<String, String> valores = new HashMap<>();
+        List<String> aplicacion = new ArrayList<>(List.of(fijosAplicacion));
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--dunab.")) {
+                aplicacion.add(arg);
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                valores.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank()) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg + " (se espera --clave=valor)");
+            }
+        }
+        return new Argumentos(valores, aplicacion);
+    }
+
+    /**
+     * Arranca la aplicación, ejecuta la prueba, la detiene y termina con código 1 si algo no se cumplió
+     */
+    static void ejecutar(Argumentos argumentos, Prueba prueba) throws Exception {
+        boolean correcto;
+        try (ConfigurableApplicationContext contexto = AplicacionDunab.iniciar(
+                argumentos.aplicacion().toArray(String[]::new))) {
+            correcto = prueba.ejecutar(contexto);
+        }
+        System.exit(correcto ? 0 : 1);
+    }
+
+    /**
+     * Inserta los estudiantes {prefijo}{i}@unab.edu.co, con código {inicial}{i:08}, y sus cuentas
+     * con el saldo inicial; devuelve sus ids en orden
+     */
+    static List<Long> sembrarEstudiantes(ConfigurableApplicationContext contexto, String prefijo, char inicial,
+                                         int cantidad) {
+        List<Long> ids = sembrarUsuarios(contexto, prefijo, inicial, cantidad);
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> cuentas = ids.stream()
+                .map(id -> new Object[]{id, DunabService.SALDO_INICIAL.toBigDecimal(),
+                        DunabService.SALDO_INICIAL.toBigDecimal(), Dunab.CERO.toBigDecimal(),
+                        AccountStatus.ACTIVA.name(), DunabService.LIMITE_TRANSACCION_INICIAL.toBigDecimal(),
+                        ahora, ahora})
+                .toList();
+        contexto.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO cuentas_dunab (estudiante_id, "
+                + "saldo_actual, total_ganado, total_gastado, estado, limite_transaccion, fecha_creacion, "
+                + "fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", cuentas);
+        return ids;
+    }
+
+    /**
+     * Como {@link #sembrarEstudiantes} pero sin cuenta DUNAB
+     */
+    static List<Long> sembrarUsuarios(ConfigurableApplicationContext contexto, String prefijo, char inicial,
+                                      int cantidad) {
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        String password = contexto.getBean(PasswordEncoder.class).encode(LoadTestRunner.PASSWORD);
+        String apellido = apellido(prefijo);
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        for (int desde = 1; desde <= cantidad; desde += TAMANO_LOTE) {
+            List<Object[]> usuarios = new ArrayList<>();
+            for (int i = desde; i < Math.min(desde + TAMANO_LOTE, cantidad + 1); i++) {
+                usuarios.add(new Object[]{"Estudiante", apellido + i, prefijo + i + "@unab.edu.co",
+                        password, String.format("%c%08d", inicial, i), Boolean.TRUE, ahora, ahora});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO users (nombre, apellido, email, password, codigo_estudiante, "
+                    + "activo, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", usuarios);
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE email LIKE ? ORDER BY id", Long.class, prefijo + "%");
+    }
+
+    /**
+     * Crea los estudiantes con la importación CSV (como {@link #sembrarEstudiantes}, con la
+     * contraseña de LoadTestRunner) y devuelve id de usuario → id de cuenta, en orden
+     */
+    static Map<Long, Long> importarEstudiantes(ConfigurableApplicationContext contexto, String prefijo, char inicial,
+                                               int cantidad) throws IOException {
+        String apellido = apellido(prefijo);
+        StringBuilder csv = new StringBuilder("nombre,apellido,email,password,codigoEstudiante\n");
+        for (int i = 1; i <= cantidad; i++) {
+            csv.append("Estudiante,").append(apellido).append(i).append(',').append(prefijo).append(i)
+                    .append("@unab.edu.co,").append(LoadTestRunner.PASSWORD).append(',')
+                    .append(String.format("%c%08d", inicial, i)).append('\n');
+        }
+        ImportacionEstudiantesResponse resultado = contexto.getBean(ImportacionEstudiantesService.class)
+                .importar(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        if (resultado.getRechazados() > 0) {
+            throw new IllegalStateException("La importación rechazó filas: " + resultado.getErrores());
+        }
+
+        Map<Long, Long> cuentaPorUsuario = new LinkedHashMap<>();
+        contexto.getBean(JdbcTemplate.class).query(
+                "SELECT u.id, c.id FROM users u JOIN cuentas_dunab c ON c.estudiante_id = u.id "
+                        + "WHERE u.email LIKE ? ORDER BY u.id",
+                rs -> {
+                    cuentaPorUsuario.put(rs.getLong(1), rs.getLong(2));
+                }, prefijo + "%");
+        return cuentaPorUsuario;
+    }
+
+    /**
+     * Inscribe a los estudiantes en cada evento, con el estado que corresponde a la posición del
+     * estudiante en la lista, y deja cupos_ocupados de cada evento en sus inscripciones activas
+     * (PENDIENTE o CONFIRMADA)
+     */
+    static void sembrarInscripciones(JdbcTemplate jdbcTemplate, List<Long> eventos, List<Long> estudiantes,
+                                     IntFunction<String> estadoPorPosicion) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inscripciones = new ArrayList<>();
+        int activas = 0;
+        for (int i = 0; i < estudiantes.size(); i++) {
+            String estado = estadoPorPosicion.apply(i);
+            if (estado.equals("PENDIENTE") || estado.equals("CONFIRMADA")) {
+                activas++;
+            }
+        }
+        for (Long eventoId : eventos) {
+            for (int i = 0; i < estudiantes.size(); i++) {
+                inscripciones.add(new Object[]{eventoId, estudiantes.get(i), estadoPorPosicion.apply(i), ahora, ahora});
+                if (inscripciones.size() == TAMANO_LOTE) {
+                    insertarInscripciones(jdbcTemplate, inscripciones);
+                }
+            }
+        }
+        insertarInscripciones(jdbcTemplate, inscripciones);
+
+        int cupos = activas;
+        jdbcTemplate.batchUpdate("UPDATE eventos SET cupos_ocupados = ? WHERE id = ?",
+                eventos.stream().map(eventoId -> new Object[]{cupos, eventoId}).toList());
+    }
+
+    private static void insertarInscripciones(JdbcTemplate jdbcTemplate, List<Object[]> inscripciones) {
+        jdbcTemplate.batchUpdate("INSERT INTO inscripciones_evento (evento_id, estudiante_id, estado, "
+                + "fecha_inscripcion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?)", inscripciones);
+        inscripciones.clear();
+    }
+
+    /**
+     * @return resultado de una consulta COUNT(*), o -1 si no devolvió nada
+     */
+    static long contar(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        Long cantidad = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return cantidad == null ? -1 : cantidad;
+    }
+
+    static void esperar(List<String> fallas, String descripcion, long obtenido, long esperado) {
+        if (obtenido != esperado) {
+            fallas.add(obtenido + " " + descripcion + "; se esperaban " + esperado);
+        }
+    }
+
+    /**
+     * Verifica que los asistentes del evento quedaron en ASISTIO, cada uno con una recompensa
+     * completada por el monto del evento, en su cuenta y enlazada a su inscripción
+     */
+    static void verificarRecompensas(JdbcTemplate jdbcTemplate, Long eventoId, Dunab recompensa, int asistentes,
+                                     List<String> fallas) {
+        esperar(fallas, "inscripciones en ASISTIO", contar(jdbcTemplate,
+                "SELECT COUNT(*) FROM inscripciones_evento WHERE evento_id = ? AND estado = 'ASISTIO'",
+                eventoId), asistentes);
+
+        esperar(fallas, "asistencias sin su recompensa enlazada", contar(jdbcTemplate, """
+                SELECT COUNT(*) FROM inscripciones_evento i
+                LEFT JOIN transacciones t ON t.id = i.transaccion_recompensa_id
+                WHERE i.evento_id = ? AND i.estado = 'ASISTIO'
+                  AND (t.id IS NULL OR t.tipo <> 'CREDITO' OR t.monto <> ? OR t.estado <> 'COMPLETADA'
+                       OR t.cuenta_id <> (SELECT c.id FROM cuentas_dunab c WHERE c.estudiante_id = i.estudiante_id))""",
+                eventoId, recompensa.toBigDecimal()), 0);
+
+        esperar(fallas, "recompensas pagadas", contar(jdbcTemplate,
+                "SELECT COUNT(*) FROM transacciones WHERE referencia LIKE ?", "RWD-EVT-" + eventoId + "-%"),
+                asistentes);
+    }
+
+    /**
+     * Imprime OK con el resumen, o las primeras fallas
+     *
+     * @return true si no hubo fallas
+     */
+    static boolean reportar(List<String> fallas, String resumen) {
+        if (fallas.isEmpty()) {
+            System.out.println("OK: " + resumen);
+            return true;
+        }
+        fallas.stream().limit(FALLAS_IMPRESAS).forEach(falla -> System.out.println("FAIL " + falla));
+        return false;
+    }
+
+    /**
+     * "asistencia" → "Asistencia"
+     */
+    private static String apellido(String prefijo) {
+        return Character.toUpperCase(prefijo.charAt(0)) + prefijo.substring(1);
+    }
+}
@@ -0,0 +1,159 @@
+package com.unab.dunab.loadtest;
+
+import com.unab.dunab.dto.request.EventoRequest;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.service.EventoService;
+import com.unab.dunab.service.RecordatorioEventoService;
+import com.unab.dunab.utils.ReminderTimingWheel;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prueba de los recordatorios de eventos próximos con miles de eventos.
+ *
+ * Siembra los estudiantes y los eventos: la mitad empieza en 30 minutos (su recordatorio de una
+ * hora ya venció y se envía de inmediato) y la otra mitad entre 2 y 180 días después, todos con
+ * los mismos inscritos y un estudiante con la inscripción cancelada. Programa los recordatorios
+ * de todos los eventos, mueve uno de los lejanos a dentro de 20 minutos con
+ * EventoService.actualizarEvento y elimina otro. Mide cuánto tarda en programar y en enviar los
+ * recordatorios vencidos contra el objetivo, y verifica que cada inscrito de los eventos próximos
+ * recibió exactamente una notificación, que los cancelados y los eventos lejanos no recibieron
+ * ninguna y que recargar los recordatorios (como al reiniciar) no los repite. Termina con código 1
+ * si algo no se cumple.
+ *
+ * Los argumentos --spring.* y --dunab.* se pasan a la aplicación (por ejemplo para PostgreSQL).
+ *
+ * Ejecutar con: mvn -Ploadtest test-compile exec:exec@recordatorios-eventos
+ */
+public class RecordatoriosEventos {
+
+    private static final long ESPERA_EXTRA_MS = 60_000;
+    private static final String PREFIJO = "Recordatorio de carga ";
+
+    public static void main(String[] args) throws Exception {
+        PruebaCarga.Argumentos argumentos = PruebaCarga.leerArgumentos(args,
+                "--dunab.eventos.recordatorios.antelaciones=1d,1h",
+                "--dunab.eventos.recordatorios.intervalo-ms=1000",
+                "--logging.level.com.unab.dunab.service.RecordatorioEventoService=INFO");
+        int eventos = argumentos.entero("eventos", 5000);
+        int inscritos = argumentos.entero("inscritos", 20);
+        double objetivoSegundos = argumentos.decimal("objetivo-s", 30);
+
+        PruebaCarga.ejecutar(argumentos, contexto -> ejecutar(contexto, eventos, inscritos, objetivoSegundos));
+    }
+
+    private static boolean ejecutar(ConfigurableApplicationContext contexto, int cantidadEventos, int inscritos,
+                                    double objetivoSegundos) throws InterruptedException {
+        RecordatorioEventoService servicio = contexto.getBean(RecordatorioEventoService.class);
+        EventoService eventoService = contexto.getBean(EventoService.class);
+        ReminderTimingWheel rueda = contexto.getBean(ReminderTimingWheel.class);
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        // Las notificaciones no necesitan cuenta DUNAB. Todos los estudiantes se inscriben en todos
+        // los eventos, pendientes o confirmados, salvo el último, que cancela
+        List<Long> estudiantes = PruebaCarga.sembrarUsuarios(contexto, "recordatorio", 'R', inscritos + 1);
+        List<Long> eventos = sembrarEventos(jdbcTemplate, cantidadEventos);
+        PruebaCarga.sembrarInscripciones(jdbcTemplate, eventos, estudiantes,
+                i -> i == inscritos ? "CANCELADA" : i % 2 == 0 ? "CONFIRMADA" : "PENDIENTE");
+        List<Long> proximos = new ArrayList<>();
+        List<Long> lejanos = new ArrayList<>();
+        for (int i = 0; i < eventos.size(); i++) {
+            (i % 2 == 0 ? proximos : lejanos).add(eventos.get(i));
+        }
+        Long editado = lejanos.get(0);
+        Long eliminado = lejanos.get(1);
+        List<String> fallas = new ArrayList<>();
+
+        long inicio = System.nanoTime();
+        servicio.recargar();
+        double programarMs = (System.nanoTime() - inicio) / 1e6;
+        System.out.printf("Recordatorios programados: %d de %d eventos en %.0f ms%n",
+                rueda.size(), eventos.size(), programarMs);
+
+        // Editar un evento lejano lo trae a dentro de 20 minutos: su recordatorio de una hora vence
+        Evento evento = eventoService.getEventoById(editado);
+        EventoRequest request = new EventoRequest(evento.getNombre(), null, LocalDateTime.now().plusMinutes(20),
+                null, null, BigDecimal.ZERO, BigDecimal.ZERO, false);
+        eventoService.actualizarEvento(editado, request);
+        eventoService.eliminarEvento(eliminado);
+
+        // Se espera que los inscritos (sin el cancelado) de los eventos próximos y del editado reciban uno
+        long esperadas = (long) (proximos.size() + 1) * inscritos;
+        long limite = System.currentTimeMillis() + (long) (objetivoSegundos * 1000) + ESPERA_EXTRA_MS;
+        long notificadas = 0;
+        while (System.currentTimeMillis() < limite && (notificadas = contarNotificaciones(jdbcTemplate)) < esperadas) {
+            Thread.sleep(100);
+        }
+        double enviarSegundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("Recordatorios enviados: %d notificaciones de %d eventos en %.1f s%n",
+                notificadas, proximos.size() + 1, enviarSegundos);
+        if (enviarSegundos > objetivoSegundos) {
+            fallas.add(String.format("los recordatorios vencidos tardaron %.1f s (objetivo %.1f s)",
+                    enviarSegundos, objetivoSegundos));
+        }
+        verificar(jdbcTemplate, estudiantes.get(inscritos), proximos.size() + 1, esperadas, fallas);
+
+        // Recargar (como al reiniciar) programa solo las antelaciones futuras: los vencidos ya enviados no vuelven
+        servicio.recargar();
+        PruebaCarga.esperar(fallas, "recordatorios programados tras recargar", rueda.size(), 2L * (lejanos.size() - 2));
+        Thread.sleep(3000);
+        verificar(jdbcTemplate, estudiantes.get(inscritos), proximos.size() + 1, esperadas, fallas);
+
+        return PruebaCarga.reportar(fallas, esperadas + " recordatorios enviados una sola vez a los inscritos de "
+                + (proximos.size() + 1) + " eventos; " + rueda.size() + " programados");
+    }
+
+    private static long contarNotificaciones(JdbcTemplate jdbcTemplate) {
+        return PruebaCarga.contar(jdbcTemplate, "SELECT COUNT(*) FROM notificaciones WHERE tipo = 'EVENTO' "
+                + "AND mensaje LIKE ?", "Evento próximo: " + PREFIJO + "%");
+    }
+
+    private static void verificar(JdbcTemplate jdbcTemplate, Long cancelado, int eventosNotificados,
+                                  long esperadas, List<String> fallas) {
+        PruebaCarga.esperar(fallas, "notificaciones de recordatorio", contarNotificaciones(jdbcTemplate), esperadas);
+
+        PruebaCarga.esperar(fallas, "estudiantes con un recordatorio repetido", PruebaCarga.contar(jdbcTemplate, """
+                SELECT COUNT(*) FROM (
+                    SELECT estudiante_id, mensaje FROM notificaciones
+                    WHERE tipo = 'EVENTO' AND mensaje LIKE ?
+                    GROUP BY estudiante_id, mensaje HAVING COUNT(*) > 1) r""",
+                "Evento próximo: " + PREFIJO + "%"), 0);
+
+        PruebaCarga.esperar(fallas, "recordatorios al estudiante con inscripciones canceladas",
+                PruebaCarga.contar(jdbcTemplate,
+                        "SELECT COUNT(*) FROM notificaciones WHERE estudiante_id = ? AND tipo = 'EVENTO'", cancelado),
+                0);
+
+        PruebaCarga.esperar(fallas, "envíos registrados en recordatorios_evento", PruebaCarga.contar(jdbcTemplate,
+                "SELECT COUNT(*) FROM recordatorios_evento r JOIN eventos e ON e.id = r.evento_id "
+                        + "WHERE e.nombre LIKE ?", PREFIJO + "%"), eventosNotificados);
+    }
+
+    /**
+     * Los eventos pares empiezan en 30 minutos y los impares entre 2 y 180 días después
+     */
+    private static List<Long> sembrarEventos(JdbcTemplate jdbcTemplate, int cantidad) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Timestamp creacion = Timestamp.valueOf(ahora);
+        for (int desde = 0; desde < cantidad; desde += PruebaCarga.TAMANO_LOTE) {
+            List<Object[]> eventos = new ArrayList<>();
+            for (int i = desde; i < Math.min(desde + PruebaCarga.TAMANO_LOTE, cantidad); i++) {
+                LocalDateTime fecha = i % 2 == 0
+                        ? ahora.plusMinutes(30)
+                        : ahora.plusDays(2 + i % 179).plusMinutes(i);
+                eventos.add(new Object[]{PREFIJO + i, Timestamp.valueOf(fecha), BigDecimal.ZERO, BigDecimal.ZERO,
+                        Boolean.TRUE, Boolean.FALSE, creacion});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO eventos (nombre, fecha_evento, costo_dunab, recompensa_dunab, "
+                    + "activo, requiere_confirmacion, fecha_creacion) VALUES (?, ?, ?, ?, ?, ?, ?)", eventos);
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM eventos WHERE nombre LIKE ? ORDER BY id", Long.class,
+                PREFIJO + "%");
+    }
+}
@@ -0,0 +1,80 @@
+package com.unab.dunab.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Acumula las latencias de una operación. Guarda todas las muestras para calcular
+ * percentiles exactos al final; con duraciones de minutos el volumen cabe en memoria.
+ */
+public class RegistroLatencias {
+
+    private long[] muestras = new long[8192];
+    private int cantidad;
+    private long errores;
+    private final Map<Integer, Long> codigosEstado = new TreeMap<>();
+
+    public synchronized void registrar(long nanos, int codigoEstado) {
+        if (cantidad == muestras.length) {
+            muestras = Arrays.copyOf(muestras, cantidad * 2);
+        }
+        muestras[cantidad++] = nanos;
+        codigosEstado.merge(codigoEstado, 1L, Long::sum);
+        if (codigoEstado < 200 || codigoEstado >= 300) {
+            errores++;
+        }
+    }
+
+    /**
+     * Fallo sin respuesta HTTP (timeout, conexión rechazada); se reporta con código 0
+     */
+    public synchronized void registrarFallo() {
+        errores++;
+        codigosEstado.merge(0, 1L, Long::sum);
+    }
+
+    public synchronized ResumenOperacion resumir(double segundosMedidos) {
+        long[] ordenadas = Arrays.copyOf(muestras, cantidad);
+        Arrays.sort(ordenadas);
+        long total = cantidad + codigosEstado.getOrDefault(0, 0L);
+        return new ResumenOperacion(
+                total,
+                errores,
+                segundosMedidos > 0 ? total / segundosMedidos : 0,
+                milisegundos(percentil(ordenadas, 50)),
+                milisegundos(percentil(ordenadas, 99)),
+                milisegundos(percentil(ordenadas, 99.9)),
+                milisegundos(cantidad > 0 ? ordenadas[cantidad - 1] : 0),
+                Map.copyOf(codigosEstado));
+    }
+
+    /**
+     * Percentil por el método del rango más cercano
+     */
+    private static long percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int rango = (int) Math.ceil(p / 100.0 * ordenadas.length);
+        return ordenadas[Math.max(0, Math.min(rango, ordenadas.length) - 1)];
+    }
+
+    private static double milisegundos(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * Resultado de una operación en el reporte JSON (latencias en milisegundos)
+     */
+    public record ResumenOperacion(
+            long peticiones,
+            long errores,
+            double throughputPorSegundo,
+            double p50Ms,
+            double p99Ms,
+            double p999Ms,
+            double maxMs,
+            Map<Integer, Long> codigosEstado) {
+    }
+}
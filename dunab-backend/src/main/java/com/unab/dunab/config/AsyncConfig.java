@@ -0,0 +1,17 @@
+package com.unab.dunab.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita @Async y @Scheduled.
+ *
+ * Los ejecutores los crea Spring Boot: con spring.threads.virtual.enabled=true las tareas
+ * asíncronas y programadas corren en hilos virtuales; si no, en el pool de la aplicación.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+}
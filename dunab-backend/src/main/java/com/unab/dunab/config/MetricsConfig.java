@@ -0,0 +1,84 @@
+package com.unab.dunab.config;
+
+import com.unab.dunab.utils.CheckInBuffer;
+import com.unab.dunab.utils.DebitSlidingWindow;
+import com.unab.dunab.utils.EventCalendar;
+import com.unab.dunab.utils.EventOccupancyStats;
+import com.unab.dunab.utils.EventWaitlist;
+import com.unab.dunab.utils.NotificationQueue;
+import com.unab.dunab.utils.ReminderTimingWheel;
+import com.unab.dunab.utils.TransactionHistoryStack;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de métricas Micrometer.
+ *
+ * Las métricas del pool de conexiones (hikaricp.connections.*) las registra
+ * automáticamente Spring Boot Actuator.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Habilita la anotación @Timed en los servicios
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Registra el tamaño de las estructuras en memoria (Stack, Queue, ventanas de débitos, listas
+     * de espera, calendario de eventos, entradas pendientes de escribir, recordatorios programados y
+     * eventos con estadísticas de ocupación)
+     */
+    @Bean
+    public MeterBinder estructurasEnMemoriaMetrics(TransactionHistoryStack transactionHistoryStack,
+                                                   NotificationQueue notificationQueue,
+                                                   DebitSlidingWindow debitSlidingWindow,
+                                                   EventWaitlist eventWaitlist,
+                                                   EventCalendar eventCalendar,
+                                                   CheckInBuffer checkInBuffer,
+                                                   ReminderTimingWheel reminderTimingWheel,
+                                                   EventOccupancyStats eventOccupancyStats) {
+        return registry -> {
+            Gauge.builder("dunab.historial.transacciones.tamano", transactionHistoryStack,
+                            TransactionHistoryStack::size)
+                    .description("Transacciones en la pila de historial reciente")
+                    .register(registry);
+
+            Gauge.builder("dunab.notificaciones.cola.tamano", notificationQueue, NotificationQueue::size)
+                    .description("Notificaciones pendientes en la cola")
+                    .register(registry);
+
+            Gauge.builder("dunab.limites.cuentas", debitSlidingWindow, DebitSlidingWindow::size)
+                    .description("Cuentas con contadores de débitos en memoria")
+                    .register(registry);
+
+            Gauge.builder("dunab.eventos.espera.tamano", eventWaitlist, EventWaitlist::size)
+                    .description("Inscripciones en las listas de espera de los eventos")
+                    .register(registry);
+
+            Gauge.builder("dunab.eventos.calendario.tamano", eventCalendar, EventCalendar::size)
+                    .description("Eventos próximos en el calendario en memoria")
+                    .register(registry);
+
+            Gauge.builder("dunab.eventos.entradas.pendientes", checkInBuffer, CheckInBuffer::pendientes)
+                    .description("Entradas a eventos escaneadas pendientes de escribir")
+                    .register(registry);
+
+            Gauge.builder("dunab.eventos.recordatorios.programados", reminderTimingWheel, ReminderTimingWheel::size)
+                    .description("Recordatorios de eventos programados en la rueda de tiempo")
+                    .register(registry);
+
+            Gauge.builder("dunab.eventos.estadisticas.eventos", eventOccupancyStats, EventOccupancyStats::size)
+                    .description("Eventos con estadísticas de ocupación en memoria")
+                    .register(registry);
+        };
+    }
+}
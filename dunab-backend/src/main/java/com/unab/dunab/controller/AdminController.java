@@ -0,0 +1,151 @@
+package com.unab.dunab.controller;
+
+import com.unab.dunab.dto.response.ApiResponse;
+import com.unab.dunab.dto.response.ArchivoTransaccionesResponse;
+import com.unab.dunab.dto.response.ConciliacionCuentasResponse;
+import com.unab.dunab.dto.response.CuentaDunabResponse;
+import com.unab.dunab.dto.response.ImportacionEstudiantesResponse;
+import com.unab.dunab.dto.response.LiquidacionLotePosResponse;
+import com.unab.dunab.dto.response.ParticionTransaccionesResponse;
+import com.unab.dunab.dto.response.TransaccionResponse;
+import com.unab.dunab.security.UserPrincipal;
+import com.unab.dunab.service.ArchivoTransaccionesService;
+import com.unab.dunab.service.ConciliacionCuentasService;
+import com.unab.dunab.service.DunabService;
+import com.unab.dunab.service.ImportacionEstudiantesService;
+import com.unab.dunab.service.LiquidacionLotesPosService;
+import com.unab.dunab.service.ParticionTransaccionesService;
+import com.unab.dunab.service.SubSaldoService;
+import com.unab.dunab.service.TransactionService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Controlador de operaciones administrativas
+ */
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final ImportacionEstudiantesService importacionEstudiantesService;
+    private final ParticionTransaccionesService particionTransaccionesService;
+    private final ArchivoTransaccionesService archivoTransaccionesService;
+    private final ConciliacionCuentasService conciliacionCuentasService;
+    private final SubSaldoService subSaldoService;
+    private final LiquidacionLotesPosService liquidacionLotesPosService;
+    private final DunabService dunabService;
+    private final TransactionService transactionService;
+
+    /**
+     * POST /api/admin/students/import - Importación masiva de estudiantes desde CSV
+     * El cuerpo de la petición (text/csv) se lee como flujo, sin cargar el archivo en memoria.
+     */
+    @PostMapping(value = "/students/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<ApiResponse<ImportacionEstudiantesResponse>> importarEstudiantes(
+            HttpServletRequest request) throws IOException {
+        ImportacionEstudiantesResponse resultado = importacionEstudiantesService.importar(request.getInputStream());
+        return ResponseEntity.ok(ApiResponse.success(resultado, String.format(
+                "Importación finalizada: %d importados, %d rechazados",
+                resultado.getImportados(), resultado.getRechazados())));
+    }
+
+    /**
+     * GET /api/admin/transactions/partitions - Particiones mensuales de transacciones (PostgreSQL)
+     */
+    @GetMapping("/transactions/partitions")
+    public ResponseEntity<ApiResponse<List<ParticionTransaccionesResponse>>> getParticiones() {
+        return ResponseEntity.ok(ApiResponse.success(particionTransaccionesService.listarParticiones()));
+    }
+
+    /**
+     * POST /api/admin/transactions/partitions/detach?antesDe=2024-01 - Desacoplar particiones antiguas
+     */
+    @PostMapping("/transactions/partitions/detach")
+    public ResponseEntity<ApiResponse<List<String>>> desacoplarParticiones(@RequestParam YearMonth antesDe) {
+        List<String> desacopladas = particionTransaccionesService.desacoplarParticiones(antesDe);
+        return ResponseEntity.ok(ApiResponse.success(desacopladas,
+                String.format("%d particiones desacopladas", desacopladas.size())));
+    }
+
+    /**
+     * POST /api/admin/transactions/archive - Archiva ahora las transacciones de meses cerrados
+     * (el job nocturno hace lo mismo)
+     */
+    @PostMapping("/transactions/archive")
+    public ResponseEntity<ApiResponse<ArchivoTransaccionesResponse>> archivarTransacciones() {
+        ArchivoTransaccionesResponse resultado = archivoTransaccionesService.archivar();
+        return ResponseEntity.ok(ApiResponse.success(resultado, String.format(
+                "%d transacciones archivadas en %d lotes", resultado.getArchivadas(), resultado.getLotes())));
+    }
+
+    /**
+     * POST /api/admin/accounts/reconcile?reparar=false - Inicia la conciliación de saldos de las
+     * cuentas contra sus transacciones (en segundo plano)
+     */
+    @PostMapping("/accounts/reconcile")
+    public ResponseEntity<ApiResponse<ConciliacionCuentasResponse>> iniciarConciliacion(
+            @RequestParam(defaultValue = "false") boolean reparar) {
+        ConciliacionCuentasResponse conciliacion = conciliacionCuentasService.iniciar(reparar);
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(conciliacion, "Conciliación de cuentas iniciada"));
+    }
+
+    /**
+     * GET /api/admin/accounts/reconcile - Progreso de la conciliación en curso o resultado de la última
+     */
+    @GetMapping("/accounts/reconcile")
+    public ResponseEntity<ApiResponse<ConciliacionCuentasResponse>> getConciliacion() {
+        return conciliacionCuentasService.getUltima()
+                .map(conciliacion -> ResponseEntity.ok(ApiResponse.success(conciliacion)))
+                .orElseGet(() -> ResponseEntity.ok(ApiResponse.success(null, "No se ha ejecutado ninguna conciliación")));
+    }
+
+    /**
+     * PUT /api/admin/accounts/{id}/sub-saldos?cantidad=16 - Activa, cambia o desactiva (cantidad=0)
+     * los sub-saldos de una cuenta que recibe muchos créditos concurrentes
+     */
+    @PutMapping("/accounts/{id}/sub-saldos")
+    public ResponseEntity<ApiResponse<CuentaDunabResponse>> configurarSubSaldos(
+            @PathVariable Long id,
+            @RequestParam int cantidad) {
+        subSaldoService.configurar(id, cantidad);
+        return ResponseEntity.ok(ApiResponse.success(dunabService.getCuentaById(id),
+                String.format("Cuenta con %d sub-saldos", cantidad)));
+    }
+
+    /**
+     * POST /api/admin/pos/settlements/retry-pending - Reintenta los débitos sin conexión que
+     * quedaron pendientes por saldo insuficiente
+     */
+    @PostMapping("/pos/settlements/retry-pending")
+    public ResponseEntity<ApiResponse<LiquidacionLotePosResponse>> reintentarDebitosPendientes() {
+        LiquidacionLotePosResponse resultado = liquidacionLotesPosService.reintentarPendientes();
+        return ResponseEntity.ok(ApiResponse.success(resultado, String.format(
+                "%d débitos pendientes aplicados, %d siguen pendientes",
+                resultado.getPendientesAnterioresAplicados(), resultado.getPendientes())));
+    }
+
+    /**
+     * POST /api/admin/pos/settlements/pending/{id}/reject - Rechaza un débito sin conexión
+     * pendiente: no se cobra ni se reintenta
+     */
+    @PostMapping("/pos/settlements/pending/{id}/reject")
+    public ResponseEntity<ApiResponse<TransaccionResponse>> rechazarDebitoPendiente(
+            @PathVariable Long id,
+            @RequestParam String justificacion,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        TransaccionResponse transaccion = transactionService.rechazarDebitoPendiente(id, justificacion, currentUser.getId());
+        return ResponseEntity.ok(ApiResponse.success(transaccion, "Débito pendiente rechazado"));
+    }
+}
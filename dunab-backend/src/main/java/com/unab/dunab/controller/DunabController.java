@@ -3,6 +3,7 @@ package com.unab.dunab.controller;
 import com.unab.dunab.dto.response.ApiResponse;
 import com.unab.dunab.dto.response.CuentaDunabResponse;
 import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.Dunab;
 import com.unab.dunab.service.DunabService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -56,8 +57,8 @@ public class DunabController {
      * GET /api/dunab/accounts/{id}/balance - Consultar saldo
      */
     @GetMapping("/accounts/{id}/balance")
-    public ResponseEntity<ApiResponse<BigDecimal>> getSaldo(@PathVariable Long id) {
-        BigDecimal saldo = dunabService.getSaldo(id);
+    public ResponseEntity<ApiResponse<Dunab>> getSaldo(@PathVariable Long id) {
+        Dunab saldo = dunabService.getSaldo(id);
         return ResponseEntity.ok(ApiResponse.success(saldo, "Saldo obtenido exitosamente"));
     }
 
@@ -1,16 +1,46 @@
 package com.unab.dunab.controller;
 
+import com.unab.dunab.dto.request.AsistenciaEventoRequest;
+import com.unab.dunab.dto.request.EntradaEventoRequest;
 import com.unab.dunab.dto.request.EventoRequest;
 import com.unab.dunab.dto.response.ApiResponse;
+import com.unab.dunab.dto.response.AsistenciaEventoResponse;
+import com.unab.dunab.dto.response.EntradaEventoResponse;
+import com.unab.dunab.dto.response.EstadisticasEventoResponse;
+import com.unab.dunab.dto.response.EventoResponse;
+import com.unab.dunab.dto.response.InscripcionEventoResponse;
+import com.unab.dunab.dto.response.OcupacionEventoResponse;
+import com.unab.dunab.dto.response.SuscripcionCalendarioResponse;
+import com.unab.dunab.dto.response.TokenEntradaResponse;
+import com.unab.dunab.model.EstadoInscripcion;
 import com.unab.dunab.model.Evento;
+import com.unab.dunab.security.UserPrincipal;
+import com.unab.dunab.service.AsistenciaEventoService;
+import com.unab.dunab.service.EntradaEventoService;
+import com.unab.dunab.service.EstadisticaEventoService;
 import com.unab.dunab.service.EventoService;
+import com.unab.dunab.service.EventoService.CatalogoEventos;
+import com.unab.dunab.service.InscripcionEventoService;
+import com.unab.dunab.service.SuscripcionCalendarioService;
+import com.unab.dunab.utils.EventSearchIndex;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -21,7 +51,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EventController {
 
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
     private final EventoService eventoService;
+    private final InscripcionEventoService inscripcionEventoService;
+    private final AsistenciaEventoService asistenciaEventoService;
+    private final EntradaEventoService entradaEventoService;
+    private final EstadisticaEventoService estadisticaEventoService;
+    private final SuscripcionCalendarioService suscripcionCalendarioService;
 
     /**
      * POST /api/events - Crear nuevo evento
@@ -35,26 +72,67 @@ public class EventController {
     }
 
     /**
-     * GET /api/events - Obtener todos los eventos con paginación
+     * GET /api/events - Obtener todos los eventos con paginación (catálogo en memoria, con ETag)
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<Evento>>> getAllEventos(
+    public ResponseEntity<ApiResponse<Page<EventoResponse>>> getAllEventos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<Evento> eventos = eventoService.getAllEventos(page, size);
-        return ResponseEntity.ok(ApiResponse.success(eventos));
+        CatalogoEventos catalogo = eventoService.getCatalogo();
+        return desdeCatalogo(catalogo, catalogo.pagina(page, size));
     }
 
     /**
-     * GET /api/events/upcoming - Obtener eventos próximos
+     * GET /api/events/search - Buscar eventos activos por texto, fechas, costo, recompensa y
+     * ubicación (índice en memoria, con ETag)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<Page<EventoResponse>>> buscarEventos(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String ubicacion,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) Boolean gratuito,
+            @RequestParam(required = false) Boolean conRecompensa,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        CatalogoEventos catalogo = eventoService.getCatalogo();
+        EventSearchIndex.Consulta consulta =
+                new EventSearchIndex.Consulta(q, ubicacion, desde, hasta, gratuito, conRecompensa);
+        return desdeCatalogo(catalogo, eventoService.buscarEventos(catalogo, consulta, page, size));
+    }
+
+    /**
+     * GET /api/events/upcoming - Obtener los próximos eventos (desde memoria)
      */
     @GetMapping("/upcoming")
-    public ResponseEntity<ApiResponse<List<Evento>>> getEventosProximos(
+    public ResponseEntity<ApiResponse<List<EventoResponse>>> getEventosProximos(
             @RequestParam(defaultValue = "3") int limit) {
-        List<Evento> eventos = eventoService.getEventosProximos(limit);
+        List<EventoResponse> eventos = eventoService.getEventosProximos(limit);
         return ResponseEntity.ok(ApiResponse.success(eventos));
     }
 
+    /**
+     * GET /api/events/stats/occupancy - Eventos con mayor tasa de ocupación (desde memoria)
+     */
+    @GetMapping("/stats/occupancy")
+    public ResponseEntity<ApiResponse<List<OcupacionEventoResponse>>> getRankingOcupacion(
+            @RequestParam(defaultValue = "10") int limit) {
+        List<OcupacionEventoResponse> ranking = estadisticaEventoService.getRankingOcupacion(limit);
+        return ResponseEntity.ok(ApiResponse.success(ranking));
+    }
+
+    /**
+     * GET /api/events/{id}/stats - Ocupación del evento e inscripciones por hora de las últimas horas
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<ApiResponse<EstadisticasEventoResponse>> getEstadisticasEvento(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "24") int horas) {
+        EstadisticasEventoResponse estadisticas = estadisticaEventoService.getEstadisticas(id, horas);
+        return ResponseEntity.ok(ApiResponse.success(estadisticas));
+    }
+
     /**
      * GET /api/events/{id} - Obtener evento por ID
      */
@@ -88,26 +166,175 @@ public class EventController {
      * GET /api/events/active - Obtener eventos activos
      */
     @GetMapping("/active")
-    public ResponseEntity<ApiResponse<List<Evento>>> getEventosActivos() {
-        List<Evento> eventos = eventoService.getEventosActivos();
-        return ResponseEntity.ok(ApiResponse.success(eventos));
+    public ResponseEntity<ApiResponse<List<EventoResponse>>> getEventosActivos() {
+        CatalogoEventos catalogo = eventoService.getCatalogo();
+        return desdeCatalogo(catalogo, catalogo.activos());
     }
 
     /**
      * GET /api/events/free - Obtener eventos gratuitos
      */
     @GetMapping("/free")
-    public ResponseEntity<ApiResponse<List<Evento>>> getEventosGratuitos() {
-        List<Evento> eventos = eventoService.getEventosGratuitos();
-        return ResponseEntity.ok(ApiResponse.success(eventos));
+    public ResponseEntity<ApiResponse<List<EventoResponse>>> getEventosGratuitos() {
+        CatalogoEventos catalogo = eventoService.getCatalogo();
+        return desdeCatalogo(catalogo, catalogo.gratuitos());
     }
 
     /**
      * GET /api/events/with-reward - Obtener eventos con recompensa
      */
     @GetMapping("/with-reward")
-    public ResponseEntity<ApiResponse<List<Evento>>> getEventosConRecompensa() {
-        List<Evento> eventos = eventoService.getEventosConRecompensa();
-        return ResponseEntity.ok(ApiResponse.success(eventos));
+    public ResponseEntity<ApiResponse<List<EventoResponse>>> getEventosConRecompensa() {
+        CatalogoEventos catalogo = eventoService.getCatalogo();
+        return desdeCatalogo(catalogo, catalogo.conRecompensa());
+    }
+
+    /**
+     * Respuesta de un listado del catálogo con su ETag. Si el cliente envía el mismo ETag en
+     * If-None-Match, Spring responde 304 sin cuerpo; no-cache le pide revalidar en cada uso.
+     */
+    private <T> ResponseEntity<ApiResponse<T>> desdeCatalogo(CatalogoEventos catalogo, T datos) {
+        return ResponseEntity.ok()
+                .eTag(catalogo.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponse.success(datos));
+    }
+
+    /**
+     * POST /api/events/{id}/registrations - Inscribir al usuario autenticado (cobra el costo en DUNAB).
+     * Con el evento lleno responde 202 con la posición en la lista de espera.
+     */
+    @PostMapping("/{id}/registrations")
+    public ResponseEntity<ApiResponse<InscripcionEventoResponse>> inscribir(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        InscripcionEventoResponse inscripcion = inscripcionEventoService.inscribir(id, currentUser.getId());
+        if (inscripcion.getEstado() == EstadoInscripcion.EN_ESPERA) {
+            return ResponseEntity
+                    .status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success(inscripcion,
+                            "Evento lleno: posición " + inscripcion.getPosicionEspera() + " en la lista de espera"));
+        }
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(ApiResponse.success(inscripcion, "Inscripción realizada exitosamente"));
+    }
+
+    /**
+     * DELETE /api/events/{id}/registrations - Cancelar la inscripción del usuario autenticado
+     */
+    @DeleteMapping("/{id}/registrations")
+    public ResponseEntity<ApiResponse<InscripcionEventoResponse>> cancelarInscripcion(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        InscripcionEventoResponse inscripcion = inscripcionEventoService.cancelar(id, currentUser.getId());
+        return ResponseEntity.ok(ApiResponse.success(inscripcion, "Inscripción cancelada exitosamente"));
+    }
+
+    /**
+     * GET /api/events/registrations/me - Inscripciones del usuario autenticado
+     */
+    @GetMapping("/registrations/me")
+    public ResponseEntity<ApiResponse<List<InscripcionEventoResponse>>> getMisInscripciones(
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        List<InscripcionEventoResponse> inscripciones =
+                inscripcionEventoService.getInscripcionesEstudiante(currentUser.getId());
+        return ResponseEntity.ok(ApiResponse.success(inscripciones));
+    }
+
+    /**
+     * GET /api/events/registrations/me/calendar - Dirección del calendario .ics de las
+     * inscripciones del usuario autenticado, para suscribirse desde una aplicación de calendario
+     */
+    @GetMapping("/registrations/me/calendar")
+    public ResponseEntity<ApiResponse<SuscripcionCalendarioResponse>> getSuscripcionCalendario(
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        String token = suscripcionCalendarioService.generarToken(currentUser.getId());
+        String url = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/events/calendar/{token}.ics")
+                .buildAndExpand(token)
+                .toUriString();
+        return ResponseEntity.ok(ApiResponse.success(SuscripcionCalendarioResponse.builder()
+                .token(token)
+                .url(url)
+                .build()));
+    }
+
+    /**
+     * GET /api/events/calendar/{token}.ics - Calendario de las inscripciones del estudiante del
+     * token (público: las aplicaciones de calendario no envían el JWT). Con If-None-Match o
+     * If-Modified-Since de la versión actual responde 304 tras una sola consulta; si no, los
+     * eventos se escriben a medida que se leen.
+     */
+    @GetMapping("/calendar/{token}.ics")
+    public ResponseEntity<StreamingResponseBody> getCalendario(@PathVariable String token, WebRequest request) {
+        SuscripcionCalendarioService.Version version = suscripcionCalendarioService.getVersion(token);
+        // checkNotModified responde 304, o agrega ETag y Last-Modified a la respuesta completa
+        if (request.checkNotModified(version.etag(), version.ultimaModificacion())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .cacheControl(CacheControl.noCache())
+                .body(salida -> suscripcionCalendarioService.escribirCalendario(version.estudianteId(), salida));
+    }
+
+    /**
+     * GET /api/events/{id}/registrations/me/check-in-token - Token QR de entrada del usuario autenticado
+     */
+    @GetMapping("/{id}/registrations/me/check-in-token")
+    public ResponseEntity<ApiResponse<TokenEntradaResponse>> getTokenEntrada(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(ApiResponse.success(entradaEventoService.generarToken(id, currentUser.getId())));
+    }
+
+    /**
+     * POST /api/events/{id}/check-ins - Registrar la entrada con el token escaneado en la puerta.
+     * La firma se verifica en memoria; la asistencia se confirma por lotes unos milisegundos después.
+     */
+    @PostMapping("/{id}/check-ins")
+    public ResponseEntity<ApiResponse<EntradaEventoResponse>> registrarEntrada(
+            @PathVariable Long id,
+            @Valid @RequestBody EntradaEventoRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        EntradaEventoResponse entrada = entradaEventoService.registrarEntrada(id, request.getToken(), currentUser.getId());
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(entrada, entrada.isRepetida()
+                        ? "El estudiante ya había entrado al evento" : "Entrada registrada"));
+    }
+
+    /**
+     * POST /api/events/{id}/attendance - Confirmar la asistencia de una lista de estudiantes y
+     * acreditar la recompensa del evento. Repetir el envío no paga dos veces.
+     */
+    @PostMapping(value = "/{id}/attendance", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<AsistenciaEventoResponse>> confirmarAsistencia(
+            @PathVariable Long id,
+            @Valid @RequestBody AsistenciaEventoRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        AsistenciaEventoResponse resultado = asistenciaEventoService.confirmarLista(
+                id, request.getEstudianteIds(), currentUser.getId());
+        return ResponseEntity.ok(ApiResponse.success(resultado, mensajeAsistencia(resultado)));
+    }
+
+    /**
+     * POST /api/events/{id}/attendance - Confirmar la asistencia desde el archivo del registro de
+     * entrada (text/csv con columna estudianteId o codigoEstudiante), leído como flujo
+     */
+    @PostMapping(value = "/{id}/attendance", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<ApiResponse<AsistenciaEventoResponse>> confirmarAsistenciaArchivo(
+            @PathVariable Long id,
+            HttpServletRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        AsistenciaEventoResponse resultado = asistenciaEventoService.confirmarArchivo(
+                id, request.getInputStream(), currentUser.getId());
+        return ResponseEntity.ok(ApiResponse.success(resultado, mensajeAsistencia(resultado)));
+    }
+
+    private static String mensajeAsistencia(AsistenciaEventoResponse resultado) {
+        return String.format("Asistencia confirmada: %d confirmadas, %d ya confirmadas, %d rechazadas",
+                resultado.getConfirmadas(), resultado.getYaConfirmadas(), resultado.getRechazadas());
     }
 }
@@ -0,0 +1,72 @@
+package com.unab.dunab.controller;
+
+import com.unab.dunab.dto.request.DebitoPosRequest;
+import com.unab.dunab.dto.response.ApiResponse;
+import com.unab.dunab.dto.response.DebitoPosResponse;
+import com.unab.dunab.dto.response.LiquidacionLotePosResponse;
+import com.unab.dunab.dto.response.TokenQrResponse;
+import com.unab.dunab.security.UserPrincipal;
+import com.unab.dunab.service.LiquidacionLotesPosService;
+import com.unab.dunab.service.PuntoVentaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Controlador de pagos en puntos de venta del campus
+ */
+@RestController
+@RequestMapping("/api/dunab/pos")
+@RequiredArgsConstructor
+public class PuntoVentaController {
+
+    private final PuntoVentaService puntoVentaService;
+    private final LiquidacionLotesPosService liquidacionLotesPosService;
+
+    /**
+     * POST /api/dunab/pos/debits - Debitar la cuenta de un estudiante (por código o código QR)
+     */
+    @PostMapping("/debits")
+    public ResponseEntity<ApiResponse<DebitoPosResponse>> debitar(
+            @Valid @RequestBody DebitoPosRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        DebitoPosResponse response = puntoVentaService.debitar(request, currentUser.getId());
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(ApiResponse.success(response, "Pago realizado exitosamente"));
+    }
+
+    /**
+     * GET /api/dunab/pos/qr-token - Token del código QR de pago del usuario autenticado
+     */
+    @GetMapping("/qr-token")
+    public ResponseEntity<ApiResponse<TokenQrResponse>> getTokenQr(
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(ApiResponse.success(puntoVentaService.generarTokenQr(currentUser.getId())));
+    }
+
+    /**
+     * POST /api/dunab/pos/settlements?terminal=CAF-01 - Liquidación de un lote de débitos sin conexión
+     * El cuerpo (text/csv) se lee como flujo; el encabezado X-Firma-Lote lleva su HMAC-SHA256.
+     */
+    @PostMapping(value = "/settlements", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<ApiResponse<LiquidacionLotePosResponse>> liquidarLote(
+            @RequestParam String terminal,
+            @RequestHeader(value = "X-Firma-Lote", required = false) String firma,
+            HttpServletRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        LiquidacionLotePosResponse resultado = liquidacionLotesPosService.liquidar(
+                terminal, firma, request.getInputStream(), currentUser.getId());
+        return ResponseEntity.ok(ApiResponse.success(resultado, String.format(
+                "Lote liquidado: %d aplicados, %d pendientes, %d duplicados, %d rechazados",
+                resultado.getAplicados(), resultado.getPendientes(),
+                resultado.getDuplicados(), resultado.getRechazados())));
+    }
+}
@@ -4,6 +4,7 @@ import com.unab.dunab.dto.request.TransaccionRequest;
 import com.unab.dunab.dto.response.ApiResponse;
 import com.unab.dunab.dto.response.EstadisticasTransaccionResponse;
 import com.unab.dunab.dto.response.TransaccionResponse;
+import com.unab.dunab.model.Dunab;
 import com.unab.dunab.model.TransactionType;
 import com.unab.dunab.security.UserPrincipal;
 import com.unab.dunab.service.TransactionService;
@@ -17,7 +18,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -126,10 +126,10 @@ public class TransactionController {
      * GET /api/dunab/transactions/cuenta/{cuentaId}/total - Total por tipo
      */
     @GetMapping("/cuenta/{cuentaId}/total")
-    public ResponseEntity<ApiResponse<BigDecimal>> getTotalPorTipo(
+    public ResponseEntity<ApiResponse<Dunab>> getTotalPorTipo(
             @PathVariable Long cuentaId,
             @RequestParam TransactionType tipo) {
-        BigDecimal total = transactionService.getTotalByTipo(cuentaId, tipo);
+        Dunab total = transactionService.getTotalByTipo(cuentaId, tipo);
         return ResponseEntity.ok(ApiResponse.success(total));
     }
 
@@ -0,0 +1,37 @@
+package com.unab.dunab.controller;
+
+import com.unab.dunab.dto.request.TransferenciaRequest;
+import com.unab.dunab.dto.response.ApiResponse;
+import com.unab.dunab.dto.response.TransferenciaResponse;
+import com.unab.dunab.security.UserPrincipal;
+import com.unab.dunab.service.TransactionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controlador de transferencias entre cuentas DUNAB
+ */
+@RestController
+@RequestMapping("/api/dunab/transfers")
+@RequiredArgsConstructor
+public class TransferenciaController {
+
+    private final TransactionService transactionService;
+
+    /**
+     * POST /api/dunab/transfers - Transferir DUNAB desde la cuenta del usuario a otra cuenta
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<TransferenciaResponse>> transferir(
+            @Valid @RequestBody TransferenciaRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        TransferenciaResponse response = transactionService.transferir(request, currentUser.getId());
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(ApiResponse.success(response, "Transferencia realizada exitosamente"));
+    }
+}
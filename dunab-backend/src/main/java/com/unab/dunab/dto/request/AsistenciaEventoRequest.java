@@ -0,0 +1,20 @@
+package com.unab.dunab.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Asistentes de un evento por id de estudiante (el archivo de registro de entrada va como text/csv)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsistenciaEventoRequest {
+
+    @NotEmpty(message = "La lista de asistentes no puede estar vacía")
+    private List<Long> estudianteIds;
+}
@@ -0,0 +1,35 @@
+package com.unab.dunab.dto.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Débito en un punto de venta. El estudiante se identifica con su código o con el token del
+ * código QR que muestra en la aplicación (uno de los dos).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DebitoPosRequest {
+
+    @Size(max = 20, message = "El código de estudiante no puede superar 20 caracteres")
+    private String codigoEstudiante;
+
+    private String tokenQr;
+
+    @NotNull(message = "El monto es obligatorio")
+    @DecimalMin(value = "0.01", message = "El monto debe ser mayor a cero")
+    private BigDecimal monto;
+
+    @Size(max = 400, message = "La descripción no puede superar 400 caracteres")
+    private String descripcion;
+
+    @Size(max = 100, message = "La referencia no puede superar 100 caracteres")
+    private String referencia;
+}
@@ -0,0 +1,17 @@
+package com.unab.dunab.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntradaEventoRequest {
+
+    @NotBlank(message = "El token es obligatorio")
+    @Size(max = 100, message = "El token no puede superar 100 caracteres")
+    private String token;
+}
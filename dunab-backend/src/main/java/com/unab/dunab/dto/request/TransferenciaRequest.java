@@ -0,0 +1,28 @@
+package com.unab.dunab.dto.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferenciaRequest {
+
+    @NotNull(message = "El ID de la cuenta destino es obligatorio")
+    private Long cuentaDestinoId;
+
+    @NotNull(message = "El monto es obligatorio")
+    @DecimalMin(value = "0.01", message = "El monto debe ser mayor a cero")
+    private BigDecimal monto;
+
+    @NotBlank(message = "La descripción es obligatoria")
+    @Size(max = 400, message = "La descripción no puede superar 400 caracteres")
+    private String descripcion;
+}
@@ -0,0 +1,22 @@
+package com.unab.dunab.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivoTransaccionesResponse {
+    private LocalDate archivadoAntesDe;
+    private long archivadas;
+    private int lotes;
+    private long duracionMs;
+    private List<YearMonth> mesesArchivados;
+}
@@ -0,0 +1,52 @@
+package com.unab.dunab.dto.response;
+
+import com.unab.dunab.model.Dunab;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una confirmación de asistencia por lotes. Los asistentes sin incidencia quedaron
+ * en ASISTIO con su recompensa acreditada; los YA_CONFIRMADA se confirmaron en un envío anterior.
+ * Los ERROR quedaron en un bloque que no se pudo guardar: repetir el envío los confirma.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AsistenciaEventoResponse {
+    private Long eventoId;
+    private long totalAsistentes;
+    private long confirmadas;
+    private long yaConfirmadas;
+    private long rechazadas;
+    private Dunab recompensa;
+    private Dunab montoAcreditado;
+    private long duracionMs;
+    private List<IncidenciaAsistente> incidencias;
+
+    public enum ResultadoAsistente {
+        YA_CONFIRMADA,
+        DUPLICADO,
+        NO_INSCRITO,
+        RECHAZADO,
+        ERROR
+    }
+
+    /**
+     * Asistente no confirmado en este envío. linea es la del archivo o la posición en la lista;
+     * asistente, el id o código tal como llegó.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IncidenciaAsistente {
+        private long linea;
+        private String asistente;
+        private ResultadoAsistente resultado;
+        private String motivo;
+    }
+}
@@ -0,0 +1,57 @@
+package com.unab.dunab.dto.response;
+
+import com.unab.dunab.model.Dunab;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConciliacionCuentasResponse {
+    private long id;
+    private EstadoConciliacion estado;
+    private boolean reparar;
+    private LocalDateTime inicio;
+    private LocalDateTime fin;
+    private long cuentasTotales;
+    private long cuentasProcesadas;
+    private int bloquesTotales;
+    private int bloquesProcesados;
+    private double porcentaje;
+    private long cuentasConDiferencias;
+    private long cuentasReparadas;
+    private String error;
+    private List<DiferenciaCuenta> diferencias;
+
+    public enum EstadoConciliacion {
+        EN_EJECUCION,
+        COMPLETADA,
+        FALLIDA
+    }
+
+    /**
+     * Cuenta cuyos saldos no coinciden con los calculados a partir de sus transacciones
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DiferenciaCuenta {
+        private Long cuentaId;
+        private Dunab saldoActual;
+        private Dunab saldoEsperado;
+        private Dunab totalGanado;
+        private Dunab totalGanadoEsperado;
+        private Dunab totalGastado;
+        private Dunab totalGastadoEsperado;
+        /** Créditos pendientes en sub-saldos, incluidos en saldoActual y totalGanado (null sin sub-saldos) */
+        private Dunab pendienteSubSaldos;
+        private boolean reparada;
+    }
+}
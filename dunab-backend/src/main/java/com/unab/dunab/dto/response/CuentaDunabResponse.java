@@ -1,12 +1,12 @@
 package com.unab.dunab.dto.response;
 
 import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.Dunab;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -17,11 +17,12 @@ public class CuentaDunabResponse {
     private Long id;
     private Long estudianteId;
     private String estudianteNombre;
-    private BigDecimal saldoActual;
-    private BigDecimal totalGanado;
-    private BigDecimal totalGastado;
+    private Dunab saldoActual;
+    private Dunab totalGanado;
+    private Dunab totalGastado;
     private AccountStatus estado;
-    private BigDecimal limiteTransaccion;
+    private Dunab limiteTransaccion;
+    private Integer subSaldos;
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaActualizacion;
 }
@@ -0,0 +1,22 @@
+package com.unab.dunab.dto.response;
+
+import com.unab.dunab.model.Dunab;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DebitoPosResponse {
+    private Long transaccionId;
+    private Long cuentaId;
+    private String referencia;
+    private Dunab monto;
+    private Dunab saldoPosterior;
+    private LocalDateTime fechaCreacion;
+}
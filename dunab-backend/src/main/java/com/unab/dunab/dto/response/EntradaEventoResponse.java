@@ -0,0 +1,20 @@
+package com.unab.dunab.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de escanear un token en la entrada. La asistencia se escribe después, por lotes:
+ * repetida indica que el estudiante ya había entrado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EntradaEventoResponse {
+    private Long eventoId;
+    private Long estudianteId;
+    private boolean repetida;
+}
@@ -0,0 +1,39 @@
+package com.unab.dunab.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ocupación de un evento y sus inscripciones y cancelaciones por hora, de la hora más antigua a la
+ * actual (las horas sin movimiento van en cero). inscripciones y cancelaciones son los totales de
+ * la serie.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticasEventoResponse {
+    private Long eventoId;
+    private String nombre;
+    private LocalDateTime fechaEvento;
+    private Integer capacidadMaxima;
+    private Integer cuposOcupados;
+    private Double tasaOcupacion;
+    private long inscripciones;
+    private long cancelaciones;
+    private List<InscripcionesHora> serie;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InscripcionesHora {
+        private LocalDateTime hora;
+        private int inscripciones;
+        private int cancelaciones;
+    }
+}
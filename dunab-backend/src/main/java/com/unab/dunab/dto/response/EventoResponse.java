@@ -0,0 +1,32 @@
+package com.unab.dunab.dto.response;
+
+import com.unab.dunab.model.Dunab;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Datos públicos de un evento, sin sus inscripciones. Las respuestas del calendario de eventos
+ * próximos se comparten entre peticiones y no deben modificarse; su cuposOcupados es el del
+ * último refresco del calendario.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventoResponse {
+    private Long id;
+    private String nombre;
+    private String descripcion;
+    private LocalDateTime fechaEvento;
+    private String ubicacion;
+    private Integer capacidadMaxima;
+    private Integer cuposOcupados;
+    private Dunab costoDunab;
+    private Dunab recompensaDunab;
+    private Boolean requiereConfirmacion;
+    private Boolean activo;
+}
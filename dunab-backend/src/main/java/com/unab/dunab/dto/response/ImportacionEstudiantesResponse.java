@@ -0,0 +1,32 @@
+package com.unab.dunab.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportacionEstudiantesResponse {
+    private long totalFilas;
+    private long importados;
+    private long rechazados;
+    private long duracionMs;
+    private List<ErrorFila> errores;
+
+    /**
+     * Detalle de una fila del CSV que no pudo importarse
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorFila {
+        private long fila;
+        private String email;
+        private String motivo;
+    }
+}
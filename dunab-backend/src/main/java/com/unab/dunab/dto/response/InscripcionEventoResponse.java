@@ -0,0 +1,35 @@
+package com.unab.dunab.dto.response;
+
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.EstadoInscripcion;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Inscripción de un estudiante a un evento. cuposOcupados es el valor al momento de la
+ * operación; montoPagado es null en eventos gratuitos. posicionEspera solo se informa en las
+ * inscripciones EN_ESPERA; al reintentar la inscripción estando en espera la respuesta sale de
+ * memoria y solo trae el evento, el estudiante, el estado y la posición.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InscripcionEventoResponse {
+    private Long id;
+    private Long eventoId;
+    private String eventoNombre;
+    private LocalDateTime fechaEvento;
+    private Long estudianteId;
+    private EstadoInscripcion estado;
+    private Dunab montoPagado;
+    private Long transaccionPagoId;
+    private Integer capacidadMaxima;
+    private Integer cuposOcupados;
+    private Integer posicionEspera;
+    private LocalDateTime fechaInscripcion;
+}
@@ -0,0 +1,47 @@
+package com.unab.dunab.dto.response;
+
+import com.unab.dunab.model.Dunab;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LiquidacionLotePosResponse {
+    private String terminal;
+    private long totalLineas;
+    private long aplicados;
+    private long pendientes;
+    private long duplicados;
+    private long rechazados;
+    /** Débitos pendientes de liquidaciones anteriores que se aplicaron en esta */
+    private long pendientesAnterioresAplicados;
+    private Dunab montoAplicado;
+    private Dunab montoPendiente;
+    private long duracionMs;
+    private List<IncidenciaLinea> incidencias;
+
+    public enum ResultadoLinea {
+        PENDIENTE,
+        DUPLICADA,
+        RECHAZADA
+    }
+
+    /**
+     * Línea del lote que no se aplicó (las líneas sin incidencia quedaron debitadas)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IncidenciaLinea {
+        private long linea;
+        private String referencia;
+        private ResultadoLinea resultado;
+        private String motivo;
+    }
+}
@@ -0,0 +1,26 @@
+package com.unab.dunab.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ocupación de un evento en el ranking. tasaOcupacion va de 0 a 1 (cuposOcupados /
+ * capacidadMaxima); inscripcionesUltimas24h cuenta las inscripciones que ocuparon cupo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OcupacionEventoResponse {
+    private Long eventoId;
+    private String nombre;
+    private LocalDateTime fechaEvento;
+    private Integer capacidadMaxima;
+    private Integer cuposOcupados;
+    private Double tasaOcupacion;
+    private Integer inscripcionesUltimas24h;
+}
@@ -0,0 +1,19 @@
+package com.unab.dunab.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParticionTransaccionesResponse {
+    private String nombre;
+    private YearMonth mes;          // null para la partición por defecto
+    private String limites;
+    private long filasEstimadas;
+}
@@ -1,12 +1,11 @@
 package com.unab.dunab.dto.response;
 
+import com.unab.dunab.model.Dunab;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
-
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +16,7 @@ public class StudentProgressResponse {
     private String apellido;
     private String email;
     private String codigoEstudiante;
-    private BigDecimal saldoDunab;
+    private Dunab saldoDunab;
     private Long transaccionesTotal;
     private Boolean activo;
 }
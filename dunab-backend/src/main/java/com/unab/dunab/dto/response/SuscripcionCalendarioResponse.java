@@ -0,0 +1,19 @@
+package com.unab.dunab.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dirección del calendario .ics de las inscripciones del estudiante, para suscribirse desde una
+ * aplicación de calendario (lleva el token, no requiere iniciar sesión)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SuscripcionCalendarioResponse {
+    private String token;
+    private String url;
+}
@@ -0,0 +1,18 @@
+package com.unab.dunab.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Token que el estudiante muestra como código QR en la entrada del evento
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenEntradaResponse {
+    private Long eventoId;
+    private String token;
+}
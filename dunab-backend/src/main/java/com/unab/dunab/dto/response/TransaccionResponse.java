@@ -1,5 +1,6 @@
 package com.unab.dunab.dto.response;
 
+import com.unab.dunab.model.Dunab;
 import com.unab.dunab.model.TransactionStatus;
 import com.unab.dunab.model.TransactionType;
 import lombok.AllArgsConstructor;
@@ -7,7 +8,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -19,13 +19,13 @@ public class TransaccionResponse {
     private Long cuentaId;
     private String estudianteNombre;
     private TransactionType tipo;
-    private BigDecimal monto;
+    private Dunab monto;
     private String categoriaNombre;
     private String descripcion;
     private String referencia;
     private TransactionStatus estado;
-    private BigDecimal saldoAnterior;
-    private BigDecimal saldoPosterior;
+    private Dunab saldoAnterior;
+    private Dunab saldoPosterior;
     private String creadoPor;
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaActualizacion;
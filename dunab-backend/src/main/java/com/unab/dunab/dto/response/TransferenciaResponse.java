@@ -0,0 +1,24 @@
+package com.unab.dunab.dto.response;
+
+import com.unab.dunab.model.Dunab;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Transferencia entre cuentas: el débito en la cuenta origen y el crédito en la cuenta destino
+ * comparten la misma referencia
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferenciaResponse {
+    private String referencia;
+    private Long cuentaOrigenId;
+    private Long cuentaDestinoId;
+    private Dunab monto;
+    private TransaccionResponse debito;
+    private TransaccionResponse credito;
+}
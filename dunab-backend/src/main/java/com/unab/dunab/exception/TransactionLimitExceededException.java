@@ -0,0 +1,11 @@
+package com.unab.dunab.exception;
+
+public class TransactionLimitExceededException extends RuntimeException {
+    public TransactionLimitExceededException(String message) {
+        super(message);
+    }
+
+    public TransactionLimitExceededException() {
+        super("La transacción supera el límite de la cuenta");
+    }
+}
@@ -9,7 +9,6 @@ import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,20 +32,27 @@ public class CuentaDunab {
 
     @Min(value = 0, message = "El saldo actual no puede ser negativo")
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal saldoActual = BigDecimal.ZERO;
+    private Dunab saldoActual = Dunab.CERO;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal totalGanado = BigDecimal.ZERO;
+    private Dunab totalGanado = Dunab.CERO;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal totalGastado = BigDecimal.ZERO;
+    private Dunab totalGastado = Dunab.CERO;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private AccountStatus estado = AccountStatus.ACTIVA;
 
     @Column(precision = 10, scale = 2)
-    private BigDecimal limiteTransaccion = new BigDecimal("10000.00");
+    private Dunab limiteTransaccion = Dunab.deCentavos(1_000_000);
+
+    /**
+     * Cantidad de sub-saldos entre los que se reparten los créditos (0: sin sub-saldos).
+     * Ver SubSaldoService.
+     */
+    @Column(nullable = false)
+    private int subSaldos;
 
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
@@ -62,33 +68,40 @@ public class CuentaDunab {
     /**
      * Método para agregar DUNAB a la cuenta
      */
-    public void agregarDunab(BigDecimal monto) {
-        if (monto.compareTo(BigDecimal.ZERO) <= 0) {
+    public void agregarDunab(Dunab monto) {
+        if (!monto.esPositivo()) {
             throw new IllegalArgumentException("El monto debe ser mayor a cero");
         }
-        this.saldoActual = this.saldoActual.add(monto);
-        this.totalGanado = this.totalGanado.add(monto);
+        this.saldoActual = this.saldoActual.sumar(monto);
+        this.totalGanado = this.totalGanado.sumar(monto);
     }
 
     /**
      * Método para restar DUNAB de la cuenta
      */
-    public void restarDunab(BigDecimal monto) {
-        if (monto.compareTo(BigDecimal.ZERO) <= 0) {
+    public void restarDunab(Dunab monto) {
+        if (!monto.esPositivo()) {
             throw new IllegalArgumentException("El monto debe ser mayor a cero");
         }
-        if (this.saldoActual.compareTo(monto) < 0) {
+        if (this.saldoActual.esMenorQue(monto)) {
             throw new IllegalStateException("Saldo insuficiente");
         }
-        this.saldoActual = this.saldoActual.subtract(monto);
-        this.totalGastado = this.totalGastado.add(monto);
+        this.saldoActual = this.saldoActual.restar(monto);
+        this.totalGastado = this.totalGastado.sumar(monto);
     }
 
     /**
      * Verifica si hay saldo suficiente
      */
-    public boolean tieneSaldoSuficiente(BigDecimal monto) {
-        return this.saldoActual.compareTo(monto) >= 0;
+    public boolean tieneSaldoSuficiente(Dunab monto) {
+        return !this.saldoActual.esMenorQue(monto);
+    }
+
+    /**
+     * Verifica si los créditos de la cuenta se reparten en sub-saldos
+     */
+    public boolean tieneSubSaldos() {
+        return this.subSaldos > 0;
     }
 
     /**
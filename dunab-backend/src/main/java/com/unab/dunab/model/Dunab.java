@@ -0,0 +1,170 @@
+package com.unab.dunab.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Monto en DUNAB, guardado como un long de centavos. Las columnas de montos son NUMERIC(10, 2),
+ * así que dos decimales bastan y las sumas, restas y comparaciones son operaciones sobre long.
+ *
+ * Inmutable. Las operaciones que desbordarían un long lanzan ArithmeticException en lugar de
+ * dar la vuelta. En la base de datos se guarda como NUMERIC (DunabConverter) y en JSON se
+ * escribe como número con dos decimales, igual que el BigDecimal que reemplaza.
+ */
+@JsonSerialize(using = Dunab.Serializador.class)
+@JsonDeserialize(using = Dunab.Deserializador.class)
+public final class Dunab implements Comparable<Dunab>, Serializable {
+
+    public static final Dunab CERO = new Dunab(0);
+
+    private final long centavos;
+
+    private Dunab(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dunab deCentavos(long centavos) {
+        return centavos == 0 ? CERO : new Dunab(centavos);
+    }
+
+    /**
+     * Convierte un monto decimal, redondeado a dos decimales (HALF_UP, como las columnas)
+     *
+     * @throws ArithmeticException si no cabe en un long de centavos
+     */
+    public static Dunab valueOf(BigDecimal monto) {
+        return deCentavos(monto.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact());
+    }
+
+    /**
+     * Monto escrito como número decimal ("8.50")
+     */
+    public static Dunab valueOf(String monto) {
+        return valueOf(new BigDecimal(monto));
+    }
+
+    /**
+     * Convierte un monto que puede ser null (columnas opcionales, agregados sin filas)
+     */
+    public static Dunab valueOfNullable(BigDecimal monto) {
+        return monto != null ? valueOf(monto) : null;
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    public Dunab sumar(Dunab otro) {
+        return otro.centavos == 0 ? this : deCentavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public Dunab restar(Dunab otro) {
+        return otro.centavos == 0 ? this : deCentavos(Math.subtractExact(centavos, otro.centavos));
+    }
+
+    public Dunab multiplicar(long factor) {
+        return deCentavos(Math.multiplyExact(centavos, factor));
+    }
+
+    public int signum() {
+        return Long.signum(centavos);
+    }
+
+    public boolean esPositivo() {
+        return centavos > 0;
+    }
+
+    public boolean esCero() {
+        return centavos == 0;
+    }
+
+    public boolean esMenorQue(Dunab otro) {
+        return centavos < otro.centavos;
+    }
+
+    public boolean esMayorQue(Dunab otro) {
+        return centavos > otro.centavos;
+    }
+
+    @Override
+    public int compareTo(Dunab otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        return this == otro || (otro instanceof Dunab dunab && dunab.centavos == centavos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    /**
+     * Representación decimal con dos decimales ("-12.05"), la misma de BigDecimal.toPlainString
+     */
+    @Override
+    public String toString() {
+        long entero = centavos / 100;
+        int decimales = (int) Math.abs(centavos % 100);
+        StringBuilder texto = new StringBuilder(24);
+        if (centavos < 0 && entero == 0) {
+            texto.append('-');
+        }
+        texto.append(entero).append('.');
+        if (decimales < 10) {
+            texto.append('0');
+        }
+        return texto.append(decimales).toString();
+    }
+
+    /**
+     * Escribe el monto como número JSON con dos decimales, sin pasar por BigDecimal
+     */
+    public static class Serializador extends JsonSerializer<Dunab> {
+        @Override
+        public void serialize(Dunab valor, JsonGenerator generador, SerializerProvider proveedor) throws IOException {
+            generador.writeNumber(valor.toString());
+        }
+    }
+
+    /**
+     * Lee el monto de un número o de un texto JSON
+     */
+    public static class Deserializador extends JsonDeserializer<Dunab> {
+        @Override
+        public Dunab deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                try {
+                    return valueOf(parser.getText().trim());
+                } catch (NumberFormatException | ArithmeticException e) {
+                    return (Dunab) contexto.handleWeirdStringValue(Dunab.class, parser.getText(),
+                            "no es un monto DUNAB válido");
+                }
+            }
+            try {
+                return valueOf(parser.getDecimalValue());
+            } catch (ArithmeticException e) {
+                return (Dunab) contexto.handleWeirdNumberValue(Dunab.class, parser.getDecimalValue(),
+                        "no cabe en un monto DUNAB");
+            }
+        }
+    }
+}
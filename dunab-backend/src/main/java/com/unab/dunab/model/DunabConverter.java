@@ -0,0 +1,24 @@
+package com.unab.dunab.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Guarda los atributos {@link Dunab} en las columnas NUMERIC(10, 2). Se aplica a todas las
+ * entidades sin anotarlas.
+ */
+@Converter(autoApply = true)
+public class DunabConverter implements AttributeConverter<Dunab, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dunab monto) {
+        return monto != null ? monto.toBigDecimal() : null;
+    }
+
+    @Override
+    public Dunab convertToEntityAttribute(BigDecimal columna) {
+        return Dunab.valueOfNullable(columna);
+    }
+}
@@ -0,0 +1,56 @@
+package com.unab.dunab.model;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Validadores de @Min y @DecimalMin para atributos {@link Dunab}, registrados en
+ * META-INF/services/jakarta.validation.ConstraintValidator. null es válido, como en los
+ * validadores de Bean Validation.
+ */
+public final class DunabValidators {
+
+    private DunabValidators() {
+    }
+
+    public static class Min implements ConstraintValidator<jakarta.validation.constraints.Min, Dunab> {
+
+        private long minimoCentavos;
+
+        @Override
+        public void initialize(jakarta.validation.constraints.Min restriccion) {
+            minimoCentavos = Math.multiplyExact(restriccion.value(), 100L);
+        }
+
+        @Override
+        public boolean isValid(Dunab valor, ConstraintValidatorContext contexto) {
+            return valor == null || valor.getCentavos() >= minimoCentavos;
+        }
+    }
+
+    public static class DecimalMin implements ConstraintValidator<jakarta.validation.constraints.DecimalMin, Dunab> {
+
+        private long minimoCentavos;
+        private boolean inclusivo;
+
+        @Override
+        public void initialize(jakarta.validation.constraints.DecimalMin restriccion) {
+            BigDecimal minimo = new BigDecimal(restriccion.value()).movePointRight(2);
+            BigDecimal piso = minimo.setScale(0, RoundingMode.FLOOR);
+            minimoCentavos = piso.longValueExact();
+            // Con más de dos decimales ningún monto es igual al mínimo: basta superar el piso
+            inclusivo = restriccion.inclusive() && piso.compareTo(minimo) == 0;
+        }
+
+        @Override
+        public boolean isValid(Dunab valor, ConstraintValidatorContext contexto) {
+            if (valor == null) {
+                return true;
+            }
+            return inclusivo ? valor.getCentavos() >= minimoCentavos : valor.getCentavos() > minimoCentavos;
+        }
+    }
+}
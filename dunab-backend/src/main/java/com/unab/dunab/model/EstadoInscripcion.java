@@ -5,5 +5,6 @@ public enum EstadoInscripcion {
     CONFIRMADA,
     ASISTIO,
     NO_ASISTIO,
-    CANCELADA
+    CANCELADA,
+    EN_ESPERA
 }
@@ -11,7 +11,6 @@ import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -45,13 +44,22 @@ public class Evento {
     @Min(value = 0, message = "La capacidad no puede ser negativa")
     private Integer capacidadMaxima;
 
+    /**
+     * Inscripciones no canceladas. Solo lo modifican los UPDATE condicionales de
+     * EventoRepository (reservarCupo, liberarCupo): la entidad nunca lo escribe, así que guardar
+     * un evento leído antes no pisa las reservas concurrentes.
+     */
+    @Builder.Default
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Integer cuposOcupados = 0;
+
     @Min(value = 0, message = "El costo no puede ser negativo")
     @Column(precision = 10, scale = 2)
-    private BigDecimal costoDunab = BigDecimal.ZERO;
+    private Dunab costoDunab = Dunab.CERO;
 
     @Min(value = 0, message = "La recompensa no puede ser negativa")
     @Column(precision = 10, scale = 2)
-    private BigDecimal recompensaDunab = BigDecimal.ZERO;
+    private Dunab recompensaDunab = Dunab.CERO;
 
     @Column(nullable = false)
     private Boolean activo = true;
@@ -73,27 +81,21 @@ public class Evento {
      * Verifica si el evento es gratuito
      */
     public boolean esGratuito() {
-        return this.costoDunab.compareTo(BigDecimal.ZERO) == 0;
+        return this.costoDunab.esCero();
     }
 
     /**
      * Verifica si otorga recompensa
      */
     public boolean otorgaRecompensa() {
-        return this.recompensaDunab.compareTo(BigDecimal.ZERO) > 0;
+        return this.recompensaDunab.esPositivo();
     }
 
     /**
      * Verifica si hay cupos disponibles
      */
     public boolean hayCuposDisponibles() {
-        if (this.capacidadMaxima == null) {
-            return true;
-        }
-        long inscritos = this.inscripciones.stream()
-                .filter(i -> i.getEstado() != EstadoInscripcion.CANCELADA)
-                .count();
-        return inscritos < this.capacidadMaxima;
+        return this.capacidadMaxima == null || this.cuposOcupados < this.capacidadMaxima;
     }
 
     /**
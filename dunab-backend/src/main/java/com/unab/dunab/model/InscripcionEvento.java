@@ -49,6 +49,11 @@ public class InscripcionEvento {
 
     private LocalDateTime fechaConfirmacion;
 
+    /**
+     * Turno en la lista de espera del evento; se asigna al quedar EN_ESPERA
+     */
+    private Long turnoEspera;
+
     @UpdateTimestamp
     private LocalDateTime fechaActualizacion;
 
@@ -0,0 +1,36 @@
+package com.unab.dunab.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Parte del saldo de una cuenta con sub-saldos: créditos recibidos que todavía no se han
+ * compactado en saldoActual y totalGanado de la cuenta
+ */
+@Entity
+@Table(name = "sub_saldos_cuenta",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"cuenta_id", "indice"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SubSaldoCuenta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cuenta_id", nullable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private CuentaDunab cuenta;
+
+    @Column(nullable = false)
+    private Integer indice;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private Dunab monto;
+}
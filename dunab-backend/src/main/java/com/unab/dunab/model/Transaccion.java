@@ -11,7 +11,6 @@ import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -39,7 +38,7 @@ public class Transaccion {
     @NotNull(message = "El monto es obligatorio")
     @DecimalMin(value = "0.01", message = "El monto debe ser mayor a cero")
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal monto;
+    private Dunab monto;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id")
@@ -57,10 +56,10 @@ public class Transaccion {
     private TransactionStatus estado = TransactionStatus.COMPLETADA;
 
     @Column(precision = 10, scale = 2)
-    private BigDecimal saldoAnterior;
+    private Dunab saldoAnterior;
 
     @Column(precision = 10, scale = 2)
-    private BigDecimal saldoPosterior;
+    private Dunab saldoPosterior;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "creado_por")
@@ -86,8 +85,8 @@ public class Transaccion {
      * Método para anular una transacción
      */
     public void anular(User usuario, String justificacion) {
-        if (this.estado == TransactionStatus.ANULADA) {
-            throw new IllegalStateException("La transacción ya está anulada");
+        if (this.estado != TransactionStatus.COMPLETADA) {
+            throw new IllegalStateException("Solo se puede anular una transacción completada");
         }
         this.estado = TransactionStatus.ANULADA;
         this.anuladoPor = usuario;
@@ -95,6 +94,19 @@ public class Transaccion {
         this.fechaAnulacion = LocalDateTime.now();
     }
 
+    /**
+     * Rechaza una transacción pendiente, que nunca movió el saldo
+     */
+    public void rechazar(User usuario, String justificacion) {
+        if (this.estado != TransactionStatus.PENDIENTE) {
+            throw new IllegalStateException("Solo se puede rechazar una transacción pendiente");
+        }
+        this.estado = TransactionStatus.RECHAZADA;
+        this.anuladoPor = usuario;
+        this.justificacionAnulacion = justificacion;
+        this.fechaAnulacion = LocalDateTime.now();
+    }
+
     /**
      * Verifica si es una transacción de crédito
      */
@@ -0,0 +1,60 @@
+package com.unab.dunab.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copia inmutable de una transacción movida al archivo en disco.
+ *
+ * No es una entidad JPA: los nombres del estudiante, la categoría y los usuarios se guardan
+ * ya resueltos para leer el archivo sin consultar la base de datos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransaccionArchivada {
+    private Long id;
+    private Long cuentaId;
+    private String estudianteNombre;
+    private TransactionType tipo;
+    private Dunab monto;
+    private String categoriaNombre;
+    private String descripcion;
+    private String referencia;
+    private TransactionStatus estado;
+    private Dunab saldoAnterior;
+    private Dunab saldoPosterior;
+    private String creadoPor;
+    private String justificacionAnulacion;
+    private String anuladoPor;
+    private LocalDateTime fechaAnulacion;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaActualizacion;
+
+    public static TransaccionArchivada desde(Transaccion transaccion) {
+        return TransaccionArchivada.builder()
+                .id(transaccion.getId())
+                .cuentaId(transaccion.getCuenta().getId())
+                .estudianteNombre(transaccion.getCuenta().getEstudiante().getNombreCompleto())
+                .tipo(transaccion.getTipo())
+                .monto(transaccion.getMonto())
+                .categoriaNombre(transaccion.getCategoria() != null ? transaccion.getCategoria().getNombre() : null)
+                .descripcion(transaccion.getDescripcion())
+                .referencia(transaccion.getReferencia())
+                .estado(transaccion.getEstado())
+                .saldoAnterior(transaccion.getSaldoAnterior())
+                .saldoPosterior(transaccion.getSaldoPosterior())
+                .creadoPor(transaccion.getCreadoPor() != null ? transaccion.getCreadoPor().getNombreCompleto() : null)
+                .justificacionAnulacion(transaccion.getJustificacionAnulacion())
+                .anuladoPor(transaccion.getAnuladoPor() != null ? transaccion.getAnuladoPor().getNombreCompleto() : null)
+                .fechaAnulacion(transaccion.getFechaAnulacion())
+                .fechaCreacion(transaccion.getFechaCreacion())
+                .fechaActualizacion(transaccion.getFechaActualizacion())
+                .build();
+    }
+}
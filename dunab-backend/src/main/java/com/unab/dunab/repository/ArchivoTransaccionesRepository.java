@@ -0,0 +1,679 @@
+package com.unab.dunab.repository;
+
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.TransaccionArchivada;
+import com.unab.dunab.model.TransactionStatus;
+import com.unab.dunab.model.TransactionType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Archivo en disco de transacciones antiguas (almacenamiento frío).
+ *
+ * Cada mes archivado tiene dos archivos de solo anexar en dunab.archivo.directorio:
+ * - transacciones-YYYYMM.seg: bloques comprimidos (Deflate), cada uno con transacciones de una cuenta
+ * - transacciones-YYYYMM.idx: una entrada por bloque con la cuenta, su desplazamiento en el
+ *   segmento y los totales del bloque
+ *
+ * Los índices se cargan en memoria al arrancar, así que ubicar los bloques de una cuenta y
+ * calcular sus totales no toca el disco; el contenido de un bloque se lee mapeando en memoria
+ * solo su rango del segmento.
+ *
+ * Un bloque se escribe en el segmento antes de borrar las filas de la base de datos y se
+ * registra en el índice después del commit. Los bloques del final de un segmento que no
+ * alcanzaron a registrarse quedan "sin confirmar" hasta que {@link #recuperar} decide si
+ * el borrado se completó.
+ */
+@Slf4j
+@Repository
+public class ArchivoTransaccionesRepository {
+
+    private static final int MAGICO = 0x44554E41;
+    /** mágico, cuenta, cantidad, tamaño sin comprimir, tamaño comprimido */
+    private static final int TAMANO_CABECERA = 4 + 8 + 4 + 4 + 4;
+    private static final String PREFIJO = "transacciones-";
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Value("${dunab.archivo.directorio}")
+    private String directorio;
+
+    private Path raiz;
+    private final ReentrantLock escritura = new ReentrantLock();
+    private final ConcurrentSkipListMap<YearMonth, ConcurrentMap<Long, List<Bloque>>> indices =
+            new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, Totales> totalesPorCuenta = new ConcurrentHashMap<>();
+    private final List<Bloque> sinConfirmar = new ArrayList<>();
+
+    /**
+     * Posición de un bloque dentro del segmento de su mes y totales de sus transacciones
+     */
+    public record Bloque(YearMonth mes, long cuentaId, long desplazamiento, int cantidad,
+                         int tamanoOriginal, int tamanoComprimido, Totales totales) {
+    }
+
+    /**
+     * Totales de un grupo de transacciones: montos y cantidad de las completadas, y montos de
+     * las anuladas (los necesita la conciliación de saldos)
+     */
+    public record Totales(Dunab creditos, Dunab debitos, long completadas,
+                          Dunab creditosAnulados, Dunab debitosAnulados) {
+
+        public static final Totales VACIO =
+                new Totales(Dunab.CERO, Dunab.CERO, 0, Dunab.CERO, Dunab.CERO);
+
+        public Totales sumar(Totales otros) {
+            return new Totales(creditos.sumar(otros.creditos), debitos.sumar(otros.debitos),
+                    completadas + otros.completadas, creditosAnulados.sumar(otros.creditosAnulados),
+                    debitosAnulados.sumar(otros.debitosAnulados));
+        }
+
+        public Dunab getTotal(TransactionType tipo) {
+            return tipo == TransactionType.CREDITO ? creditos : debitos;
+        }
+
+        public Dunab getTotalAnulado(TransactionType tipo) {
+            return tipo == TransactionType.CREDITO ? creditosAnulados : debitosAnulados;
+        }
+
+        static Totales de(List<TransaccionArchivada> transacciones) {
+            Dunab creditos = Dunab.CERO;
+            Dunab debitos = Dunab.CERO;
+            Dunab creditosAnulados = Dunab.CERO;
+            Dunab debitosAnulados = Dunab.CERO;
+            long completadas = 0;
+            for (TransaccionArchivada transaccion : transacciones) {
+                boolean credito = transaccion.getTipo() == TransactionType.CREDITO;
+                if (transaccion.getEstado() == TransactionStatus.COMPLETADA) {
+                    completadas++;
+                    if (credito) {
+                        creditos = creditos.sumar(transaccion.getMonto());
+                    } else {
+                        debitos = debitos.sumar(transaccion.getMonto());
+                    }
+                } else if (transaccion.getEstado() == TransactionStatus.ANULADA) {
+                    if (credito) {
+                        creditosAnulados = creditosAnulados.sumar(transaccion.getMonto());
+                    } else {
+                        debitosAnulados = debitosAnulados.sumar(transaccion.getMonto());
+                    }
+                }
+            }
+            return new Totales(creditos, debitos, completadas, creditosAnulados, debitosAnulados);
+        }
+    }
+
+    @PostConstruct
+    void cargar() throws IOException {
+        raiz = Path.of(directorio);
+        Files.createDirectories(raiz);
+
+        List<YearMonth> meses;
+        try (Stream<Path> archivos = Files.list(raiz)) {
+            meses = archivos.map(archivo -> archivo.getFileName().toString())
+                    .filter(nombre -> nombre.startsWith(PREFIJO) && nombre.endsWith(".seg"))
+                    .map(nombre -> YearMonth.parse(
+                            nombre.substring(PREFIJO.length(), nombre.length() - 4), FORMATO_MES))
+                    .sorted()
+                    .toList();
+        }
+
+        for (YearMonth mes : meses) {
+            long finIndexado = cargarIndice(mes);
+            buscarBloquesSinConfirmar(mes, finIndexado);
+        }
+
+        log.info("Archivo de transacciones cargado desde {}: {} meses, {} bloques sin confirmar",
+                raiz.toAbsolutePath(), indices.size(), sinConfirmar.size());
+    }
+
+    /**
+     * Escribe en los segmentos las transacciones dadas, agrupadas por mes y cuenta. Los bloques
+     * quedan en disco pero no son visibles hasta {@link #confirmar}.
+     */
+    public List<Bloque> escribir(List<TransaccionArchivada> transacciones) throws IOException {
+        Map<YearMonth, Map<Long, List<TransaccionArchivada>>> agrupadas = new TreeMap<>();
+        for (TransaccionArchivada transaccion : transacciones) {
+            agrupadas.computeIfAbsent(YearMonth.from(transaccion.getFechaCreacion()), mes -> new TreeMap<>())
+                    .computeIfAbsent(transaccion.getCuentaId(), cuenta -> new ArrayList<>())
+                    .add(transaccion);
+        }
+
+        List<Bloque> bloques = new ArrayList<>();
+        Map<YearMonth, Long> inicioPorMes = new TreeMap<>();
+        escritura.lock();
+        try {
+            if (!sinConfirmar.isEmpty()) {
+                throw new IllegalStateException(
+                        "El archivo de transacciones tiene bloques sin confirmar; se deben recuperar primero");
+            }
+            for (Map.Entry<YearMonth, Map<Long, List<TransaccionArchivada>>> porMes : agrupadas.entrySet()) {
+                try (FileChannel segmento = FileChannel.open(segmento(porMes.getKey()),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    inicioPorMes.put(porMes.getKey(), segmento.size());
+                    for (Map.Entry<Long, List<TransaccionArchivada>> porCuenta : porMes.getValue().entrySet()) {
+                        bloques.add(escribirBloque(segmento, porMes.getKey(), porCuenta.getKey(),
+                                porCuenta.getValue()));
+                    }
+                    segmento.force(false);
+                }
+            }
+        } catch (IOException e) {
+            // Los segmentos vuelven al tamaño que tenían antes de este lote
+            for (Map.Entry<YearMonth, Long> inicio : inicioPorMes.entrySet()) {
+                truncar(inicio.getKey(), inicio.getValue());
+            }
+            throw e;
+        } finally {
+            escritura.unlock();
+        }
+        return bloques;
+    }
+
+    /**
+     * Registra los bloques en el índice de su mes; desde ese momento las consultas los ven.
+     * Si el índice no se puede escribir, los bloques pendientes quedan sin confirmar.
+     */
+    public void confirmar(List<Bloque> bloques) throws IOException {
+        escritura.lock();
+        try {
+            TreeMap<YearMonth, List<Bloque>> porMes = new TreeMap<>();
+            bloques.forEach(bloque -> porMes.computeIfAbsent(bloque.mes(), mes -> new ArrayList<>()).add(bloque));
+
+            for (Map.Entry<YearMonth, List<Bloque>> entrada : porMes.entrySet()) {
+                try (FileOutputStream archivo = new FileOutputStream(indice(entrada.getKey()).toFile(), true);
+                     DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(archivo))) {
+                    for (Bloque bloque : entrada.getValue()) {
+                        escribirEntradaIndice(salida, bloque);
+                    }
+                    salida.flush();
+                    archivo.getFD().sync();
+                } catch (IOException e) {
+                    porMes.tailMap(entrada.getKey()).values().forEach(sinConfirmar::addAll);
+                    throw e;
+                }
+                entrada.getValue().forEach(this::registrar);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Elimina del final de los segmentos los bloques escritos que no llegaron a confirmarse.
+     * Si un segmento no se puede recortar, sus bloques quedan sin confirmar.
+     */
+    public void descartar(List<Bloque> bloques) throws IOException {
+        escritura.lock();
+        try {
+            Map<YearMonth, Long> inicioPorMes = new TreeMap<>();
+            bloques.forEach(bloque -> inicioPorMes.merge(bloque.mes(), bloque.desplazamiento(), Math::min));
+            for (Map.Entry<YearMonth, Long> entrada : inicioPorMes.entrySet()) {
+                try {
+                    truncar(entrada.getKey(), entrada.getValue());
+                } catch (IOException e) {
+                    bloques.stream().filter(bloque -> !bloque.mes().isBefore(entrada.getKey()))
+                            .forEach(sinConfirmar::add);
+                    throw e;
+                }
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Resuelve los bloques sin confirmar (lote interrumpido por una caída o por un error de
+     * disco): si sus filas ya no están en la base de datos el borrado se completó y el bloque
+     * se confirma; si no, se recorta del segmento. Mientras haya bloques sin confirmar no se
+     * aceptan escrituras, así que siempre están al final de su segmento.
+     *
+     * @param filasEliminadas recibe los ids de un bloque y responde si ya no existen en la base
+     * @return cantidad de bloques confirmados
+     */
+    public int recuperar(Predicate<List<Long>> filasEliminadas) throws IOException {
+        escritura.lock();
+        try {
+            List<Bloque> pendientes = new ArrayList<>(sinConfirmar);
+            pendientes.sort(Comparator.comparing(Bloque::mes).thenComparingLong(Bloque::desplazamiento));
+            sinConfirmar.clear();
+
+            int confirmados = 0;
+            Set<YearMonth> truncados = new HashSet<>();
+            for (int i = 0; i < pendientes.size(); i++) {
+                Bloque bloque = pendientes.get(i);
+                if (truncados.contains(bloque.mes())) {
+                    continue;
+                }
+                try {
+                    List<Long> ids = leer(bloque).stream().map(TransaccionArchivada::getId).toList();
+                    if (filasEliminadas.test(ids)) {
+                        confirmar(List.of(bloque));
+                        confirmados++;
+                    } else {
+                        truncar(bloque.mes(), bloque.desplazamiento());
+                        truncados.add(bloque.mes());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    pendientes.subList(i, pendientes.size()).stream()
+                            .filter(pendiente -> !truncados.contains(pendiente.mes())
+                                    && !sinConfirmar.contains(pendiente))
+                            .forEach(sinConfirmar::add);
+                    throw e;
+                }
+            }
+            return confirmados;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Transacciones archivadas de una cuenta con fecha de creación entre desde y hasta
+     * (inclusive), ordenadas por fecha
+     */
+    public List<TransaccionArchivada> buscar(Long cuentaId, LocalDateTime desde, LocalDateTime hasta) {
+        if (indices.isEmpty() || desde.isAfter(hasta)) {
+            return List.of();
+        }
+
+        List<TransaccionArchivada> resultado = new ArrayList<>();
+        for (ConcurrentMap<Long, List<Bloque>> indice :
+                indices.subMap(YearMonth.from(desde), true, YearMonth.from(hasta), true).values()) {
+            for (Bloque bloque : indice.getOrDefault(cuentaId, List.of())) {
+                for (TransaccionArchivada transaccion : leer(bloque)) {
+                    if (!transaccion.getFechaCreacion().isBefore(desde)
+                            && !transaccion.getFechaCreacion().isAfter(hasta)) {
+                        resultado.add(transaccion);
+                    }
+                }
+            }
+        }
+        resultado.sort(Comparator.comparing(TransaccionArchivada::getFechaCreacion));
+        return resultado;
+    }
+
+    /**
+     * Cantidad de transacciones archivadas de una cuenta en cada mes (se calcula desde el índice)
+     */
+    public SortedMap<YearMonth, Integer> getCantidadesPorMes(Long cuentaId) {
+        SortedMap<YearMonth, Integer> cantidades = new TreeMap<>();
+        indices.forEach((mes, indice) -> {
+            int cantidad = indice.getOrDefault(cuentaId, List.of()).stream().mapToInt(Bloque::cantidad).sum();
+            if (cantidad > 0) {
+                cantidades.put(mes, cantidad);
+            }
+        });
+        return cantidades;
+    }
+
+    /**
+     * Totales de las transacciones archivadas de una cuenta (se calculan desde el índice)
+     */
+    public Totales getTotales(Long cuentaId) {
+        return totalesPorCuenta.getOrDefault(cuentaId, Totales.VACIO);
+    }
+
+    /**
+     * Meses con transacciones archivadas
+     */
+    public Set<YearMonth> getMesesArchivados() {
+        return Collections.unmodifiableSet(indices.keySet());
+    }
+
+    private Bloque escribirBloque(FileChannel segmento, YearMonth mes, long cuentaId,
+                                  List<TransaccionArchivada> transacciones) throws IOException {
+        ByteArrayOutputStream original = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(original)) {
+            for (TransaccionArchivada transaccion : transacciones) {
+                escribirTransaccion(salida, transaccion);
+            }
+        }
+        byte[] datos = original.toByteArray();
+        byte[] comprimidos = comprimir(datos);
+
+        long desplazamiento = segmento.size();
+        ByteBuffer bloque = ByteBuffer.allocate(TAMANO_CABECERA + comprimidos.length)
+                .putInt(MAGICO)
+                .putLong(cuentaId)
+                .putInt(transacciones.size())
+                .putInt(datos.length)
+                .putInt(comprimidos.length)
+                .put(comprimidos)
+                .flip();
+        while (bloque.hasRemaining()) {
+            segmento.write(bloque);
+        }
+
+        return new Bloque(mes, cuentaId, desplazamiento, transacciones.size(), datos.length,
+                comprimidos.length, Totales.de(transacciones));
+    }
+
+    /**
+     * Lee un bloque mapeando en memoria solo su rango del segmento
+     */
+    private List<TransaccionArchivada> leer(Bloque bloque) {
+        try (FileChannel segmento = FileChannel.open(segmento(bloque.mes()), StandardOpenOption.READ)) {
+            MappedByteBuffer comprimidos = segmento.map(FileChannel.MapMode.READ_ONLY,
+                    bloque.desplazamiento() + TAMANO_CABECERA, bloque.tamanoComprimido());
+            byte[] datos = descomprimir(comprimidos, bloque.tamanoOriginal());
+
+            List<TransaccionArchivada> transacciones = new ArrayList<>(bloque.cantidad());
+            try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(datos))) {
+                for (int i = 0; i < bloque.cantidad(); i++) {
+                    transacciones.add(leerTransaccion(entrada, bloque.cuentaId()));
+                }
+            }
+            return transacciones;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo de transacciones de " + bloque.mes(), e);
+        }
+    }
+
+    /**
+     * Carga el índice de un mes y devuelve la posición del segmento hasta donde está indexado.
+     * Una entrada incompleta al final (escritura interrumpida) se elimina del índice.
+     */
+    private long cargarIndice(YearMonth mes) throws IOException {
+        Path archivo = indice(mes);
+        if (!Files.exists(archivo)) {
+            return 0;
+        }
+
+        long finIndexado = 0;
+        long bytesValidos = 0;
+        try (ContadorEntrada contador = new ContadorEntrada(
+                new BufferedInputStream(Files.newInputStream(archivo)));
+             DataInputStream entrada = new DataInputStream(contador)) {
+            while (true) {
+                Bloque bloque;
+                try {
+                    bloque = leerEntradaIndice(entrada, mes);
+                } catch (EOFException fin) {
+                    break;
+                }
+                registrar(bloque);
+                bytesValidos = contador.leidos;
+                finIndexado = Math.max(finIndexado,
+                        bloque.desplazamiento() + TAMANO_CABECERA + bloque.tamanoComprimido());
+            }
+        }
+
+        if (bytesValidos < Files.size(archivo)) {
+            log.warn("Índice {} con una entrada incompleta; se recorta a {} bytes", archivo, bytesValidos);
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                canal.truncate(bytesValidos);
+            }
+        }
+        return finIndexado;
+    }
+
+    /**
+     * Recorre los bloques escritos después del último indexado. Un bloque incompleto
+     * (escritura interrumpida) se elimina del segmento.
+     */
+    private void buscarBloquesSinConfirmar(YearMonth mes, long desde) throws IOException {
+        Path archivo = segmento(mes);
+        long tamano = Files.size(archivo);
+        long posicion = desde;
+
+        try (FileChannel segmento = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            while (posicion + TAMANO_CABECERA <= tamano) {
+                ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA);
+                segmento.read(cabecera, posicion);
+                cabecera.flip();
+                if (cabecera.getInt() != MAGICO) {
+                    break;
+                }
+                long cuentaId = cabecera.getLong();
+                int cantidad = cabecera.getInt();
+                int tamanoOriginal = cabecera.getInt();
+                int tamanoComprimido = cabecera.getInt();
+                if (posicion + TAMANO_CABECERA + tamanoComprimido > tamano) {
+                    break;
+                }
+
+                Bloque bloque = new Bloque(mes, cuentaId, posicion, cantidad, tamanoOriginal,
+                        tamanoComprimido, Totales.VACIO);
+                sinConfirmar.add(new Bloque(mes, cuentaId, posicion, cantidad, tamanoOriginal,
+                        tamanoComprimido, Totales.de(leer(bloque))));
+                posicion += TAMANO_CABECERA + tamanoComprimido;
+            }
+        }
+
+        if (posicion < tamano) {
+            log.warn("Segmento {} con un bloque incompleto; se recorta a {} bytes", archivo, posicion);
+            truncar(mes, posicion);
+        }
+    }
+
+    private void registrar(Bloque bloque) {
+        indices.computeIfAbsent(bloque.mes(), mes -> new ConcurrentHashMap<>())
+                .computeIfAbsent(bloque.cuentaId(), cuenta -> new CopyOnWriteArrayList<>())
+                .add(bloque);
+        totalesPorCuenta.merge(bloque.cuentaId(), bloque.totales(), Totales::sumar);
+    }
+
+    private void truncar(YearMonth mes, long tamano) throws IOException {
+        try (FileChannel segmento = FileChannel.open(segmento(mes), StandardOpenOption.WRITE)) {
+            segmento.truncate(tamano);
+            segmento.force(false);
+        }
+    }
+
+    private Path segmento(YearMonth mes) {
+        return raiz.resolve(PREFIJO + mes.format(FORMATO_MES) + ".seg");
+    }
+
+    private Path indice(YearMonth mes) {
+        return raiz.resolve(PREFIJO + mes.format(FORMATO_MES) + ".idx");
+    }
+
+    private static byte[] comprimir(byte[] datos) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(datos);
+            deflater.finish();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                salida.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return salida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] descomprimir(ByteBuffer comprimidos, int tamanoOriginal) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimidos);
+            byte[] datos = new byte[tamanoOriginal];
+            int leidos = 0;
+            while (leidos < tamanoOriginal && !inflater.finished()) {
+                int n = inflater.inflate(datos, leidos, tamanoOriginal - leidos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                leidos += n;
+            }
+            if (leidos != tamanoOriginal) {
+                throw new IOException("Bloque comprimido incompleto");
+            }
+            return datos;
+        } catch (DataFormatException e) {
+            throw new IOException("Bloque comprimido corrupto", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void escribirEntradaIndice(DataOutputStream salida, Bloque bloque) throws IOException {
+        salida.writeLong(bloque.cuentaId());
+        salida.writeLong(bloque.desplazamiento());
+        salida.writeInt(bloque.cantidad());
+        salida.writeInt(bloque.tamanoOriginal());
+        salida.writeInt(bloque.tamanoComprimido());
+        salida.writeUTF(bloque.totales().creditos().toString());
+        salida.writeUTF(bloque.totales().debitos().toString());
+        salida.writeLong(bloque.totales().completadas());
+        salida.writeUTF(bloque.totales().creditosAnulados().toString());
+        salida.writeUTF(bloque.totales().debitosAnulados().toString());
+    }
+
+    private static Bloque leerEntradaIndice(DataInputStream entrada, YearMonth mes) throws IOException {
+        return new Bloque(mes, entrada.readLong(), entrada.readLong(), entrada.readInt(), entrada.readInt(),
+                entrada.readInt(), new Totales(Dunab.valueOf(entrada.readUTF()),
+                Dunab.valueOf(entrada.readUTF()), entrada.readLong(),
+                Dunab.valueOf(entrada.readUTF()), Dunab.valueOf(entrada.readUTF())));
+    }
+
+    private static void escribirTransaccion(DataOutputStream salida, TransaccionArchivada t) throws IOException {
+        salida.writeLong(t.getId());
+        escribirTexto(salida, t.getEstudianteNombre());
+        salida.writeUTF(t.getTipo().name());
+        salida.writeUTF(t.getMonto().toString());
+        escribirTexto(salida, t.getCategoriaNombre());
+        escribirTexto(salida, t.getDescripcion());
+        escribirTexto(salida, t.getReferencia());
+        salida.writeUTF(t.getEstado().name());
+        escribirMonto(salida, t.getSaldoAnterior());
+        escribirMonto(salida, t.getSaldoPosterior());
+        escribirTexto(salida, t.getCreadoPor());
+        escribirTexto(salida, t.getJustificacionAnulacion());
+        escribirTexto(salida, t.getAnuladoPor());
+        escribirFecha(salida, t.getFechaAnulacion());
+        escribirFecha(salida, t.getFechaCreacion());
+        escribirFecha(salida, t.getFechaActualizacion());
+    }
+
+    private static TransaccionArchivada leerTransaccion(DataInputStream entrada, long cuentaId) throws IOException {
+        return TransaccionArchivada.builder()
+                .id(entrada.readLong())
+                .cuentaId(cuentaId)
+                .estudianteNombre(leerTexto(entrada))
+                .tipo(TransactionType.valueOf(entrada.readUTF()))
+                .monto(Dunab.valueOf(entrada.readUTF()))
+                .categoriaNombre(leerTexto(entrada))
+                .descripcion(leerTexto(entrada))
+                .referencia(leerTexto(entrada))
+                .estado(TransactionStatus.valueOf(entrada.readUTF()))
+                .saldoAnterior(leerMonto(entrada))
+                .saldoPosterior(leerMonto(entrada))
+                .creadoPor(leerTexto(entrada))
+                .justificacionAnulacion(leerTexto(entrada))
+                .anuladoPor(leerTexto(entrada))
+                .fechaAnulacion(leerFecha(entrada))
+                .fechaCreacion(leerFecha(entrada))
+                .fechaActualizacion(leerFecha(entrada))
+                .build();
+    }
+
+    private static void escribirTexto(DataOutputStream salida, String valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        if (valor != null) {
+            salida.writeUTF(valor);
+        }
+    }
+
+    private static String leerTexto(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+
+    private static void escribirMonto(DataOutputStream salida, Dunab valor) throws IOException {
+        escribirTexto(salida, valor != null ? valor.toString() : null);
+    }
+
+    private static Dunab leerMonto(DataInputStream entrada) throws IOException {
+        String valor = leerTexto(entrada);
+        return valor != null ? Dunab.valueOf(valor) : null;
+    }
+
+    private static void escribirFecha(DataOutputStream salida, LocalDateTime valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        if (valor != null) {
+            salida.writeLong(valor.toEpochSecond(ZoneOffset.UTC));
+            salida.writeInt(valor.getNano());
+        }
+    }
+
+    private static LocalDateTime leerFecha(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean()
+                ? LocalDateTime.ofEpochSecond(entrada.readLong(), entrada.readInt(), ZoneOffset.UTC)
+                : null;
+    }
+
+    /**
+     * Cuenta los bytes leídos para saber dónde termina la última entrada completa del índice
+     */
+    private static final class ContadorEntrada extends FilterInputStream {
+
+        private long leidos;
+
+        ContadorEntrada(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                leidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int desde, int longitud) throws IOException {
+            int n = super.read(buffer, desde, longitud);
+            if (n > 0) {
+                leidos += n;
+            }
+            return n;
+        }
+    }
+}
@@ -2,11 +2,17 @@ package com.unab.dunab.repository;
 
 import com.unab.dunab.model.AccountStatus;
 import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Dunab;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,19 +21,74 @@ public interface CuentaDunabRepository extends JpaRepository<CuentaDunab, Long>
 
     Optional<CuentaDunab> findByEstudianteId(Long estudianteId);
 
+    @Query("SELECT c.id FROM CuentaDunab c WHERE c.estudiante.id = :estudianteId")
+    Optional<Long> findIdByEstudianteId(@Param("estudianteId") Long estudianteId);
+
+    /**
+     * Carga la cuenta con un bloqueo de escritura (SELECT ... FOR UPDATE) hasta el fin de la
+     * transacción. Debe ser la primera lectura de la cuenta en la transacción: si la entidad ya
+     * está en el contexto de persistencia, Hibernate devuelve esa instancia sin refrescarla.
+     * Para bloquear varias cuentas, hacerlo en orden ascendente de id.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CuentaDunab c WHERE c.id = :id")
+    Optional<CuentaDunab> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Como findByIdForUpdate pero con un bloqueo compartido (SELECT ... FOR SHARE): varios
+     * créditos a una cuenta con sub-saldos lo tienen a la vez, y excluye a quien bloquea la
+     * cuenta para escribirla. Se toma en el mismo orden de id que los bloqueos de escritura.
+     * En H2 el bloqueo compartido es exclusivo.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM CuentaDunab c WHERE c.id = :id")
+    Optional<CuentaDunab> findByIdForShare(@Param("id") Long id);
+
+    /**
+     * Débito de punto de venta en una sola sentencia: descuenta el monto solo si la cuenta está
+     * activa, no usa sub-saldos, tiene saldo suficiente y el monto no supera su límite por
+     * transacción. Bloquea la fila hasta el fin de la transacción, igual que findByIdForUpdate.
+     * Es SQL nativo porque JPQL no admite aritmética sobre atributos Dunab.
+     *
+     * @return 1 si se debitó, 0 si alguna condición no se cumple
+     */
+    @Modifying
+    @Query(value = "UPDATE cuentas_dunab SET saldo_actual = saldo_actual - :monto, " +
+           "total_gastado = total_gastado + :monto, fecha_actualizacion = :ahora " +
+           "WHERE id = :id AND estado = 'ACTIVA' AND sub_saldos = 0 AND saldo_actual >= :monto " +
+           "AND (limite_transaccion IS NULL OR limite_transaccion <= 0 OR limite_transaccion >= :monto)",
+           nativeQuery = true)
+    int debitarSiAlcanza(
+            @Param("id") Long id,
+            @Param("monto") BigDecimal monto,
+            @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Las consultas que devuelven montos (saldo, sumas) son SQL nativo y devuelven BigDecimal: Spring
+     * Data no convierte el resultado de una consulta a Dunab
+     */
+    @Query(value = "SELECT saldo_actual FROM cuentas_dunab WHERE id = :id", nativeQuery = true)
+    Optional<BigDecimal> findSaldoActualById(@Param("id") Long id);
+
+    @Query("SELECT c.subSaldos FROM CuentaDunab c WHERE c.id = :id")
+    Optional<Integer> findSubSaldosById(@Param("id") Long id);
+
+    @Query("SELECT c.id FROM CuentaDunab c WHERE c.subSaldos > 0")
+    List<Long> findIdsConSubSaldos();
+
     List<CuentaDunab> findByEstado(AccountStatus estado);
 
-    List<CuentaDunab> findBySaldoActualGreaterThan(BigDecimal saldo);
+    List<CuentaDunab> findBySaldoActualGreaterThan(Dunab saldo);
 
     @Query("SELECT c FROM CuentaDunab c ORDER BY c.saldoActual DESC")
     List<CuentaDunab> findAllOrderBySaldoDesc();
 
-    @Query("SELECT SUM(c.saldoActual) FROM CuentaDunab c WHERE c.estado = :estado")
-    BigDecimal getTotalSaldoByEstado(AccountStatus estado);
+    @Query(value = "SELECT SUM(saldo_actual) FROM cuentas_dunab WHERE estado = :#{#estado.name()}", nativeQuery = true)
+    BigDecimal getTotalSaldoByEstado(@Param("estado") AccountStatus estado);
 
-    @Query("SELECT SUM(c.totalGanado) FROM CuentaDunab c WHERE c.estado = :estado")
-    BigDecimal getTotalGanadoByEstado(AccountStatus estado);
+    @Query(value = "SELECT SUM(total_ganado) FROM cuentas_dunab WHERE estado = :#{#estado.name()}", nativeQuery = true)
+    BigDecimal getTotalGanadoByEstado(@Param("estado") AccountStatus estado);
 
-    @Query("SELECT SUM(c.totalGastado) FROM CuentaDunab c WHERE c.estado = :estado")
-    BigDecimal getTotalGastadoByEstado(AccountStatus estado);
+    @Query(value = "SELECT SUM(total_gastado) FROM cuentas_dunab WHERE estado = :#{#estado.name()}", nativeQuery = true)
+    BigDecimal getTotalGastadoByEstado(@Param("estado") AccountStatus estado);
 }
@@ -2,12 +2,14 @@ package com.unab.dunab.repository;
 
 import com.unab.dunab.model.Evento;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EventoRepository extends JpaRepository<Evento, Long> {
@@ -26,4 +28,24 @@ public interface EventoRepository extends JpaRepository<Evento, Long> {
 
     @Query("SELECT e FROM Evento e WHERE e.activo = true AND e.recompensaDunab > 0")
     List<Evento> findEventosConRecompensa();
+
+    /**
+     * Reserva un cupo del evento en una sola sentencia: suma uno a cuposOcupados solo si el
+     * evento está activo, no ha ocurrido y le quedan cupos. Bloquea la fila del evento hasta el
+     * fin de la transacción, así que conviene ejecutarlo al final.
+     *
+     * @return 1 si se reservó, 0 si alguna condición no se cumple
+     */
+    @Modifying
+    @Query("UPDATE Evento e SET e.cuposOcupados = e.cuposOcupados + 1 " +
+           "WHERE e.id = :id AND e.activo = true AND e.fechaEvento > :ahora " +
+           "AND (e.capacidadMaxima IS NULL OR e.cuposOcupados < e.capacidadMaxima)")
+    int reservarCupo(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE Evento e SET e.cuposOcupados = e.cuposOcupados - 1 WHERE e.id = :id AND e.cuposOcupados > 0")
+    int liberarCupo(@Param("id") Long id);
+
+    @Query("SELECT e.cuposOcupados FROM Evento e WHERE e.id = :id")
+    Optional<Integer> findCuposOcupadosById(@Param("id") Long id);
 }
@@ -0,0 +1,44 @@
+package com.unab.dunab.repository;
+
+import com.unab.dunab.model.EstadoInscripcion;
+import com.unab.dunab.model.InscripcionEvento;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InscripcionEventoRepository extends JpaRepository<InscripcionEvento, Long> {
+
+    /**
+     * Inscripción de un estudiante a un evento, bloqueada hasta el fin de la transacción. Dos
+     * operaciones sobre la misma inscripción (inscribir de nuevo, cancelar) se esperan.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InscripcionEvento i WHERE i.evento.id = :eventoId AND i.estudiante.id = :estudianteId")
+    Optional<InscripcionEvento> findByEventoIdAndEstudianteIdForUpdate(
+            @Param("eventoId") Long eventoId,
+            @Param("estudianteId") Long estudianteId);
+
+    @Query("SELECT i.estado FROM InscripcionEvento i WHERE i.evento.id = :eventoId AND i.estudiante.id = :estudianteId")
+    Optional<EstadoInscripcion> findEstadoByEventoIdAndEstudianteId(
+            @Param("eventoId") Long eventoId,
+            @Param("estudianteId") Long estudianteId);
+
+    @Query("SELECT i FROM InscripcionEvento i JOIN FETCH i.evento LEFT JOIN FETCH i.transaccionPago " +
+           "WHERE i.estudiante.id = :estudianteId ORDER BY i.fechaInscripcion DESC")
+    List<InscripcionEvento> findByEstudianteIdConEvento(@Param("estudianteId") Long estudianteId);
+
+    /**
+     * Evento, estudiante y turno de las inscripciones en el estado dado (EN_ESPERA), para
+     * reconstruir las listas de espera al arrancar
+     */
+    @Query("SELECT i.evento.id, i.estudiante.id, i.turnoEspera FROM InscripcionEvento i " +
+           "WHERE i.estado = :estado ORDER BY i.evento.id, i.turnoEspera")
+    List<Object[]> findTurnosByEstado(@Param("estado") EstadoInscripcion estado);
+}
@@ -2,10 +2,12 @@ package com.unab.dunab.repository;
 
 import com.unab.dunab.model.Notificacion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -21,4 +23,18 @@ public interface NotificacionRepository extends JpaRepository<Notificacion, Long
     List<Notificacion> findByTipo(String tipo);
 
     void deleteByEstudianteId(Long estudianteId);
+
+    /**
+     * Crea la misma notificación para cada estudiante con una inscripción del evento en los
+     * estados dados, en una sola sentencia
+     *
+     * @return notificaciones creadas
+     */
+    @Modifying
+    @Query(value = "INSERT INTO notificaciones (estudiante_id, tipo, mensaje, leida, fecha_creacion) " +
+                   "SELECT i.estudiante_id, :tipo, :mensaje, FALSE, :ahora FROM inscripciones_evento i " +
+                   "WHERE i.evento_id = :eventoId AND i.estado IN (:estados)", nativeQuery = true)
+    int insertarParaInscritos(@Param("eventoId") Long eventoId, @Param("estados") List<String> estados,
+                              @Param("tipo") String tipo, @Param("mensaje") String mensaje,
+                              @Param("ahora") LocalDateTime ahora);
 }
@@ -0,0 +1,46 @@
+package com.unab.dunab.repository;
+
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.SubSaldoCuenta;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface SubSaldoCuentaRepository extends JpaRepository<SubSaldoCuenta, Long> {
+
+    /**
+     * Suma un crédito a un sub-saldo. Solo bloquea esa fila. Es SQL nativo porque JPQL no admite
+     * aritmética sobre atributos Dunab.
+     */
+    @Modifying
+    @Query(value = "UPDATE sub_saldos_cuenta SET monto = monto + :monto " +
+           "WHERE cuenta_id = :cuentaId AND indice = :indice", nativeQuery = true)
+    int acreditar(
+            @Param("cuentaId") Long cuentaId,
+            @Param("indice") int indice,
+            @Param("monto") BigDecimal monto);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SubSaldoCuenta s WHERE s.cuenta.id = :cuentaId ORDER BY s.indice")
+    List<SubSaldoCuenta> findByCuentaIdForUpdate(@Param("cuentaId") Long cuentaId);
+
+    /**
+     * Créditos pendientes de una cuenta. SQL nativo, como los demás agregados de montos (ver
+     * CuentaDunabRepository)
+     */
+    @Query(value = "SELECT COALESCE(SUM(monto), 0) FROM sub_saldos_cuenta WHERE cuenta_id = :cuentaId",
+           nativeQuery = true)
+    BigDecimal getPendienteByCuentaId(@Param("cuentaId") Long cuentaId);
+
+    @Query(value = "SELECT COALESCE(SUM(s.monto), 0) FROM sub_saldos_cuenta s " +
+           "JOIN cuentas_dunab c ON c.id = s.cuenta_id WHERE c.estado = :#{#estado.name()}", nativeQuery = true)
+    BigDecimal getPendienteByEstado(@Param("estado") AccountStatus estado);
+}
@@ -6,30 +6,42 @@ import com.unab.dunab.model.TransactionType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Todas las consultas por cuenta llevan un límite inferior de fecha ("desde"): en PostgreSQL
+ * la tabla está particionada por mes sobre fecha_creacion y así el planificador descarta
+ * las particiones anteriores.
+ */
 @Repository
 public interface TransaccionRepository extends JpaRepository<Transaccion, Long> {
 
-    List<Transaccion> findByCuentaId(Long cuentaId);
-
-    Page<Transaccion> findByCuentaId(Long cuentaId, Pageable pageable);
-
-    List<Transaccion> findByCuentaIdOrderByFechaCreacionDesc(Long cuentaId);
-
-    List<Transaccion> findByTipo(TransactionType tipo);
-
-    List<Transaccion> findByEstado(TransactionStatus estado);
+    @Query("SELECT t FROM Transaccion t WHERE t.cuenta.id = :cuentaId AND t.fechaCreacion >= :desde")
+    Page<Transaccion> findByCuentaIdDesde(
+            @Param("cuentaId") Long cuentaId,
+            @Param("desde") LocalDateTime desde,
+            Pageable pageable);
 
-    List<Transaccion> findByCuentaIdAndTipo(Long cuentaId, TransactionType tipo);
+    @Query("SELECT t FROM Transaccion t WHERE t.cuenta.id = :cuentaId AND t.fechaCreacion >= :desde " +
+           "ORDER BY t.fechaCreacion DESC")
+    List<Transaccion> findByCuentaIdDesdeOrderByFechaCreacionDesc(
+            @Param("cuentaId") Long cuentaId,
+            @Param("desde") LocalDateTime desde);
 
-    List<Transaccion> findByCuentaIdAndEstado(Long cuentaId, TransactionStatus estado);
+    @Query("SELECT t FROM Transaccion t WHERE t.cuenta.id = :cuentaId " +
+           "AND t.tipo = :tipo AND t.fechaCreacion >= :desde")
+    List<Transaccion> findByCuentaIdAndTipoDesde(
+            @Param("cuentaId") Long cuentaId,
+            @Param("tipo") TransactionType tipo,
+            @Param("desde") LocalDateTime desde);
 
     @Query("SELECT t FROM Transaccion t WHERE t.cuenta.id = :cuentaId " +
            "AND t.fechaCreacion BETWEEN :fechaInicio AND :fechaFin")
@@ -38,26 +50,74 @@ public interface TransaccionRepository extends JpaRepository<Transaccion, Long>
             @Param("fechaInicio") LocalDateTime fechaInicio,
             @Param("fechaFin") LocalDateTime fechaFin);
 
-    @Query("SELECT t FROM Transaccion t WHERE t.cuenta.id = :cuentaId " +
-           "AND t.tipo = :tipo AND t.estado = :estado")
-    List<Transaccion> findByCuentaIdAndTipoAndEstado(
-            @Param("cuentaId") Long cuentaId,
-            @Param("tipo") TransactionType tipo,
-            @Param("estado") TransactionStatus estado);
-
-    @Query("SELECT SUM(t.monto) FROM Transaccion t WHERE t.cuenta.id = :cuentaId " +
-           "AND t.tipo = :tipo AND t.estado = 'COMPLETADA'")
+    /**
+     * SQL nativo, como los demás agregados de montos (ver CuentaDunabRepository)
+     */
+    @Query(value = "SELECT SUM(monto) FROM transacciones WHERE cuenta_id = :cuentaId " +
+           "AND tipo = :#{#tipo.name()} AND estado = 'COMPLETADA' AND fecha_creacion >= :desde",
+           nativeQuery = true)
     BigDecimal getTotalByTipo(
             @Param("cuentaId") Long cuentaId,
-            @Param("tipo") TransactionType tipo);
+            @Param("tipo") TransactionType tipo,
+            @Param("desde") LocalDateTime desde);
 
     @Query("SELECT t FROM Transaccion t WHERE t.cuenta.id = :cuentaId " +
-           "AND t.categoria.id = :categoriaId")
-    List<Transaccion> findByCuentaIdAndCategoriaId(
+           "AND t.categoria.id = :categoriaId AND t.fechaCreacion >= :desde")
+    List<Transaccion> findByCuentaIdAndCategoriaIdDesde(
             @Param("cuentaId") Long cuentaId,
-            @Param("categoriaId") Long categoriaId);
+            @Param("categoriaId") Long categoriaId,
+            @Param("desde") LocalDateTime desde);
 
     @Query("SELECT COUNT(t) FROM Transaccion t WHERE t.cuenta.id = :cuentaId " +
-           "AND t.estado = 'COMPLETADA'")
-    Long countTransaccionesCompletadas(@Param("cuentaId") Long cuentaId);
+           "AND t.estado = 'COMPLETADA' AND t.fechaCreacion >= :desde")
+    Long countTransaccionesCompletadas(
+            @Param("cuentaId") Long cuentaId,
+            @Param("desde") LocalDateTime desde);
+
+    /**
+     * Lote de transacciones de meses cerrados para el archivo en disco, con las asociaciones que
+     * se copian al archivo. Las transacciones ligadas a inscripciones de eventos no se archivan.
+     * Es un recorrido por lotes de las particiones antiguas, no una consulta en línea.
+     */
+    @Query("SELECT t FROM Transaccion t JOIN FETCH t.cuenta c JOIN FETCH c.estudiante " +
+           "LEFT JOIN FETCH t.categoria LEFT JOIN FETCH t.creadoPor LEFT JOIN FETCH t.anuladoPor " +
+           "WHERE t.fechaCreacion < :antesDe AND NOT EXISTS (SELECT 1 FROM InscripcionEvento i " +
+           "WHERE i.transaccionPago = t OR i.transaccionRecompensa = t) ORDER BY t.id")
+    List<Transaccion> findLoteParaArchivar(
+            @Param("antesDe") LocalDateTime antesDe,
+            Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Transaccion t WHERE t.id IN :ids AND t.fechaCreacion < :antesDe")
+    int deleteArchivadas(
+            @Param("ids") Collection<Long> ids,
+            @Param("antesDe") LocalDateTime antesDe);
+
+    /**
+     * Débitos completados desde una fecha como (cuentaId, fechaCreacion, monto), para reconstruir
+     * los contadores de límites de gasto al arrancar
+     */
+    @Query("SELECT t.cuenta.id, t.fechaCreacion, t.monto FROM Transaccion t " +
+           "WHERE t.tipo = 'DEBITO' AND t.estado = 'COMPLETADA' AND t.fechaCreacion >= :desde")
+    List<Object[]> findDebitosCompletadosDesde(@Param("desde") LocalDateTime desde);
+
+    /**
+     * Estado actual de la transacción, leído de la base de datos aunque la entidad ya esté cargada:
+     * se consulta después de bloquear la cuenta, cuando otra operación pudo haberlo cambiado
+     */
+    @Query("SELECT t.estado FROM Transaccion t WHERE t.id = :id AND t.fechaCreacion = :fechaCreacion")
+    TransactionStatus findEstadoById(
+            @Param("id") Long id,
+            @Param("fechaCreacion") LocalDateTime fechaCreacion);
+
+    /**
+     * Transacciones con una referencia desde una fecha (las dos partes de una transferencia), por
+     * idx_transacciones_referencia
+     */
+    @Query("SELECT t FROM Transaccion t WHERE t.referencia = :referencia AND t.fechaCreacion >= :desde ORDER BY t.id")
+    List<Transaccion> findByReferenciaDesde(
+            @Param("referencia") String referencia,
+            @Param("desde") LocalDateTime desde);
+
+    long countByIdIn(Collection<Long> ids);
 }
@@ -2,9 +2,13 @@ package com.unab.dunab.repository;
 
 import com.unab.dunab.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -13,7 +17,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByCodigoEstudiante(String codigoEstudiante);
 
+    @Query("SELECT u.id FROM User u WHERE u.codigoEstudiante = :codigoEstudiante")
+    Optional<Long> findIdByCodigoEstudiante(@Param("codigoEstudiante") String codigoEstudiante);
+
     boolean existsByEmail(String email);
 
     boolean existsByCodigoEstudiante(String codigoEstudiante);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    Set<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT u.codigoEstudiante FROM User u WHERE u.codigoEstudiante IN :codigos")
+    Set<String> findCodigosEstudianteExistentes(@Param("codigos") Collection<String> codigos);
 }
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
 
 /**
  * Proveedor de tokens JWT para autenticación
@@ -18,6 +19,10 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
+    /** Claim que distingue los tokens QR de pago de los tokens de sesión */
+    private static final String CLAIM_TIPO = "tipo";
+    private static final String TIPO_QR_PAGO = "qr-pago";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -27,6 +32,9 @@ public class JwtTokenProvider {
     @Value("${jwt.refresh-expiration}")
     private long jwtRefreshExpirationMs;
 
+    @Value("${jwt.qr-expiration}")
+    private long jwtQrExpirationMs;
+
     /**
      * Genera un token JWT a partir de la autenticación
      */
@@ -65,6 +73,45 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * Genera el token que el estudiante muestra como código QR en el punto de venta. Es de
+     * corta duración, lleva el id del estudiante y no sirve como token de sesión.
+     */
+    public String generarTokenQr(Long estudianteId) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtQrExpirationMs);
+
+        return Jwts.builder()
+                .setSubject(String.valueOf(estudianteId))
+                .claim(CLAIM_TIPO, TIPO_QR_PAGO)
+                .setIssuedAt(now)
+                .setExpiration(expiryDate)
+                .signWith(getSigningKey())
+                .compact();
+    }
+
+    /**
+     * Valida un token QR de pago y devuelve el id del estudiante
+     *
+     * @return vacío si el token no es válido, expiró o no es un token QR
+     */
+    public Optional<Long> getEstudianteIdDesdeTokenQr(String token) {
+        try {
+            Claims claims = Jwts.parser()
+                    .verifyWith(getSigningKey())
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            if (!TIPO_QR_PAGO.equals(claims.get(CLAIM_TIPO, String.class))) {
+                return Optional.empty();
+            }
+            return Optional.of(Long.valueOf(claims.getSubject()));
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.debug("Token QR rechazado: {}", ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
     /**
      * Obtiene el email del usuario desde el token
      */
@@ -3,6 +3,7 @@ package com.unab.dunab.security;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -58,6 +59,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
+                        // Calendario .ics: el token firmado de la dirección identifica al estudiante
+                        .requestMatchers(HttpMethod.GET, "/api/events/calendar/*").permitAll()
 
                         // Todos los demás endpoints requieren autenticación
                         .anyRequest().authenticated()
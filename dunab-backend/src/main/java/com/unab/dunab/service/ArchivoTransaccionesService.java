@@ -0,0 +1,201 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.ArchivoTransaccionesResponse;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.model.TransaccionArchivada;
+import com.unab.dunab.repository.ArchivoTransaccionesRepository;
+import com.unab.dunab.repository.TransaccionRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Mueve las transacciones de meses cerrados de la tabla transacciones al archivo en disco
+ * (ver ArchivoTransaccionesRepository).
+ *
+ * Se archivan los meses anteriores a dunab.archivo.meses-retencion. Cada lote se escribe en
+ * disco y se borra de la base en una misma transacción; los bloques se registran en el índice
+ * del archivo solo después del commit.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArchivoTransaccionesService {
+
+    private final TransaccionRepository transaccionRepository;
+    private final ArchivoTransaccionesRepository archivoTransaccionesRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock ejecucion = new ReentrantLock();
+
+    @Value("${dunab.archivo.meses-retencion}")
+    private int mesesRetencion;
+
+    @Value("${dunab.archivo.tamano-lote}")
+    private int tamanoLote;
+
+    /**
+     * Resuelve los bloques que quedaron escritos pero sin registrar si la aplicación se detuvo
+     * a mitad de un lote: se confirman solo si sus filas ya no están en la base de datos.
+     * También se hace al comienzo de cada ejecución, por si un lote anterior falló al registrarse.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        recuperarLotesInterrumpidos();
+    }
+
+    /**
+     * Job nocturno de archivo
+     */
+    @Scheduled(cron = "${dunab.archivo.cron}")
+    public void archivarProgramado() {
+        ArchivoTransaccionesResponse resultado = archivar();
+        log.info("Archivo de transacciones: {} transacciones anteriores a {} en {} lotes ({} ms)",
+                resultado.getArchivadas(), resultado.getArchivadoAntesDe(), resultado.getLotes(),
+                resultado.getDuracionMs());
+    }
+
+    /**
+     * Archiva por lotes todas las transacciones anteriores al período de retención
+     */
+    @Timed(value = "dunab.transacciones.archivar", description = "Tiempo de archivo de transacciones antiguas")
+    public ArchivoTransaccionesResponse archivar() {
+        if (!ejecucion.tryLock()) {
+            throw new InvalidOperationException(
+                    "El archivo de transacciones ya está en ejecución o hay una conciliación de cuentas en curso");
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+            recuperarLotesInterrumpidos();
+            LocalDate antesDe = getInicioRetencion().atDay(1);
+
+            long archivadas = 0;
+            int lotes = 0;
+            int enLote;
+            while ((enLote = archivarLote(antesDe)) > 0) {
+                archivadas += enLote;
+                lotes++;
+                meterRegistry.counter("dunab.transacciones.archivadas").increment(enLote);
+            }
+
+            return ArchivoTransaccionesResponse.builder()
+                    .archivadoAntesDe(antesDe)
+                    .archivadas(archivadas)
+                    .lotes(lotes)
+                    .duracionMs(System.currentTimeMillis() - inicio)
+                    .mesesArchivados(new ArrayList<>(archivoTransaccionesRepository.getMesesArchivados()))
+                    .build();
+        } finally {
+            ejecucion.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta una tarea que suma transacciones de la base de datos y del archivo, impidiendo
+     * que el archivo mueva filas mientras tanto (una fila podría contarse dos veces o ninguna)
+     */
+    public <T> T sinArchivar(Supplier<T> tarea) {
+        if (!ejecucion.tryLock()) {
+            throw new InvalidOperationException("El archivo de transacciones está en ejecución");
+        }
+        try {
+            return tarea.get();
+        } finally {
+            ejecucion.unlock();
+        }
+    }
+
+    /**
+     * Primer mes que se conserva en la base de datos
+     */
+    public YearMonth getInicioRetencion() {
+        return YearMonth.now().minusMonths(mesesRetencion);
+    }
+
+    /**
+     * Escribe un lote en disco y lo borra de la base de datos en la misma transacción.
+     * Si la transacción falla, los bloques escritos se recortan del final de los segmentos.
+     *
+     * @return cantidad de transacciones archivadas (0 cuando no quedan más)
+     */
+    private int archivarLote(LocalDate antesDe) {
+        List<ArchivoTransaccionesRepository.Bloque> escritos = new ArrayList<>();
+        Integer archivadas;
+        try {
+            archivadas = transactionTemplate.execute(estado -> {
+                List<TransaccionArchivada> lote = transaccionRepository
+                        .findLoteParaArchivar(antesDe.atStartOfDay(), PageRequest.of(0, tamanoLote)).stream()
+                        .map(TransaccionArchivada::desde)
+                        .toList();
+                if (lote.isEmpty()) {
+                    return 0;
+                }
+
+                try {
+                    escritos.addAll(archivoTransaccionesRepository.escribir(lote));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo escribir el archivo de transacciones", e);
+                }
+
+                List<Long> ids = lote.stream().map(TransaccionArchivada::getId).toList();
+                int eliminadas = transaccionRepository.deleteArchivadas(ids, antesDe.atStartOfDay());
+                if (eliminadas != ids.size()) {
+                    throw new IllegalStateException(String.format(
+                            "Se esperaba borrar %d transacciones archivadas y se borraron %d",
+                            ids.size(), eliminadas));
+                }
+                return lote.size();
+            });
+        } catch (RuntimeException e) {
+            descartar(escritos);
+            throw e;
+        }
+
+        try {
+            archivoTransaccionesRepository.confirmar(escritos);
+        } catch (IOException e) {
+            // Las filas ya se borraron: los bloques se confirman en la próxima ejecución o al arrancar
+            log.error("No se pudo registrar un lote en el índice del archivo de transacciones", e);
+            throw new UncheckedIOException(e);
+        }
+        return archivadas != null ? archivadas : 0;
+    }
+
+    private void recuperarLotesInterrumpidos() {
+        try {
+            int recuperados = archivoTransaccionesRepository.recuperar(
+                    ids -> transaccionRepository.countByIdIn(ids) == 0);
+            if (recuperados > 0) {
+                log.warn("Archivo de transacciones: {} bloques recuperados de un lote interrumpido", recuperados);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recuperar el archivo de transacciones", e);
+        }
+    }
+
+    private void descartar(List<ArchivoTransaccionesRepository.Bloque> escritos) {
+        try {
+            archivoTransaccionesRepository.descartar(escritos);
+        } catch (IOException e) {
+            log.error("No se pudieron descartar los bloques de un lote fallido", e);
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.AsistenciaEventoResponse;
+import com.unab.dunab.dto.response.AsistenciaEventoResponse.IncidenciaAsistente;
+import com.unab.dunab.dto.response.AsistenciaEventoResponse.ResultadoAsistente;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.EstadoInscripcion;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.model.TransactionStatus;
+import com.unab.dunab.model.TransactionType;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.utils.CsvLineParser;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Confirmación de asistencia por lotes: marca ASISTIO las inscripciones de los asistentes de un
+ * evento y les acredita su recompensa (Evento.recompensaDunab).
+ *
+ * Los asistentes llegan como lista de ids de estudiante o como el archivo del registro de
+ * entrada (text/csv con encabezado y una columna estudianteId o codigoEstudiante).
+ *
+ * - Los asistentes se procesan en bloques, cada uno en su transacción: se bloquean las
+ *   inscripciones y después las cuentas, ambas en orden de id, y los créditos, los saldos y las
+ *   inscripciones se escriben con JDBC por lotes. Cada crédito queda enlazado a su inscripción
+ *   (transaccion_recompensa_id) con la referencia RWD-EVT-{evento}-{estudiante}.
+ * - Una inscripción que ya está en ASISTIO no se paga de nuevo: si el envío se interrumpe, o un
+ *   bloque falla, basta con repetirlo; los ya confirmados se reportan como YA_CONFIRMADA.
+ * - Las notificaciones se envían en segundo plano cuando todos los bloques terminaron.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AsistenciaEventoService {
+
+    private static final int TAMANO_LOTE = 500;
+
+    private static final String PREFIJO_REFERENCIA = "RWD-EVT-";
+
+    private static final String SQL_ESTUDIANTES_POR_CODIGO =
+            "SELECT codigo_estudiante, id FROM users WHERE codigo_estudiante IN (:codigos)";
+
+    private static final String SQL_BLOQUEAR_INSCRIPCIONES =
+            "SELECT id, estudiante_id, estado FROM inscripciones_evento " +
+            "WHERE evento_id = :eventoId AND estudiante_id IN (:estudianteIds) ORDER BY id FOR UPDATE";
+
+    // Mismo orden de bloqueo que TransactionService y LiquidacionLotesPosService
+    private static final String SQL_BLOQUEAR_CUENTAS =
+            "SELECT id, estudiante_id, estado, saldo_actual, total_ganado, sub_saldos FROM cuentas_dunab " +
+            "WHERE estudiante_id IN (:estudianteIds) ORDER BY id FOR UPDATE";
+
+    private static final String SQL_INSERTAR_TRANSACCION =
+            "INSERT INTO transacciones (cuenta_id, tipo, monto, descripcion, referencia, estado, saldo_anterior, " +
+            "saldo_posterior, creado_por, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] TIPOS_INSERTAR_TRANSACCION = {
+            Types.BIGINT, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.NUMERIC, Types.NUMERIC, Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP};
+
+    // Ids de los créditos recién insertados; fecha_creacion limita la búsqueda a una partición
+    private static final String SQL_TRANSACCIONES_INSERTADAS =
+            "SELECT referencia, id FROM transacciones WHERE referencia IN (:referencias) AND fecha_creacion = :ahora";
+
+    private static final String SQL_ACTUALIZAR_CUENTA =
+            "UPDATE cuentas_dunab SET saldo_actual = ?, total_ganado = ?, fecha_actualizacion = ? WHERE id = ?";
+
+    private static final int[] TIPOS_ACTUALIZAR_CUENTA = {Types.NUMERIC, Types.NUMERIC, Types.TIMESTAMP, Types.BIGINT};
+
+    private static final String SQL_CONFIRMAR_INSCRIPCION =
+            "UPDATE inscripciones_evento SET estado = ?, fecha_confirmacion = ?, transaccion_recompensa_id = ?, " +
+            "fecha_actualizacion = ? WHERE id = ?";
+
+    private static final int[] TIPOS_CONFIRMAR_INSCRIPCION = {
+            Types.VARCHAR, Types.TIMESTAMP, Types.BIGINT, Types.TIMESTAMP, Types.BIGINT};
+
+    private final EventoRepository eventoRepository;
+    private final NotificationService notificationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dunab.eventos.asistencia.max-asistentes}")
+    private int maxAsistentes;
+
+    /**
+     * Confirma la asistencia de una lista de estudiantes
+     *
+     * @param eventoId      Evento al que asistieron
+     * @param estudianteIds Ids de los estudiantes, en el orden del registro de entrada
+     * @param organizadorId Usuario que confirma (creador de los créditos)
+     * @return Resumen con los asistentes no confirmados en este envío
+     */
+    @Timed(value = "dunab.eventos.asistencias.lotes", description = "Tiempo de confirmación de asistencia por lotes")
+    public AsistenciaEventoResponse confirmarLista(Long eventoId, List<Long> estudianteIds, Long organizadorId) {
+        long inicio = System.currentTimeMillis();
+        Evento evento = buscarEvento(eventoId, true);
+        if (estudianteIds.size() > maxAsistentes) {
+            throw new InvalidOperationException(
+                    String.format("El lote supera el máximo de %d asistentes", maxAsistentes));
+        }
+        return confirmarIds(evento, estudianteIds, organizadorId, inicio);
+    }
+
+    /**
+     * Confirma las entradas registradas con token en la puerta ({@link EntradaEventoService}). La puerta
+     * abre antes del inicio del evento, así que solo se exige que el evento esté activo.
+     *
+     * @param eventoId      Evento al que entraron
+     * @param estudianteIds Ids de los estudiantes, en orden de llegada
+     * @param organizadorId Usuario que registró las entradas (creador de los créditos)
+     * @return Resumen con las entradas no confirmadas
+     */
+    public AsistenciaEventoResponse confirmarEntradas(Long eventoId, List<Long> estudianteIds, Long organizadorId) {
+        long inicio = System.currentTimeMillis();
+        return confirmarIds(buscarEvento(eventoId, false), estudianteIds, organizadorId, inicio);
+    }
+
+    private AsistenciaEventoResponse confirmarIds(Evento evento, List<Long> estudianteIds, Long organizadorId,
+                                                  long inicio) {
+        Confirmacion confirmacion = new Confirmacion();
+        List<Asistente> asistentes = new ArrayList<>(estudianteIds.size());
+        for (int i = 0; i < estudianteIds.size(); i++) {
+            Long estudianteId = estudianteIds.get(i);
+            String asistente = String.valueOf(estudianteId);
+            if (estudianteId == null) {
+                confirmacion.incidencia(i + 1, asistente, ResultadoAsistente.RECHAZADO, "El id es obligatorio");
+            } else {
+                asistentes.add(new Asistente(i + 1, asistente, estudianteId));
+            }
+        }
+        confirmacion.totalAsistentes = estudianteIds.size();
+        return confirmar(evento, asistentes, organizadorId, confirmacion, inicio);
+    }
+
+    /**
+     * Confirma la asistencia a partir del archivo del registro de entrada
+     *
+     * @param eventoId      Evento al que asistieron
+     * @param csv           Flujo con el archivo (encabezado con estudianteId o codigoEstudiante)
+     * @param organizadorId Usuario que confirma (creador de los créditos)
+     * @return Resumen con las líneas no confirmadas en este envío
+     */
+    @Timed(value = "dunab.eventos.asistencias.lotes", description = "Tiempo de confirmación de asistencia por lotes")
+    public AsistenciaEventoResponse confirmarArchivo(Long eventoId, InputStream csv, Long organizadorId)
+            throws IOException {
+        long inicio = System.currentTimeMillis();
+        Evento evento = buscarEvento(eventoId, true);
+
+        Confirmacion confirmacion = new Confirmacion();
+        List<Asistente> asistentes = leerArchivo(csv, confirmacion);
+        return confirmar(evento, asistentes, organizadorId, confirmacion, inicio);
+    }
+
+    private Evento buscarEvento(Long eventoId, boolean exigirInicio) {
+        Evento evento = eventoRepository.findById(eventoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Evento", "id", eventoId));
+        if (!evento.getActivo()) {
+            throw new InvalidOperationException("El evento no está activo");
+        }
+        if (exigirInicio && evento.getFechaEvento().isAfter(LocalDateTime.now())) {
+            throw new InvalidOperationException("El evento aún no ha comenzado");
+        }
+        return evento;
+    }
+
+    private AsistenciaEventoResponse confirmar(Evento evento, List<Asistente> asistentes, Long organizadorId,
+                                               Confirmacion confirmacion, long inicio) {
+        Dunab recompensa = evento.getRecompensaDunab();
+        String descripcion = "Recompensa por asistir a " + evento.getNombre();
+
+        // Un estudiante repetido se confirma una vez; los bloques van en orden de estudiante
+        Map<Long, Asistente> unicos = new TreeMap<>();
+        for (Asistente asistente : asistentes) {
+            if (unicos.putIfAbsent(asistente.estudianteId(), asistente) != null) {
+                confirmacion.incidencia(asistente.linea(), asistente.asistente(), ResultadoAsistente.DUPLICADO,
+                        "Asistente repetido en el lote");
+            }
+        }
+        List<Asistente> pendientes = new ArrayList<>(unicos.values());
+        for (int i = 0; i < pendientes.size(); i += TAMANO_LOTE) {
+            procesarBloque(evento.getId(), recompensa, descripcion,
+                    pendientes.subList(i, Math.min(i + TAMANO_LOTE, pendientes.size())), organizadorId, confirmacion);
+        }
+
+        if (recompensa.esPositivo() && !confirmacion.premiados.isEmpty()) {
+            notificationService.notificarCreditosAsincrono(confirmacion.premiados, recompensa.toString(),
+                    "tu asistencia a " + evento.getNombre());
+        }
+        confirmacion.incidencias.sort(Comparator.comparingLong(IncidenciaAsistente::getLinea));
+        long duracion = System.currentTimeMillis() - inicio;
+        registrarMetricas(confirmacion);
+        log.info("Asistencia confirmada al evento {} - Asistentes: {}, Confirmadas: {}, Ya confirmadas: {}, " +
+                        "Rechazadas: {}, Acreditado: {}, Duración: {} ms", evento.getId(), confirmacion.totalAsistentes,
+                confirmacion.confirmadas, confirmacion.yaConfirmadas, confirmacion.rechazadas,
+                confirmacion.montoAcreditado, duracion);
+
+        return AsistenciaEventoResponse.builder()
+                .eventoId(evento.getId())
+                .totalAsistentes(confirmacion.totalAsistentes)
+                .confirmadas(confirmacion.confirmadas)
+                .yaConfirmadas(confirmacion.yaConfirmadas)
+                .rechazadas(confirmacion.rechazadas)
+                .recompensa(recompensa)
+                .montoAcreditado(confirmacion.montoAcreditado)
+                .duracionMs(duracion)
+                .incidencias(confirmacion.incidencias)
+                .build();
+    }
+
+    /**
+     * Lee el archivo y resuelve los códigos de estudiante. Las líneas inválidas y los códigos
+     * inexistentes quedan registrados como incidencias.
+     */
+    private List<Asistente> leerArchivo(InputStream csv, Confirmacion confirmacion) throws IOException {
+        List<LineaArchivo> lineas = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String encabezado = reader.readLine();
+            if (encabezado == null) {
+                throw new InvalidOperationException("El archivo está vacío");
+            }
+            Map<String, Integer> columnas = CsvLineParser.leerEncabezado(encabezado);
+            boolean porId = columnas.containsKey("estudianteid");
+            if (!porId && !columnas.containsKey("codigoestudiante")) {
+                throw new InvalidOperationException("El archivo debe tener la columna estudianteId o codigoEstudiante");
+            }
+
+            long numeroLinea = 1;
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                numeroLinea++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (++confirmacion.totalAsistentes > maxAsistentes) {
+                    throw new InvalidOperationException(
+                            String.format("El archivo supera el máximo de %d asistentes", maxAsistentes));
+                }
+                try {
+                    List<String> valores = CsvLineParser.dividirLinea(linea);
+                    String valor = CsvLineParser.valor(valores, columnas, porId ? "estudianteid" : "codigoestudiante");
+                    if (valor == null) {
+                        throw new IllegalArgumentException(
+                                (porId ? "estudianteId" : "codigoEstudiante") + ": es obligatorio");
+                    }
+                    lineas.add(new LineaArchivo(numeroLinea, valor, porId ? idEstudiante(valor) : null));
+                } catch (IllegalArgumentException e) {
+                    confirmacion.incidencia(numeroLinea, linea, ResultadoAsistente.RECHAZADO, e.getMessage());
+                }
+            }
+        }
+        return resolverCodigos(lineas, confirmacion);
+    }
+
+    private static Long idEstudiante(String valor) {
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("estudianteId: debe ser un número");
+        }
+    }
+
+    private List<Asistente> resolverCodigos(List<LineaArchivo> lineas, Confirmacion confirmacion) {
+        List<String> codigos = lineas.stream()
+                .filter(linea -> linea.estudianteId() == null)
+                .map(LineaArchivo::valor)
+                .distinct()
+                .toList();
+        Map<String, Long> estudiantePorCodigo = new HashMap<>();
+        for (int i = 0; i < codigos.size(); i += TAMANO_LOTE) {
+            namedParameterJdbcTemplate.query(SQL_ESTUDIANTES_POR_CODIGO,
+                    Map.of("codigos", codigos.subList(i, Math.min(i + TAMANO_LOTE, codigos.size()))),
+                    rs -> {
+                        estudiantePorCodigo.put(rs.getString(1), rs.getLong(2));
+                    });
+        }
+
+        List<Asistente> asistentes = new ArrayList<>(lineas.size());
+        for (LineaArchivo linea : lineas) {
+            Long estudianteId = linea.estudianteId() != null
+                    ? linea.estudianteId()
+                    : estudiantePorCodigo.get(linea.valor());
+            if (estudianteId == null) {
+                confirmacion.incidencia(linea.numero(), linea.valor(), ResultadoAsistente.NO_INSCRITO,
+                        "No existe un estudiante con el código " + linea.valor());
+            } else {
+                asistentes.add(new Asistente(linea.numero(), linea.valor(), estudianteId));
+            }
+        }
+        return asistentes;
+    }
+
+    /**
+     * Confirma un bloque de asistentes en una transacción. Si el bloque falla, sus asistentes se
+     * reportan como ERROR y el resto continúa; repetir el envío los confirma.
+     */
+    private void procesarBloque(Long eventoId, Dunab recompensa, String descripcion, List<Asistente> asistentes,
+                                Long organizadorId, Confirmacion confirmacion) {
+        Confirmacion resultado;
+        try {
+            resultado = transactionTemplate.execute(status ->
+                    aplicarBloque(eventoId, recompensa, descripcion, asistentes, organizadorId));
+        } catch (DataAccessException e) {
+            log.error("Error al confirmar bloque de asistentes del evento {} (estudiantes {} a {})", eventoId,
+                    asistentes.get(0).estudianteId(), asistentes.get(asistentes.size() - 1).estudianteId(), e);
+            String motivo = "Error al guardar el bloque: " + e.getMostSpecificCause().getMessage();
+            asistentes.forEach(asistente -> confirmacion.incidencia(
+                    asistente.linea(), asistente.asistente(), ResultadoAsistente.ERROR, motivo));
+            return;
+        }
+        confirmacion.sumar(resultado);
+    }
+
+    private Confirmacion aplicarBloque(Long eventoId, Dunab recompensa, String descripcion,
+                                       List<Asistente> asistentes, Long organizadorId) {
+        Confirmacion bloque = new Confirmacion();
+        List<Long> estudianteIds = asistentes.stream().map(Asistente::estudianteId).toList();
+        Map<String, Object> parametros = Map.of("eventoId", eventoId, "estudianteIds", estudianteIds);
+
+        Map<Long, InscripcionBloqueada> inscripciones = new HashMap<>();
+        namedParameterJdbcTemplate.query(SQL_BLOQUEAR_INSCRIPCIONES, parametros, rs -> {
+            inscripciones.put(rs.getLong(2), new InscripcionBloqueada(rs.getLong(1), rs.getString(3)));
+        });
+        Map<Long, CuentaBloqueada> cuentas = new HashMap<>();
+        if (recompensa.esPositivo()) {
+            namedParameterJdbcTemplate.query(SQL_BLOQUEAR_CUENTAS, parametros, rs -> {
+                cuentas.put(rs.getLong(2), new CuentaBloqueada(rs.getLong(1), rs.getString(3),
+                        Dunab.valueOf(rs.getBigDecimal(4)), Dunab.valueOf(rs.getBigDecimal(5)), rs.getInt(6)));
+            });
+        }
+
+        // Precisión de la columna: la fecha sirve para encontrar los créditos recién insertados
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        List<Object[]> inserciones = new ArrayList<>();
+        List<Object[]> actualizaciones = new ArrayList<>();
+        Map<String, Long> inscripcionPorReferencia = new HashMap<>();
+        List<Long> sinRecompensa = new ArrayList<>();
+
+        for (Asistente asistente : asistentes) {
+            InscripcionBloqueada inscripcion = inscripciones.get(asistente.estudianteId());
+            String rechazo = inscripcion == null ? null : motivoRechazo(inscripcion.estado());
+            if (inscripcion == null) {
+                bloque.incidencia(asistente.linea(), asistente.asistente(), ResultadoAsistente.NO_INSCRITO,
+                        "El estudiante no está inscrito en el evento");
+            } else if (EstadoInscripcion.ASISTIO.name().equals(inscripcion.estado())) {
+                bloque.incidencia(asistente.linea(), asistente.asistente(), ResultadoAsistente.YA_CONFIRMADA,
+                        "La asistencia ya estaba confirmada");
+            } else if (rechazo != null) {
+                bloque.incidencia(asistente.linea(), asistente.asistente(), ResultadoAsistente.RECHAZADO, rechazo);
+            } else if (!recompensa.esPositivo()) {
+                sinRecompensa.add(inscripcion.id());
+                bloque.confirmadas++;
+            } else {
+                CuentaBloqueada cuenta = cuentas.get(asistente.estudianteId());
+                if (cuenta == null) {
+                    bloque.incidencia(asistente.linea(), asistente.asistente(), ResultadoAsistente.RECHAZADO,
+                            "El estudiante no tiene cuenta DUNAB");
+                } else if (!AccountStatus.ACTIVA.name().equals(cuenta.estado())) {
+                    bloque.incidencia(asistente.linea(), asistente.asistente(), ResultadoAsistente.RECHAZADO,
+                            "La cuenta DUNAB no está activa");
+                } else {
+                    String referencia = PREFIJO_REFERENCIA + eventoId + "-" + asistente.estudianteId();
+                    // Con sub-saldos el saldo total no se conoce sin compactar: el crédito va sin saldos
+                    boolean conSaldos = cuenta.subSaldos() == 0;
+                    Dunab saldoPosterior = cuenta.saldoActual().sumar(recompensa);
+                    inserciones.add(new Object[]{cuenta.id(), TransactionType.CREDITO.name(),
+                            recompensa.toBigDecimal(), descripcion, referencia, TransactionStatus.COMPLETADA.name(),
+                            conSaldos ? cuenta.saldoActual().toBigDecimal() : null,
+                            conSaldos ? saldoPosterior.toBigDecimal() : null, organizadorId, ahora, ahora});
+                    actualizaciones.add(new Object[]{saldoPosterior.toBigDecimal(),
+                            cuenta.totalGanado().sumar(recompensa).toBigDecimal(), ahora, cuenta.id()});
+                    inscripcionPorReferencia.put(referencia, inscripcion.id());
+                    bloque.confirmadas++;
+                    bloque.montoAcreditado = bloque.montoAcreditado.sumar(recompensa);
+                    bloque.premiados.add(asistente.estudianteId());
+                }
+            }
+        }
+
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_TRANSACCION, inserciones, TIPOS_INSERTAR_TRANSACCION);
+        jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_CUENTA, actualizaciones, TIPOS_ACTUALIZAR_CUENTA);
+
+        List<Object[]> confirmaciones = new ArrayList<>(inscripcionPorReferencia.size() + sinRecompensa.size());
+        if (!inscripcionPorReferencia.isEmpty()) {
+            namedParameterJdbcTemplate.query(SQL_TRANSACCIONES_INSERTADAS,
+                    Map.of("referencias", inscripcionPorReferencia.keySet(), "ahora", ahora), rs -> {
+                        Long inscripcionId = inscripcionPorReferencia.get(rs.getString(1));
+                        confirmaciones.add(confirmacion(inscripcionId, rs.getLong(2), ahora));
+                    });
+            if (confirmaciones.size() != inscripcionPorReferencia.size()) {
+                throw new IllegalStateException(String.format("Se insertaron %d recompensas pero se encontraron %d",
+                        inscripcionPorReferencia.size(), confirmaciones.size()));
+            }
+        }
+        sinRecompensa.forEach(inscripcionId -> confirmaciones.add(confirmacion(inscripcionId, null, ahora)));
+        jdbcTemplate.batchUpdate(SQL_CONFIRMAR_INSCRIPCION, confirmaciones, TIPOS_CONFIRMAR_INSCRIPCION);
+        return bloque;
+    }
+
+    private static Object[] confirmacion(Long inscripcionId, Long transaccionId, Timestamp ahora) {
+        return new Object[]{EstadoInscripcion.ASISTIO.name(), ahora, transaccionId, ahora, inscripcionId};
+    }
+
+    private static String motivoRechazo(String estado) {
+        if (EstadoInscripcion.CANCELADA.name().equals(estado)) {
+            return "La inscripción está cancelada";
+        }
+        if (EstadoInscripcion.EN_ESPERA.name().equals(estado)) {
+            return "El estudiante está en la lista de espera";
+        }
+        return null;
+    }
+
+    private void registrarMetricas(Confirmacion confirmacion) {
+        meterRegistry.counter("dunab.eventos.asistencias", "resultado", "confirmada").increment(confirmacion.confirmadas);
+        meterRegistry.counter("dunab.eventos.asistencias", "resultado", "ya_confirmada").increment(confirmacion.yaConfirmadas);
+        meterRegistry.counter("dunab.eventos.asistencias", "resultado", "rechazada").increment(confirmacion.rechazadas);
+    }
+
+    /**
+     * Totales de una confirmación o de uno de sus bloques
+     */
+    private static final class Confirmacion {
+        private long totalAsistentes;
+        private long confirmadas;
+        private long yaConfirmadas;
+        private long rechazadas;
+        private Dunab montoAcreditado = Dunab.CERO;
+        private final List<IncidenciaAsistente> incidencias = new ArrayList<>();
+        private final List<Long> premiados = new ArrayList<>();
+
+        void incidencia(long linea, String asistente, ResultadoAsistente resultado, String motivo) {
+            incidencias.add(new IncidenciaAsistente(linea, asistente, resultado, motivo));
+            if (resultado == ResultadoAsistente.YA_CONFIRMADA) {
+                yaConfirmadas++;
+            } else {
+                rechazadas++;
+            }
+        }
+
+        void sumar(Confirmacion bloque) {
+            confirmadas += bloque.confirmadas;
+            yaConfirmadas += bloque.yaConfirmadas;
+            rechazadas += bloque.rechazadas;
+            montoAcreditado = montoAcreditado.sumar(bloque.montoAcreditado);
+            incidencias.addAll(bloque.incidencias);
+            premiados.addAll(bloque.premiados);
+        }
+    }
+
+    private record Asistente(long linea, String asistente, Long estudianteId) {
+    }
+
+    private record LineaArchivo(long numero, String valor, Long estudianteId) {
+    }
+
+    private record InscripcionBloqueada(Long id, String estado) {
+    }
+
+    private record CuentaBloqueada(Long id, String estado, Dunab saldoActual, Dunab totalGanado, int subSaldos) {
+    }
+}
@@ -8,6 +8,7 @@ import com.unab.dunab.exception.DuplicateResourceException;
 import com.unab.dunab.model.User;
 import com.unab.dunab.repository.UserRepository;
 import com.unab.dunab.security.JwtTokenProvider;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -89,6 +90,7 @@ public class AuthService {
     /**
      * Autentica un usuario y genera tokens JWT
      */
+    @Timed(value = "dunab.auth.login", description = "Tiempo de inicio de sesión")
     @Transactional(readOnly = true)
     public AuthResponse login(LoginRequest request) {
         // Autenticar usuario
@@ -0,0 +1,410 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.ConciliacionCuentasResponse;
+import com.unab.dunab.dto.response.ConciliacionCuentasResponse.DiferenciaCuenta;
+import com.unab.dunab.dto.response.ConciliacionCuentasResponse.EstadoConciliacion;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.TransactionStatus;
+import com.unab.dunab.model.TransactionType;
+import com.unab.dunab.repository.ArchivoTransaccionesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Conciliación de los saldos de CuentaDunab contra sus transacciones.
+ *
+ * saldoActual, totalGanado y totalGastado se actualizan en el momento de cada operación y nunca
+ * se recalculan. Esta tarea los vuelve a calcular desde las transacciones (base de datos y
+ * archivo en disco) aplicando las mismas reglas que TransactionService:
+ * - crédito: suma a totalGanado; si se anuló, la reversión suma el monto a totalGastado
+ * - débito: suma a totalGastado; si se anuló, la reversión suma el monto a totalGanado
+ * - totalGanado parte del saldo inicial de la cuenta (DunabService.SALDO_INICIAL), que no tiene
+ *   transacción
+ * - saldoActual = totalGanado - totalGastado
+ * - los créditos pendientes en sub-saldos (SubSaldoService) cuentan en saldoActual y totalGanado
+ *
+ * Las cuentas se dividen en bloques por rango de id que se procesan en paralelo. Cada bloque
+ * lee, en una misma transacción REPEATABLE READ, las sumas agrupadas por cuenta (índice
+ * idx_transacciones_cuenta_tipo_estado) y los saldos guardados, y en modo reparación corrige
+ * solo las cuentas que no cambiaron desde esa lectura. Las cuentas con sub-saldos no se reparan:
+ * un crédito a un sub-saldo no modifica la fila de la cuenta, así que esa verificación no lo
+ * detectaría.
+ *
+ * Las transacciones de una partición desacoplada (ParticionTransaccionesService) no están en
+ * transacciones ni en el archivo. Si alguna tabla desacoplada conserva filas, el saldo esperado
+ * de sus cuentas sale mal y la conciliación solo puede reportar: la reparación se rechaza.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConciliacionCuentasService {
+
+    private static final String SQL_RANGO_CUENTAS = "SELECT MIN(id), MAX(id), COUNT(*) FROM cuentas_dunab";
+
+    private static final String SQL_CUENTAS =
+            "SELECT c.id, c.saldo_actual, c.total_ganado, c.total_gastado, c.sub_saldos, COALESCE(s.pendiente, 0) " +
+            "FROM cuentas_dunab c LEFT JOIN (SELECT cuenta_id, SUM(monto) AS pendiente FROM sub_saldos_cuenta " +
+            "WHERE cuenta_id BETWEEN ? AND ? GROUP BY cuenta_id) s ON s.cuenta_id = c.id " +
+            "WHERE c.id BETWEEN ? AND ?";
+
+    private static final String SQL_SUMAS =
+            "SELECT cuenta_id, tipo, estado, SUM(monto) FROM transacciones " +
+            "WHERE cuenta_id BETWEEN ? AND ? AND estado IN ('COMPLETADA', 'ANULADA') " +
+            "GROUP BY cuenta_id, tipo, estado";
+
+    private static final String SQL_REPARAR =
+            "UPDATE cuentas_dunab SET saldo_actual = ?, total_ganado = ?, total_gastado = ?, " +
+            "fecha_actualizacion = ? WHERE id = ? AND saldo_actual = ? AND total_ganado = ? AND total_gastado = ?";
+
+    private static final int MAX_INTENTOS = 3;
+
+    /** Sumas de una cuenta sin transacciones (solo lectura) */
+    private static final long[] SIN_TRANSACCIONES = new long[4];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ArchivoTransaccionesRepository archivoTransaccionesRepository;
+    private final ArchivoTransaccionesService archivoTransaccionesService;
+    private final ParticionTransaccionesService particionTransaccionesService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dunab.conciliacion.paralelismo}")
+    private int paralelismo;
+
+    @Value("${dunab.conciliacion.cuentas-por-bloque}")
+    private int cuentasPorBloque;
+
+    @Value("${dunab.conciliacion.max-diferencias-reporte}")
+    private int maxDiferenciasReporte;
+
+    private final ExecutorService coordinador = Executors.newSingleThreadExecutor();
+    private ExecutorService trabajadores;
+    private TransactionTemplate lectura;
+    private TransactionTemplate reparacion;
+
+    private final AtomicLong secuencia = new AtomicLong();
+    private final AtomicReference<Ejecucion> ultima = new AtomicReference<>();
+
+    @PostConstruct
+    void iniciarEjecutores() {
+        // Cada trabajador ocupa una conexión del pool mientras procesa su bloque
+        trabajadores = Executors.newFixedThreadPool(paralelismo);
+
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        lectura.setReadOnly(true);
+
+        reparacion = new TransactionTemplate(transactionManager);
+        reparacion.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        coordinador.shutdownNow();
+        trabajadores.shutdownNow();
+    }
+
+    /**
+     * Inicia una conciliación en segundo plano; solo puede haber una en ejecución
+     *
+     * @param reparar si es true, corrige los saldos de las cuentas con diferencias
+     * @return estado inicial de la ejecución
+     * @throws InvalidOperationException si hay una en ejecución, o si se pide reparar y alguna
+     *                                   partición desacoplada conserva transacciones
+     */
+    public ConciliacionCuentasResponse iniciar(boolean reparar) {
+        Ejecucion actual = ultima.get();
+        if (actual != null && actual.estado == EstadoConciliacion.EN_EJECUCION) {
+            throw new InvalidOperationException("Ya hay una conciliación de cuentas en ejecución");
+        }
+        if (reparar) {
+            List<String> desacopladas = particionTransaccionesService.listarDesacopladasConFilas();
+            if (!desacopladas.isEmpty()) {
+                throw new InvalidOperationException(String.format(
+                        "Las tablas desacopladas %s tienen transacciones que la conciliación no suma; "
+                        + "solo se puede conciliar sin reparar", desacopladas));
+            }
+        }
+
+        Ejecucion nueva = new Ejecucion(secuencia.incrementAndGet(), reparar);
+        if (!ultima.compareAndSet(actual, nueva)) {
+            throw new InvalidOperationException("Ya hay una conciliación de cuentas en ejecución");
+        }
+
+        log.info("Conciliación de cuentas {} iniciada (reparar: {})", nueva.id, reparar);
+        coordinador.execute(() -> ejecutar(nueva));
+        return nueva.aResponse();
+    }
+
+    /**
+     * Progreso de la conciliación en curso o resultado de la última
+     */
+    public Optional<ConciliacionCuentasResponse> getUltima() {
+        return Optional.ofNullable(ultima.get()).map(Ejecucion::aResponse);
+    }
+
+    private void ejecutar(Ejecucion ejecucion) {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        try {
+            archivoTransaccionesService.sinArchivar(() -> {
+                conciliar(ejecucion);
+                return null;
+            });
+            ejecucion.terminar(EstadoConciliacion.COMPLETADA, null);
+            log.info("Conciliación de cuentas {} completada: {} cuentas, {} con diferencias, {} reparadas",
+                    ejecucion.id, ejecucion.cuentasProcesadas, ejecucion.cuentasConDiferencias,
+                    ejecucion.cuentasReparadas);
+        } catch (RuntimeException e) {
+            Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            ejecucion.terminar(EstadoConciliacion.FALLIDA, causa.getMessage());
+            log.error("Conciliación de cuentas {} fallida", ejecucion.id, causa);
+        } finally {
+            muestra.stop(meterRegistry.timer("dunab.conciliacion", "reparar", String.valueOf(ejecucion.reparar)));
+        }
+    }
+
+    private void conciliar(Ejecucion ejecucion) {
+        long[] rango = jdbcTemplate.queryForObject(SQL_RANGO_CUENTAS,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)});
+        if (rango == null || rango[2] == 0) {
+            return;
+        }
+
+        List<long[]> bloques = new ArrayList<>();
+        for (long desde = rango[0]; desde <= rango[1]; desde += cuentasPorBloque) {
+            bloques.add(new long[]{desde, Math.min(desde + cuentasPorBloque - 1, rango[1])});
+        }
+        ejecucion.cuentasTotales = rango[2];
+        ejecucion.bloquesTotales = bloques.size();
+
+        CompletableFuture<?>[] tareas = bloques.stream()
+                .map(bloque -> CompletableFuture.runAsync(
+                        () -> conciliarBloque(ejecucion, bloque[0], bloque[1]), trabajadores))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tareas).join();
+    }
+
+    /**
+     * Concilia un bloque; si la base aborta la transacción por un conflicto con una operación
+     * concurrente (serialización, bloqueo), el bloque se reintenta completo
+     */
+    private void conciliarBloque(Ejecucion ejecucion, long desde, long hasta) {
+        for (int intento = 1; ; intento++) {
+            try {
+                TransactionTemplate plantilla = ejecucion.reparar ? reparacion : lectura;
+                ResultadoBloque resultado = plantilla.execute(estado -> compararBloque(desde, hasta, ejecucion.reparar));
+                ejecucion.registrar(resultado, maxDiferenciasReporte);
+                meterRegistry.counter("dunab.conciliacion.diferencias").increment(resultado.diferencias().size());
+                return;
+            } catch (TransientDataAccessException e) {
+                if (intento >= MAX_INTENTOS) {
+                    throw e;
+                }
+                log.debug("Bloque de cuentas {}-{} en conflicto, reintento {}", desde, hasta, intento);
+            }
+        }
+    }
+
+    private ResultadoBloque compararBloque(long desde, long hasta, boolean reparar) {
+        Map<Long, long[]> sumas = new HashMap<>();
+        jdbcTemplate.query(SQL_SUMAS, rs -> {
+            long[] cuenta = sumas.computeIfAbsent(rs.getLong(1), id -> new long[4]);
+            int posicion = posicion(TransactionType.valueOf(rs.getString(2)), TransactionStatus.valueOf(rs.getString(3)));
+            cuenta[posicion] = Math.addExact(cuenta[posicion], centavos(rs, 4));
+        }, desde, hasta);
+
+        List<DiferenciaCuenta> diferencias = new ArrayList<>();
+        int[] cuentas = {0};
+        jdbcTemplate.query(SQL_CUENTAS, rs -> {
+            cuentas[0]++;
+            long cuentaId = rs.getLong(1);
+            long[] esperado = esperado(cuentaId, sumas.getOrDefault(cuentaId, SIN_TRANSACCIONES));
+            long pendiente = centavos(rs, 6);
+            boolean conSubSaldos = rs.getInt(5) > 0 || pendiente != 0;
+            long saldo = Math.addExact(centavos(rs, 2), pendiente);
+            long ganado = Math.addExact(centavos(rs, 3), pendiente);
+            long gastado = centavos(rs, 4);
+            if (saldo != esperado[0] || ganado != esperado[1] || gastado != esperado[2]) {
+                diferencias.add(DiferenciaCuenta.builder()
+                        .cuentaId(cuentaId)
+                        .saldoActual(Dunab.deCentavos(saldo))
+                        .saldoEsperado(Dunab.deCentavos(esperado[0]))
+                        .totalGanado(Dunab.deCentavos(ganado))
+                        .totalGanadoEsperado(Dunab.deCentavos(esperado[1]))
+                        .totalGastado(Dunab.deCentavos(gastado))
+                        .totalGastadoEsperado(Dunab.deCentavos(esperado[2]))
+                        .pendienteSubSaldos(conSubSaldos ? Dunab.deCentavos(pendiente) : null)
+                        .build());
+            }
+        }, desde, hasta, desde, hasta);
+
+        if (reparar && !diferencias.isEmpty()) {
+            reparar(diferencias);
+        }
+        return new ResultadoBloque(cuentas[0], diferencias);
+    }
+
+    /**
+     * Corrige las cuentas con diferencias. Una cuenta se omite si el saldo esperado es negativo
+     * (requiere revisión manual), si usa sub-saldos o si cambió desde que se leyó.
+     */
+    private void reparar(List<DiferenciaCuenta> diferencias) {
+        List<DiferenciaCuenta> reparables = diferencias.stream()
+                .filter(diferencia -> diferencia.getSaldoEsperado().signum() >= 0)
+                .filter(diferencia -> diferencia.getPendienteSubSaldos() == null)
+                .toList();
+        if (reparables.isEmpty()) {
+            return;
+        }
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        int[] actualizadas = jdbcTemplate.batchUpdate(SQL_REPARAR, reparables.stream()
+                .map(d -> new Object[]{d.getSaldoEsperado().toBigDecimal(), d.getTotalGanadoEsperado().toBigDecimal(),
+                        d.getTotalGastadoEsperado().toBigDecimal(), ahora, d.getCuentaId(),
+                        d.getSaldoActual().toBigDecimal(), d.getTotalGanado().toBigDecimal(),
+                        d.getTotalGastado().toBigDecimal()})
+                .toList());
+        for (int i = 0; i < actualizadas.length; i++) {
+            reparables.get(i).setReparada(actualizadas[i] != 0);
+        }
+    }
+
+    /**
+     * Saldo, total ganado y total gastado esperados en centavos, sumando las transacciones
+     * archivadas
+     */
+    private long[] esperado(long cuentaId, long[] sumas) {
+        ArchivoTransaccionesRepository.Totales archivado = archivoTransaccionesRepository.getTotales(cuentaId);
+        long creditos = Math.addExact(sumas[0], archivado.creditos().getCentavos());
+        long debitos = Math.addExact(sumas[1], archivado.debitos().getCentavos());
+        long creditosAnulados = Math.addExact(sumas[2], archivado.creditosAnulados().getCentavos());
+        long debitosAnulados = Math.addExact(sumas[3], archivado.debitosAnulados().getCentavos());
+
+        long ganado = Math.addExact(Math.addExact(DunabService.SALDO_INICIAL.getCentavos(), creditos),
+                Math.addExact(creditosAnulados, debitosAnulados));
+        long gastado = Math.addExact(debitos, Math.addExact(debitosAnulados, creditosAnulados));
+        return new long[]{Math.subtractExact(ganado, gastado), ganado, gastado};
+    }
+
+    /**
+     * Posición en el arreglo de sumas: créditos completados, débitos completados,
+     * créditos anulados, débitos anulados
+     */
+    private static int posicion(TransactionType tipo, TransactionStatus estado) {
+        int base = estado == TransactionStatus.ANULADA ? 2 : 0;
+        return base + (tipo == TransactionType.CREDITO ? 0 : 1);
+    }
+
+    /**
+     * Monto NUMERIC(10, 2) de la columna en centavos (0 si es null)
+     */
+    private static long centavos(ResultSet rs, int columna) throws SQLException {
+        BigDecimal monto = rs.getBigDecimal(columna);
+        return monto != null ? Dunab.valueOf(monto).getCentavos() : 0;
+    }
+
+    private record ResultadoBloque(int cuentas, List<DiferenciaCuenta> diferencias) {
+    }
+
+    /**
+     * Estado de una ejecución; lo actualizan los trabajadores y lo lee el endpoint de progreso
+     */
+    private static final class Ejecucion {
+
+        private final long id;
+        private final boolean reparar;
+        private final LocalDateTime inicio = LocalDateTime.now();
+        private volatile LocalDateTime fin;
+        private volatile EstadoConciliacion estado = EstadoConciliacion.EN_EJECUCION;
+        private volatile String error;
+        private volatile long cuentasTotales;
+        private volatile int bloquesTotales;
+        private final AtomicLong cuentasProcesadas = new AtomicLong();
+        private final AtomicInteger bloquesProcesados = new AtomicInteger();
+        private final AtomicLong cuentasConDiferencias = new AtomicLong();
+        private final AtomicLong cuentasReparadas = new AtomicLong();
+        private final Queue<DiferenciaCuenta> diferencias = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger diferenciasReportadas = new AtomicInteger();
+
+        private Ejecucion(long id, boolean reparar) {
+            this.id = id;
+            this.reparar = reparar;
+        }
+
+        private void registrar(ResultadoBloque resultado, int maxDiferencias) {
+            for (DiferenciaCuenta diferencia : resultado.diferencias()) {
+                if (diferencia.isReparada()) {
+                    cuentasReparadas.incrementAndGet();
+                }
+                if (diferenciasReportadas.getAndIncrement() < maxDiferencias) {
+                    diferencias.add(diferencia);
+                }
+            }
+            cuentasConDiferencias.addAndGet(resultado.diferencias().size());
+            cuentasProcesadas.addAndGet(resultado.cuentas());
+            bloquesProcesados.incrementAndGet();
+        }
+
+        private void terminar(EstadoConciliacion estadoFinal, String mensajeError) {
+            error = mensajeError;
+            fin = LocalDateTime.now();
+            estado = estadoFinal;
+        }
+
+        private ConciliacionCuentasResponse aResponse() {
+            int totales = bloquesTotales;
+            int procesados = bloquesProcesados.get();
+            double porcentaje = totales > 0 ? procesados * 100.0 / totales
+                    : estado == EstadoConciliacion.COMPLETADA ? 100.0 : 0.0;
+
+            return ConciliacionCuentasResponse.builder()
+                    .id(id)
+                    .estado(estado)
+                    .reparar(reparar)
+                    .inicio(inicio)
+                    .fin(fin)
+                    .cuentasTotales(cuentasTotales)
+                    .cuentasProcesadas(cuentasProcesadas.get())
+                    .bloquesTotales(totales)
+                    .bloquesProcesados(procesados)
+                    .porcentaje(Math.round(porcentaje * 10) / 10.0)
+                    .cuentasConDiferencias(cuentasConDiferencias.get())
+                    .cuentasReparadas(cuentasReparadas.get())
+                    .error(error)
+                    .diferencias(new ArrayList<>(diferencias))
+                    .build();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.unab.dunab.exception.DuplicateResourceException;
 import com.unab.dunab.exception.ResourceNotFoundException;
 import com.unab.dunab.model.AccountStatus;
 import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Dunab;
 import com.unab.dunab.model.User;
 import com.unab.dunab.repository.CuentaDunabRepository;
 import com.unab.dunab.repository.UserRepository;
@@ -20,15 +21,23 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
- * Servicio para la gestión de cuentas DUNAB
+ * Servicio para la gestión de cuentas DUNAB. Los saldos y el total ganado que se informan incluyen
+ * los créditos pendientes en sub-saldos (SubSaldoService).
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DunabService {
 
+    /** Saldo con el que se abre toda cuenta DUNAB nueva */
+    public static final Dunab SALDO_INICIAL = Dunab.deCentavos(50_000);
+
+    /** Límite de transacción por defecto de una cuenta nueva */
+    public static final Dunab LIMITE_TRANSACCION_INICIAL = Dunab.deCentavos(1_000_000);
+
     private final CuentaDunabRepository cuentaDunabRepository;
     private final UserRepository userRepository;
+    private final SubSaldoService subSaldoService;
 
     /**
      * Crea una cuenta DUNAB para un estudiante
@@ -45,11 +54,11 @@ public class DunabService {
 
         CuentaDunab cuenta = CuentaDunab.builder()
                 .estudiante(estudiante)
-                .saldoActual(new BigDecimal("500.00"))
-                .totalGanado(new BigDecimal("500.00"))
-                .totalGastado(BigDecimal.ZERO)
+                .saldoActual(SALDO_INICIAL)
+                .totalGanado(SALDO_INICIAL)
+                .totalGastado(Dunab.CERO)
                 .estado(AccountStatus.ACTIVA)
-                .limiteTransaccion(new BigDecimal("10000.00"))
+                .limiteTransaccion(LIMITE_TRANSACCION_INICIAL)
                 .build();
 
         cuenta = cuentaDunabRepository.save(cuenta);
@@ -84,10 +93,10 @@ public class DunabService {
      * Obtiene el saldo de una cuenta
      */
     @Transactional(readOnly = true)
-    public BigDecimal getSaldo(Long cuentaId) {
+    public Dunab getSaldo(Long cuentaId) {
         CuentaDunab cuenta = cuentaDunabRepository.findById(cuentaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
-        return cuenta.getSaldoActual();
+        return cuenta.getSaldoActual().sumar(subSaldoService.getPendiente(cuenta));
     }
 
     /**
@@ -125,10 +134,10 @@ public class DunabService {
      */
     @Transactional
     public CuentaDunabResponse actualizarLimite(Long cuentaId, BigDecimal nuevoLimite) {
-        CuentaDunab cuenta = cuentaDunabRepository.findById(cuentaId)
+        CuentaDunab cuenta = cuentaDunabRepository.findByIdForUpdate(cuentaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
 
-        cuenta.setLimiteTransaccion(nuevoLimite);
+        cuenta.setLimiteTransaccion(Dunab.valueOf(nuevoLimite));
         cuenta = cuentaDunabRepository.save(cuenta);
 
         log.info("Límite actualizado - Cuenta: {}, Nuevo límite: {}", cuentaId, nuevoLimite);
@@ -141,7 +150,7 @@ public class DunabService {
      */
     @Transactional
     public CuentaDunabResponse cambiarEstado(Long cuentaId, AccountStatus nuevoEstado) {
-        CuentaDunab cuenta = cuentaDunabRepository.findById(cuentaId)
+        CuentaDunab cuenta = cuentaDunabRepository.findByIdForUpdate(cuentaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
 
         cuenta.setEstado(nuevoEstado);
@@ -175,13 +184,14 @@ public class DunabService {
     public Map<String, Object> getEstadisticasGenerales() {
         Map<String, Object> estadisticas = new HashMap<>();
 
-        BigDecimal totalSaldo = cuentaDunabRepository.getTotalSaldoByEstado(AccountStatus.ACTIVA);
-        BigDecimal totalGanado = cuentaDunabRepository.getTotalGanadoByEstado(AccountStatus.ACTIVA);
-        BigDecimal totalGastado = cuentaDunabRepository.getTotalGastadoByEstado(AccountStatus.ACTIVA);
+        Dunab totalSaldo = Dunab.valueOfNullable(cuentaDunabRepository.getTotalSaldoByEstado(AccountStatus.ACTIVA));
+        Dunab totalGanado = Dunab.valueOfNullable(cuentaDunabRepository.getTotalGanadoByEstado(AccountStatus.ACTIVA));
+        Dunab totalGastado = Dunab.valueOfNullable(cuentaDunabRepository.getTotalGastadoByEstado(AccountStatus.ACTIVA));
+        Dunab pendiente = subSaldoService.getPendiente(AccountStatus.ACTIVA);
 
-        estadisticas.put("totalSaldoSistema", totalSaldo != null ? totalSaldo : BigDecimal.ZERO);
-        estadisticas.put("totalGanado", totalGanado != null ? totalGanado : BigDecimal.ZERO);
-        estadisticas.put("totalGastado", totalGastado != null ? totalGastado : BigDecimal.ZERO);
+        estadisticas.put("totalSaldoSistema", (totalSaldo != null ? totalSaldo : Dunab.CERO).sumar(pendiente));
+        estadisticas.put("totalGanado", (totalGanado != null ? totalGanado : Dunab.CERO).sumar(pendiente));
+        estadisticas.put("totalGastado", totalGastado != null ? totalGastado : Dunab.CERO);
         estadisticas.put("totalCuentasActivas", cuentaDunabRepository.findByEstado(AccountStatus.ACTIVA).size());
         estadisticas.put("totalCuentas", cuentaDunabRepository.count());
 
@@ -196,9 +206,11 @@ public class DunabService {
         CuentaDunab cuenta = cuentaDunabRepository.findById(cuentaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
 
+        Dunab pendiente = subSaldoService.getPendiente(cuenta);
         Map<String, Object> estadisticas = new HashMap<>();
-        estadisticas.put("saldoActual", cuenta.getSaldoActual());
-        estadisticas.put("totalGanado", cuenta.getTotalGanado());
+        estadisticas.put("saldoActual", cuenta.getSaldoActual().sumar(pendiente));
+        estadisticas.put("totalGanado", cuenta.getTotalGanado().sumar(pendiente));
+        estadisticas.put("subSaldos", cuenta.getSubSaldos());
         estadisticas.put("totalGastado", cuenta.getTotalGastado());
         estadisticas.put("estado", cuenta.getEstado());
         estadisticas.put("limiteTransaccion", cuenta.getLimiteTransaccion());
@@ -225,15 +237,17 @@ public class DunabService {
      * Mapea CuentaDunab a CuentaDunabResponse
      */
     private CuentaDunabResponse mapToResponse(CuentaDunab cuenta) {
+        Dunab pendiente = subSaldoService.getPendiente(cuenta);
         return CuentaDunabResponse.builder()
                 .id(cuenta.getId())
                 .estudianteId(cuenta.getEstudiante().getId())
                 .estudianteNombre(cuenta.getEstudiante().getNombreCompleto())
-                .saldoActual(cuenta.getSaldoActual())
-                .totalGanado(cuenta.getTotalGanado())
+                .saldoActual(cuenta.getSaldoActual().sumar(pendiente))
+                .totalGanado(cuenta.getTotalGanado().sumar(pendiente))
                 .totalGastado(cuenta.getTotalGastado())
                 .estado(cuenta.getEstado())
                 .limiteTransaccion(cuenta.getLimiteTransaccion())
+                .subSaldos(cuenta.getSubSaldos())
                 .fechaCreacion(cuenta.getFechaCreacion())
                 .fechaActualizacion(cuenta.getFechaActualizacion())
                 .build();
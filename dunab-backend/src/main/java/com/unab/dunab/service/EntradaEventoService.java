@@ -0,0 +1,257 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.AsistenciaEventoResponse;
+import com.unab.dunab.dto.response.AsistenciaEventoResponse.IncidenciaAsistente;
+import com.unab.dunab.dto.response.AsistenciaEventoResponse.ResultadoAsistente;
+import com.unab.dunab.dto.response.EntradaEventoResponse;
+import com.unab.dunab.dto.response.TokenEntradaResponse;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.model.EstadoInscripcion;
+import com.unab.dunab.repository.InscripcionEventoRepository;
+import com.unab.dunab.utils.CheckInBuffer;
+import com.unab.dunab.utils.CheckInBuffer.Entrada;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro de entradas a eventos con códigos QR firmados.
+ *
+ * El token de entrada de una inscripción es {evento}.{estudiante}.{firma}: la firma son los
+ * primeros 16 bytes del HMAC-SHA256 de "{evento}.{estudiante}" con el secreto
+ * dunab.eventos.entradas.secreto, en Base64 URL. Cabe en un código QR pequeño y no expira: sirve
+ * mientras la inscripción esté activa.
+ *
+ * Al escanearlo la firma se verifica en memoria, sin leer la base de datos, y la entrada queda en
+ * {@link CheckInBuffer}. Cada dunab.eventos.entradas.intervalo-escritura-ms las entradas
+ * pendientes se confirman por lotes con AsistenciaEventoService (ASISTIO y recompensa). Una
+ * entrada que no se puede confirmar (inscripción cancelada, en espera o inexistente) solo se
+ * cuenta en dunab.eventos.entradas.escritas; la puerta ya la dejó pasar.
+ *
+ * Si la base de datos falla (caída, bloqueo, interbloqueo), las entradas del lote vuelven a
+ * CheckInBuffer y se reintentan en la siguiente escritura; confirmar dos veces no paga dos veces.
+ * Las entradas pendientes se pierden si la instancia se detiene de golpe o si la base de datos
+ * sigue sin responder en la escritura del cierre; el archivo del registro de entrada, subido por
+ * lotes, las completa.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EntradaEventoService {
+
+    private static final int BYTES_FIRMA = 16;
+
+    private static final int MAXIMO_POR_ESCRITURA = 5000;
+
+    /**
+     * Tiempo sin entradas tras el cual se liberan los estudiantes registrados de un evento
+     */
+    private static final Duration RETENCION_REGISTRADOS = Duration.ofHours(12);
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private final InscripcionEventoRepository inscripcionEventoRepository;
+    private final AsistenciaEventoService asistenciaEventoService;
+    private final CheckInBuffer checkInBuffer;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Una escritura a la vez: la programada y la del cierre
+     */
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    @Value("${dunab.eventos.entradas.secreto}")
+    private String secreto;
+
+    /**
+     * Mac inicializado con el secreto; cada firma usa una copia (Mac no es seguro entre hilos)
+     */
+    private Mac prototipo;
+
+    @PostConstruct
+    void iniciar() {
+        try {
+            prototipo = Mac.getInstance("HmacSHA256");
+            prototipo.init(new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar HMAC-SHA256", e);
+        }
+    }
+
+    /**
+     * Genera el token de entrada del estudiante para el evento
+     */
+    public TokenEntradaResponse generarToken(Long eventoId, Long estudianteId) {
+        EstadoInscripcion estado = inscripcionEventoRepository
+                .findEstadoByEventoIdAndEstudianteId(eventoId, estudianteId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inscripción", "eventoId", eventoId));
+        if (estado == EstadoInscripcion.CANCELADA || estado == EstadoInscripcion.EN_ESPERA) {
+            throw new InvalidOperationException("Solo las inscripciones activas tienen token de entrada");
+        }
+        String carga = eventoId + "." + estudianteId;
+        return TokenEntradaResponse.builder()
+                .eventoId(eventoId)
+                .token(carga + "." + BASE64.encodeToString(firmar(carga)))
+                .build();
+    }
+
+    /**
+     * Verifica el token escaneado en la entrada del evento y registra la entrada
+     *
+     * @param eventoId      Evento de la puerta donde se escaneó
+     * @param token         Token del código QR
+     * @param registradoPor Usuario de la puerta
+     */
+    @Timed(value = "dunab.eventos.entradas.registrar", description = "Tiempo de registro de entradas con token")
+    public EntradaEventoResponse registrarEntrada(Long eventoId, String token, Long registradoPor) {
+        Long estudianteId = verificarToken(eventoId, token);
+        boolean nueva = checkInBuffer.registrar(new Entrada(eventoId, estudianteId, registradoPor));
+        meterRegistry.counter("dunab.eventos.entradas", "resultado", nueva ? "registrada" : "repetida").increment();
+        return EntradaEventoResponse.builder()
+                .eventoId(eventoId)
+                .estudianteId(estudianteId)
+                .repetida(!nueva)
+                .build();
+    }
+
+    /**
+     * @return id del estudiante del token
+     */
+    private Long verificarToken(Long eventoId, String token) {
+        String[] partes = token.split("\\.", -1);
+        try {
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("formato");
+            }
+            String carga = partes[0] + "." + partes[1];
+            if (!MessageDigest.isEqual(firmar(carga), Base64.getUrlDecoder().decode(partes[2]))) {
+                throw new IllegalArgumentException("firma");
+            }
+            if (Long.parseLong(partes[0]) != eventoId) {
+                meterRegistry.counter("dunab.eventos.entradas", "resultado", "otro-evento").increment();
+                throw new InvalidOperationException("El token es de otro evento");
+            }
+            return Long.valueOf(partes[1]);
+        } catch (IllegalArgumentException e) {
+            meterRegistry.counter("dunab.eventos.entradas", "resultado", "invalida").increment();
+            throw new InvalidOperationException("El token de entrada no es válido");
+        }
+    }
+
+    /**
+     * Confirma por lotes las entradas pendientes, agrupadas por evento y usuario de la puerta
+     */
+    @Scheduled(fixedDelayString = "${dunab.eventos.entradas.intervalo-escritura-ms}")
+    public void escribirPendientes() {
+        escritura.lock();
+        try {
+            List<Entrada> fallidas = new ArrayList<>();
+            List<Entrada> entradas;
+            while (!(entradas = checkInBuffer.drenar(MAXIMO_POR_ESCRITURA)).isEmpty()) {
+                Map<Lote, List<Long>> lotes = new LinkedHashMap<>();
+                entradas.forEach(entrada -> lotes
+                        .computeIfAbsent(new Lote(entrada.eventoId(), entrada.registradoPor()), l -> new ArrayList<>())
+                        .add(entrada.estudianteId()));
+                lotes.forEach((lote, estudianteIds) -> escribir(lote, estudianteIds, fallidas));
+            }
+            // Se devuelven al terminar para no reintentarlas en esta misma escritura
+            checkInBuffer.devolver(fallidas);
+            checkInBuffer.purgarInactivos(System.currentTimeMillis() - RETENCION_REGISTRADOS.toMillis());
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Confirma un lote. Las entradas que fallaron por la base de datos se agregan a fallidas; las
+     * rechazadas por su inscripción se olvidan: otro escaneo las intenta de nuevo
+     */
+    private void escribir(Lote lote, List<Long> estudianteIds, List<Entrada> fallidas) {
+        AsistenciaEventoResponse resultado;
+        try {
+            resultado = asistenciaEventoService.confirmarEntradas(lote.eventoId(), estudianteIds, lote.registradoPor());
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("No se pudieron confirmar {} entradas al evento {}, se reintentan: {}",
+                    estudianteIds.size(), lote.eventoId(), e.getMessage());
+            estudianteIds.forEach(id -> fallidas.add(new Entrada(lote.eventoId(), id, lote.registradoPor())));
+            meterRegistry.counter("dunab.eventos.entradas.escritas", "resultado", "reintento")
+                    .increment(estudianteIds.size());
+            return;
+        } catch (RuntimeException e) {
+            // El evento no existe o ya no está activo
+            log.warn("No se pudieron confirmar {} entradas al evento {}: {}",
+                    estudianteIds.size(), lote.eventoId(), e.getMessage());
+            estudianteIds.forEach(id -> checkInBuffer.olvidar(lote.eventoId(), id));
+            meterRegistry.counter("dunab.eventos.entradas.escritas", "resultado", "rechazada")
+                    .increment(estudianteIds.size());
+            return;
+        }
+
+        long rechazadas = 0;
+        long reintentos = 0;
+        for (IncidenciaAsistente incidencia : resultado.getIncidencias()) {
+            Long estudianteId = Long.valueOf(incidencia.getAsistente());
+            if (incidencia.getResultado() == ResultadoAsistente.ERROR) {
+                fallidas.add(new Entrada(lote.eventoId(), estudianteId, lote.registradoPor()));
+                reintentos++;
+            } else if (incidencia.getResultado() != ResultadoAsistente.YA_CONFIRMADA) {
+                checkInBuffer.olvidar(lote.eventoId(), estudianteId);
+                rechazadas++;
+            }
+        }
+        meterRegistry.counter("dunab.eventos.entradas.escritas", "resultado", "confirmada")
+                .increment(resultado.getConfirmadas() + resultado.getYaConfirmadas());
+        meterRegistry.counter("dunab.eventos.entradas.escritas", "resultado", "rechazada").increment(rechazadas);
+        meterRegistry.counter("dunab.eventos.entradas.escritas", "resultado", "reintento").increment(reintentos);
+        if (rechazadas > 0) {
+            log.warn("{} entradas al evento {} no se pudieron confirmar", rechazadas, lote.eventoId());
+        }
+        if (reintentos > 0) {
+            log.warn("{} entradas al evento {} quedaron en un bloque fallido, se reintentan",
+                    reintentos, lote.eventoId());
+        }
+    }
+
+    /**
+     * Escribe las entradas pendientes antes de detener la aplicación
+     */
+    @PreDestroy
+    public void cerrar() {
+        escribirPendientes();
+    }
+
+    private byte[] firmar(String carga) {
+        try {
+            Mac mac = (Mac) prototipo.clone();
+            return Arrays.copyOf(mac.doFinal(carga.getBytes(StandardCharsets.US_ASCII)), BYTES_FIRMA);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("El proveedor de HMAC-SHA256 no permite copiar el Mac", e);
+        }
+    }
+
+    private record Lote(Long eventoId, Long registradoPor) {
+    }
+}
@@ -0,0 +1,291 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.EstadisticasEventoResponse;
+import com.unab.dunab.dto.response.EstadisticasEventoResponse.InscripcionesHora;
+import com.unab.dunab.dto.response.OcupacionEventoResponse;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.utils.EventOccupancyStats;
+import com.unab.dunab.utils.EventOccupancyStats.Hora;
+import com.unab.dunab.utils.EventOccupancyStats.Ocupacion;
+import com.unab.dunab.utils.EventOccupancyStats.Pendiente;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estadísticas de ocupación de los eventos: ranking por tasa de ocupación y serie por hora de
+ * inscripciones y cancelaciones, respondidos desde memoria ({@link EventOccupancyStats}) sin
+ * recorrer inscripciones_evento.
+ *
+ * Las inscripciones que ocupan un cupo (directas o promovidas de la lista de espera) y las
+ * cancelaciones que lo liberan se cuentan al confirmarse. Cada
+ * dunab.eventos.estadisticas.intervalo-guardado-ms lo acumulado por hora se suma a
+ * estadisticas_evento_hora, y cada dunab.eventos.estadisticas.intervalo-recarga-ms se recargan de
+ * la tabla eventos la capacidad y los cupos ocupados de los eventos activos y futuros (recoge las
+ * inscripciones de otras instancias y saca del ranking los eventos que ya ocurrieron). La serie
+ * por hora en memoria es la de esta instancia más la guardada hasta el arranque; la tabla tiene la
+ * de todas. Un evento fuera de memoria (ya ocurrido o inactivo) se responde desde la tabla.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EstadisticaEventoService {
+
+    private static final long HORA_MS = 3_600_000;
+
+    private static final String SQL_SUMAR = "UPDATE estadisticas_evento_hora "
+            + "SET inscripciones = inscripciones + ?, cancelaciones = cancelaciones + ? "
+            + "WHERE evento_id = ? AND hora = ?";
+
+    private static final String SQL_INSERTAR = "INSERT INTO estadisticas_evento_hora "
+            + "(evento_id, hora, inscripciones, cancelaciones) VALUES (?, ?, ?, ?)";
+
+    private static final String SQL_HISTORIAL = "SELECT evento_id, hora, inscripciones, cancelaciones "
+            + "FROM estadisticas_evento_hora WHERE hora >= ?";
+
+    private static final String SQL_SERIE = "SELECT hora, inscripciones, cancelaciones "
+            + "FROM estadisticas_evento_hora WHERE evento_id = ? AND hora >= ?";
+
+    private final EventoRepository eventoRepository;
+    private final EventOccupancyStats eventOccupancyStats;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Una escritura a la vez: la programada y la del cierre
+     */
+    private final ReentrantLock guardado = new ReentrantLock();
+
+    /**
+     * Hasta cargar la última semana guardada no se escribe: lo contado antes de la carga se
+     * sumaría dos veces
+     */
+    private volatile boolean historialCargado;
+
+    /**
+     * Recarga la capacidad y los cupos ocupados de los eventos activos y futuros; la primera vez
+     * carga también la última semana de estadisticas_evento_hora
+     */
+    @Scheduled(fixedDelayString = "${dunab.eventos.estadisticas.intervalo-recarga-ms}")
+    public void recargar() {
+        List<Evento> eventos = eventoRepository.findEventosProximos(LocalDateTime.now());
+        Set<Long> vigentes = new HashSet<>();
+        for (Evento evento : eventos) {
+            vigentes.add(evento.getId());
+            registrar(evento);
+        }
+        eventOccupancyStats.retener(vigentes);
+
+        if (!historialCargado) {
+            long desde = (System.currentTimeMillis() / HORA_MS - EventOccupancyStats.HORAS + 1) * HORA_MS;
+            int[] horas = new int[1];
+            jdbcTemplate.query(SQL_HISTORIAL, rs -> {
+                eventOccupancyStats.cargarHora(rs.getLong(1), rs.getTimestamp(2).getTime(), rs.getInt(3), rs.getInt(4));
+                horas[0]++;
+            }, new Timestamp(desde));
+            historialCargado = true;
+            log.info("Estadísticas de eventos: {} eventos, {} horas de historial cargadas", eventos.size(), horas[0]);
+        }
+    }
+
+    /**
+     * Suma a estadisticas_evento_hora lo contado desde la escritura anterior
+     */
+    @Scheduled(fixedDelayString = "${dunab.eventos.estadisticas.intervalo-guardado-ms}")
+    public void guardar() {
+        if (!historialCargado) {
+            return;
+        }
+        guardado.lock();
+        try {
+            List<Pendiente> pendientes = eventOccupancyStats.tomarPendientes();
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(estado -> escribir(pendientes));
+                meterRegistry.counter("dunab.eventos.estadisticas.guardadas", "resultado", "escrita")
+                        .increment(pendientes.size());
+            } catch (RuntimeException e) {
+                // Una fila insertada a la vez por otra instancia, o la base de datos no disponible:
+                // se reintenta en la próxima escritura
+                eventOccupancyStats.devolver(pendientes);
+                meterRegistry.counter("dunab.eventos.estadisticas.guardadas", "resultado", "fallida")
+                        .increment(pendientes.size());
+                log.warn("No se pudieron guardar {} horas de estadísticas de eventos: {}",
+                        pendientes.size(), e.getMessage());
+            }
+        } finally {
+            guardado.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        guardar();
+    }
+
+    /**
+     * Inscripción que ocupó un cupo (se llama al confirmarse)
+     */
+    public void registrarInscripcion(Long eventoId) {
+        eventOccupancyStats.inscripcion(eventoId, System.currentTimeMillis());
+    }
+
+    /**
+     * Cancelación que liberó un cupo (se llama al confirmarse)
+     */
+    public void registrarCancelacion(Long eventoId) {
+        eventOccupancyStats.cancelacion(eventoId, System.currentTimeMillis());
+    }
+
+    /**
+     * Agrega o actualiza el evento (creado o editado); uno inactivo o ya ocurrido sale del ranking
+     */
+    public void actualizarEvento(Evento evento) {
+        if (Boolean.TRUE.equals(evento.getActivo()) && !evento.yaPaso()) {
+            registrar(evento);
+        } else {
+            eventOccupancyStats.quitarEvento(evento.getId());
+        }
+    }
+
+    /**
+     * Quita el evento (eliminado)
+     */
+    public void quitarEvento(Long eventoId) {
+        eventOccupancyStats.quitarEvento(eventoId);
+    }
+
+    /**
+     * Los eventos activos y futuros con mayor tasa de ocupación (los de capacidad ilimitada no
+     * participan)
+     */
+    public List<OcupacionEventoResponse> getRankingOcupacion(int limite) {
+        return eventOccupancyStats.ranking(limite, System.currentTimeMillis()).stream()
+                .map(ocupacion -> OcupacionEventoResponse.builder()
+                        .eventoId(ocupacion.eventoId())
+                        .nombre(ocupacion.nombre())
+                        .fechaEvento(ocupacion.fechaEvento())
+                        .capacidadMaxima(ocupacion.capacidad())
+                        .cuposOcupados(ocupacion.ocupados())
+                        .tasaOcupacion(tasa(ocupacion.ocupados(), ocupacion.capacidad()))
+                        .inscripcionesUltimas24h(ocupacion.inscripcionesRecientes())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Ocupación del evento y su serie de las últimas horas
+     */
+    public EstadisticasEventoResponse getEstadisticas(Long eventoId, int horas) {
+        if (horas < 1 || horas > EventOccupancyStats.HORAS) {
+            throw new InvalidOperationException("Las horas deben estar entre 1 y " + EventOccupancyStats.HORAS);
+        }
+        long ahora = System.currentTimeMillis();
+        Ocupacion ocupacion = eventOccupancyStats.ocupacion(eventoId, ahora);
+        List<Hora> serie = eventOccupancyStats.serie(eventoId, horas, ahora);
+        if (ocupacion == null || serie == null) {
+            return getEstadisticasGuardadas(eventoId, horas, ahora);
+        }
+
+        Integer capacidad = ocupacion.capacidad() > 0 ? ocupacion.capacidad() : null;
+        return armar(eventoId, ocupacion.nombre(), ocupacion.fechaEvento(), capacidad, ocupacion.ocupados(), serie);
+    }
+
+    /**
+     * Estadísticas de un evento que no está en memoria, desde eventos y estadisticas_evento_hora
+     */
+    private EstadisticasEventoResponse getEstadisticasGuardadas(Long eventoId, int horas, long ahora) {
+        Evento evento = eventoRepository.findById(eventoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Evento", "id", eventoId));
+
+        long desde = ahora / HORA_MS - horas + 1;
+        Map<Long, Hora> guardadas = new HashMap<>();
+        jdbcTemplate.query(SQL_SERIE, rs -> {
+            long horaMs = rs.getTimestamp(1).getTime();
+            guardadas.put(horaMs / HORA_MS, new Hora(horaMs, rs.getInt(2), rs.getInt(3)));
+        }, eventoId, new Timestamp(desde * HORA_MS));
+
+        List<Hora> serie = new ArrayList<>(horas);
+        for (long hora = desde; hora < desde + horas; hora++) {
+            serie.add(guardadas.getOrDefault(hora, new Hora(hora * HORA_MS, 0, 0)));
+        }
+        return armar(eventoId, evento.getNombre(), evento.getFechaEvento(), evento.getCapacidadMaxima(),
+                evento.getCuposOcupados(), serie);
+    }
+
+    private void registrar(Evento evento) {
+        int capacidad = evento.getCapacidadMaxima() == null ? 0 : evento.getCapacidadMaxima();
+        eventOccupancyStats.registrarEvento(evento.getId(), evento.getNombre(), evento.getFechaEvento(),
+                capacidad, evento.getCuposOcupados() == null ? 0 : evento.getCuposOcupados());
+    }
+
+    private void escribir(List<Pendiente> pendientes) {
+        List<Object[]> sumas = pendientes.stream()
+                .map(p -> new Object[]{p.inscripciones(), p.cancelaciones(), p.eventoId(), new Timestamp(p.horaMs())})
+                .toList();
+        int[] actualizadas = jdbcTemplate.batchUpdate(SQL_SUMAR, sumas);
+
+        List<Object[]> nuevas = new ArrayList<>();
+        for (int i = 0; i < actualizadas.length; i++) {
+            if (actualizadas[i] == 0) {
+                Pendiente p = pendientes.get(i);
+                nuevas.add(new Object[]{p.eventoId(), new Timestamp(p.horaMs()), p.inscripciones(), p.cancelaciones()});
+            }
+        }
+        if (!nuevas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, nuevas);
+        }
+    }
+
+    private EstadisticasEventoResponse armar(Long eventoId, String nombre, LocalDateTime fechaEvento,
+                                             Integer capacidad, int ocupados, List<Hora> serie) {
+        long inscripciones = 0;
+        long cancelaciones = 0;
+        List<InscripcionesHora> horas = new ArrayList<>(serie.size());
+        for (Hora hora : serie) {
+            inscripciones += hora.inscripciones();
+            cancelaciones += hora.cancelaciones();
+            horas.add(new InscripcionesHora(
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(hora.horaMs()), ZoneId.systemDefault()),
+                    hora.inscripciones(), hora.cancelaciones()));
+        }
+        return EstadisticasEventoResponse.builder()
+                .eventoId(eventoId)
+                .nombre(nombre)
+                .fechaEvento(fechaEvento)
+                .capacidadMaxima(capacidad)
+                .cuposOcupados(ocupados)
+                .tasaOcupacion(capacidad == null ? null : tasa(ocupados, capacidad))
+                .inscripciones(inscripciones)
+                .cancelaciones(cancelaciones)
+                .serie(horas)
+                .build();
+    }
+
+    private static Double tasa(int ocupados, int capacidad) {
+        return capacidad > 0 ? (double) ocupados / capacidad : null;
+    }
+}
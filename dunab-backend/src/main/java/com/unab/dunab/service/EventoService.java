@@ -1,26 +1,102 @@
 package com.unab.dunab.service;
 
 import com.unab.dunab.dto.request.EventoRequest;
+import com.unab.dunab.dto.response.EventoResponse;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.model.Dunab;
 import com.unab.dunab.model.Evento;
 import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.utils.EventCalendar;
+import com.unab.dunab.utils.EventSearchIndex;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Eventos institucionales.
+ *
+ * Los eventos activos y futuros se mantienen además en EventCalendar, que responde los próximos
+ * eventos sin consultar la base de datos: crear, editar y eliminar lo actualizan al confirmarse, y
+ * cada dunab.eventos.calendario.intervalo-recarga-ms se recarga completo para recoger los cupos
+ * ocupados y los cambios hechos en otras instancias.
+ *
+ * Los listados (todos, activos, gratuitos, con recompensa) salen de un catálogo en memoria que se
+ * construye con una sola consulta. Crear, editar y eliminar lo invalidan al confirmarse, y se
+ * reconstruye también al cumplir dunab.eventos.catalogo.max-edad-ms (los cupos ocupados cambian
+ * con las inscripciones, y otras instancias editan eventos). Su versión solo avanza cuando el
+ * contenido cambió, así que el ETag de los listados sirve para responder 304. La búsqueda usa un
+ * índice invertido (EventSearchIndex) de los eventos activos del catálogo, que se construye la
+ * primera vez que se busca en cada versión del catálogo.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EventoService {
 
+    /**
+     * Distingue los ETag de esta ejecución de los de una anterior, que reinició la versión
+     */
+    private static final String ARRANQUE = Long.toString(System.currentTimeMillis(), 36);
+
     private final EventoRepository eventoRepository;
+    private final InscripcionEventoService inscripcionEventoService;
+    private final RecordatorioEventoService recordatorioEventoService;
+    private final EstadisticaEventoService estadisticaEventoService;
+    private final EventCalendar eventCalendar;
+
+    private final AtomicLong invalidacionesCatalogo = new AtomicLong();
+    private final ReentrantLock construccionCatalogo = new ReentrantLock();
+    private volatile EstadoCatalogo estadoCatalogo;
+    private volatile IndiceCatalogo indiceBusqueda;
+
+    @Value("${dunab.eventos.catalogo.max-edad-ms}")
+    private long maxEdadCatalogoMs;
+
+    /**
+     * Listados de eventos en memoria, de un mismo momento. Las listas son inmutables y se comparten
+     * entre peticiones; etag es un ETag fuerte (con comillas) que cambia solo si cambia el contenido.
+     *
+     * @param eventos Todos los eventos, del más reciente al más antiguo
+     */
+    public record CatalogoEventos(String etag, List<EventoResponse> eventos, List<EventoResponse> activos,
+                                  List<EventoResponse> gratuitos, List<EventoResponse> conRecompensa) {
+
+        public Page<EventoResponse> pagina(int page, int size) {
+            Pageable pageable = PageRequest.of(page, size, Sort.by("fechaEvento").descending());
+            int desde = (int) Math.min(pageable.getOffset(), eventos.size());
+            int hasta = Math.min(desde + size, eventos.size());
+            return new PageImpl<>(eventos.subList(desde, hasta), pageable, eventos.size());
+        }
+    }
+
+    /**
+     * Catálogo con su versión, la invalidación que refleja y el instante en que se construyó
+     */
+    private record EstadoCatalogo(CatalogoEventos catalogo, long version, long invalidacion, long construidoMs) {
+    }
+
+    /**
+     * Índice de búsqueda y el catálogo del que se construyó
+     */
+    private record IndiceCatalogo(CatalogoEventos catalogo, EventSearchIndex indice) {
+    }
 
     /**
      * Crear nuevo evento
@@ -33,31 +109,131 @@ public class EventoService {
                 .fechaEvento(request.getFechaEvento())
                 .ubicacion(request.getUbicacion())
                 .capacidadMaxima(request.getCapacidadMaxima())
-                .costoDunab(request.getCostoDunab())
-                .recompensaDunab(request.getRecompensaDunab())
+                .cuposOcupados(0)
+                .costoDunab(Dunab.valueOfNullable(request.getCostoDunab()))
+                .recompensaDunab(Dunab.valueOfNullable(request.getRecompensaDunab()))
                 .requiereConfirmacion(request.getRequiereConfirmacion())
                 .activo(true)
                 .build();
 
-        return eventoRepository.save(evento);
+        Evento creado = eventoRepository.save(evento);
+        alConfirmar(() -> {
+            invalidarCatalogo();
+            actualizarCalendario(creado);
+            recordatorioEventoService.reprogramar(creado);
+            estadisticaEventoService.actualizarEvento(creado);
+        });
+        return creado;
     }
 
     /**
-     * Obtener todos los eventos con paginación
+     * Obtener el catálogo de eventos; lo reconstruye si se invalidó o cumplió su edad máxima
      */
-    @Transactional(readOnly = true)
-    public Page<Evento> getAllEventos(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("fechaEvento").descending());
-        return eventoRepository.findAll(pageable);
+    public CatalogoEventos getCatalogo() {
+        EstadoCatalogo estado = estadoCatalogo;
+        if (vigente(estado)) {
+            return estado.catalogo();
+        }
+        // Una sola reconstrucción a la vez; las demás peticiones la esperan y usan su resultado
+        construccionCatalogo.lock();
+        try {
+            estado = estadoCatalogo;
+            if (!vigente(estado)) {
+                estado = construirCatalogo(estado);
+                estadoCatalogo = estado;
+            }
+            return estado.catalogo();
+        } finally {
+            construccionCatalogo.unlock();
+        }
+    }
+
+    private boolean vigente(EstadoCatalogo estado) {
+        return estado != null && estado.invalidacion() == invalidacionesCatalogo.get()
+                && System.currentTimeMillis() - estado.construidoMs() < maxEdadCatalogoMs;
+    }
+
+    private EstadoCatalogo construirCatalogo(EstadoCatalogo anterior) {
+        // La invalidación se lee antes de consultar: un cambio confirmado durante la consulta
+        // deja el catálogo ya invalidado
+        long invalidacion = invalidacionesCatalogo.get();
+        long construido = System.currentTimeMillis();
+        List<EventoResponse> eventos = eventoRepository.findAll(Sort.by("fechaEvento").descending()).stream()
+                .map(this::mapToResponse)
+                .toList();
+        if (anterior != null && anterior.catalogo().eventos().equals(eventos)) {
+            return new EstadoCatalogo(anterior.catalogo(), anterior.version(), invalidacion, construido);
+        }
+
+        long version = anterior == null ? 1 : anterior.version() + 1;
+        List<EventoResponse> activos = eventos.stream()
+                .filter(evento -> Boolean.TRUE.equals(evento.getActivo()))
+                .toList();
+        CatalogoEventos catalogo = new CatalogoEventos(
+                "\"" + ARRANQUE + "-" + version + "\"",
+                eventos,
+                activos,
+                activos.stream()
+                        .filter(evento -> evento.getCostoDunab() != null && evento.getCostoDunab().esCero())
+                        .toList(),
+                activos.stream()
+                        .filter(evento -> evento.getRecompensaDunab() != null && evento.getRecompensaDunab().esPositivo())
+                        .toList());
+        log.debug("Catálogo de eventos reconstruido: versión {}, {} eventos", version, eventos.size());
+        return new EstadoCatalogo(catalogo, version, invalidacion, construido);
+    }
+
+    private void invalidarCatalogo() {
+        invalidacionesCatalogo.incrementAndGet();
     }
 
     /**
-     * Obtener eventos próximos
+     * Buscar eventos activos del catálogo dado, en orden de fecha
      */
+    public Page<EventoResponse> buscarEventos(CatalogoEventos catalogo, EventSearchIndex.Consulta consulta,
+                                              int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("fechaEvento").ascending());
+        EventSearchIndex.Resultado resultado = getIndiceBusqueda(catalogo).buscar(consulta, page, size);
+        return new PageImpl<>(resultado.eventos(), pageable, resultado.total());
+    }
+
+    private EventSearchIndex getIndiceBusqueda(CatalogoEventos catalogo) {
+        IndiceCatalogo indice = indiceBusqueda;
+        if (indice != null && indice.catalogo() == catalogo) {
+            return indice.indice();
+        }
+        construccionCatalogo.lock();
+        try {
+            indice = indiceBusqueda;
+            if (indice == null || indice.catalogo() != catalogo) {
+                indice = new IndiceCatalogo(catalogo, EventSearchIndex.construir(catalogo.activos()));
+                indiceBusqueda = indice;
+                log.debug("Índice de búsqueda de eventos construido: {} eventos", indice.indice().size());
+            }
+            return indice.indice();
+        } finally {
+            construccionCatalogo.unlock();
+        }
+    }
+
+    /**
+     * Obtener los próximos eventos desde el calendario en memoria
+     */
+    public List<EventoResponse> getEventosProximos(int limit) {
+        return eventCalendar.proximos(LocalDateTime.now(), limit);
+    }
+
+    /**
+     * Recarga el calendario de eventos próximos desde la base de datos
+     */
+    @Scheduled(fixedDelayString = "${dunab.eventos.calendario.intervalo-recarga-ms}")
     @Transactional(readOnly = true)
-    public List<Evento> getEventosProximos(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return eventoRepository.findEventosProximos(LocalDateTime.now());
+    public void recargarCalendario() {
+        List<EventoResponse> eventos = eventoRepository.findEventosProximos(LocalDateTime.now()).stream()
+                .map(this::mapToResponse)
+                .toList();
+        eventCalendar.reemplazar(eventos);
+        log.debug("Calendario de eventos próximos recargado: {} eventos", eventos.size());
     }
 
     /**
@@ -79,16 +255,33 @@ public class EventoService {
     public Evento actualizarEvento(Long id, EventoRequest request) {
         Evento evento = getEventoById(id);
 
+        // Una inscripción concurrente puede ocupar otro cupo después de esta verificación; en ese
+        // caso el evento queda con más inscritos que capacidad y reservarCupo no admite más
+        Integer capacidad = request.getCapacidadMaxima();
+        if (capacidad != null && capacidad < evento.getCuposOcupados()) {
+            throw new InvalidOperationException("La capacidad no puede ser menor que los "
+                    + evento.getCuposOcupados() + " cupos ocupados");
+        }
+
         evento.setNombre(request.getNombre());
         evento.setDescripcion(request.getDescripcion());
         evento.setFechaEvento(request.getFechaEvento());
         evento.setUbicacion(request.getUbicacion());
         evento.setCapacidadMaxima(request.getCapacidadMaxima());
-        evento.setCostoDunab(request.getCostoDunab());
-        evento.setRecompensaDunab(request.getRecompensaDunab());
+        evento.setCostoDunab(Dunab.valueOfNullable(request.getCostoDunab()));
+        evento.setRecompensaDunab(Dunab.valueOfNullable(request.getRecompensaDunab()));
         evento.setRequiereConfirmacion(request.getRequiereConfirmacion());
 
-        return eventoRepository.save(evento);
+        // Los cupos nuevos son para la lista de espera; los recordatorios siguen a la nueva fecha
+        Evento actualizado = eventoRepository.save(evento);
+        alConfirmar(() -> {
+            invalidarCatalogo();
+            inscripcionEventoService.promoverListaEspera(id);
+            actualizarCalendario(actualizado);
+            recordatorioEventoService.reprogramar(actualizado);
+            estadisticaEventoService.actualizarEvento(actualizado);
+        });
+        return actualizado;
     }
 
     /**
@@ -99,29 +292,50 @@ public class EventoService {
         Evento evento = getEventoById(id);
         evento.setActivo(false);
         eventoRepository.save(evento);
+        alConfirmar(() -> {
+            invalidarCatalogo();
+            eventCalendar.quitar(id);
+            recordatorioEventoService.cancelar(id);
+            estadisticaEventoService.quitarEvento(id);
+        });
     }
 
-    /**
-     * Obtener eventos activos
-     */
-    @Transactional(readOnly = true)
-    public List<Evento> getEventosActivos() {
-        return eventoRepository.findByActivoTrue();
+    private void actualizarCalendario(Evento evento) {
+        if (Boolean.TRUE.equals(evento.getActivo()) && evento.getFechaEvento().isAfter(LocalDateTime.now())) {
+            eventCalendar.poner(mapToResponse(evento));
+        } else {
+            eventCalendar.quitar(evento.getId());
+        }
     }
 
     /**
-     * Obtener eventos gratuitos
+     * Ejecuta la acción cuando la transacción actual se confirma
      */
-    @Transactional(readOnly = true)
-    public List<Evento> getEventosGratuitos() {
-        return eventoRepository.findEventosGratuitos();
+    private void alConfirmar(Runnable accion) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
     }
 
     /**
-     * Obtener eventos con recompensa
+     * Mapea Evento a EventoResponse
      */
-    @Transactional(readOnly = true)
-    public List<Evento> getEventosConRecompensa() {
-        return eventoRepository.findEventosConRecompensa();
+    private EventoResponse mapToResponse(Evento evento) {
+        return EventoResponse.builder()
+                .id(evento.getId())
+                .nombre(evento.getNombre())
+                .descripcion(evento.getDescripcion())
+                .fechaEvento(evento.getFechaEvento())
+                .ubicacion(evento.getUbicacion())
+                .capacidadMaxima(evento.getCapacidadMaxima())
+                .cuposOcupados(evento.getCuposOcupados())
+                .costoDunab(evento.getCostoDunab())
+                .recompensaDunab(evento.getRecompensaDunab())
+                .requiereConfirmacion(evento.getRequiereConfirmacion())
+                .activo(evento.getActivo())
+                .build();
     }
 }
@@ -0,0 +1,314 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.request.RegisterRequest;
+import com.unab.dunab.dto.response.ImportacionEstudiantesResponse;
+import com.unab.dunab.dto.response.ImportacionEstudiantesResponse.ErrorFila;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.repository.UserRepository;
+import com.unab.dunab.utils.CsvLineParser;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de importación masiva de estudiantes desde archivos CSV.
+ *
+ * El archivo se procesa como flujo en lotes de {@value #TAMANO_LOTE} filas: por cada lote
+ * se consultan los duplicados en una sola consulta, las contraseñas se cifran en paralelo
+ * y los usuarios y sus cuentas DUNAB se insertan con sentencias JDBC por lotes.
+ *
+ * Formato esperado (con encabezado, columnas en cualquier orden):
+ * nombre,apellido,email,password[,codigoEstudiante,telefono,programa,semestre]
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportacionEstudiantesService {
+
+    private static final int TAMANO_LOTE = 500;
+
+    private static final List<String> COLUMNAS_OBLIGATORIAS = List.of("nombre", "apellido", "email", "password");
+
+    private static final String SQL_INSERTAR_USUARIO =
+            "INSERT INTO users (nombre, apellido, email, password, codigo_estudiante, telefono, programa, " +
+            "semestre, activo, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] TIPOS_INSERTAR_USUARIO = {
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.INTEGER, Types.BOOLEAN, Types.TIMESTAMP, Types.TIMESTAMP};
+
+    private static final String SQL_INSERTAR_CUENTA =
+            "INSERT INTO cuentas_dunab (estudiante_id, saldo_actual, total_ganado, total_gastado, estado, " +
+            "limite_transaccion, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] TIPOS_INSERTAR_CUENTA = {
+            Types.BIGINT, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.VARCHAR,
+            Types.NUMERIC, Types.TIMESTAMP, Types.TIMESTAMP};
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    // BCrypt es intensivo en CPU: un hilo por núcleo es suficiente
+    private final ExecutorService hashingExecutor =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Importa estudiantes leyendo el CSV como flujo, sin cargarlo completo en memoria
+     *
+     * @param csv Flujo con el contenido del archivo CSV
+     * @return Resumen de la importación con el detalle de las filas rechazadas
+     */
+    public ImportacionEstudiantesResponse importar(InputStream csv) throws IOException {
+        long inicio = System.currentTimeMillis();
+        List<ErrorFila> errores = new ArrayList<>();
+        Set<String> emailsVistos = new HashSet<>();
+        Set<String> codigosVistos = new HashSet<>();
+        long totalFilas = 0;
+        long importados = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columnas = leerEncabezado(reader.readLine());
+
+            List<FilaImportacion> lote = new ArrayList<>(TAMANO_LOTE);
+            long numeroFila = 1;
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                numeroFila++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                totalFilas++;
+
+                FilaImportacion fila;
+                try {
+                    fila = parsearFila(numeroFila, CsvLineParser.dividirLinea(linea), columnas);
+                } catch (IllegalArgumentException e) {
+                    errores.add(new ErrorFila(numeroFila, null, e.getMessage()));
+                    continue;
+                }
+
+                String motivo = validarFila(fila, emailsVistos, codigosVistos);
+                if (motivo != null) {
+                    errores.add(new ErrorFila(numeroFila, fila.datos().getEmail(), motivo));
+                    continue;
+                }
+
+                lote.add(fila);
+                if (lote.size() == TAMANO_LOTE) {
+                    importados += procesarLote(lote, errores);
+                    lote.clear();
+                }
+            }
+
+            if (!lote.isEmpty()) {
+                importados += procesarLote(lote, errores);
+            }
+        }
+
+        long duracion = System.currentTimeMillis() - inicio;
+        log.info("Importación de estudiantes finalizada - Filas: {}, Importados: {}, Rechazados: {}, Duración: {} ms",
+                totalFilas, importados, errores.size(), duracion);
+
+        return ImportacionEstudiantesResponse.builder()
+                .totalFilas(totalFilas)
+                .importados(importados)
+                .rechazados(errores.size())
+                .duracionMs(duracion)
+                .errores(errores)
+                .build();
+    }
+
+    /**
+     * Procesa un lote de filas válidas: descarta duplicados existentes en base de datos,
+     * cifra las contraseñas en paralelo e inserta usuarios y cuentas en una transacción
+     *
+     * @return Cantidad de estudiantes importados del lote
+     */
+    private int procesarLote(List<FilaImportacion> lote, List<ErrorFila> errores) {
+        Set<String> emailsExistentes = userRepository.findEmailsExistentes(
+                lote.stream().map(f -> f.datos().getEmail()).toList());
+
+        List<String> codigos = lote.stream()
+                .map(f -> f.datos().getCodigoEstudiante())
+                .filter(Objects::nonNull)
+                .toList();
+        Set<String> codigosExistentes = codigos.isEmpty()
+                ? Set.of()
+                : userRepository.findCodigosEstudianteExistentes(codigos);
+
+        List<FilaImportacion> nuevos = new ArrayList<>(lote.size());
+        for (FilaImportacion fila : lote) {
+            RegisterRequest datos = fila.datos();
+            if (emailsExistentes.contains(datos.getEmail())) {
+                errores.add(new ErrorFila(fila.numero(), datos.getEmail(), "El email ya está registrado"));
+            } else if (datos.getCodigoEstudiante() != null && codigosExistentes.contains(datos.getCodigoEstudiante())) {
+                errores.add(new ErrorFila(fila.numero(), datos.getEmail(), "El código de estudiante ya está registrado"));
+            } else {
+                nuevos.add(fila);
+            }
+        }
+
+        if (nuevos.isEmpty()) {
+            return 0;
+        }
+
+        // Cifrado de contraseñas en paralelo
+        List<CompletableFuture<String>> hashes = nuevos.stream()
+                .map(f -> CompletableFuture.supplyAsync(
+                        () -> passwordEncoder.encode(f.datos().getPassword()), hashingExecutor))
+                .toList();
+        List<String> passwords = hashes.stream().map(CompletableFuture::join).toList();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertarLote(nuevos, passwords));
+            return nuevos.size();
+        } catch (DataAccessException e) {
+            log.error("Error al insertar lote de importación (filas {} a {})",
+                    nuevos.get(0).numero(), nuevos.get(nuevos.size() - 1).numero(), e);
+            String motivo = "Error al guardar el lote: " + e.getMostSpecificCause().getMessage();
+            nuevos.forEach(f -> errores.add(new ErrorFila(f.numero(), f.datos().getEmail(), motivo)));
+            return 0;
+        }
+    }
+
+    /**
+     * Inserta usuarios y cuentas DUNAB de un lote usando JDBC por lotes
+     */
+    private void insertarLote(List<FilaImportacion> filas, List<String> passwords) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> usuarios = new ArrayList<>(filas.size());
+        for (int i = 0; i < filas.size(); i++) {
+            FilaImportacion fila = filas.get(i);
+            RegisterRequest datos = fila.datos();
+            usuarios.add(new Object[]{
+                    datos.getNombre(), datos.getApellido(), datos.getEmail(), passwords.get(i),
+                    datos.getCodigoEstudiante(), fila.telefono(), fila.programa(), fila.semestre(),
+                    Boolean.TRUE, ahora, ahora});
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_USUARIO, usuarios, TIPOS_INSERTAR_USUARIO);
+
+        List<String> emails = filas.stream().map(f -> f.datos().getEmail()).toList();
+        List<Long> ids = namedParameterJdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE email IN (:emails)", Map.of("emails", emails), Long.class);
+
+        List<Object[]> cuentas = ids.stream()
+                .map(id -> new Object[]{
+                        id, DunabService.SALDO_INICIAL.toBigDecimal(), DunabService.SALDO_INICIAL.toBigDecimal(), BigDecimal.ZERO,
+                        AccountStatus.ACTIVA.name(), DunabService.LIMITE_TRANSACCION_INICIAL.toBigDecimal(), ahora, ahora})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_CUENTA, cuentas, TIPOS_INSERTAR_CUENTA);
+    }
+
+    /**
+     * Valida una fila con las mismas reglas del registro individual y contra
+     * los duplicados dentro del propio archivo
+     *
+     * @return Motivo del rechazo o null si la fila es válida
+     */
+    private String validarFila(FilaImportacion fila, Set<String> emailsVistos, Set<String> codigosVistos) {
+        Set<ConstraintViolation<RegisterRequest>> violaciones = validator.validate(fila.datos());
+        if (!violaciones.isEmpty()) {
+            return violaciones.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        String codigo = fila.datos().getCodigoEstudiante();
+        if (codigo != null && codigo.length() > 20) {
+            return "codigoEstudiante: no puede superar 20 caracteres";
+        }
+        if (!emailsVistos.add(fila.datos().getEmail())) {
+            return "Email duplicado dentro del archivo";
+        }
+        if (codigo != null && !codigosVistos.add(codigo)) {
+            return "Código de estudiante duplicado dentro del archivo";
+        }
+        return null;
+    }
+
+    /**
+     * Lee el encabezado del CSV y devuelve la posición de cada columna
+     */
+    private Map<String, Integer> leerEncabezado(String encabezado) {
+        if (encabezado == null) {
+            throw new InvalidOperationException("El archivo CSV está vacío");
+        }
+
+        Map<String, Integer> columnas = CsvLineParser.leerEncabezado(encabezado);
+        List<String> faltantes = COLUMNAS_OBLIGATORIAS.stream()
+                .filter(c -> !columnas.containsKey(c))
+                .toList();
+        if (!faltantes.isEmpty()) {
+            throw new InvalidOperationException("Faltan columnas obligatorias en el CSV: " + faltantes);
+        }
+        return columnas;
+    }
+
+    private FilaImportacion parsearFila(long numero, List<String> valores, Map<String, Integer> columnas) {
+        RegisterRequest datos = new RegisterRequest(
+                CsvLineParser.valor(valores, columnas, "nombre"),
+                CsvLineParser.valor(valores, columnas, "apellido"),
+                CsvLineParser.valor(valores, columnas, "email"),
+                CsvLineParser.valor(valores, columnas, "password"),
+                CsvLineParser.valor(valores, columnas, "codigoestudiante"));
+
+        String semestre = CsvLineParser.valor(valores, columnas, "semestre");
+        Integer semestreNumero = null;
+        if (semestre != null) {
+            try {
+                semestreNumero = Integer.valueOf(semestre);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("semestre: debe ser un número entero");
+            }
+        }
+
+        return new FilaImportacion(numero, datos,
+                CsvLineParser.valor(valores, columnas, "telefono"),
+                CsvLineParser.valor(valores, columnas, "programa"),
+                semestreNumero);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        hashingExecutor.shutdown();
+    }
+
+    private record FilaImportacion(long numero, RegisterRequest datos,
+                                   String telefono, String programa, Integer semestre) {
+    }
+}
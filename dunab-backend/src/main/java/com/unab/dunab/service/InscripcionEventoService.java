@@ -0,0 +1,444 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.request.TransaccionRequest;
+import com.unab.dunab.dto.response.InscripcionEventoResponse;
+import com.unab.dunab.dto.response.TransaccionResponse;
+import com.unab.dunab.exception.DuplicateResourceException;
+import com.unab.dunab.exception.InsufficientBalanceException;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.exception.TransactionLimitExceededException;
+import com.unab.dunab.model.CategoriaTransaccion;
+import com.unab.dunab.model.EstadoInscripcion;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.model.InscripcionEvento;
+import com.unab.dunab.model.Transaccion;
+import com.unab.dunab.model.TransactionType;
+import com.unab.dunab.repository.CategoriaTransaccionRepository;
+import com.unab.dunab.repository.CuentaDunabRepository;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.repository.InscripcionEventoRepository;
+import com.unab.dunab.repository.TransaccionRepository;
+import com.unab.dunab.repository.UserRepository;
+import com.unab.dunab.utils.EventWaitlist;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Inscripciones a eventos con cupo limitado y su lista de espera.
+ *
+ * El cupo se reserva con un UPDATE condicional sobre eventos.cupos_ocupados
+ * (EventoRepository.reservarCupo): la base de datos decide qué inscripciones entran cuando llegan
+ * miles a la vez, sin contar inscripciones ni bloquear el evento al leerlo, y sin importar cuántas
+ * instancias de la aplicación atiendan. Si el UPDATE no afecta la fila el evento está lleno y la
+ * transacción se revierte, incluido el cobro.
+ *
+ * Con el evento lleno, o con estudiantes ya esperando, la inscripción queda EN_ESPERA con un turno
+ * y se responde la posición en la fila. La fila se lleva en memoria (EventWaitlist): los reintentos
+ * de quien ya espera se responden sin consultar la base de datos. Cuando una cancelación libera un
+ * cupo, un hilo aparte promueve al primero de la fila: lo cobra, reserva el cupo y lo notifica; si
+ * el cobro no procede lo saca de la fila y sigue con el siguiente. Las filas y los turnos son de
+ * esta instancia: con varias instancias cada una promovería solo su propia fila.
+ *
+ * Orden de bloqueos: inscripción del estudiante, cuenta DUNAB (cobro o reembolso) y por último la
+ * fila del evento, que es la que comparten todas las inscripciones y queda bloqueada solo hasta el
+ * commit.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InscripcionEventoService {
+
+    /**
+     * Evento sin cupo para la inscripción en curso; revierte la transacción sin armar la traza
+     */
+    private static final class SinCupo extends RuntimeException {
+        private SinCupo() {
+            super("Sin cupo", null, false, false);
+        }
+    }
+
+    private static final SinCupo SIN_CUPO = new SinCupo();
+
+    private final InscripcionEventoRepository inscripcionEventoRepository;
+    private final EventoRepository eventoRepository;
+    private final CuentaDunabRepository cuentaDunabRepository;
+    private final CategoriaTransaccionRepository categoriaTransaccionRepository;
+    private final TransaccionRepository transaccionRepository;
+    private final UserRepository userRepository;
+    private final TransactionService transactionService;
+    private final NotificationService notificationService;
+    private final EstadisticaEventoService estadisticaEventoService;
+    private final EventWaitlist eventWaitlist;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Una sola promoción a la vez; las pedidas para un evento que ya tiene una pendiente se unen a ella
+    private final ExecutorService promotor = Executors.newSingleThreadExecutor();
+    private final ConcurrentHashMap<Long, Boolean> promocionesPendientes = new ConcurrentHashMap<>();
+
+    /**
+     * Reconstruye las listas de espera con las inscripciones EN_ESPERA y promueve las de los
+     * eventos que tengan cupos libres
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        List<Object[]> turnos = inscripcionEventoRepository.findTurnosByEstado(EstadoInscripcion.EN_ESPERA);
+        for (Object[] turno : turnos) {
+            eventWaitlist.agregar((Long) turno[0], (Long) turno[1], (Long) turno[2]);
+        }
+        eventWaitlist.eventosConEspera().forEach(this::promoverListaEspera);
+        log.info("Listas de espera: {} inscripciones cargadas", turnos.size());
+    }
+
+    @PreDestroy
+    void cerrar() {
+        promotor.shutdownNow();
+    }
+
+    /**
+     * Inscribe al estudiante y cobra el costo del evento en DUNAB, todo en una transacción. Sin
+     * cupo, lo pone en la lista de espera.
+     */
+    @Timed(value = "dunab.eventos.inscribir", description = "Tiempo de las inscripciones a eventos")
+    public InscripcionEventoResponse inscribir(Long eventoId, Long estudianteId) {
+        // Reintento de quien ya espera: se responde desde memoria
+        Integer posicion = eventWaitlist.posicion(eventoId, estudianteId);
+        if (posicion != null) {
+            meterRegistry.counter("dunab.eventos.inscripciones", "resultado", "en-espera").increment();
+            return InscripcionEventoResponse.builder()
+                    .eventoId(eventoId)
+                    .estudianteId(estudianteId)
+                    .estado(EstadoInscripcion.EN_ESPERA)
+                    .posicionEspera(posicion)
+                    .build();
+        }
+
+        try {
+            return transactionTemplate.execute(estado -> inscribirConCupo(eventoId, estudianteId));
+        } catch (SinCupo e) {
+            return transactionTemplate.execute(estado -> ponerEnEspera(eventoId, estudianteId));
+        }
+    }
+
+    /**
+     * Cancela la inscripción: reembolsa el pago, libera el cupo y promueve al primero de la lista
+     * de espera. Una inscripción EN_ESPERA solo sale de la fila.
+     */
+    @Transactional
+    public InscripcionEventoResponse cancelar(Long eventoId, Long estudianteId) {
+        InscripcionEvento inscripcion = inscripcionEventoRepository
+                .findByEventoIdAndEstudianteIdForUpdate(eventoId, estudianteId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inscripción", "eventoId", eventoId));
+
+        switch (inscripcion.getEstado()) {
+            case CANCELADA -> throw new InvalidOperationException("La inscripción ya está cancelada");
+            case ASISTIO, NO_ASISTIO -> throw new InvalidOperationException(
+                    "No se puede cancelar la inscripción de un evento con asistencia registrada");
+            default -> {
+            }
+        }
+
+        Evento evento = inscripcion.getEvento();
+        boolean enEspera = inscripcion.getEstado() == EstadoInscripcion.EN_ESPERA;
+        if (!enEspera && evento.yaPaso()) {
+            throw new InvalidOperationException("El evento ya ocurrió");
+        }
+
+        Transaccion pago = inscripcion.getTransaccionPago();
+        if (!enEspera && pago != null) {
+            transactionService.anularTransaccion(pago.getId(),
+                    "Cancelación de la inscripción al evento " + eventoId, estudianteId);
+        }
+
+        inscripcion.cancelar();
+        inscripcionEventoRepository.saveAndFlush(inscripcion);
+        if (enEspera) {
+            alConfirmar(() -> eventWaitlist.quitar(eventoId, estudianteId));
+        } else {
+            eventoRepository.liberarCupo(eventoId);
+            alConfirmar(() -> {
+                estadisticaEventoService.registrarCancelacion(eventoId);
+                promoverListaEspera(eventoId);
+            });
+        }
+
+        meterRegistry.counter("dunab.eventos.inscripciones", "resultado", "cancelada").increment();
+        log.info("Inscripción al evento {} cancelada - Estudiante: {}", eventoId, estudianteId);
+        return mapToResponse(inscripcion, evento, eventoRepository.findCuposOcupadosById(eventoId).orElse(null));
+    }
+
+    /**
+     * Inscripciones del estudiante, de la más reciente a la más antigua
+     */
+    @Transactional(readOnly = true)
+    public List<InscripcionEventoResponse> getInscripcionesEstudiante(Long estudianteId) {
+        return inscripcionEventoRepository.findByEstudianteIdConEvento(estudianteId).stream()
+                .map(inscripcion -> mapToResponse(inscripcion, inscripcion.getEvento(),
+                        inscripcion.getEvento().getCuposOcupados()))
+                .toList();
+    }
+
+    /**
+     * Programa la promoción de la lista de espera del evento en segundo plano (tras liberar cupos
+     * o aumentar la capacidad)
+     */
+    public void promoverListaEspera(Long eventoId) {
+        if (eventWaitlist.tieneEspera(eventoId) && promocionesPendientes.putIfAbsent(eventoId, Boolean.TRUE) == null) {
+            promotor.execute(() -> promoverPendientes(eventoId));
+        }
+    }
+
+    private InscripcionEventoResponse inscribirConCupo(Long eventoId, Long estudianteId) {
+        Evento evento = eventoRepository.findById(eventoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Evento", "id", eventoId));
+        verificarAbierto(evento);
+
+        // Lectura sin bloqueo: un evento lleno, o con fila, va directo a la lista de espera
+        if (!evento.hayCuposDisponibles() || eventWaitlist.tieneEspera(eventoId)) {
+            throw SIN_CUPO;
+        }
+
+        InscripcionEvento inscripcion = inscripcionEventoRepository
+                .findByEventoIdAndEstudianteIdForUpdate(eventoId, estudianteId)
+                .orElse(null);
+        if (inscripcion != null && inscripcion.getEstado() == EstadoInscripcion.EN_ESPERA) {
+            throw SIN_CUPO;
+        }
+        if (inscripcion != null && inscripcion.getEstado() != EstadoInscripcion.CANCELADA) {
+            throw duplicada(eventoId, estudianteId);
+        }
+        if (inscripcion == null) {
+            inscripcion = InscripcionEvento.builder()
+                    .evento(evento)
+                    .estudiante(userRepository.getReferenceById(estudianteId))
+                    .build();
+        }
+
+        inscripcion.setEstado(estadoInscrita(evento));
+        inscripcion.setTransaccionPago(evento.esGratuito() ? null : cobrar(evento, estudianteId));
+        inscripcion.setTurnoEspera(null);
+        inscripcion.setFechaConfirmacion(null);
+
+        try {
+            inscripcion = inscripcionEventoRepository.saveAndFlush(inscripcion);
+        } catch (DataIntegrityViolationException e) {
+            // Otra inscripción del mismo estudiante se insertó entre la lectura y el INSERT
+            throw duplicada(eventoId, estudianteId);
+        }
+
+        if (eventoRepository.reservarCupo(eventoId, LocalDateTime.now()) == 0) {
+            throw SIN_CUPO;
+        }
+
+        alConfirmar(() -> estadisticaEventoService.registrarInscripcion(eventoId));
+        meterRegistry.counter("dunab.eventos.inscripciones", "resultado", "inscrita").increment();
+        log.info("Inscripción al evento {} - Estudiante: {}", eventoId, estudianteId);
+        return mapToResponse(inscripcion, evento, eventoRepository.findCuposOcupadosById(eventoId).orElse(null));
+    }
+
+    private InscripcionEventoResponse ponerEnEspera(Long eventoId, Long estudianteId) {
+        Evento evento = eventoRepository.findById(eventoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Evento", "id", eventoId));
+        verificarAbierto(evento);
+
+        InscripcionEvento inscripcion = inscripcionEventoRepository
+                .findByEventoIdAndEstudianteIdForUpdate(eventoId, estudianteId)
+                .orElse(null);
+        if (inscripcion != null && inscripcion.getEstado() == EstadoInscripcion.EN_ESPERA) {
+            // Ya esperaba pero la fila en memoria no lo tenía
+            eventWaitlist.agregar(eventoId, estudianteId, inscripcion.getTurnoEspera());
+            return mapToResponse(inscripcion, evento, evento.getCuposOcupados());
+        }
+        if (inscripcion != null && inscripcion.getEstado() != EstadoInscripcion.CANCELADA) {
+            throw duplicada(eventoId, estudianteId);
+        }
+        if (inscripcion == null) {
+            inscripcion = InscripcionEvento.builder()
+                    .evento(evento)
+                    .estudiante(userRepository.getReferenceById(estudianteId))
+                    .build();
+        }
+
+        long turno = eventWaitlist.siguienteTurno(eventoId);
+        inscripcion.setEstado(EstadoInscripcion.EN_ESPERA);
+        inscripcion.setTurnoEspera(turno);
+        inscripcion.setTransaccionPago(null);
+        inscripcion.setFechaConfirmacion(null);
+
+        try {
+            inscripcion = inscripcionEventoRepository.saveAndFlush(inscripcion);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicada(eventoId, estudianteId);
+        }
+
+        // La fila puede haberse vaciado con un cupo libre mientras tanto: se revisa tras entrar
+        alConfirmar(() -> {
+            eventWaitlist.agregar(eventoId, estudianteId, turno);
+            promoverListaEspera(eventoId);
+        });
+
+        meterRegistry.counter("dunab.eventos.inscripciones", "resultado", "en-espera").increment();
+        log.info("Inscripción al evento {} en lista de espera (turno {}) - Estudiante: {}",
+                eventoId, turno, estudianteId);
+        return mapToResponse(inscripcion, evento, evento.getCuposOcupados());
+    }
+
+    /**
+     * Promueve estudiantes de la fila, en orden, mientras haya cupos
+     */
+    private void promoverPendientes(Long eventoId) {
+        // Una liberación posterior a este punto programa otra promoción
+        promocionesPendientes.remove(eventoId);
+
+        Long estudianteId;
+        while ((estudianteId = eventWaitlist.primero(eventoId)) != null) {
+            Long primero = estudianteId;
+            try {
+                transactionTemplate.executeWithoutResult(estado -> promover(eventoId, primero));
+            } catch (SinCupo e) {
+                return;
+            } catch (InsufficientBalanceException | TransactionLimitExceededException
+                     | InvalidOperationException | ResourceNotFoundException e) {
+                transactionTemplate.executeWithoutResult(estado -> descartar(eventoId, primero, e.getMessage()));
+            } catch (RuntimeException e) {
+                // Se reintenta con la próxima liberación de cupo
+                log.error("Error al promover la lista de espera del evento {} - Estudiante: {}",
+                        eventoId, primero, e);
+                return;
+            }
+        }
+    }
+
+    private void promover(Long eventoId, Long estudianteId) {
+        InscripcionEvento inscripcion = inscripcionEventoRepository
+                .findByEventoIdAndEstudianteIdForUpdate(eventoId, estudianteId)
+                .orElse(null);
+        if (inscripcion == null || inscripcion.getEstado() != EstadoInscripcion.EN_ESPERA) {
+            // Ya no espera (canceló justo antes): la fila en memoria estaba desactualizada
+            eventWaitlist.quitar(eventoId, estudianteId);
+            return;
+        }
+
+        Evento evento = inscripcion.getEvento();
+        // Un evento cerrado o lleno deja la fila como está; no se cobra sin cupo
+        if (!Boolean.TRUE.equals(evento.getActivo()) || evento.yaPaso() || !evento.hayCuposDisponibles()) {
+            throw SIN_CUPO;
+        }
+
+        inscripcion.setEstado(estadoInscrita(evento));
+        inscripcion.setTransaccionPago(evento.esGratuito() ? null : cobrar(evento, estudianteId));
+        inscripcionEventoRepository.saveAndFlush(inscripcion);
+
+        if (eventoRepository.reservarCupo(eventoId, LocalDateTime.now()) == 0) {
+            throw SIN_CUPO;
+        }
+
+        notificationService.notificarPromocionListaEspera(estudianteId, evento.getNombre());
+        alConfirmar(() -> {
+            eventWaitlist.quitar(eventoId, estudianteId);
+            estadisticaEventoService.registrarInscripcion(eventoId);
+        });
+        meterRegistry.counter("dunab.eventos.inscripciones", "resultado", "promovida").increment();
+        log.info("Inscripción al evento {} promovida desde la lista de espera (turno {}) - Estudiante: {}",
+                eventoId, inscripcion.getTurnoEspera(), estudianteId);
+    }
+
+    /**
+     * Saca de la fila al estudiante cuyo cobro no procedió y le informa el motivo
+     */
+    private void descartar(Long eventoId, Long estudianteId, String motivo) {
+        eventWaitlist.quitar(eventoId, estudianteId);
+        InscripcionEvento inscripcion = inscripcionEventoRepository
+                .findByEventoIdAndEstudianteIdForUpdate(eventoId, estudianteId)
+                .orElse(null);
+        if (inscripcion == null || inscripcion.getEstado() != EstadoInscripcion.EN_ESPERA) {
+            return;
+        }
+        inscripcion.cancelar();
+        inscripcionEventoRepository.save(inscripcion);
+        notificationService.notificarSalidaListaEspera(estudianteId, inscripcion.getEvento().getNombre(), motivo);
+        meterRegistry.counter("dunab.eventos.inscripciones", "resultado", "descartada").increment();
+        log.warn("Inscripción al evento {} descartada de la lista de espera - Estudiante: {}, Motivo: {}",
+                eventoId, estudianteId, motivo);
+    }
+
+    private void verificarAbierto(Evento evento) {
+        if (!Boolean.TRUE.equals(evento.getActivo())) {
+            throw new InvalidOperationException("El evento no está activo");
+        }
+        if (evento.yaPaso()) {
+            throw new InvalidOperationException("El evento ya ocurrió");
+        }
+    }
+
+    private static EstadoInscripcion estadoInscrita(Evento evento) {
+        return Boolean.TRUE.equals(evento.getRequiereConfirmacion())
+                ? EstadoInscripcion.PENDIENTE
+                : EstadoInscripcion.CONFIRMADA;
+    }
+
+    private Transaccion cobrar(Evento evento, Long estudianteId) {
+        Long cuentaId = cuentaDunabRepository.findIdByEstudianteId(estudianteId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "estudianteId", estudianteId));
+        Long categoriaId = categoriaTransaccionRepository.findByNombre(CategoriaTransaccion.INSCRIPCION_EVENTO)
+                .map(CategoriaTransaccion::getId)
+                .orElse(null);
+
+        TransaccionResponse pago = transactionService.crearTransaccion(new TransaccionRequest(
+                cuentaId, TransactionType.DEBITO, evento.getCostoDunab().toBigDecimal(), categoriaId,
+                "Inscripción al evento " + evento.getNombre(), "EVT-" + evento.getId()), estudianteId);
+        return transaccionRepository.getReferenceById(pago.getId());
+    }
+
+    private void alConfirmar(Runnable accion) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private DuplicateResourceException duplicada(Long eventoId, Long estudianteId) {
+        meterRegistry.counter("dunab.eventos.inscripciones", "resultado", "duplicada").increment();
+        return new DuplicateResourceException("El estudiante " + estudianteId + " ya está inscrito en el evento " + eventoId);
+    }
+
+    private InscripcionEventoResponse mapToResponse(InscripcionEvento inscripcion, Evento evento, Integer cuposOcupados) {
+        Transaccion pago = inscripcion.getTransaccionPago();
+        boolean pagada = pago != null && inscripcion.getEstado() != EstadoInscripcion.CANCELADA;
+        boolean enEspera = inscripcion.getEstado() == EstadoInscripcion.EN_ESPERA;
+        return InscripcionEventoResponse.builder()
+                .id(inscripcion.getId())
+                .eventoId(evento.getId())
+                .eventoNombre(evento.getNombre())
+                .fechaEvento(evento.getFechaEvento())
+                .estudianteId(inscripcion.getEstudiante().getId())
+                .estado(inscripcion.getEstado())
+                .montoPagado(pagada ? pago.getMonto() : null)
+                .transaccionPagoId(pago != null ? pago.getId() : null)
+                .capacidadMaxima(evento.getCapacidadMaxima())
+                .cuposOcupados(cuposOcupados)
+                .posicionEspera(enEspera ? eventWaitlist.posicionDeTurno(evento.getId(), inscripcion.getTurnoEspera()) : null)
+                .fechaInscripcion(inscripcion.getFechaInscripcion())
+                .build();
+    }
+}
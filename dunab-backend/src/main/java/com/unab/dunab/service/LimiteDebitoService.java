@@ -0,0 +1,173 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.exception.TransactionLimitExceededException;
+import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.repository.TransaccionRepository;
+import com.unab.dunab.utils.DebitSlidingWindow;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Límites de gasto de las cuentas: el límite por transacción de la cuenta (limiteTransaccion)
+ * y los límites de débitos en las últimas 24 horas y los últimos 7 días.
+ *
+ * Los débitos de cada cuenta se acumulan en memoria (DebitSlidingWindow), así que verificar
+ * los límites no consulta la base de datos. Los contadores se reconstruyen al arrancar con los
+ * débitos completados de la última semana; un débito cuya transacción hace rollback se
+ * descuenta, igual que un débito anulado.
+ *
+ * Los contadores son de esta instancia: con varias instancias detrás de un balanceador cada
+ * una vería solo los débitos que procesó.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LimiteDebitoService {
+
+    private final TransaccionRepository transaccionRepository;
+    private final DebitSlidingWindow debitSlidingWindow;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Límite de débitos en 24 horas por cuenta (0: sin límite)
+     */
+    @Value("${dunab.limites.debito-diario}")
+    private Dunab limiteDiario;
+
+    /**
+     * Límite de débitos en 7 días por cuenta (0: sin límite)
+     */
+    @Value("${dunab.limites.debito-semanal}")
+    private Dunab limiteSemanal;
+
+    /**
+     * Reconstruye los contadores con los débitos completados de los últimos 7 días
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        long inicio = System.currentTimeMillis();
+        List<Object[]> debitos = transaccionRepository
+                .findDebitosCompletadosDesde(LocalDateTime.now().minusDays(7));
+        for (Object[] debito : debitos) {
+            debitSlidingWindow.registrar((Long) debito[0], ((Dunab) debito[2]).getCentavos(),
+                    (LocalDateTime) debito[1]);
+        }
+        log.info("Límites de gasto: {} débitos de {} cuentas cargados en {} ms",
+                debitos.size(), debitSlidingWindow.size(), System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Libera la memoria de las cuentas sin débitos en la última semana
+     */
+    @Scheduled(cron = "${dunab.limites.purga-cron:0 15 * * * *}")
+    public void purgarInactivas() {
+        int eliminadas = debitSlidingWindow.purgarInactivas(LocalDateTime.now());
+        if (eliminadas > 0) {
+            log.debug("Límites de gasto: {} cuentas inactivas eliminadas", eliminadas);
+        }
+    }
+
+    /**
+     * Verifica los límites de la cuenta y registra el débito en sus ventanas. Si la transacción
+     * en curso hace rollback, el débito se descuenta.
+     *
+     * @throws TransactionLimitExceededException si el débito supera algún límite
+     */
+    public void reservar(CuentaDunab cuenta, Dunab monto) {
+        verificarLimiteTransaccion(cuenta, monto);
+        reservarVentanas(cuenta.getId(), monto);
+    }
+
+    /**
+     * Verifica el límite por transacción de la cuenta
+     *
+     * @throws TransactionLimitExceededException si el monto lo supera
+     */
+    public void verificarLimiteTransaccion(CuentaDunab cuenta, Dunab monto) {
+        Dunab limiteTransaccion = cuenta.getLimiteTransaccion();
+        if (limiteTransaccion != null && limiteTransaccion.esPositivo() && monto.esMayorQue(limiteTransaccion)) {
+            rechazar("limite_transaccion");
+            throw new TransactionLimitExceededException(String.format(
+                    "El monto %s supera el límite por transacción de la cuenta (%s)", monto, limiteTransaccion));
+        }
+    }
+
+    /**
+     * Verifica los límites diario y semanal y registra el débito en las ventanas de la cuenta,
+     * sin leer la cuenta (el límite por transacción se verifica aparte). Si la transacción en
+     * curso hace rollback, el débito se descuenta.
+     *
+     * @throws TransactionLimitExceededException si el débito supera algún límite
+     */
+    public void reservarVentanas(Long cuentaId, Dunab monto) {
+        long centavos = monto.getCentavos();
+        LocalDateTime ahora = LocalDateTime.now();
+        DebitSlidingWindow.Ventana excedida = debitSlidingWindow.registrarSiCabe(
+                cuentaId, centavos, ahora, limiteDiario.getCentavos(), limiteSemanal.getCentavos());
+
+        if (excedida == DebitSlidingWindow.Ventana.DIARIA) {
+            rechazar("limite_diario");
+            throw new TransactionLimitExceededException(String.format(
+                    "El débito supera el límite de %s DUNAB en 24 horas. Gastado: %s",
+                    limiteDiario, Dunab.deCentavos(debitSlidingWindow.getGastoDiario(cuentaId, ahora))));
+        }
+        if (excedida == DebitSlidingWindow.Ventana.SEMANAL) {
+            rechazar("limite_semanal");
+            throw new TransactionLimitExceededException(String.format(
+                    "El débito supera el límite de %s DUNAB en 7 días. Gastado: %s",
+                    limiteSemanal, Dunab.deCentavos(debitSlidingWindow.getGastoSemanal(cuentaId, ahora))));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        debitSlidingWindow.descontar(cuentaId, centavos, ahora);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Registra en las ventanas un débito ya confirmado sin verificar los límites (débitos sin
+     * conexión liquidados por lote: la compra ya ocurrió)
+     */
+    public void registrarSinVerificar(Long cuentaId, Dunab monto) {
+        debitSlidingWindow.registrar(cuentaId, monto.getCentavos(), LocalDateTime.now());
+    }
+
+    /**
+     * Descuenta de las ventanas un débito anulado, cuando la anulación se confirma
+     */
+    public void liberar(Long cuentaId, Dunab monto, LocalDateTime fechaDebito) {
+        long centavos = monto.getCentavos();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    debitSlidingWindow.descontar(cuentaId, centavos, fechaDebito);
+                }
+            });
+        } else {
+            debitSlidingWindow.descontar(cuentaId, centavos, fechaDebito);
+        }
+    }
+
+    private void rechazar(String motivo) {
+        meterRegistry.counter("dunab.transacciones.rechazadas", "motivo", motivo).increment();
+    }
+}
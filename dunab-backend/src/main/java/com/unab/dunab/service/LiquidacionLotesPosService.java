@@ -0,0 +1,710 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.LiquidacionLotePosResponse;
+import com.unab.dunab.dto.response.LiquidacionLotePosResponse.IncidenciaLinea;
+import com.unab.dunab.dto.response.LiquidacionLotePosResponse.ResultadoLinea;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.TransactionStatus;
+import com.unab.dunab.model.TransactionType;
+import com.unab.dunab.repository.CuentaDunabRepository;
+import com.unab.dunab.utils.CsvLineParser;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Liquidación de los débitos que las terminales de punto de venta registran sin conexión.
+ *
+ * La terminal sube el lote como CSV firmado: HMAC-SHA256 del cuerpo completo con el secreto
+ * dunab.pos.lotes.secreto, en hexadecimal. El archivo se lee como flujo y la firma se calcula
+ * mientras se leen las líneas; solo si coincide se aplica algún débito.
+ *
+ * Formato esperado (con encabezado, columnas en cualquier orden):
+ * referencia,codigoEstudiante,monto,fecha[,descripcion]
+ *
+ * - Cada compra se guarda con la referencia OFF-{terminal}-{referencia}. Las repetidas (dentro
+ *   del archivo o ya liquidadas) se reportan como duplicadas: un lote puede subirse de nuevo
+ *   sin debitar dos veces. Los duplicados solo se buscan en la base de datos, así que se rechazan
+ *   las compras anteriores al período de retención que el archivo de transacciones podría haber
+ *   movido ya (ver {@link #fechaMinima}).
+ * - Los débitos de cada cuenta se aplican en orden de fecha, en bloques de cuentas bloqueadas en
+ *   orden de id, con inserciones y actualizaciones JDBC por lotes.
+ * - Un débito sin saldo suficiente queda PENDIENTE, sin mover el saldo. Los pendientes de una
+ *   cuenta se reintentan antes de sus débitos nuevos en cada liquidación que la incluya, y en
+ *   todas las cuentas con {@link #reintentarPendientes}. Un pendiente que no se va a cobrar se
+ *   rechaza con TransactionService.rechazarDebitoPendiente (no se anula: nunca movió el saldo).
+ * - La compra ya ocurrió: no se verifican los límites de la cuenta, pero los débitos aplicados
+ *   cuentan en las ventanas diaria y semanal.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiquidacionLotesPosService {
+
+    private static final int TAMANO_LOTE = 500;
+
+    private static final List<String> COLUMNAS_OBLIGATORIAS = List.of("referencia", "codigoestudiante", "monto", "fecha");
+
+    private static final Pattern PATRON_TERMINAL = Pattern.compile("[A-Za-z0-9_-]{1,30}");
+
+    static final String PREFIJO_REFERENCIA = "OFF-";
+
+    private static final BigDecimal MONTO_MAXIMO = new BigDecimal("99999999.99");
+
+    /**
+     * Diferencia tolerada entre el reloj de la terminal y el del servidor. Un débito se guarda
+     * con la fecha de liquidación, que nunca es anterior a su fecha en la terminal menos este
+     * margen: la búsqueda de duplicados empieza ahí.
+     */
+    private static final Duration TOLERANCIA_RELOJ = Duration.ofMinutes(5);
+
+    private static final String SQL_CUENTAS_POR_CODIGO =
+            "SELECT u.codigo_estudiante, c.id FROM users u JOIN cuentas_dunab c ON c.estudiante_id = u.id " +
+            "WHERE u.codigo_estudiante IN (:codigos)";
+
+    // Las filas se bloquean en el orden del ORDER BY, el mismo de TransactionService
+    private static final String SQL_BLOQUEAR_CUENTAS =
+            "SELECT id, estudiante_id, estado, saldo_actual, total_gastado, sub_saldos FROM cuentas_dunab " +
+            "WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String FILTRO_PENDIENTES =
+            "estado = 'PENDIENTE' AND tipo = 'DEBITO' AND referencia LIKE '" + PREFIJO_REFERENCIA + "%'";
+
+    private static final String SQL_PENDIENTES =
+            "SELECT id, cuenta_id, monto, fecha_creacion FROM transacciones " +
+            "WHERE cuenta_id IN (:ids) AND " + FILTRO_PENDIENTES + " ORDER BY cuenta_id, fecha_creacion, id";
+
+    private static final String SQL_CUENTAS_CON_PENDIENTES =
+            "SELECT DISTINCT cuenta_id FROM transacciones WHERE " + FILTRO_PENDIENTES + " ORDER BY cuenta_id";
+
+    private static final String SQL_REFERENCIAS_EXISTENTES =
+            "SELECT referencia FROM transacciones WHERE referencia IN (:referencias) AND fecha_creacion >= :desde";
+
+    private static final String SQL_INSERTAR_TRANSACCION =
+            "INSERT INTO transacciones (cuenta_id, tipo, monto, descripcion, referencia, estado, saldo_anterior, " +
+            "saldo_posterior, creado_por, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] TIPOS_INSERTAR_TRANSACCION = {
+            Types.BIGINT, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.NUMERIC, Types.NUMERIC, Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP};
+
+    // fecha_creacion en el filtro: en PostgreSQL limita la búsqueda a una partición
+    private static final String SQL_COMPLETAR_PENDIENTE =
+            "UPDATE transacciones SET estado = ?, saldo_anterior = ?, saldo_posterior = ?, fecha_actualizacion = ? " +
+            "WHERE id = ? AND fecha_creacion = ?";
+
+    private static final int[] TIPOS_COMPLETAR_PENDIENTE = {
+            Types.VARCHAR, Types.NUMERIC, Types.NUMERIC, Types.TIMESTAMP, Types.BIGINT, Types.TIMESTAMP};
+
+    private static final String SQL_ACTUALIZAR_CUENTA =
+            "UPDATE cuentas_dunab SET saldo_actual = ?, total_gastado = ?, fecha_actualizacion = ? WHERE id = ?";
+
+    private static final int[] TIPOS_ACTUALIZAR_CUENTA = {Types.NUMERIC, Types.NUMERIC, Types.TIMESTAMP, Types.BIGINT};
+
+    private final CuentaDunabRepository cuentaDunabRepository;
+    private final ArchivoTransaccionesService archivoTransaccionesService;
+    private final SubSaldoService subSaldoService;
+    private final LimiteDebitoService limiteDebitoService;
+    private final NotificationService notificationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dunab.pos.lotes.secreto}")
+    private String secreto;
+
+    @Value("${dunab.pos.lotes.max-lineas}")
+    private int maxLineas;
+
+    /**
+     * Verifica la firma del lote y liquida sus débitos
+     *
+     * @param terminal Identificador de la terminal que registró las compras
+     * @param firma    HMAC-SHA256 del cuerpo en hexadecimal
+     * @param csv      Flujo con el contenido del lote
+     * @param cajeroId Usuario que sube el lote
+     * @return Resumen de la liquidación con las líneas no aplicadas
+     */
+    @Timed(value = "dunab.pos.lotes.liquidaciones", description = "Tiempo de liquidación de lotes sin conexión")
+    public LiquidacionLotePosResponse liquidar(String terminal, String firma, InputStream csv, Long cajeroId)
+            throws IOException {
+        long inicio = System.currentTimeMillis();
+        if (terminal == null || !PATRON_TERMINAL.matcher(terminal).matches()) {
+            throw new InvalidOperationException("La terminal debe tener de 1 a 30 letras, números, '-' o '_'");
+        }
+        byte[] firmaRecibida = decodificarFirma(firma);
+
+        Liquidacion liquidacion = new Liquidacion();
+        Mac mac = crearMac();
+        List<LineaLote> lineas = leerLineas(new FlujoFirmado(csv, mac), terminal, liquidacion);
+        if (!MessageDigest.isEqual(mac.doFinal(), firmaRecibida)) {
+            log.warn("Lote sin conexión rechazado por firma inválida - Terminal: {}, Cajero: {}", terminal, cajeroId);
+            meterRegistry.counter("dunab.pos.lotes.rechazados", "motivo", "firma").increment();
+            throw new InvalidOperationException("La firma del lote no es válida");
+        }
+
+        Map<Long, List<LineaLote>> lineasPorCuenta = agruparPorCuenta(lineas, liquidacion);
+        List<Long> cuentaIds = new ArrayList<>(TAMANO_LOTE);
+        Map<Long, List<LineaLote>> bloque = new HashMap<>();
+        int lineasBloque = 0;
+        for (Map.Entry<Long, List<LineaLote>> cuenta : lineasPorCuenta.entrySet()) {
+            cuentaIds.add(cuenta.getKey());
+            bloque.put(cuenta.getKey(), cuenta.getValue());
+            lineasBloque += cuenta.getValue().size();
+            if (lineasBloque >= TAMANO_LOTE || cuentaIds.size() == TAMANO_LOTE) {
+                procesarBloque(cuentaIds, bloque, cajeroId, liquidacion);
+                cuentaIds = new ArrayList<>(TAMANO_LOTE);
+                bloque = new HashMap<>();
+                lineasBloque = 0;
+            }
+        }
+        if (!cuentaIds.isEmpty()) {
+            procesarBloque(cuentaIds, bloque, cajeroId, liquidacion);
+        }
+
+        registrarAplicados(liquidacion, "compras sin conexión en la terminal " + terminal);
+        liquidacion.incidencias.sort(Comparator.comparingLong(IncidenciaLinea::getLinea));
+        long duracion = System.currentTimeMillis() - inicio;
+        registrarMetricas(liquidacion);
+        log.info("Lote sin conexión liquidado - Terminal: {}, Líneas: {}, Aplicados: {}, Pendientes: {}, " +
+                        "Duplicados: {}, Rechazados: {}, Duración: {} ms", terminal, liquidacion.totalLineas,
+                liquidacion.aplicados, liquidacion.pendientes, liquidacion.duplicados, liquidacion.rechazados, duracion);
+
+        return LiquidacionLotePosResponse.builder()
+                .terminal(terminal)
+                .totalLineas(liquidacion.totalLineas)
+                .aplicados(liquidacion.aplicados)
+                .pendientes(liquidacion.pendientes)
+                .duplicados(liquidacion.duplicados)
+                .rechazados(liquidacion.rechazados)
+                .pendientesAnterioresAplicados(liquidacion.anterioresAplicados)
+                .montoAplicado(liquidacion.montoAplicado)
+                .montoPendiente(liquidacion.montoPendiente)
+                .duracionMs(duracion)
+                .incidencias(liquidacion.incidencias)
+                .build();
+    }
+
+    /**
+     * Reintenta los débitos sin conexión pendientes de todas las cuentas, en bloques de cuentas
+     *
+     * @return Resumen con los pendientes aplicados y los que siguen pendientes
+     */
+    public LiquidacionLotePosResponse reintentarPendientes() {
+        long inicio = System.currentTimeMillis();
+        List<Long> cuentas = jdbcTemplate.queryForList(SQL_CUENTAS_CON_PENDIENTES, Long.class);
+
+        Liquidacion liquidacion = new Liquidacion();
+        for (int i = 0; i < cuentas.size(); i += TAMANO_LOTE) {
+            List<Long> cuentaIds = cuentas.subList(i, Math.min(i + TAMANO_LOTE, cuentas.size()));
+            procesarBloque(cuentaIds, Map.of(), null, liquidacion);
+        }
+
+        registrarAplicados(liquidacion, "compras sin conexión pendientes");
+        long duracion = System.currentTimeMillis() - inicio;
+        log.info("Débitos sin conexión pendientes reintentados - Cuentas: {}, Aplicados: {}, Pendientes: {}, " +
+                "Duración: {} ms", cuentas.size(), liquidacion.anterioresAplicados, liquidacion.anterioresPendientes, duracion);
+
+        return LiquidacionLotePosResponse.builder()
+                .pendientes(liquidacion.anterioresPendientes)
+                .pendientesAnterioresAplicados(liquidacion.anterioresAplicados)
+                .montoAplicado(liquidacion.montoAplicado)
+                .montoPendiente(liquidacion.montoAnterioresPendiente)
+                .duracionMs(duracion)
+                .incidencias(List.of())
+                .build();
+    }
+
+    /**
+     * Lee y valida las líneas del lote. Las inválidas y las repetidas dentro del archivo quedan
+     * registradas como incidencias.
+     */
+    private List<LineaLote> leerLineas(InputStream csv, String terminal, Liquidacion liquidacion) throws IOException {
+        List<LineaLote> lineas = new ArrayList<>();
+        Set<String> referenciasVistas = new HashSet<>();
+        LocalDateTime fechaMinima = fechaMinima();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columnas = leerEncabezado(reader.readLine());
+
+            long numeroLinea = 1;
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                numeroLinea++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (++liquidacion.totalLineas > maxLineas) {
+                    throw new InvalidOperationException(
+                            String.format("El lote supera el máximo de %d líneas", maxLineas));
+                }
+
+                List<String> valores;
+                try {
+                    valores = CsvLineParser.dividirLinea(linea);
+                } catch (IllegalArgumentException e) {
+                    liquidacion.incidencia(numeroLinea, null, ResultadoLinea.RECHAZADA, e.getMessage());
+                    continue;
+                }
+                String referencia = CsvLineParser.valor(valores, columnas, "referencia");
+                try {
+                    LineaLote lineaLote = parsearLinea(numeroLinea, referencia, valores, columnas, terminal,
+                            fechaMinima);
+                    if (referenciasVistas.add(lineaLote.referencia())) {
+                        lineas.add(lineaLote);
+                    } else {
+                        liquidacion.incidencia(numeroLinea, referencia, ResultadoLinea.DUPLICADA,
+                                "Referencia repetida dentro del lote");
+                    }
+                } catch (IllegalArgumentException e) {
+                    liquidacion.incidencia(numeroLinea, referencia, ResultadoLinea.RECHAZADA, e.getMessage());
+                }
+            }
+        }
+        return lineas;
+    }
+
+    private LineaLote parsearLinea(long numero, String referencia, List<String> valores,
+                                   Map<String, Integer> columnas, String terminal, LocalDateTime fechaMinima) {
+        if (referencia == null) {
+            throw new IllegalArgumentException("referencia: es obligatoria");
+        }
+        String referenciaCompleta = PREFIJO_REFERENCIA + terminal + "-" + referencia;
+        if (referenciaCompleta.length() > 100) {
+            throw new IllegalArgumentException("referencia: no puede superar " +
+                    (100 - PREFIJO_REFERENCIA.length() - terminal.length() - 1) + " caracteres en esta terminal");
+        }
+
+        String codigo = CsvLineParser.valor(valores, columnas, "codigoestudiante");
+        if (codigo == null) {
+            throw new IllegalArgumentException("codigoEstudiante: es obligatorio");
+        }
+
+        BigDecimal monto;
+        try {
+            monto = new BigDecimal(Objects.requireNonNullElse(CsvLineParser.valor(valores, columnas, "monto"), ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("monto: debe ser un número");
+        }
+        if (monto.signum() <= 0 || monto.stripTrailingZeros().scale() > 2 || monto.compareTo(MONTO_MAXIMO) > 0) {
+            throw new IllegalArgumentException("monto: debe ser mayor a cero, con máximo dos decimales");
+        }
+
+        LocalDateTime fecha;
+        try {
+            fecha = LocalDateTime.parse(Objects.requireNonNullElse(CsvLineParser.valor(valores, columnas, "fecha"), ""));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("fecha: debe tener formato ISO (2025-01-31T12:30:00)");
+        }
+        if (fecha.isAfter(LocalDateTime.now().plus(TOLERANCIA_RELOJ))) {
+            throw new IllegalArgumentException("fecha: no puede ser futura");
+        }
+        if (fecha.isBefore(fechaMinima)) {
+            throw new IllegalArgumentException("fecha: no puede ser anterior a " + fechaMinima
+                    + " (la compra podría estar liquidada y archivada)");
+        }
+
+        String descripcion = CsvLineParser.valor(valores, columnas, "descripcion");
+        if (descripcion == null) {
+            descripcion = "Compra sin conexión en la terminal " + terminal;
+        } else if (descripcion.length() > 500) {
+            throw new IllegalArgumentException("descripcion: no puede superar 500 caracteres");
+        }
+
+        return new LineaLote(numero, referencia, referenciaCompleta, codigo, Dunab.valueOf(monto), fecha, descripcion);
+    }
+
+    /**
+     * Resuelve la cuenta de cada código de estudiante y agrupa las líneas por cuenta, cada
+     * grupo en orden de fecha (y de línea dentro del archivo)
+     */
+    private Map<Long, List<LineaLote>> agruparPorCuenta(List<LineaLote> lineas, Liquidacion liquidacion) {
+        List<String> codigos = lineas.stream().map(LineaLote::codigoEstudiante).distinct().toList();
+        Map<String, Long> cuentaPorCodigo = new HashMap<>();
+        for (int i = 0; i < codigos.size(); i += TAMANO_LOTE) {
+            namedParameterJdbcTemplate.query(SQL_CUENTAS_POR_CODIGO,
+                    Map.of("codigos", codigos.subList(i, Math.min(i + TAMANO_LOTE, codigos.size()))),
+                    rs -> {
+                        cuentaPorCodigo.put(rs.getString(1), rs.getLong(2));
+                    });
+        }
+
+        Map<Long, List<LineaLote>> lineasPorCuenta = new TreeMap<>();
+        for (LineaLote linea : lineas) {
+            Long cuentaId = cuentaPorCodigo.get(linea.codigoEstudiante());
+            if (cuentaId == null) {
+                liquidacion.incidencia(linea.numero(), linea.referenciaTerminal(), ResultadoLinea.RECHAZADA,
+                        "No existe un estudiante con el código " + linea.codigoEstudiante());
+            } else {
+                lineasPorCuenta.computeIfAbsent(cuentaId, id -> new ArrayList<>()).add(linea);
+            }
+        }
+        Comparator<LineaLote> orden = Comparator.comparing(LineaLote::fecha).thenComparingLong(LineaLote::numero);
+        lineasPorCuenta.values().forEach(grupo -> grupo.sort(orden));
+        return lineasPorCuenta;
+    }
+
+    /**
+     * Aplica un bloque de cuentas en una transacción. Si el bloque falla, sus líneas se reportan
+     * como rechazadas y el resto del lote continúa.
+     */
+    private void procesarBloque(List<Long> cuentaIds, Map<Long, List<LineaLote>> lineas, Long cajeroId,
+                                Liquidacion liquidacion) {
+        Liquidacion resultado;
+        try {
+            resultado = transactionTemplate.execute(status -> aplicarBloque(cuentaIds, lineas, cajeroId));
+        } catch (DataAccessException e) {
+            log.error("Error al liquidar bloque de débitos sin conexión (cuentas {} a {})",
+                    cuentaIds.get(0), cuentaIds.get(cuentaIds.size() - 1), e);
+            String motivo = "Error al guardar el bloque: " + e.getMostSpecificCause().getMessage();
+            lineas.values().forEach(grupo -> grupo.forEach(linea -> liquidacion.incidencia(
+                    linea.numero(), linea.referenciaTerminal(), ResultadoLinea.RECHAZADA, motivo)));
+            return;
+        }
+        liquidacion.sumar(resultado);
+    }
+
+    /**
+     * Con los bloques confirmados: registra los débitos aplicados en las ventanas de gasto y
+     * envía una notificación por cuenta
+     */
+    private void registrarAplicados(Liquidacion liquidacion, String descripcion) {
+        liquidacion.debitosPorCuenta.forEach((cuentaId, debitos) -> {
+            limiteDebitoService.registrarSinVerificar(cuentaId, debitos.monto);
+            notificationService.notificarDebitoAsincrono(debitos.estudianteId, debitos.monto.toString(),
+                    debitos.cantidad + " " + descripcion);
+        });
+    }
+
+    private Liquidacion aplicarBloque(List<Long> cuentaIds, Map<Long, List<LineaLote>> lineas, Long cajeroId) {
+        Liquidacion bloque = new Liquidacion();
+        Map<Long, CuentaBloqueada> cuentas = new HashMap<>();
+        namedParameterJdbcTemplate.query(SQL_BLOQUEAR_CUENTAS, Map.of("ids", cuentaIds), rs -> {
+            cuentas.put(rs.getLong(1), new CuentaBloqueada(rs.getLong(2), rs.getString(3),
+                    Dunab.valueOf(rs.getBigDecimal(4)), Dunab.valueOf(rs.getBigDecimal(5)), rs.getInt(6)));
+        });
+        Map<Long, List<Pendiente>> pendientes = new HashMap<>();
+        namedParameterJdbcTemplate.query(SQL_PENDIENTES, Map.of("ids", cuentaIds), rs -> {
+            pendientes.computeIfAbsent(rs.getLong(2), id -> new ArrayList<>())
+                    .add(new Pendiente(rs.getLong(1), Dunab.valueOf(rs.getBigDecimal(3)), rs.getTimestamp(4)));
+        });
+        // Con las cuentas bloqueadas, otra liquidación del mismo lote ya terminó o espera
+        Set<String> existentes = referenciasExistentes(lineas);
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserciones = new ArrayList<>();
+        List<Object[]> completados = new ArrayList<>();
+        List<Object[]> actualizaciones = new ArrayList<>();
+
+        for (Long cuentaId : cuentaIds) {
+            CuentaBloqueada cuenta = cuentas.get(cuentaId);
+            List<LineaLote> nuevas = lineas.getOrDefault(cuentaId, List.of());
+            if (cuenta == null) {
+                nuevas.forEach(linea -> bloque.incidencia(linea.numero(), linea.referenciaTerminal(),
+                        ResultadoLinea.RECHAZADA, "La cuenta DUNAB no existe"));
+                continue;
+            }
+
+            Dunab saldo = cuenta.saldoActual();
+            Dunab totalGastado = cuenta.totalGastado();
+            if (cuenta.subSaldos() > 0) {
+                // La fila ya está bloqueada: esta es la primera lectura de la entidad en la transacción
+                CuentaDunab entidad = cuentaDunabRepository.findByIdForUpdate(cuentaId).orElseThrow();
+                subSaldoService.compactar(entidad);
+                cuentaDunabRepository.flush();
+                saldo = entidad.getSaldoActual();
+                totalGastado = entidad.getTotalGastado();
+            }
+            Dunab saldoInicial = saldo;
+            boolean activa = AccountStatus.ACTIVA.name().equals(cuenta.estado());
+
+            for (Pendiente pendiente : pendientes.getOrDefault(cuentaId, List.of())) {
+                if (activa && !saldo.esMenorQue(pendiente.monto())) {
+                    Dunab saldoPosterior = saldo.restar(pendiente.monto());
+                    completados.add(new Object[]{TransactionStatus.COMPLETADA.name(), saldo.toBigDecimal(),
+                            saldoPosterior.toBigDecimal(), ahora, pendiente.id(), pendiente.fechaCreacion()});
+                    saldo = saldoPosterior;
+                    totalGastado = totalGastado.sumar(pendiente.monto());
+                    bloque.anterioresAplicados++;
+                    bloque.debitoAplicado(cuentaId, cuenta.estudianteId(), pendiente.monto());
+                } else {
+                    bloque.anterioresPendientes++;
+                    bloque.montoAnterioresPendiente = bloque.montoAnterioresPendiente.sumar(pendiente.monto());
+                }
+            }
+
+            for (LineaLote linea : nuevas) {
+                if (existentes.contains(linea.referencia())) {
+                    bloque.incidencia(linea.numero(), linea.referenciaTerminal(), ResultadoLinea.DUPLICADA,
+                            "La referencia ya fue liquidada");
+                } else if (!activa) {
+                    bloque.incidencia(linea.numero(), linea.referenciaTerminal(), ResultadoLinea.RECHAZADA,
+                            "La cuenta DUNAB no está activa");
+                } else if (!saldo.esMenorQue(linea.monto())) {
+                    Dunab saldoPosterior = saldo.restar(linea.monto());
+                    inserciones.add(insercion(cuentaId, linea, TransactionStatus.COMPLETADA,
+                            saldo.toBigDecimal(), saldoPosterior.toBigDecimal(), cajeroId, ahora));
+                    saldo = saldoPosterior;
+                    totalGastado = totalGastado.sumar(linea.monto());
+                    bloque.aplicados++;
+                    bloque.debitoAplicado(cuentaId, cuenta.estudianteId(), linea.monto());
+                } else {
+                    inserciones.add(insercion(cuentaId, linea, TransactionStatus.PENDIENTE, null, null, cajeroId, ahora));
+                    bloque.pendientes++;
+                    bloque.montoPendiente = bloque.montoPendiente.sumar(linea.monto());
+                    bloque.incidencia(linea.numero(), linea.referenciaTerminal(), ResultadoLinea.PENDIENTE,
+                            String.format("Saldo insuficiente. Saldo actual: %s, Monto requerido: %s",
+                                    saldo, linea.monto()));
+                }
+            }
+
+            if (!saldo.equals(saldoInicial)) {
+                actualizaciones.add(new Object[]{saldo.toBigDecimal(), totalGastado.toBigDecimal(), ahora, cuentaId});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_TRANSACCION, inserciones, TIPOS_INSERTAR_TRANSACCION);
+        jdbcTemplate.batchUpdate(SQL_COMPLETAR_PENDIENTE, completados, TIPOS_COMPLETAR_PENDIENTE);
+        jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_CUENTA, actualizaciones, TIPOS_ACTUALIZAR_CUENTA);
+        return bloque;
+    }
+
+    private Object[] insercion(Long cuentaId, LineaLote linea, TransactionStatus estado, BigDecimal saldoAnterior,
+                               BigDecimal saldoPosterior, Long cajeroId, Timestamp ahora) {
+        return new Object[]{cuentaId, TransactionType.DEBITO.name(), linea.monto().toBigDecimal(), linea.descripcion(),
+                linea.referencia(), estado.name(), saldoAnterior, saldoPosterior, cajeroId, ahora, ahora};
+    }
+
+    /**
+     * Fecha más antigua aceptada en una línea. Un débito ya liquidado tiene fecha de creación
+     * posterior a la de su línea menos TOLERANCIA_RELOJ, y el archivo solo mueve los meses
+     * anteriores a getInicioRetencion: desde esta fecha la búsqueda de duplicados en la base de
+     * datos basta. El mes de margen cubre el cambio de mes durante la liquidación.
+     */
+    private LocalDateTime fechaMinima() {
+        return archivoTransaccionesService.getInicioRetencion().plusMonths(1).atDay(1).atStartOfDay()
+                .plus(TOLERANCIA_RELOJ);
+    }
+
+    /**
+     * Referencias del bloque que ya existen, desde la fecha más antigua del bloque
+     */
+    private Set<String> referenciasExistentes(Map<Long, List<LineaLote>> lineas) {
+        List<LineaLote> todas = lineas.values().stream().flatMap(List::stream).toList();
+        if (todas.isEmpty()) {
+            return Set.of();
+        }
+        LocalDateTime desde = todas.stream().map(LineaLote::fecha).min(Comparator.naturalOrder()).orElseThrow()
+                .minus(TOLERANCIA_RELOJ);
+
+        Set<String> existentes = new HashSet<>();
+        for (int i = 0; i < todas.size(); i += TAMANO_LOTE) {
+            List<String> referencias = todas.subList(i, Math.min(i + TAMANO_LOTE, todas.size())).stream()
+                    .map(LineaLote::referencia)
+                    .toList();
+            existentes.addAll(namedParameterJdbcTemplate.queryForList(SQL_REFERENCIAS_EXISTENTES,
+                    Map.of("referencias", referencias, "desde", Timestamp.valueOf(desde)), String.class));
+        }
+        return existentes;
+    }
+
+    private Map<String, Integer> leerEncabezado(String encabezado) {
+        if (encabezado == null) {
+            throw new InvalidOperationException("El lote está vacío");
+        }
+
+        Map<String, Integer> columnas = CsvLineParser.leerEncabezado(encabezado);
+        List<String> faltantes = COLUMNAS_OBLIGATORIAS.stream()
+                .filter(c -> !columnas.containsKey(c))
+                .toList();
+        if (!faltantes.isEmpty()) {
+            throw new InvalidOperationException("Faltan columnas obligatorias en el lote: " + faltantes);
+        }
+        return columnas;
+    }
+
+    private static byte[] decodificarFirma(String firma) {
+        if (firma == null || firma.isBlank()) {
+            throw new InvalidOperationException("Falta la firma del lote (encabezado X-Firma-Lote)");
+        }
+        try {
+            return HexFormat.of().parseHex(firma.trim());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOperationException("La firma del lote debe estar en hexadecimal");
+        }
+    }
+
+    private Mac crearMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar HMAC-SHA256", e);
+        }
+    }
+
+    private void registrarMetricas(Liquidacion liquidacion) {
+        meterRegistry.counter("dunab.pos.lotes.debitos", "resultado", "aplicado").increment(liquidacion.aplicados);
+        meterRegistry.counter("dunab.pos.lotes.debitos", "resultado", "pendiente").increment(liquidacion.pendientes);
+        meterRegistry.counter("dunab.pos.lotes.debitos", "resultado", "duplicado").increment(liquidacion.duplicados);
+        meterRegistry.counter("dunab.pos.lotes.debitos", "resultado", "rechazado").increment(liquidacion.rechazados);
+    }
+
+    /**
+     * Flujo que calcula el HMAC de los bytes a medida que se leen
+     */
+    private static final class FlujoFirmado extends FilterInputStream {
+
+        private final Mac mac;
+
+        FlujoFirmado(InputStream in, Mac mac) {
+            super(in);
+            this.mac = mac;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                mac.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int leidos = super.read(b, off, len);
+            if (leidos > 0) {
+                mac.update(b, off, leidos);
+            }
+            return leidos;
+        }
+
+        @Override
+        public long skip(long n) {
+            throw new UnsupportedOperationException("Todos los bytes del lote forman parte de la firma");
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Totales de una liquidación o de uno de sus bloques
+     */
+    private static final class Liquidacion {
+        private long totalLineas;
+        private long aplicados;
+        private long pendientes;
+        private long duplicados;
+        private long rechazados;
+        private long anterioresAplicados;
+        private long anterioresPendientes;
+        private Dunab montoAplicado = Dunab.CERO;
+        private Dunab montoPendiente = Dunab.CERO;
+        private Dunab montoAnterioresPendiente = Dunab.CERO;
+        private final List<IncidenciaLinea> incidencias = new ArrayList<>();
+        private final Map<Long, DebitosCuenta> debitosPorCuenta = new HashMap<>();
+
+        void incidencia(long linea, String referencia, ResultadoLinea resultado, String motivo) {
+            incidencias.add(new IncidenciaLinea(linea, referencia, resultado, motivo));
+            if (resultado == ResultadoLinea.DUPLICADA) {
+                duplicados++;
+            } else if (resultado == ResultadoLinea.RECHAZADA) {
+                rechazados++;
+            }
+        }
+
+        void debitoAplicado(Long cuentaId, Long estudianteId, Dunab monto) {
+            montoAplicado = montoAplicado.sumar(monto);
+            DebitosCuenta debitos = debitosPorCuenta.computeIfAbsent(cuentaId, id -> new DebitosCuenta(estudianteId));
+            debitos.cantidad++;
+            debitos.monto = debitos.monto.sumar(monto);
+        }
+
+        void sumar(Liquidacion bloque) {
+            aplicados += bloque.aplicados;
+            pendientes += bloque.pendientes;
+            duplicados += bloque.duplicados;
+            rechazados += bloque.rechazados;
+            anterioresAplicados += bloque.anterioresAplicados;
+            anterioresPendientes += bloque.anterioresPendientes;
+            montoAplicado = montoAplicado.sumar(bloque.montoAplicado);
+            montoPendiente = montoPendiente.sumar(bloque.montoPendiente);
+            montoAnterioresPendiente = montoAnterioresPendiente.sumar(bloque.montoAnterioresPendiente);
+            incidencias.addAll(bloque.incidencias);
+            bloque.debitosPorCuenta.forEach((cuentaId, debitos) -> debitosPorCuenta.merge(cuentaId, debitos,
+                    (actual, nuevos) -> {
+                        actual.cantidad += nuevos.cantidad;
+                        actual.monto = actual.monto.sumar(nuevos.monto);
+                        return actual;
+                    }));
+        }
+    }
+
+    private static final class DebitosCuenta {
+        private final Long estudianteId;
+        private int cantidad;
+        private Dunab monto = Dunab.CERO;
+
+        DebitosCuenta(Long estudianteId) {
+            this.estudianteId = estudianteId;
+        }
+    }
+
+    /**
+     * Línea válida del lote. referenciaTerminal es la de la terminal; referencia, la que se guarda.
+     */
+    private record LineaLote(long numero, String referenciaTerminal, String referencia, String codigoEstudiante,
+                             Dunab monto, LocalDateTime fecha, String descripcion) {
+    }
+
+    private record CuentaBloqueada(Long estudianteId, String estado, Dunab saldoActual,
+                                   Dunab totalGastado, int subSaldos) {
+    }
+
+    private record Pendiente(Long id, Dunab monto, Timestamp fechaCreacion) {
+    }
+}
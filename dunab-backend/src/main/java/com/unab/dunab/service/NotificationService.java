@@ -1,16 +1,22 @@
 package com.unab.dunab.service;
 
 import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.model.EstadoInscripcion;
 import com.unab.dunab.model.Notificacion;
 import com.unab.dunab.model.User;
 import com.unab.dunab.repository.NotificacionRepository;
 import com.unab.dunab.repository.UserRepository;
 import com.unab.dunab.utils.NotificationQueue;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -22,6 +28,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class NotificationService {
 
+    // Los helpers notificarX delegan en crearNotificacion por autoinvocación (sin proxy),
+    // por lo que cada notificación se mide una sola vez con la misma métrica.
+    private static final String METRICA_CREAR = "dunab.notificaciones.crear";
+
     private final NotificacionRepository notificacionRepository;
     private final UserRepository userRepository;
     private final NotificationQueue notificationQueue;
@@ -29,6 +39,7 @@ public class NotificationService {
     /**
      * Crea y encola una nueva notificación
      */
+    @Timed(value = METRICA_CREAR, description = "Tiempo de escritura de notificaciones")
     @Transactional
     public Notificacion crearNotificacion(Long estudianteId, String tipo, String mensaje) {
         User estudiante = userRepository.findById(estudianteId)
@@ -44,8 +55,9 @@ public class NotificationService {
         // Guardar en base de datos
         notificacion = notificacionRepository.save(notificacion);
 
-        // Agregar a la cola (Queue) para procesamiento en memoria
-        notificationQueue.enqueue(notificacion);
+        // Agregar a la cola (Queue) para procesamiento en memoria, cuando se confirma: la
+        // notificación de un cobro que se revierte no debe llegar a la cola
+        encolarAlConfirmar(notificacion);
 
         log.info("Notificación creada y encolada - ID: {}, Estudiante: {}, Tipo: {}",
                 notificacion.getId(), estudianteId, tipo);
@@ -53,6 +65,19 @@ public class NotificationService {
         return notificacion;
     }
 
+    private void encolarAlConfirmar(Notificacion notificacion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notificationQueue.enqueue(notificacion);
+                }
+            });
+        } else {
+            notificationQueue.enqueue(notificacion);
+        }
+    }
+
     /**
      * Obtiene todas las notificaciones de un estudiante
      */
@@ -116,21 +141,87 @@ public class NotificationService {
 
     // Métodos helper para crear notificaciones específicas
 
+    /**
+     * Notificación de débito fuera del hilo de la petición (punto de venta). Un fallo solo se
+     * registra: el débito ya está confirmado.
+     */
+    @Async
+    public void notificarDebitoAsincrono(Long estudianteId, String monto, String descripcion) {
+        try {
+            notificarDebito(estudianteId, monto, descripcion);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo notificar el débito al estudiante {}: {}", estudianteId, e.getMessage());
+        }
+    }
+
+    /**
+     * Notificaciones de un mismo crédito a muchos estudiantes (recompensas de un evento), una
+     * tras otra en un solo hilo fuera de la petición. Un fallo se registra y se sigue con el resto.
+     */
+    @Async
+    public void notificarCreditosAsincrono(List<Long> estudianteIds, String monto, String descripcion) {
+        int fallidas = 0;
+        for (Long estudianteId : estudianteIds) {
+            try {
+                notificarCredito(estudianteId, monto, descripcion);
+            } catch (RuntimeException e) {
+                fallidas++;
+                log.warn("No se pudo notificar el crédito al estudiante {}: {}", estudianteId, e.getMessage());
+            }
+        }
+        log.info("Notificaciones de crédito enviadas: {}, fallidas: {}", estudianteIds.size() - fallidas, fallidas);
+    }
+
+    @Timed(METRICA_CREAR)
     public Notificacion notificarCredito(Long estudianteId, String monto, String descripcion) {
         String mensaje = String.format("Has recibido %s DUNAB por %s", monto, descripcion);
         return crearNotificacion(estudianteId, Notificacion.TIPO_CREDITO, mensaje);
     }
 
+    @Timed(METRICA_CREAR)
     public Notificacion notificarDebito(Long estudianteId, String monto, String descripcion) {
         String mensaje = String.format("Se han debitado %s DUNAB por %s", monto, descripcion);
         return crearNotificacion(estudianteId, Notificacion.TIPO_DEBITO, mensaje);
     }
 
+    @Timed(METRICA_CREAR)
     public Notificacion notificarEvento(Long estudianteId, String nombreEvento, String dias) {
         String mensaje = String.format("Evento próximo: %s - %s días", nombreEvento, dias);
         return crearNotificacion(estudianteId, Notificacion.TIPO_EVENTO, mensaje);
     }
 
+    /**
+     * Recordatorio de un evento próximo para todos sus inscritos (pendientes y confirmados), con
+     * un solo INSERT ... SELECT. Estas notificaciones no pasan por la cola en memoria.
+     *
+     * @param faltan Tiempo que falta para el evento, por ejemplo "1 día"
+     * @return notificaciones creadas
+     */
+    @Timed(value = "dunab.notificaciones.recordatorios", description = "Tiempo de los recordatorios a los inscritos de un evento")
+    @Transactional
+    public int notificarEventoInscritos(Long eventoId, String nombreEvento, String faltan) {
+        String mensaje = String.format("Evento próximo: %s - en %s", nombreEvento, faltan);
+        int creadas = notificacionRepository.insertarParaInscritos(eventoId,
+                List.of(EstadoInscripcion.PENDIENTE.name(), EstadoInscripcion.CONFIRMADA.name()),
+                Notificacion.TIPO_EVENTO, mensaje, LocalDateTime.now());
+        log.debug("Recordatorio del evento {} enviado a {} inscritos", eventoId, creadas);
+        return creadas;
+    }
+
+    @Timed(METRICA_CREAR)
+    public Notificacion notificarPromocionListaEspera(Long estudianteId, String nombreEvento) {
+        String mensaje = String.format("Se liberó un cupo: quedaste inscrito en %s", nombreEvento);
+        return crearNotificacion(estudianteId, Notificacion.TIPO_EVENTO, mensaje);
+    }
+
+    @Timed(METRICA_CREAR)
+    public Notificacion notificarSalidaListaEspera(Long estudianteId, String nombreEvento, String motivo) {
+        String mensaje = String.format("No pudimos inscribirte en %s desde la lista de espera: %s",
+                nombreEvento, motivo);
+        return crearNotificacion(estudianteId, Notificacion.TIPO_EVENTO, mensaje);
+    }
+
+    @Timed(METRICA_CREAR)
     public Notificacion notificarLogro(Long estudianteId, String descripcion) {
         String mensaje = String.format("¡Nuevo logro desbloqueado! %s", descripcion);
         return crearNotificacion(estudianteId, Notificacion.TIPO_LOGRO, mensaje);
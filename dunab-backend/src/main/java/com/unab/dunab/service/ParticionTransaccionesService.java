@@ -0,0 +1,189 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.ParticionTransaccionesResponse;
+import com.unab.dunab.exception.InvalidOperationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mantenimiento de las particiones mensuales de la tabla transacciones (PostgreSQL).
+ *
+ * Las particiones se crean por adelantado con la función crear_particion_transacciones
+ * (migración V3). En H2 la tabla no está particionada: el job no hace nada y las
+ * operaciones administrativas responden con un error.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ParticionTransaccionesService {
+
+    private static final String PREFIJO = "transacciones_p";
+    private static final DateTimeFormatter FORMATO_SUFIJO = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String SQL_PARTICIONES =
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), GREATEST(c.reltuples, 0)::bigint " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'transacciones'::regclass ORDER BY c.relname";
+
+    private static final String SQL_DESACOPLADAS =
+            "SELECT c.relname FROM pg_class c WHERE c.relkind = 'r' AND NOT c.relispartition " +
+            "AND (c.relname LIKE 'transacciones\\_p%' OR c.relname = 'transacciones_default') " +
+            "AND pg_table_is_visible(c.oid) ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${dunab.particiones.meses-adelantados}")
+    private int mesesAdelantados;
+
+    @Value("${dunab.archivo.meses-retencion}")
+    private int mesesRetencion;
+
+    private volatile Boolean particionada;
+
+    /**
+     * Al arrancar se garantizan las particiones del mes actual y de los siguientes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        crearParticionesFuturas();
+    }
+
+    /**
+     * Job diario: crea las particiones del mes actual y de los próximos meses configurados
+     */
+    @Scheduled(cron = "${dunab.particiones.cron}")
+    public void crearParticionesFuturas() {
+        if (!isParticionada()) {
+            return;
+        }
+
+        YearMonth actual = YearMonth.now();
+        for (int i = 0; i <= mesesAdelantados; i++) {
+            LocalDate inicioMes = actual.plusMonths(i).atDay(1);
+            String nombre = jdbcTemplate.queryForObject(
+                    "SELECT crear_particion_transacciones(?)", String.class, Date.valueOf(inicioMes));
+            log.debug("Partición de transacciones verificada: {}", nombre);
+        }
+        log.info("Particiones de transacciones garantizadas hasta {}", actual.plusMonths(mesesAdelantados));
+    }
+
+    /**
+     * Lista las particiones de transacciones con su número aproximado de filas
+     */
+    @Transactional(readOnly = true)
+    public List<ParticionTransaccionesResponse> listarParticiones() {
+        if (!isParticionada()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.query(SQL_PARTICIONES, (rs, rowNum) -> ParticionTransaccionesResponse.builder()
+                .nombre(rs.getString(1))
+                .mes(mesDeParticion(rs.getString(1)))
+                .limites(rs.getString(2))
+                .filasEstimadas(rs.getLong(3))
+                .build());
+    }
+
+    /**
+     * Desacopla las particiones de los meses anteriores a {@code antesDe}. Las tablas quedan
+     * en la base de datos, fuera de transacciones, listas para eliminarse.
+     * Solo se permiten meses anteriores a la retención del archivo, y solo si todas sus particiones
+     * están vacías: una fila desacoplada dejaría de contar en los totales y en la conciliación.
+     * El archivo (ArchivoTransaccionesService) las vacía, salvo las transacciones ligadas a
+     * inscripciones de eventos; si queda alguna no se desacopla nada.
+     *
+     * @return nombres de las particiones desacopladas
+     */
+    @Transactional
+    public List<String> desacoplarParticiones(YearMonth antesDe) {
+        if (!isParticionada()) {
+            throw new InvalidOperationException(
+                    "El particionamiento de transacciones solo está disponible en PostgreSQL");
+        }
+
+        YearMonth limite = YearMonth.now().minusMonths(mesesRetencion);
+        if (antesDe.isAfter(limite)) {
+            throw new InvalidOperationException(String.format(
+                    "Solo se pueden desacoplar meses anteriores a %s (retención de %d meses en la base de datos)",
+                    limite, mesesRetencion));
+        }
+
+        // El nombre viene del catálogo y tiene formato fijo (transacciones_pYYYYMM)
+        List<String> candidatas = listarParticiones().stream()
+                .filter(particion -> particion.getMes() != null && particion.getMes().isBefore(antesDe))
+                .map(ParticionTransaccionesResponse::getNombre)
+                .toList();
+
+        // Bloqueadas hasta el DETACH: ninguna fila puede llegar entre la verificación y el desacople
+        List<String> conFilas = new ArrayList<>();
+        for (String nombre : candidatas) {
+            jdbcTemplate.execute("LOCK TABLE " + nombre + " IN SHARE ROW EXCLUSIVE MODE");
+            if (!jdbcTemplate.queryForList("SELECT 1 FROM " + nombre + " LIMIT 1").isEmpty()) {
+                conFilas.add(nombre);
+            }
+        }
+        if (!conFilas.isEmpty()) {
+            throw new InvalidOperationException(String.format(
+                    "Las particiones %s todavía tienen transacciones; archívelas antes de desacoplarlas", conFilas));
+        }
+
+        for (String nombre : candidatas) {
+            jdbcTemplate.execute("ALTER TABLE transacciones DETACH PARTITION " + nombre);
+        }
+
+        log.warn("Particiones de transacciones desacopladas (anteriores a {}): {}", antesDe, candidatas);
+        return candidatas;
+    }
+
+    /**
+     * Tablas de particiones desacopladas que todavía tienen filas. Pueden quedar de desacoples
+     * anteriores a la verificación de particiones vacías; sus transacciones no están en
+     * transacciones ni en el archivo.
+     */
+    @Transactional(readOnly = true)
+    public List<String> listarDesacopladasConFilas() {
+        if (!isParticionada()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.queryForList(SQL_DESACOPLADAS, String.class).stream()
+                .filter(nombre -> !jdbcTemplate.queryForList("SELECT 1 FROM " + nombre + " LIMIT 1").isEmpty())
+                .toList();
+    }
+
+    /**
+     * true si la base es PostgreSQL y transacciones es una tabla particionada (se evalúa una vez)
+     */
+    public boolean isParticionada() {
+        if (particionada == null) {
+            particionada = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion ->
+                    conexion.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres"))
+                    && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table " +
+                    "WHERE partrelid = to_regclass('transacciones'))", Boolean.class));
+        }
+        return particionada;
+    }
+
+    private static YearMonth mesDeParticion(String nombre) {
+        if (!nombre.startsWith(PREFIJO)) {
+            return null;
+        }
+        return YearMonth.parse(nombre.substring(PREFIJO.length()), FORMATO_SUFIJO);
+    }
+}
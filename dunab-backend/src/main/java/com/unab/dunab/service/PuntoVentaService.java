@@ -0,0 +1,216 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.request.DebitoPosRequest;
+import com.unab.dunab.dto.request.TransaccionRequest;
+import com.unab.dunab.dto.response.DebitoPosResponse;
+import com.unab.dunab.dto.response.TokenQrResponse;
+import com.unab.dunab.dto.response.TransaccionResponse;
+import com.unab.dunab.exception.InsufficientBalanceException;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.Transaccion;
+import com.unab.dunab.model.TransactionStatus;
+import com.unab.dunab.model.TransactionType;
+import com.unab.dunab.repository.CuentaDunabRepository;
+import com.unab.dunab.repository.TransaccionRepository;
+import com.unab.dunab.repository.UserRepository;
+import com.unab.dunab.security.JwtTokenProvider;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Débitos de punto de venta (cafetería, tiendas del campus), con la menor latencia posible.
+ *
+ * A diferencia de TransactionService.crearTransaccion, el débito no carga entidades:
+ * - el id de la cuenta sale de un caché en memoria (código de estudiante → estudiante → cuenta)
+ * - el saldo se descuenta con un UPDATE condicional (CuentaDunabRepository.debitarSiAlcanza)
+ * - la transacción se inserta con referencias por id a la cuenta y al cajero
+ * - la notificación se crea después del commit, en otro hilo
+ *
+ * Si el UPDATE no afecta la fila (cuenta cerrada, sin saldo, sobre el límite por transacción o
+ * con sub-saldos), la cuenta se bloquea para informar el motivo o, si el débito sí procede, se
+ * completa por la ruta general.
+ *
+ * Los débitos de esta ruta no se agregan a la pila de historial reciente: sus asociaciones no
+ * están cargadas.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PuntoVentaService {
+
+    private static final String DESCRIPCION_POR_DEFECTO = "Compra en punto de venta";
+
+    private final CuentaDunabRepository cuentaDunabRepository;
+    private final TransaccionRepository transaccionRepository;
+    private final UserRepository userRepository;
+    private final TransactionService transactionService;
+    private final LimiteDebitoService limiteDebitoService;
+    private final NotificationService notificationService;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.qr-expiration}")
+    private long qrExpiracionMs;
+
+    /**
+     * Cachés de identificación. Los códigos de estudiante y la cuenta de cada estudiante no
+     * cambian, así que no expiran; su tamaño está acotado por la cantidad de estudiantes.
+     */
+    private final ConcurrentMap<String, Long> estudiantePorCodigo = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> cuentaPorEstudiante = new ConcurrentHashMap<>();
+
+    /**
+     * Genera el token del código QR de pago del estudiante
+     */
+    public TokenQrResponse generarTokenQr(Long estudianteId) {
+        return TokenQrResponse.builder()
+                .token(jwtTokenProvider.generarTokenQr(estudianteId))
+                .expiraEnSegundos(qrExpiracionMs / 1000)
+                .build();
+    }
+
+    /**
+     * Debita la cuenta del estudiante identificado por código o token QR
+     */
+    @Timed(value = "dunab.pos.debitos", description = "Tiempo de débitos de punto de venta")
+    @Transactional
+    public DebitoPosResponse debitar(DebitoPosRequest request, Long cajeroId) {
+        Long estudianteId = identificarEstudiante(request);
+        Long cuentaId = getCuentaId(estudianteId);
+        Dunab monto = Dunab.valueOf(request.getMonto());
+        String descripcion = StringUtils.hasText(request.getDescripcion())
+                ? request.getDescripcion() : DESCRIPCION_POR_DEFECTO;
+        String referencia = StringUtils.hasText(request.getReferencia())
+                ? request.getReferencia() : "POS-" + UUID.randomUUID();
+
+        if (cuentaDunabRepository.debitarSiAlcanza(cuentaId, monto.toBigDecimal(), LocalDateTime.now()) == 0) {
+            return debitarPorRutaGeneral(estudianteId, cuentaId, monto, descripcion, referencia, cajeroId);
+        }
+        // Límites diario y semanal: si se superan, el rollback revierte el UPDATE
+        limiteDebitoService.reservarVentanas(cuentaId, monto);
+
+        // La fila sigue bloqueada por el UPDATE: el saldo leído es el que dejó este débito
+        Dunab saldoPosterior = cuentaDunabRepository.findSaldoActualById(cuentaId)
+                .map(Dunab::valueOf)
+                .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
+
+        Transaccion transaccion = transaccionRepository.save(Transaccion.builder()
+                .cuenta(cuentaDunabRepository.getReferenceById(cuentaId))
+                .tipo(TransactionType.DEBITO)
+                .monto(monto)
+                .descripcion(descripcion)
+                .referencia(referencia)
+                .estado(TransactionStatus.COMPLETADA)
+                .saldoAnterior(saldoPosterior.sumar(monto))
+                .saldoPosterior(saldoPosterior)
+                .creadoPor(userRepository.getReferenceById(cajeroId))
+                .build());
+
+        notificarAlConfirmar(estudianteId, monto, descripcion);
+
+        return DebitoPosResponse.builder()
+                .transaccionId(transaccion.getId())
+                .cuentaId(cuentaId)
+                .referencia(referencia)
+                .monto(monto)
+                .saldoPosterior(saldoPosterior)
+                .fechaCreacion(transaccion.getFechaCreacion())
+                .build();
+    }
+
+    /**
+     * El UPDATE condicional no debitó: bloquea la cuenta para informar el motivo. Si el débito
+     * procede (cuenta con sub-saldos, o el saldo cambió entre el UPDATE y el bloqueo), lo
+     * completa TransactionService con la cuenta ya bloqueada.
+     */
+    private DebitoPosResponse debitarPorRutaGeneral(Long estudianteId, Long cuentaId, Dunab monto,
+                                                    String descripcion, String referencia, Long cajeroId) {
+        CuentaDunab cuenta = cuentaDunabRepository.findByIdForUpdate(cuentaId).orElse(null);
+        if (cuenta == null) {
+            cuentaPorEstudiante.remove(estudianteId);
+            throw new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId);
+        }
+        if (!cuenta.isActiva()) {
+            throw new InvalidOperationException("La cuenta DUNAB no está activa");
+        }
+        if (!cuenta.tieneSubSaldos()) {
+            if (!cuenta.tieneSaldoSuficiente(monto)) {
+                meterRegistry.counter("dunab.transacciones.rechazadas", "motivo", "saldo_insuficiente").increment();
+                throw new InsufficientBalanceException(
+                        String.format("Saldo insuficiente. Saldo actual: %s, Monto requerido: %s",
+                                cuenta.getSaldoActual(), monto));
+            }
+            limiteDebitoService.verificarLimiteTransaccion(cuenta, monto);
+        }
+
+        meterRegistry.counter("dunab.pos.debitos.ruta-general").increment();
+        TransaccionResponse transaccion = transactionService.crearTransaccion(new TransaccionRequest(
+                cuentaId, TransactionType.DEBITO, monto.toBigDecimal(), null, descripcion, referencia), cajeroId);
+        return DebitoPosResponse.builder()
+                .transaccionId(transaccion.getId())
+                .cuentaId(cuentaId)
+                .referencia(referencia)
+                .monto(monto)
+                .saldoPosterior(transaccion.getSaldoPosterior())
+                .fechaCreacion(transaccion.getFechaCreacion())
+                .build();
+    }
+
+    private Long identificarEstudiante(DebitoPosRequest request) {
+        boolean conCodigo = StringUtils.hasText(request.getCodigoEstudiante());
+        boolean conToken = StringUtils.hasText(request.getTokenQr());
+        if (conCodigo == conToken) {
+            throw new InvalidOperationException(
+                    "Identifique al estudiante con su código o con su código QR (solo uno de los dos)");
+        }
+        if (conToken) {
+            return jwtTokenProvider.getEstudianteIdDesdeTokenQr(request.getTokenQr())
+                    .orElseThrow(() -> new InvalidOperationException("El código QR no es válido o expiró"));
+        }
+
+        String codigo = request.getCodigoEstudiante().trim();
+        Long estudianteId = estudiantePorCodigo.get(codigo);
+        if (estudianteId == null) {
+            estudianteId = userRepository.findIdByCodigoEstudiante(codigo)
+                    .orElseThrow(() -> new ResourceNotFoundException("Estudiante", "codigoEstudiante", codigo));
+            estudiantePorCodigo.put(codigo, estudianteId);
+        }
+        return estudianteId;
+    }
+
+    private Long getCuentaId(Long estudianteId) {
+        Long cuentaId = cuentaPorEstudiante.get(estudianteId);
+        if (cuentaId == null) {
+            cuentaId = cuentaDunabRepository.findIdByEstudianteId(estudianteId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "estudianteId", estudianteId));
+            cuentaPorEstudiante.put(estudianteId, cuentaId);
+        }
+        return cuentaId;
+    }
+
+    private void notificarAlConfirmar(Long estudianteId, Dunab monto, String descripcion) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notificationService.notificarDebitoAsincrono(estudianteId, monto.toString(), descripcion);
+            }
+        });
+    }
+}
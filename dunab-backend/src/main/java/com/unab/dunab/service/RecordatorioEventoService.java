@@ -0,0 +1,211 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.utils.ReminderTimingWheel;
+import com.unab.dunab.utils.ReminderTimingWheel.Recordatorio;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recordatorios de eventos próximos a sus inscritos ("Evento próximo: ... - en 1 día").
+ *
+ * Cada evento activo y futuro tiene un recordatorio por cada antelación de
+ * dunab.eventos.recordatorios.antelaciones, programado en {@link ReminderTimingWheel}. Se cargan
+ * todos al arrancar y cada dunab.eventos.recordatorios.intervalo-recarga-ms (eventos creados en
+ * otras instancias); crear, editar o eliminar un evento en esta instancia los reprograma al
+ * confirmarse. Si la antelación de un recordatorio ya pasó, solo el más cercano al evento se envía
+ * de inmediato: un evento creado para dentro de dos horas no recibe también el de un día. La
+ * recarga no vuelve a programar ese recordatorio vencido si recordatorios_evento ya tiene su envío.
+ *
+ * Al vencer, el recordatorio se verifica contra el evento en la base de datos (puede haberse
+ * editado en otra instancia) y crea las notificaciones de todos los inscritos con un solo
+ * INSERT ... SELECT. La tabla recordatorios_evento registra cada envío en la misma transacción, así
+ * que las recargas, los reinicios y las otras instancias no lo repiten.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecordatorioEventoService {
+
+    /**
+     * Margen con el que un recordatorio se considera a tiempo: la rueda tiene resolución de un minuto
+     */
+    private static final Duration TOLERANCIA = Duration.ofMinutes(1);
+
+    private static final String SQL_YA_ENVIADO = "SELECT COUNT(*) FROM recordatorios_evento "
+            + "WHERE evento_id = ? AND antelacion_minutos = ? AND fecha_evento = ?";
+
+    private static final String SQL_ENVIADOS_PROXIMOS = "SELECT r.evento_id, r.antelacion_minutos "
+            + "FROM recordatorios_evento r JOIN eventos e ON e.id = r.evento_id AND e.fecha_evento = r.fecha_evento "
+            + "WHERE e.activo = TRUE AND e.fecha_evento > ?";
+
+    private static final String SQL_REGISTRAR_ENVIO = "INSERT INTO recordatorios_evento "
+            + "(evento_id, antelacion_minutos, fecha_evento, fecha_envio, notificados) VALUES (?, ?, ?, ?, ?)";
+
+    private final EventoRepository eventoRepository;
+    private final NotificationService notificationService;
+    private final ReminderTimingWheel reminderTimingWheel;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dunab.eventos.recordatorios.antelaciones}")
+    private List<Duration> antelaciones;
+
+    /**
+     * Vuelve a programar los recordatorios de todos los eventos próximos
+     */
+    @Scheduled(fixedDelayString = "${dunab.eventos.recordatorios.intervalo-recarga-ms}")
+    public void recargar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Evento> eventos = eventoRepository.findEventosProximos(ahora);
+        Set<Recordatorio> enviados = new HashSet<>();
+        jdbcTemplate.query(SQL_ENVIADOS_PROXIMOS, rs -> {
+            enviados.add(new Recordatorio(rs.getLong(1), Duration.ofMinutes(rs.getLong(2))));
+        }, Timestamp.valueOf(ahora));
+        reminderTimingWheel.clear();
+        eventos.forEach(evento -> programar(evento, ahora, enviados));
+        log.info("Recordatorios programados: {} de {} eventos próximos", reminderTimingWheel.size(), eventos.size());
+    }
+
+    /**
+     * Reprograma los recordatorios del evento (creado o editado)
+     */
+    public void reprogramar(Evento evento) {
+        reminderTimingWheel.cancelar(evento.getId());
+        programar(evento, LocalDateTime.now(), Set.of());
+    }
+
+    /**
+     * Quita los recordatorios del evento (eliminado)
+     */
+    public void cancelar(Long eventoId) {
+        reminderTimingWheel.cancelar(eventoId);
+    }
+
+    /**
+     * Programa las antelaciones futuras del evento y, si alguna ya pasó, la más cercana al evento
+     * para ahora mismo, salvo que esté en {@code enviados}
+     */
+    private void programar(Evento evento, LocalDateTime ahora, Set<Recordatorio> enviados) {
+        if (!Boolean.TRUE.equals(evento.getActivo()) || !evento.getFechaEvento().isAfter(ahora)) {
+            return;
+        }
+        Duration ultimaVencida = null;
+        for (Duration antelacion : antelaciones) {
+            LocalDateTime disparo = evento.getFechaEvento().minus(antelacion);
+            if (disparo.isAfter(ahora)) {
+                reminderTimingWheel.programar(new Recordatorio(evento.getId(), antelacion), epochMs(disparo));
+            } else if (ultimaVencida == null || antelacion.compareTo(ultimaVencida) < 0) {
+                ultimaVencida = antelacion;
+            }
+        }
+        if (ultimaVencida != null) {
+            Recordatorio vencido = new Recordatorio(evento.getId(), ultimaVencida);
+            if (!enviados.contains(vencido)) {
+                reminderTimingWheel.programar(vencido, epochMs(ahora));
+            }
+        }
+    }
+
+    /**
+     * Envía los recordatorios vencidos
+     */
+    @Scheduled(fixedDelayString = "${dunab.eventos.recordatorios.intervalo-ms}")
+    public void enviarVencidos() {
+        for (Recordatorio recordatorio : reminderTimingWheel.avanzar(System.currentTimeMillis())) {
+            try {
+                enviar(recordatorio);
+            } catch (RuntimeException e) {
+                contar("fallido");
+                log.warn("No se pudo enviar el recordatorio de {} del evento {}: {}",
+                        recordatorio.antelacion(), recordatorio.eventoId(), e.getMessage());
+            }
+        }
+    }
+
+    private void enviar(Recordatorio recordatorio) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Evento evento = eventoRepository.findById(recordatorio.eventoId()).orElse(null);
+        if (evento == null || !Boolean.TRUE.equals(evento.getActivo()) || !evento.getFechaEvento().isAfter(ahora)) {
+            contar("descartado");
+            return;
+        }
+        // El evento se movió a una fecha posterior en otra instancia
+        LocalDateTime disparo = evento.getFechaEvento().minus(recordatorio.antelacion());
+        if (disparo.isAfter(ahora.plus(TOLERANCIA))) {
+            reminderTimingWheel.programar(recordatorio, epochMs(disparo));
+            contar("reprogramado");
+            return;
+        }
+
+        long antelacionMinutos = recordatorio.antelacion().toMinutes();
+        Timestamp fechaEvento = Timestamp.valueOf(evento.getFechaEvento());
+        Integer enviado;
+        try {
+            enviado = transactionTemplate.execute(status -> {
+                Integer previos = jdbcTemplate.queryForObject(SQL_YA_ENVIADO, Integer.class,
+                        evento.getId(), antelacionMinutos, fechaEvento);
+                if (previos != null && previos > 0) {
+                    return null;
+                }
+                int notificados = notificationService.notificarEventoInscritos(evento.getId(), evento.getNombre(),
+                        describir(Duration.between(ahora, evento.getFechaEvento())));
+                jdbcTemplate.update(SQL_REGISTRAR_ENVIO, evento.getId(), antelacionMinutos, fechaEvento,
+                        Timestamp.valueOf(ahora), notificados);
+                return notificados;
+            });
+        } catch (DuplicateKeyException e) {
+            // Otra instancia lo envió al mismo tiempo; sus notificaciones se revirtieron
+            enviado = null;
+        }
+        if (enviado == null) {
+            contar("repetido");
+            return;
+        }
+        contar("enviado");
+        meterRegistry.counter("dunab.eventos.recordatorios.notificaciones").increment(enviado);
+    }
+
+    /**
+     * Tiempo que falta en la unidad más grande, redondeado: "2 días", "1 hora", "30 minutos". Un
+     * recordatorio sale hasta un par de minutos después de su antelación, así que el de un día
+     * encuentra al evento a 23 h 58 min y se describe como "1 día".
+     */
+    private static String describir(Duration faltan) {
+        long minutos = Math.round(faltan.toSeconds() / 60.0);
+        if (minutos >= 60 * 24 - 30) {
+            long dias = Math.round(minutos / (60.0 * 24));
+            return dias + (dias == 1 ? " día" : " días");
+        }
+        if (minutos >= 55) {
+            long horas = Math.round(minutos / 60.0);
+            return horas + (horas == 1 ? " hora" : " horas");
+        }
+        return minutos + (minutos == 1 ? " minuto" : " minutos");
+    }
+
+    private void contar(String resultado) {
+        meterRegistry.counter("dunab.eventos.recordatorios", "resultado", resultado).increment();
+    }
+
+    private static long epochMs(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -3,6 +3,7 @@ package com.unab.dunab.service;
 import com.unab.dunab.dto.response.StudentProgressResponse;
 import com.unab.dunab.exception.ResourceNotFoundException;
 import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Dunab;
 import com.unab.dunab.model.User;
 import com.unab.dunab.repository.CuentaDunabRepository;
 import com.unab.dunab.repository.UserRepository;
@@ -11,7 +12,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -51,7 +51,7 @@ public class StudentService {
         CuentaDunab cuenta = cuentaDunabRepository.findByEstudianteId(id)
                 .orElse(null);
 
-        BigDecimal saldo = cuenta != null ? cuenta.getSaldoActual() : BigDecimal.ZERO;
+        Dunab saldo = cuenta != null ? cuenta.getSaldoActual() : Dunab.CERO;
         Long transaccionesCount = cuenta != null ? (long) cuenta.getTransacciones().size() : 0L;
 
         return StudentProgressResponse.builder()
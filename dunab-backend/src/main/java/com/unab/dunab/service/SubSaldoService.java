@@ -0,0 +1,154 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.CuentaDunab;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.SubSaldoCuenta;
+import com.unab.dunab.repository.CuentaDunabRepository;
+import com.unab.dunab.repository.SubSaldoCuentaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sub-saldos de cuentas que reciben muchos créditos a la vez (cafetería, organizadores de eventos).
+ *
+ * Cada crédito a la fila de una cuenta espera el bloqueo de esa fila, así que una cuenta muy
+ * concurrida limita el throughput de todo el sistema. Con sub-saldos, los créditos se suman a una
+ * de N filas de sub_saldos_cuenta elegida al azar y la cuenta solo se bloquea en modo compartido.
+ * El saldo de la cuenta es saldoActual más la suma de sus sub-saldos; la compactación periódica
+ * (y cualquier débito o anulación) pasa los sub-saldos a saldoActual y totalGanado.
+ *
+ * Orden de bloqueos: primero las filas de cuentas en orden ascendente de id (compartido para
+ * créditos a cuentas con sub-saldos, exclusivo para lo demás) y después los sub-saldos de una
+ * cuenta ya bloqueada. Quien bloquea los sub-saldos en modo exclusivo tiene la cuenta bloqueada
+ * en exclusivo, así que ningún crédito tiene un sub-saldo a la vez.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SubSaldoService {
+
+    private final CuentaDunabRepository cuentaDunabRepository;
+    private final SubSaldoCuentaRepository subSaldoCuentaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Máximo de sub-saldos por cuenta
+     */
+    @Value("${dunab.sub-saldos.maximo}")
+    private int maximo;
+
+    /**
+     * Activa, cambia o desactiva (cantidad 0) los sub-saldos de una cuenta. Lo pendiente se
+     * compacta antes de cambiar la cantidad.
+     */
+    @Transactional
+    public void configurar(Long cuentaId, int cantidad) {
+        if (cantidad < 0 || cantidad > maximo) {
+            throw new InvalidOperationException(
+                    String.format("La cantidad de sub-saldos debe estar entre 0 y %d", maximo));
+        }
+        CuentaDunab cuenta = cuentaDunabRepository.findByIdForUpdate(cuentaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
+
+        List<SubSaldoCuenta> actuales = subSaldoCuentaRepository.findByCuentaIdForUpdate(cuentaId);
+        compactar(cuenta, actuales);
+
+        // Las filas existentes tienen índices 0..n-1: se conservan las que siguen en uso
+        subSaldoCuentaRepository.deleteAll(actuales.stream()
+                .filter(subSaldo -> subSaldo.getIndice() >= cantidad)
+                .toList());
+        for (int indice = actuales.size(); indice < cantidad; indice++) {
+            subSaldoCuentaRepository.save(SubSaldoCuenta.builder()
+                    .cuenta(cuenta)
+                    .indice(indice)
+                    .monto(Dunab.CERO)
+                    .build());
+        }
+        cuenta.setSubSaldos(cantidad);
+        cuentaDunabRepository.save(cuenta);
+
+        log.info("Sub-saldos de la cuenta {}: {}", cuentaId, cantidad);
+    }
+
+    /**
+     * Suma un crédito a un sub-saldo al azar. La cuenta debe estar bloqueada (al menos en modo
+     * compartido) en la transacción en curso.
+     */
+    public void acreditar(CuentaDunab cuenta, Dunab monto) {
+        int indice = ThreadLocalRandom.current().nextInt(cuenta.getSubSaldos());
+        if (subSaldoCuentaRepository.acreditar(cuenta.getId(), indice, monto.toBigDecimal()) != 1) {
+            throw new IllegalStateException(String.format(
+                    "La cuenta %d no tiene el sub-saldo %d", cuenta.getId(), indice));
+        }
+    }
+
+    /**
+     * Pasa los sub-saldos de la cuenta a saldoActual y totalGanado. La cuenta debe estar
+     * bloqueada en modo exclusivo en la transacción en curso.
+     */
+    public void compactar(CuentaDunab cuenta) {
+        if (cuenta.tieneSubSaldos()) {
+            compactar(cuenta, subSaldoCuentaRepository.findByCuentaIdForUpdate(cuenta.getId()));
+        }
+    }
+
+    private void compactar(CuentaDunab cuenta, List<SubSaldoCuenta> subSaldos) {
+        Dunab pendiente = Dunab.CERO;
+        for (SubSaldoCuenta subSaldo : subSaldos) {
+            if (!subSaldo.getMonto().esCero()) {
+                pendiente = pendiente.sumar(subSaldo.getMonto());
+                subSaldo.setMonto(Dunab.CERO);
+            }
+        }
+        if (pendiente.esPositivo()) {
+            cuenta.agregarDunab(pendiente);
+            meterRegistry.counter("dunab.sub-saldos.compactados").increment();
+        }
+    }
+
+    /**
+     * Compacta periódicamente los sub-saldos de todas las cuentas que los usan, una cuenta por
+     * transacción. Los créditos a cada cuenta esperan solo mientras se compacta esa cuenta.
+     */
+    @Scheduled(fixedDelayString = "${dunab.sub-saldos.intervalo-compactacion-ms}")
+    public void compactarProgramado() {
+        for (Long cuentaId : cuentaDunabRepository.findIdsConSubSaldos()) {
+            try {
+                transactionTemplate.executeWithoutResult(estado -> cuentaDunabRepository
+                        .findByIdForUpdate(cuentaId)
+                        .ifPresent(this::compactar));
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron compactar los sub-saldos de la cuenta {}: {}", cuentaId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Créditos de la cuenta que todavía están en sub-saldos
+     */
+    public Dunab getPendiente(CuentaDunab cuenta) {
+        return cuenta.tieneSubSaldos()
+                ? Dunab.valueOf(subSaldoCuentaRepository.getPendienteByCuentaId(cuenta.getId()))
+                : Dunab.CERO;
+    }
+
+    /**
+     * Créditos en sub-saldos de todas las cuentas con el estado dado
+     */
+    public Dunab getPendiente(AccountStatus estado) {
+        return Dunab.valueOf(subSaldoCuentaRepository.getPendienteByEstado(estado));
+    }
+}
@@ -0,0 +1,198 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.model.EstadoInscripcion;
+import com.unab.dunab.utils.ICalendarWriter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Calendario .ics de las inscripciones de un estudiante, para que su aplicación de calendario se
+ * suscriba y lo consulte cada pocos minutos.
+ *
+ * La dirección lleva un token {estudiante}.{firma}: la firma son los primeros 16 bytes del
+ * HMAC-SHA256 de "calendario.{estudiante}" con dunab.eventos.suscripcion.secreto, en Base64 URL.
+ * Las aplicaciones de calendario no envían el JWT, así que el token es la credencial; no expira.
+ *
+ * Cada consulta empieza por la versión del calendario: la mayor fecha_actualizacion de las
+ * inscripciones del estudiante y de sus eventos, y cuántas inscripciones tiene (una consulta por
+ * idx_inscripciones_evento_estudiante). De ahí salen el ETag y Last-Modified; si el cliente ya
+ * tiene esa versión recibe 304 sin más. Si no, los VEVENT se escriben en la respuesta a medida que
+ * se leen las filas de una proyección de inscripciones y eventos, sin cargar entidades.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SuscripcionCalendarioService {
+
+    private static final int BYTES_FIRMA = 16;
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private static final String SQL_VERSION = "SELECT MAX(i.fecha_actualizacion), MAX(e.fecha_actualizacion), COUNT(*) "
+            + "FROM inscripciones_evento i JOIN eventos e ON e.id = i.evento_id WHERE i.estudiante_id = ?";
+
+    private static final String SQL_EVENTOS = "SELECT i.id, i.estado, i.fecha_actualizacion, e.nombre, "
+            + "e.descripcion, e.ubicacion, e.fecha_evento, e.fecha_actualizacion "
+            + "FROM inscripciones_evento i JOIN eventos e ON e.id = i.evento_id "
+            + "WHERE i.estudiante_id = ? AND i.estado <> 'CANCELADA' AND e.activo = TRUE ORDER BY e.fecha_evento";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${dunab.eventos.suscripcion.secreto}")
+    private String secreto;
+
+    /**
+     * Duración con la que se publica cada evento (los eventos solo tienen fecha de inicio)
+     */
+    @Value("${dunab.eventos.suscripcion.duracion-evento}")
+    private Duration duracionEvento;
+
+    /**
+     * Mac inicializado con el secreto; cada firma usa una copia (Mac no es seguro entre hilos)
+     */
+    private Mac prototipo;
+
+    /**
+     * Versión del calendario de un estudiante
+     *
+     * @param etag               Cambia con cualquier inscripción o evento del estudiante que cambie
+     * @param ultimaModificacion Milisegundos de la última modificación; -1 si no tiene inscripciones
+     */
+    public record Version(Long estudianteId, String etag, long ultimaModificacion) {
+    }
+
+    @PostConstruct
+    void iniciar() {
+        try {
+            prototipo = Mac.getInstance("HmacSHA256");
+            prototipo.init(new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar HMAC-SHA256", e);
+        }
+    }
+
+    /**
+     * Genera el token de la dirección del calendario del estudiante
+     */
+    public String generarToken(Long estudianteId) {
+        return estudianteId + "." + BASE64.encodeToString(firmar(estudianteId.toString()));
+    }
+
+    /**
+     * Verifica el token y consulta la versión actual del calendario de su estudiante
+     *
+     * @throws ResourceNotFoundException si el token no es válido
+     */
+    public Version getVersion(String token) {
+        Long estudianteId = verificarToken(token);
+        return jdbcTemplate.queryForObject(SQL_VERSION, (rs, fila) -> {
+            long ultimaModificacion = Math.max(milisegundos(rs.getTimestamp(1)), milisegundos(rs.getTimestamp(2)));
+            long inscripciones = rs.getLong(3);
+            String etag = "\"" + Long.toString(Math.max(ultimaModificacion, 0), 36) + "-" + inscripciones + "\"";
+            return new Version(estudianteId, etag, ultimaModificacion);
+        }, estudianteId);
+    }
+
+    /**
+     * Escribe el calendario del estudiante: un VEVENT por inscripción no cancelada a un evento
+     * activo, en orden de fecha. Las inscripciones en lista de espera o pendientes de confirmar
+     * se publican como tentativas.
+     */
+    public void escribirCalendario(Long estudianteId, OutputStream salida) throws IOException {
+        ICalendarWriter ics = new ICalendarWriter(salida);
+        ics.propiedad("BEGIN", "VCALENDAR");
+        ics.propiedad("VERSION", "2.0");
+        ics.propiedad("PRODID", "-//UNAB//DUNAB Eventos//ES");
+        ics.propiedad("CALSCALE", "GREGORIAN");
+        ics.propiedad("METHOD", "PUBLISH");
+        ics.texto("X-WR-CALNAME", "Mis eventos UNAB");
+        try {
+            jdbcTemplate.query(SQL_EVENTOS, rs -> {
+                try {
+                    escribirEvento(ics, rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, estudianteId);
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la conexión a mitad del calendario
+            throw e.getCause();
+        }
+        ics.propiedad("END", "VCALENDAR");
+        ics.flush();
+    }
+
+    private void escribirEvento(ICalendarWriter ics, ResultSet rs) throws SQLException, IOException {
+        EstadoInscripcion estado = EstadoInscripcion.valueOf(rs.getString(2));
+        Instant inicio = rs.getTimestamp(7).toInstant();
+        long modificado = Math.max(milisegundos(rs.getTimestamp(3)), milisegundos(rs.getTimestamp(8)));
+        Instant marca = modificado > 0 ? Instant.ofEpochMilli(modificado) : inicio;
+
+        ics.propiedad("BEGIN", "VEVENT");
+        ics.propiedad("UID", "inscripcion-" + rs.getLong(1) + "@dunab.unab.edu.co");
+        ics.fecha("DTSTAMP", marca);
+        ics.fecha("LAST-MODIFIED", marca);
+        ics.fecha("DTSTART", inicio);
+        ics.fecha("DTEND", inicio.plus(duracionEvento));
+        ics.texto("SUMMARY", rs.getString(4));
+        ics.texto("DESCRIPTION", rs.getString(5));
+        ics.texto("LOCATION", rs.getString(6));
+        ics.propiedad("STATUS", estado == EstadoInscripcion.EN_ESPERA || estado == EstadoInscripcion.PENDIENTE
+                ? "TENTATIVE" : "CONFIRMED");
+        ics.propiedad("END", "VEVENT");
+    }
+
+    /**
+     * @return id del estudiante del token
+     */
+    private Long verificarToken(String token) {
+        String[] partes = token.split("\\.", -1);
+        try {
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("formato");
+            }
+            if (!MessageDigest.isEqual(firmar(partes[0]), Base64.getUrlDecoder().decode(partes[1]))) {
+                throw new IllegalArgumentException("firma");
+            }
+            return Long.valueOf(partes[0]);
+        } catch (IllegalArgumentException e) {
+            log.debug("Token de calendario no válido: {}", e.getMessage());
+            throw new ResourceNotFoundException("Calendario no encontrado");
+        }
+    }
+
+    private byte[] firmar(String estudianteId) {
+        try {
+            Mac mac = (Mac) prototipo.clone();
+            return Arrays.copyOf(mac.doFinal(("calendario." + estudianteId).getBytes(StandardCharsets.US_ASCII)),
+                    BYTES_FIRMA);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("El proveedor de HMAC-SHA256 no permite copiar el Mac", e);
+        }
+    }
+
+    private static long milisegundos(Timestamp fecha) {
+        return fecha == null ? -1 : fecha.getTime();
+    }
+}
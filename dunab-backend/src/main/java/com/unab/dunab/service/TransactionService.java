@@ -1,53 +1,95 @@
 package com.unab.dunab.service;
 
 import com.unab.dunab.dto.request.TransaccionRequest;
+import com.unab.dunab.dto.request.TransferenciaRequest;
 import com.unab.dunab.dto.response.EstadisticasTransaccionResponse;
 import com.unab.dunab.dto.response.TransaccionResponse;
+import com.unab.dunab.dto.response.TransferenciaResponse;
 import com.unab.dunab.exception.InsufficientBalanceException;
 import com.unab.dunab.exception.InvalidOperationException;
 import com.unab.dunab.exception.ResourceNotFoundException;
 import com.unab.dunab.model.*;
+import com.unab.dunab.repository.ArchivoTransaccionesRepository;
 import com.unab.dunab.repository.CategoriaTransaccionRepository;
 import com.unab.dunab.repository.CuentaDunabRepository;
 import com.unab.dunab.repository.TransaccionRepository;
 import com.unab.dunab.repository.UserRepository;
 import com.unab.dunab.utils.TransactionHistoryStack;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Servicio de transacciones que utiliza una Pila (Stack) para gestionar
  * el historial reciente de transacciones en memoria.
+ *
+ * Las transacciones de meses cerrados pueden estar en el archivo en disco
+ * (ArchivoTransaccionesRepository): los listados de historial, las consultas por rango de
+ * fechas y los totales combinan la base de datos con el archivo.
+ *
+ * Las operaciones que modifican saldos bloquean las cuentas (SELECT ... FOR UPDATE) antes de
+ * leerlas; las transferencias bloquean sus dos cuentas en orden ascendente de id. Los créditos a
+ * una cuenta con sub-saldos la bloquean en modo compartido y van a un sub-saldo (SubSaldoService).
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
 
+    private static final String PREFIJO_TRANSFERENCIA = "TRF-";
+
+    /**
+     * Las dos partes de una transferencia se guardan en la misma transacción: sus fechas de
+     * creación difieren en milisegundos
+     */
+    private static final Duration MARGEN_TRANSFERENCIA = Duration.ofMinutes(1);
+
+    private static final Comparator<TransaccionResponse> POR_FECHA =
+            Comparator.comparing(TransaccionResponse::getFechaCreacion).thenComparing(TransaccionResponse::getId);
+
     private final TransaccionRepository transaccionRepository;
+    private final ArchivoTransaccionesRepository archivoTransaccionesRepository;
     private final CuentaDunabRepository cuentaDunabRepository;
     private final CategoriaTransaccionRepository categoriaTransaccionRepository;
     private final UserRepository userRepository;
     private final TransactionHistoryStack transactionHistoryStack;
     private final NotificationService notificationService;
+    private final LimiteDebitoService limiteDebitoService;
+    private final SubSaldoService subSaldoService;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Crea una nueva transacción (crédito o débito)
      */
+    @Timed(value = "dunab.transacciones.crear", description = "Tiempo de creación de transacciones")
     @Transactional
     public TransaccionResponse crearTransaccion(TransaccionRequest request, Long userId) {
-        // Validar cuenta
-        CuentaDunab cuenta = cuentaDunabRepository.findById(request.getCuentaId())
-                .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", request.getCuentaId()));
+        // Validar cuenta (bloqueada hasta el commit; en modo compartido si el crédito va a un sub-saldo)
+        boolean aSubSaldo = request.getTipo() == TransactionType.CREDITO && tieneSubSaldos(request.getCuentaId());
+        CuentaDunab cuenta = bloquearCuenta(request.getCuentaId(), aSubSaldo);
 
         if (!cuenta.isActiva()) {
             throw new InvalidOperationException("La cuenta DUNAB no está activa");
@@ -64,36 +106,45 @@ public class TransactionService {
         User usuario = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", userId));
 
+        Dunab monto = Dunab.valueOf(request.getMonto());
+
         // Validar saldo para débitos
         if (request.getTipo() == TransactionType.DEBITO) {
-            if (!cuenta.tieneSaldoSuficiente(request.getMonto())) {
+            subSaldoService.compactar(cuenta);
+            if (!cuenta.tieneSaldoSuficiente(monto)) {
+                meterRegistry.counter("dunab.transacciones.rechazadas", "motivo", "saldo_insuficiente").increment();
                 throw new InsufficientBalanceException(
                         String.format("Saldo insuficiente. Saldo actual: %s, Monto requerido: %s",
-                                cuenta.getSaldoActual(), request.getMonto()));
+                                cuenta.getSaldoActual(), monto));
             }
+            // Límites por transacción, diario y semanal (contadores en memoria)
+            limiteDebitoService.reservar(cuenta, monto);
         }
 
-        // Guardar saldo anterior
-        BigDecimal saldoAnterior = cuenta.getSaldoActual();
+        // Guardar saldo anterior (sin sub-saldos: el saldo total de una cuenta con sub-saldos
+        // no se conoce sin bloquearla en exclusivo)
+        Dunab saldoAnterior = aSubSaldo ? null : cuenta.getSaldoActual();
 
         // Aplicar transacción a la cuenta
-        if (request.getTipo() == TransactionType.CREDITO) {
-            cuenta.agregarDunab(request.getMonto());
+        if (aSubSaldo) {
+            subSaldoService.acreditar(cuenta, monto);
+        } else if (request.getTipo() == TransactionType.CREDITO) {
+            cuenta.agregarDunab(monto);
         } else {
-            cuenta.restarDunab(request.getMonto());
+            cuenta.restarDunab(monto);
         }
 
         // Crear transacción
         Transaccion transaccion = Transaccion.builder()
                 .cuenta(cuenta)
                 .tipo(request.getTipo())
-                .monto(request.getMonto())
+                .monto(monto)
                 .categoria(categoria)
                 .descripcion(request.getDescripcion())
                 .referencia(request.getReferencia())
                 .estado(TransactionStatus.COMPLETADA)
                 .saldoAnterior(saldoAnterior)
-                .saldoPosterior(cuenta.getSaldoActual())
+                .saldoPosterior(aSubSaldo ? null : cuenta.getSaldoActual())
                 .creadoPor(usuario)
                 .build();
 
@@ -103,8 +154,8 @@ public class TransactionService {
         // Actualizar cuenta
         cuentaDunabRepository.save(cuenta);
 
-        // Agregar a la pila (Stack) para historial reciente
-        transactionHistoryStack.push(transaccion);
+        // Agregar a la pila (Stack) para historial reciente, solo si la transacción se confirma
+        alConfirmar(transaccion);
 
         log.info("Transacción creada - ID: {}, Cuenta: {}, Tipo: {}, Monto: {}",
                 transaccion.getId(), cuenta.getId(), transaccion.getTipo(), transaccion.getMonto());
@@ -113,18 +164,115 @@ public class TransactionService {
         if (request.getTipo() == TransactionType.CREDITO) {
             notificationService.notificarCredito(
                     cuenta.getEstudiante().getId(),
-                    request.getMonto().toString(),
+                    monto.toString(),
                     request.getDescripcion());
         } else {
             notificationService.notificarDebito(
                     cuenta.getEstudiante().getId(),
-                    request.getMonto().toString(),
+                    monto.toString(),
                     request.getDescripcion());
         }
 
         return mapToResponse(transaccion);
     }
 
+    /**
+     * Transfiere DUNAB de la cuenta del usuario a otra cuenta en una sola transacción: un débito
+     * en la cuenta origen y un crédito en la cuenta destino con la misma referencia
+     */
+    @Timed(value = "dunab.transferencias", description = "Tiempo de transferencias entre cuentas")
+    @Transactional
+    public TransferenciaResponse transferir(TransferenciaRequest request, Long userId) {
+        Long origenId = cuentaDunabRepository.findIdByEstudianteId(userId)
+                .orElseThrow(() -> new InvalidOperationException("No tienes una cuenta DUNAB"));
+        Long destinoId = request.getCuentaDestinoId();
+        if (origenId.equals(destinoId)) {
+            throw new InvalidOperationException("No se puede transferir a la misma cuenta");
+        }
+
+        // Bloquear las dos cuentas en orden ascendente de id: dos transferencias en sentidos
+        // opuestos entre las mismas cuentas esperan en el mismo orden y no forman un deadlock.
+        // Si el crédito va a un sub-saldo, la cuenta destino se bloquea en modo compartido.
+        boolean aSubSaldo = tieneSubSaldos(destinoId);
+        CuentaDunab menor = bloquearCuenta(Math.min(origenId, destinoId), aSubSaldo && destinoId < origenId);
+        CuentaDunab mayor = bloquearCuenta(Math.max(origenId, destinoId), aSubSaldo && destinoId > origenId);
+        CuentaDunab origen = origenId < destinoId ? menor : mayor;
+        CuentaDunab destino = origenId < destinoId ? mayor : menor;
+
+        if (!origen.isActiva()) {
+            throw new InvalidOperationException("La cuenta DUNAB no está activa");
+        }
+        if (!destino.isActiva()) {
+            throw new InvalidOperationException("La cuenta destino no está activa");
+        }
+
+        Dunab monto = Dunab.valueOf(request.getMonto());
+        subSaldoService.compactar(origen);
+        if (!origen.tieneSaldoSuficiente(monto)) {
+            meterRegistry.counter("dunab.transacciones.rechazadas", "motivo", "saldo_insuficiente").increment();
+            throw new InsufficientBalanceException(
+                    String.format("Saldo insuficiente. Saldo actual: %s, Monto requerido: %s",
+                            origen.getSaldoActual(), monto));
+        }
+        limiteDebitoService.reservar(origen, monto);
+
+        User usuario = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", userId));
+        String referencia = PREFIJO_TRANSFERENCIA + UUID.randomUUID();
+
+        Dunab saldoAnteriorOrigen = origen.getSaldoActual();
+        origen.restarDunab(monto);
+        Transaccion debito = transaccionRepository.save(Transaccion.builder()
+                .cuenta(origen)
+                .tipo(TransactionType.DEBITO)
+                .monto(monto)
+                .descripcion("Transferencia a la cuenta " + destinoId + ": " + request.getDescripcion())
+                .referencia(referencia)
+                .estado(TransactionStatus.COMPLETADA)
+                .saldoAnterior(saldoAnteriorOrigen)
+                .saldoPosterior(origen.getSaldoActual())
+                .creadoPor(usuario)
+                .build());
+
+        Dunab saldoAnteriorDestino = aSubSaldo ? null : destino.getSaldoActual();
+        if (aSubSaldo) {
+            subSaldoService.acreditar(destino, monto);
+        } else {
+            destino.agregarDunab(monto);
+        }
+        Transaccion credito = transaccionRepository.save(Transaccion.builder()
+                .cuenta(destino)
+                .tipo(TransactionType.CREDITO)
+                .monto(monto)
+                .descripcion("Transferencia de la cuenta " + origenId + ": " + request.getDescripcion())
+                .referencia(referencia)
+                .estado(TransactionStatus.COMPLETADA)
+                .saldoAnterior(saldoAnteriorDestino)
+                .saldoPosterior(aSubSaldo ? null : destino.getSaldoActual())
+                .creadoPor(usuario)
+                .build());
+
+        cuentaDunabRepository.save(origen);
+        cuentaDunabRepository.save(destino);
+
+        alConfirmar(debito);
+        alConfirmar(credito);
+
+        log.info("Transferencia {} - Origen: {}, Destino: {}, Monto: {}", referencia, origenId, destinoId, monto);
+
+        notificationService.notificarDebito(origen.getEstudiante().getId(), monto.toString(), debito.getDescripcion());
+        notificationService.notificarCredito(destino.getEstudiante().getId(), monto.toString(), credito.getDescripcion());
+
+        return TransferenciaResponse.builder()
+                .referencia(referencia)
+                .cuentaOrigenId(origenId)
+                .cuentaDestinoId(destinoId)
+                .monto(monto)
+                .debito(mapToResponse(debito))
+                .credito(mapToResponse(credito))
+                .build();
+    }
+
     /**
      * Obtiene todas las transacciones de una cuenta
      */
@@ -138,11 +286,16 @@ public class TransactionService {
             throw new InvalidOperationException("No tienes permiso para acceder a esta cuenta");
         }
 
-        List<Transaccion> transacciones = transaccionRepository
-                .findByCuentaIdOrderByFechaCreacionDesc(cuentaId);
-        return transacciones.stream()
+        List<TransaccionResponse> transacciones = transaccionRepository
+                .findByCuentaIdDesdeOrderByFechaCreacionDesc(cuentaId, cuenta.getFechaCreacion()).stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+        List<TransaccionResponse> archivadas = archivadas(cuenta);
+        if (!archivadas.isEmpty()) {
+            transacciones.addAll(archivadas);
+            transacciones.sort(POR_FECHA.reversed());
+        }
+        return transacciones;
     }
 
     /**
@@ -158,8 +311,7 @@ public class TransactionService {
             throw new InvalidOperationException("No tienes permiso para acceder a esta cuenta");
         }
 
-        Page<Transaccion> transacciones = transaccionRepository.findByCuentaId(cuentaId, pageable);
-        return transacciones.map(this::mapToResponse);
+        return paginarHistorial(cuenta, pageable);
     }
 
     /**
@@ -178,11 +330,23 @@ public class TransactionService {
     @Transactional(readOnly = true)
     public List<TransaccionResponse> getTransaccionesByFechas(
             Long cuentaId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        List<Transaccion> transacciones = transaccionRepository
-                .findByCuentaIdAndFechaBetween(cuentaId, fechaInicio, fechaFin);
-        return transacciones.stream()
+        return buscarPorFechas(cuentaId, fechaInicio, fechaFin);
+    }
+
+    /**
+     * Transacciones de un rango de fechas: primero las archivadas (meses cerrados) y luego
+     * las de la base de datos
+     */
+    private List<TransaccionResponse> buscarPorFechas(
+            Long cuentaId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        List<TransaccionResponse> transacciones = archivoTransaccionesRepository
+                .buscar(cuentaId, fechaInicio, fechaFin).stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+        transaccionRepository.findByCuentaIdAndFechaBetween(cuentaId, fechaInicio, fechaFin).stream()
+                .map(this::mapToResponse)
+                .forEach(transacciones::add);
+        return transacciones;
     }
 
     /**
@@ -190,11 +354,17 @@ public class TransactionService {
      */
     @Transactional(readOnly = true)
     public List<TransaccionResponse> getTransaccionesByTipo(Long cuentaId, TransactionType tipo) {
-        List<Transaccion> transacciones = transaccionRepository
-                .findByCuentaIdAndTipo(cuentaId, tipo);
-        return transacciones.stream()
-                .map(this::mapToResponse)
+        CuentaDunab cuenta = cuentaDunabRepository.findById(cuentaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
+        // Como en buscarPorFechas: primero las archivadas y luego las de la base de datos
+        List<TransaccionResponse> transacciones = archivadas(cuenta).stream()
+                .filter(transaccion -> transaccion.getTipo() == tipo)
+                .sorted(POR_FECHA)
                 .collect(Collectors.toList());
+        transaccionRepository.findByCuentaIdAndTipoDesde(cuentaId, tipo, cuenta.getFechaCreacion()).stream()
+                .map(this::mapToResponse)
+                .forEach(transacciones::add);
+        return transacciones;
     }
 
     /**
@@ -208,48 +378,134 @@ public class TransactionService {
     }
 
     /**
-     * Anula una transacción (solo administradores)
+     * Anula una transacción completada y revierte su efecto en el saldo (solo administradores).
+     * Los débitos sin conexión pendientes no movieron el saldo: se rechazan con
+     * {@link #rechazarDebitoPendiente}.
+     *
+     * Las dos partes de una transferencia (misma referencia TRF-) se anulan juntas, con sus
+     * cuentas bloqueadas en el mismo orden que en transferir: anular solo una crearía o
+     * destruiría dinero.
      */
+    @Timed(value = "dunab.transacciones.anular", description = "Tiempo de anulación de transacciones")
     @Transactional
     public TransaccionResponse anularTransaccion(Long transaccionId, String justificacion, Long userId) {
         Transaccion transaccion = transaccionRepository.findById(transaccionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transacción", "id", transaccionId));
-
-        if (transaccion.getEstado() == TransactionStatus.ANULADA) {
-            throw new InvalidOperationException("La transacción ya está anulada");
-        }
+        List<Transaccion> movimientos = movimientosDeLaOperacion(transaccion);
 
         User usuario = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", userId));
 
-        CuentaDunab cuenta = transaccion.getCuenta();
+        // El estado se verifica con las cuentas bloqueadas: dos anulaciones de la misma
+        // transacción, o una anulación y la liquidación de un pendiente, se esperan
+        Map<Long, CuentaDunab> cuentas = new TreeMap<>();
+        movimientos.stream()
+                .map(movimiento -> movimiento.getCuenta().getId())
+                .sorted()
+                .distinct()
+                .forEach(cuentaId -> cuentas.put(cuentaId, bloquearCuenta(cuentaId)));
+        movimientos.forEach(movimiento -> verificarEstado(movimiento, TransactionStatus.COMPLETADA));
+        cuentas.values().forEach(subSaldoService::compactar);
+
+        // Revertir primero los créditos: si el destino ya gastó el dinero, la anulación falla
+        // antes de liberar límites de gasto
+        movimientos.sort(Comparator.comparing(movimiento -> movimiento.getTipo() != TransactionType.CREDITO));
+        for (Transaccion movimiento : movimientos) {
+            CuentaDunab cuenta = cuentas.get(movimiento.getCuenta().getId());
+            if (movimiento.getTipo() == TransactionType.CREDITO) {
+                if (!cuenta.tieneSaldoSuficiente(movimiento.getMonto())) {
+                    throw new InsufficientBalanceException(String.format(
+                            "La cuenta %d ya no tiene el saldo para revertir el crédito. Saldo actual: %s, Monto: %s",
+                            cuenta.getId(), cuenta.getSaldoActual(), movimiento.getMonto()));
+                }
+                cuenta.restarDunab(movimiento.getMonto());
+            } else {
+                cuenta.agregarDunab(movimiento.getMonto());
+                limiteDebitoService.liberar(cuenta.getId(), movimiento.getMonto(), movimiento.getFechaCreacion());
+            }
+            movimiento.anular(usuario, justificacion);
+            transaccionRepository.save(movimiento);
+        }
+        cuentas.values().forEach(cuentaDunabRepository::save);
 
-        // Revertir la transacción
-        if (transaccion.getTipo() == TransactionType.CREDITO) {
-            cuenta.restarDunab(transaccion.getMonto());
-        } else {
-            cuenta.agregarDunab(transaccion.getMonto());
+        log.warn("Transacción anulada - ID: {}, Referencia: {}, Movimientos: {}, Usuario: {}, Justificación: {}",
+                transaccionId, transaccion.getReferencia(), movimientos.size(), userId, justificacion);
+
+        return mapToResponse(transaccion);
+    }
+
+    /**
+     * La transacción sola, o las dos partes si es de una transferencia
+     */
+    private List<Transaccion> movimientosDeLaOperacion(Transaccion transaccion) {
+        String referencia = transaccion.getReferencia();
+        if (referencia == null || !referencia.startsWith(PREFIJO_TRANSFERENCIA)) {
+            return new ArrayList<>(List.of(transaccion));
+        }
+        List<Transaccion> partes = transaccionRepository.findByReferenciaDesde(
+                referencia, transaccion.getFechaCreacion().minus(MARGEN_TRANSFERENCIA));
+        if (partes.size() != 2) {
+            throw new InvalidOperationException(
+                    "La transferencia " + referencia + " no tiene sus dos movimientos en la base de datos");
+        }
+        return new ArrayList<>(partes);
+    }
+
+    /**
+     * Rechaza un débito sin conexión que quedó pendiente por saldo insuficiente (solo
+     * administradores). El débito nunca se aplicó: el saldo y los límites de gasto no cambian, y
+     * deja de reintentarse.
+     */
+    @Transactional
+    public TransaccionResponse rechazarDebitoPendiente(Long transaccionId, String justificacion, Long userId) {
+        Transaccion transaccion = transaccionRepository.findById(transaccionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Transacción", "id", transaccionId));
+        if (transaccion.getTipo() != TransactionType.DEBITO || transaccion.getReferencia() == null
+                || !transaccion.getReferencia().startsWith(LiquidacionLotesPosService.PREFIJO_REFERENCIA)) {
+            throw new InvalidOperationException("Solo se pueden rechazar débitos sin conexión");
         }
 
-        // Anular transacción
-        transaccion.anular(usuario, justificacion);
+        User usuario = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", userId));
+
+        // El reintento de pendientes también bloquea la cuenta antes de aplicarlos
+        bloquearCuenta(transaccion.getCuenta().getId());
+        verificarEstado(transaccion, TransactionStatus.PENDIENTE);
 
+        transaccion.rechazar(usuario, justificacion);
         transaccionRepository.save(transaccion);
-        cuentaDunabRepository.save(cuenta);
 
-        log.warn("Transacción anulada - ID: {}, Usuario: {}, Justificación: {}",
+        log.warn("Débito sin conexión rechazado - ID: {}, Usuario: {}, Justificación: {}",
                 transaccionId, userId, justificacion);
 
         return mapToResponse(transaccion);
     }
 
+    /**
+     * Verifica el estado actual de la transacción, releído de la base de datos
+     */
+    private void verificarEstado(Transaccion transaccion, TransactionStatus esperado) {
+        TransactionStatus estado = transaccionRepository.findEstadoById(transaccion.getId(), transaccion.getFechaCreacion());
+        if (estado == esperado) {
+            transaccion.setEstado(estado);
+            return;
+        }
+        throw new InvalidOperationException(switch (estado) {
+            case ANULADA -> "La transacción ya está anulada";
+            case RECHAZADA -> "La transacción fue rechazada";
+            case PENDIENTE -> "La transacción está pendiente: un débito sin conexión pendiente se rechaza, no se anula";
+            case COMPLETADA -> "La transacción ya se completó: se anula, no se rechaza";
+        });
+    }
+
     /**
      * Obtiene el total de transacciones por tipo
      */
     @Transactional(readOnly = true)
-    public BigDecimal getTotalByTipo(Long cuentaId, TransactionType tipo) {
-        BigDecimal total = transaccionRepository.getTotalByTipo(cuentaId, tipo);
-        return total != null ? total : BigDecimal.ZERO;
+    public Dunab getTotalByTipo(Long cuentaId, TransactionType tipo) {
+        CuentaDunab cuenta = cuentaDunabRepository.findById(cuentaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
+        return getTotalByTipo(cuenta, tipo);
     }
 
     /**
@@ -257,7 +513,178 @@ public class TransactionService {
      */
     @Transactional(readOnly = true)
     public Long contarTransaccionesCompletadas(Long cuentaId) {
-        return transaccionRepository.countTransaccionesCompletadas(cuentaId);
+        CuentaDunab cuenta = cuentaDunabRepository.findById(cuentaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
+        return contarTransaccionesCompletadas(cuenta);
+    }
+
+    /**
+     * Los totales históricos usan la fecha de creación de la cuenta como límite inferior:
+     * ninguna transacción de la cuenta puede ser anterior. A lo que queda en la base de datos
+     * se suman los totales del archivo, que se leen del índice en memoria.
+     */
+    private Dunab getTotalByTipo(CuentaDunab cuenta, TransactionType tipo) {
+        Dunab total = Dunab.valueOfNullable(
+                transaccionRepository.getTotalByTipo(cuenta.getId(), tipo, cuenta.getFechaCreacion()));
+        Dunab archivado = archivoTransaccionesRepository.getTotales(cuenta.getId()).getTotal(tipo);
+        return total != null ? total.sumar(archivado) : archivado;
+    }
+
+    private Long contarTransaccionesCompletadas(CuentaDunab cuenta) {
+        return transaccionRepository.countTransaccionesCompletadas(cuenta.getId(), cuenta.getFechaCreacion())
+                + archivoTransaccionesRepository.getTotales(cuenta.getId()).completadas();
+    }
+
+    private CuentaDunab bloquearCuenta(Long cuentaId) {
+        return bloquearCuenta(cuentaId, false);
+    }
+
+    /**
+     * Bloquea la cuenta en modo exclusivo, o compartido para acreditar un sub-saldo. Si los
+     * sub-saldos se desactivaron entre la consulta y el bloqueo compartido, la operación falla
+     * (el bloqueo compartido no permite modificar la fila de la cuenta).
+     */
+    private CuentaDunab bloquearCuenta(Long cuentaId, boolean compartido) {
+        CuentaDunab cuenta = (compartido
+                ? cuentaDunabRepository.findByIdForShare(cuentaId)
+                : cuentaDunabRepository.findByIdForUpdate(cuentaId))
+                .orElseThrow(() -> new ResourceNotFoundException("Cuenta DUNAB", "id", cuentaId));
+        if (compartido && !cuenta.tieneSubSaldos()) {
+            throw new InvalidOperationException("La configuración de la cuenta cambió, intente de nuevo");
+        }
+        return cuenta;
+    }
+
+    /**
+     * Consulta solo la columna sub_saldos, sin cargar la entidad: la cuenta se carga después con
+     * el bloqueo que corresponda
+     */
+    private boolean tieneSubSaldos(Long cuentaId) {
+        return cuentaDunabRepository.findSubSaldosById(cuentaId).orElse(0) > 0;
+    }
+
+    /**
+     * Agrega la transacción a la pila cuando se confirma la transacción de base de datos: una
+     * revertida después (por ejemplo, una inscripción que se queda sin cupo tras cobrar) no debe
+     * aparecer en el historial reciente
+     */
+    private void alConfirmar(Transaccion transaccion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    transactionHistoryStack.push(transaccion);
+                }
+            });
+        } else {
+            transactionHistoryStack.push(transaccion);
+        }
+    }
+
+    /**
+     * Transacciones archivadas de la cuenta (sin orden). Solo lee el disco si el índice tiene
+     * transacciones de la cuenta.
+     */
+    private List<TransaccionResponse> archivadas(CuentaDunab cuenta) {
+        if (archivoTransaccionesRepository.getCantidadesPorMes(cuenta.getId()).isEmpty()) {
+            return List.of();
+        }
+        return archivoTransaccionesRepository.buscar(cuenta.getId(), cuenta.getFechaCreacion(), LocalDateTime.now())
+                .stream()
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    /**
+     * Página del historial completo de la cuenta, base de datos y archivo, ordenado por fecha de
+     * creación (descendente si no se indica orden). Sin transacciones archivadas es la consulta
+     * paginada de siempre, con cualquier orden.
+     *
+     * Las transacciones archivadas de la cuenta son de meses anteriores a {@code limite}; de esos
+     * meses la base de datos solo conserva las ligadas a inscripciones de eventos, que son pocas.
+     * Ese tramo antiguo se arma y ordena en memoria (y solo se lee del disco si la página llega a
+     * él). Las de la base de datos desde {@code limite} son posteriores a todo el tramo antiguo y
+     * se paginan en la consulta, como máximo con dos páginas del mismo tamaño.
+     */
+    private Page<TransaccionResponse> paginarHistorial(CuentaDunab cuenta, Pageable pageable) {
+        Long cuentaId = cuenta.getId();
+        SortedMap<YearMonth, Integer> archivadasPorMes = archivoTransaccionesRepository.getCantidadesPorMes(cuentaId);
+        if (archivadasPorMes.isEmpty()) {
+            return transaccionRepository.findByCuentaIdDesde(cuentaId, cuenta.getFechaCreacion(), pageable)
+                    .map(this::mapToResponse);
+        }
+
+        Sort.Order porFecha = pageable.getSort().getOrderFor("fechaCreacion");
+        if (pageable.getSort().isSorted() && (porFecha == null || pageable.getSort().toList().size() > 1)) {
+            throw new InvalidOperationException(
+                    "El historial con transacciones archivadas solo se puede ordenar por fechaCreacion");
+        }
+        boolean descendente = porFecha == null || porFecha.isDescending();
+        Sort orden = Sort.by(descendente ? Sort.Direction.DESC : Sort.Direction.ASC, "fechaCreacion", "id");
+
+        LocalDateTime limite = archivadasPorMes.lastKey().plusMonths(1).atDay(1).atStartOfDay();
+        List<Transaccion> antiguasEnBase = transaccionRepository
+                .findByCuentaIdAndFechaBetween(cuentaId, cuenta.getFechaCreacion(), limite).stream()
+                .filter(transaccion -> transaccion.getFechaCreacion().isBefore(limite))
+                .toList();
+        long cantidadAntiguas = antiguasEnBase.size()
+                + archivadasPorMes.values().stream().mapToLong(Integer::longValue).sum();
+        Supplier<List<TransaccionResponse>> antiguas = () -> {
+            List<TransaccionResponse> tramo = new ArrayList<>(archivadas(cuenta));
+            antiguasEnBase.stream().map(this::mapToResponse).forEach(tramo::add);
+            tramo.sort(descendente ? POR_FECHA.reversed() : POR_FECHA);
+            return tramo;
+        };
+
+        long inicio = pageable.getOffset();
+        int tamano = pageable.getPageSize();
+        List<TransaccionResponse> contenido = new ArrayList<>(tamano);
+        long cantidadRecientes;
+        if (descendente) {
+            // Primero las recientes: la página de la consulta es la pedida
+            Page<Transaccion> recientes = transaccionRepository.findByCuentaIdDesde(
+                    cuentaId, limite, PageRequest.of(pageable.getPageNumber(), tamano, orden));
+            recientes.getContent().stream().map(this::mapToResponse).forEach(contenido::add);
+            cantidadRecientes = recientes.getTotalElements();
+            agregarTramo(contenido, antiguas, inicio - cantidadRecientes, tamano, cantidadAntiguas);
+        } else {
+            // Primero las antiguas; las recientes empiezan donde termina el tramo antiguo
+            agregarTramo(contenido, antiguas, inicio, tamano, cantidadAntiguas);
+            long desde = Math.max(0, inicio - cantidadAntiguas);
+            int pagina = (int) (desde / tamano);
+            Page<Transaccion> recientes = transaccionRepository.findByCuentaIdDesde(
+                    cuentaId, limite, PageRequest.of(pagina, tamano, orden));
+            cantidadRecientes = recientes.getTotalElements();
+            List<Transaccion> filas = new ArrayList<>(recientes.getContent());
+            if (contenido.size() < tamano && desde % tamano > 0 && recientes.hasNext()) {
+                filas.addAll(transaccionRepository.findByCuentaIdDesde(
+                        cuentaId, limite, PageRequest.of(pagina + 1, tamano, orden)).getContent());
+            }
+            filas.stream()
+                    .skip(desde % tamano)
+                    .limit(tamano - contenido.size())
+                    .map(this::mapToResponse)
+                    .forEach(contenido::add);
+        }
+        return new PageImpl<>(contenido, pageable, cantidadRecientes + cantidadAntiguas);
+    }
+
+    /**
+     * Agrega a la página las transacciones del tramo antiguo que le corresponden
+     *
+     * @param desde Posición de la página respecto del comienzo del tramo (negativa si la página
+     *              empieza antes del tramo)
+     */
+    private static void agregarTramo(List<TransaccionResponse> contenido, Supplier<List<TransaccionResponse>> tramo,
+                                     long desde, int tamano, long cantidad) {
+        long inicio = Math.max(0, desde);
+        long fin = Math.min(cantidad, desde + tamano);
+        if (inicio >= fin) {
+            return;
+        }
+        List<TransaccionResponse> transacciones = tramo.get();
+        contenido.addAll(transacciones.subList((int) Math.min(inicio, transacciones.size()),
+                (int) Math.min(fin, transacciones.size())));
     }
 
     /**
@@ -305,8 +732,7 @@ public class TransactionService {
         }
 
         // Obtener transacciones paginadas
-        Page<Transaccion> transacciones = transaccionRepository.findByCuentaId(cuentaOpt.get().getId(), pageable);
-        return transacciones.map(this::mapToResponse);
+        return paginarHistorial(cuentaOpt.get(), pageable);
     }
 
     /**
@@ -322,11 +748,11 @@ public class TransactionService {
             log.info("Usuario {} no tiene cuenta DUNAB aún. Retornando estadísticas en cero.", userId);
             return EstadisticasTransaccionResponse.builder()
                     .cuentaId(null)
-                    .saldoActual(BigDecimal.ZERO)
-                    .totalGanado(BigDecimal.ZERO)
-                    .totalGastado(BigDecimal.ZERO)
-                    .totalCreditos(BigDecimal.ZERO)
-                    .totalDebitos(BigDecimal.ZERO)
+                    .saldoActual(Dunab.CERO)
+                    .totalGanado(Dunab.CERO)
+                    .totalGastado(Dunab.CERO)
+                    .totalCreditos(Dunab.CERO)
+                    .totalDebitos(Dunab.CERO)
                     .totalTransacciones(0L)
                     .build();
         }
@@ -334,14 +760,15 @@ public class TransactionService {
         CuentaDunab cuenta = cuentaOpt.get();
 
         // Calcular estadísticas
-        BigDecimal totalCreditos = getTotalByTipo(cuenta.getId(), TransactionType.CREDITO);
-        BigDecimal totalDebitos = getTotalByTipo(cuenta.getId(), TransactionType.DEBITO);
-        Long totalTransacciones = contarTransaccionesCompletadas(cuenta.getId());
+        Dunab totalCreditos = getTotalByTipo(cuenta, TransactionType.CREDITO);
+        Dunab totalDebitos = getTotalByTipo(cuenta, TransactionType.DEBITO);
+        Long totalTransacciones = contarTransaccionesCompletadas(cuenta);
 
+        Dunab pendiente = subSaldoService.getPendiente(cuenta);
         return EstadisticasTransaccionResponse.builder()
                 .cuentaId(cuenta.getId())
-                .saldoActual(cuenta.getSaldoActual())
-                .totalGanado(cuenta.getTotalGanado())
+                .saldoActual(cuenta.getSaldoActual().sumar(pendiente))
+                .totalGanado(cuenta.getTotalGanado().sumar(pendiente))
                 .totalGastado(cuenta.getTotalGastado())
                 .totalCreditos(totalCreditos)
                 .totalDebitos(totalDebitos)
@@ -364,10 +791,20 @@ public class TransactionService {
         }
 
         // Obtener transacciones por categoría
-        List<Transaccion> transacciones = transaccionRepository.findByCuentaIdAndCategoriaId(cuentaOpt.get().getId(), categoriaId);
-        return transacciones.stream()
-                .map(this::mapToResponse)
+        // El archivo guarda el nombre de la categoría, no su id
+        CuentaDunab cuenta = cuentaOpt.get();
+        String categoria = categoriaTransaccionRepository.findById(categoriaId)
+                .map(CategoriaTransaccion::getNombre)
+                .orElse(null);
+        List<TransaccionResponse> transacciones = archivadas(cuenta).stream()
+                .filter(transaccion -> categoria != null && categoria.equals(transaccion.getCategoriaNombre()))
+                .sorted(POR_FECHA)
                 .collect(Collectors.toList());
+        transaccionRepository.findByCuentaIdAndCategoriaIdDesde(cuenta.getId(), categoriaId, cuenta.getFechaCreacion())
+                .stream()
+                .map(this::mapToResponse)
+                .forEach(transacciones::add);
+        return transacciones;
     }
 
     /**
@@ -389,11 +826,11 @@ public class TransactionService {
             return new java.util.HashMap<String, Object>() {{
                 put("mes", mesActual);
                 put("anio", anioActual);
-                put("totalCreditos", BigDecimal.ZERO);
-                put("totalDebitos", BigDecimal.ZERO);
-                put("diferencia", BigDecimal.ZERO);
+                put("totalCreditos", Dunab.CERO);
+                put("totalDebitos", Dunab.CERO);
+                put("diferencia", Dunab.CERO);
                 put("cantidadTransacciones", 0L);
-                put("saldoActual", BigDecimal.ZERO);
+                put("saldoActual", Dunab.CERO);
             }};
         }
 
@@ -403,20 +840,19 @@ public class TransactionService {
         LocalDateTime fechaInicio = LocalDateTime.of(anioActual, mesActual, 1, 0, 0, 0);
         LocalDateTime fechaFin = fechaInicio.plusMonths(1).minusSeconds(1);
 
-        // Obtener transacciones del mes
-        List<Transaccion> transacciones = transaccionRepository.findByCuentaIdAndFechaBetween(
-                cuenta.getId(), fechaInicio, fechaFin);
+        // Obtener transacciones del mes (de la base de datos o del archivo)
+        List<TransaccionResponse> transacciones = buscarPorFechas(cuenta.getId(), fechaInicio, fechaFin);
 
         // Calcular estadísticas del mes
-        BigDecimal totalCreditos = transacciones.stream()
+        Dunab totalCreditos = transacciones.stream()
                 .filter(t -> t.getTipo() == TransactionType.CREDITO && t.getEstado() == TransactionStatus.COMPLETADA)
-                .map(Transaccion::getMonto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .map(TransaccionResponse::getMonto)
+                .reduce(Dunab.CERO, Dunab::sumar);
 
-        BigDecimal totalDebitos = transacciones.stream()
+        Dunab totalDebitos = transacciones.stream()
                 .filter(t -> t.getTipo() == TransactionType.DEBITO && t.getEstado() == TransactionStatus.COMPLETADA)
-                .map(Transaccion::getMonto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .map(TransaccionResponse::getMonto)
+                .reduce(Dunab.CERO, Dunab::sumar);
 
         long cantidadTransacciones = transacciones.stream()
                 .filter(t -> t.getEstado() == TransactionStatus.COMPLETADA)
@@ -427,16 +863,17 @@ public class TransactionService {
             put("anio", anioActual);
             put("totalCreditos", totalCreditos);
             put("totalDebitos", totalDebitos);
-            put("diferencia", totalCreditos.subtract(totalDebitos));
+            put("diferencia", totalCreditos.restar(totalDebitos));
             put("cantidadTransacciones", cantidadTransacciones);
-            put("saldoActual", cuenta.getSaldoActual());
+            put("saldoActual", cuenta.getSaldoActual().sumar(subSaldoService.getPendiente(cuenta)));
         }};
     }
 
     /**
      * Mapea Transaccion a TransaccionResponse
+     * (visibilidad de paquete para los benchmarks JMH)
      */
-    private TransaccionResponse mapToResponse(Transaccion transaccion) {
+    TransaccionResponse mapToResponse(Transaccion transaccion) {
         return TransaccionResponse.builder()
                 .id(transaccion.getId())
                 .cuentaId(transaccion.getCuenta().getId())
@@ -456,4 +893,26 @@ public class TransactionService {
                 .fechaActualizacion(transaccion.getFechaActualizacion())
                 .build();
     }
+
+    /**
+     * Mapea una transacción del archivo en disco a TransaccionResponse
+     */
+    TransaccionResponse mapToResponse(TransaccionArchivada transaccion) {
+        return TransaccionResponse.builder()
+                .id(transaccion.getId())
+                .cuentaId(transaccion.getCuentaId())
+                .estudianteNombre(transaccion.getEstudianteNombre())
+                .tipo(transaccion.getTipo())
+                .monto(transaccion.getMonto())
+                .categoriaNombre(transaccion.getCategoriaNombre())
+                .descripcion(transaccion.getDescripcion())
+                .referencia(transaccion.getReferencia())
+                .estado(transaccion.getEstado())
+                .saldoAnterior(transaccion.getSaldoAnterior())
+                .saldoPosterior(transaccion.getSaldoPosterior())
+                .creadoPor(transaccion.getCreadoPor())
+                .fechaCreacion(transaccion.getFechaCreacion())
+                .fechaActualizacion(transaccion.getFechaActualizacion())
+                .build();
+    }
 }
@@ -0,0 +1,120 @@
+package com.unab.dunab.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Entradas a eventos registradas en la puerta que todavía no se escriben en la base de datos.
+ *
+ * Tiene dos partes: la cola FIFO de entradas pendientes de escribir, que el escritor vacía por
+ * lotes, y por evento el conjunto de estudiantes que ya entraron, para responder al instante si un
+ * token se escanea dos veces. Los conjuntos de un evento se liberan con {@link #purgarInactivos}
+ * cuando deja de registrar entradas.
+ */
+@Component
+public class CheckInBuffer {
+
+    private final ConcurrentLinkedQueue<Entrada> pendientes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cantidadPendientes = new AtomicInteger();
+    private final ConcurrentMap<Long, Registrados> porEvento = new ConcurrentHashMap<>();
+
+    /**
+     * Entrada de un estudiante a un evento, registrada por un usuario de la puerta
+     */
+    public record Entrada(Long eventoId, Long estudianteId, Long registradoPor) {
+    }
+
+    /**
+     * Registra la entrada si el estudiante no había entrado al evento y la deja pendiente de
+     * escribir
+     * Complejidad temporal: O(1)
+     *
+     * @return false si el estudiante ya había entrado
+     */
+    public boolean registrar(Entrada entrada) {
+        Registrados registrados = porEvento.computeIfAbsent(entrada.eventoId(), id -> new Registrados());
+        registrados.ultimoRegistroMs = System.currentTimeMillis();
+        if (!registrados.estudiantes.add(entrada.estudianteId())) {
+            return false;
+        }
+        pendientes.offer(entrada);
+        cantidadPendientes.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Saca de la cola hasta maximo entradas pendientes, en orden de llegada
+     * Complejidad temporal: O(maximo)
+     */
+    public List<Entrada> drenar(int maximo) {
+        List<Entrada> entradas = new ArrayList<>(Math.min(maximo, cantidadPendientes.get()));
+        Entrada entrada;
+        while (entradas.size() < maximo && (entrada = pendientes.poll()) != null) {
+            cantidadPendientes.decrementAndGet();
+            entradas.add(entrada);
+        }
+        return entradas;
+    }
+
+    /**
+     * Vuelve a dejar pendientes entradas drenadas que no se pudieron escribir; los estudiantes
+     * siguen registrados
+     * Complejidad temporal: O(entradas)
+     */
+    public void devolver(List<Entrada> entradas) {
+        pendientes.addAll(entradas);
+        cantidadPendientes.addAndGet(entradas.size());
+    }
+
+    /**
+     * Olvida la entrada de un estudiante (no se pudo confirmar): un nuevo escaneo la registra de nuevo
+     * Complejidad temporal: O(1)
+     */
+    public void olvidar(Long eventoId, Long estudianteId) {
+        Registrados registrados = porEvento.get(eventoId);
+        if (registrados != null) {
+            registrados.estudiantes.remove(estudianteId);
+        }
+    }
+
+    /**
+     * Libera los eventos sin entradas registradas desde el instante dado
+     * Complejidad temporal: O(eventos)
+     */
+    public void purgarInactivos(long desdeMs) {
+        porEvento.values().removeIf(registrados -> registrados.ultimoRegistroMs < desdeMs);
+    }
+
+    /**
+     * Entradas pendientes de escribir
+     */
+    public int pendientes() {
+        return cantidadPendientes.get();
+    }
+
+    /**
+     * Estudiantes con la entrada registrada en todos los eventos en memoria
+     */
+    public int registrados() {
+        return porEvento.values().stream().mapToInt(registrados -> registrados.estudiantes.size()).sum();
+    }
+
+    public void clear() {
+        pendientes.clear();
+        cantidadPendientes.set(0);
+        porEvento.clear();
+    }
+
+    private static final class Registrados {
+
+        private final Set<Long> estudiantes = ConcurrentHashMap.newKeySet();
+        private volatile long ultimoRegistroMs;
+    }
+}
@@ -0,0 +1,84 @@
+package com.unab.dunab.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lectura de líneas CSV separadas por comas, con campos entre comillas dobles (las comillas
+ * dentro de un campo se escriben dobles). Los archivos se leen línea por línea, así que un campo
+ * no puede contener saltos de línea.
+ */
+public final class CsvLineParser {
+
+    private CsvLineParser() {
+    }
+
+    /**
+     * Posición de cada columna del encabezado, por nombre en minúsculas (sin BOM inicial)
+     */
+    public static Map<String, Integer> leerEncabezado(String encabezado) {
+        if (encabezado.startsWith("\uFEFF")) {
+            encabezado = encabezado.substring(1);
+        }
+
+        Map<String, Integer> columnas = new HashMap<>();
+        List<String> nombres = dividirLinea(encabezado);
+        for (int i = 0; i < nombres.size(); i++) {
+            columnas.put(nombres.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return columnas;
+    }
+
+    /**
+     * Divide una línea CSV respetando campos entre comillas dobles
+     *
+     * @throws IllegalArgumentException si una comilla queda sin cerrar
+     */
+    public static List<String> dividirLinea(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar en la fila");
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    /**
+     * Valor de una columna en la línea, sin espacios alrededor (null si falta o está vacío)
+     */
+    public static String valor(List<String> valores, Map<String, Integer> columnas, String columna) {
+        Integer indice = columnas.get(columna);
+        if (indice == null || indice >= valores.size()) {
+            return null;
+        }
+        String valor = valores.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+}
@@ -0,0 +1,264 @@
+package com.unab.dunab.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contadores en memoria de los débitos de cada cuenta en ventanas deslizantes de un día y
+ * una semana, para verificar los límites de gasto sin consultar la base de datos.
+ *
+ * Cada cuenta tiene dos arreglos circulares (ring buffers): 24 cubetas de una hora y 7 cubetas
+ * de un día. Cada cubeta guarda el monto en centavos y la hora (o el día) que representa; al
+ * reutilizarse para un período nuevo se reinicia. La ventana diaria es la suma de las cubetas
+ * de las últimas 24 horas, incluida la actual, y la semanal la de los últimos 7 días.
+ * La resolución es de una cubeta: un débito sale de la ventana cuando sale su hora (o su día).
+ *
+ * Solo las cuentas con débitos en la última semana ocupan memoria (unos 400 bytes cada una);
+ * {@link #purgarInactivas} libera las demás.
+ */
+@Slf4j
+@Component
+public class DebitSlidingWindow {
+
+    private static final int HORAS = 24;
+    private static final int DIAS = 7;
+
+    private final ConcurrentMap<Long, Ventanas> porCuenta = new ConcurrentHashMap<>();
+
+    /**
+     * Ventana excedida por un débito
+     */
+    public enum Ventana {
+        DIARIA,
+        SEMANAL
+    }
+
+    /**
+     * Registra el débito solo si no supera los límites de las ventanas. La verificación y el
+     * registro son atómicos por cuenta, así que dos débitos concurrentes no pueden pasar ambos
+     * el límite.
+     * Complejidad temporal: O(24 + 7)
+     *
+     * @param limiteDiarioCentavos  límite de la ventana diaria (0 o negativo: sin límite)
+     * @param limiteSemanalCentavos límite de la ventana semanal (0 o negativo: sin límite)
+     * @return null si el débito se registró; si no, la ventana cuyo límite se superaría
+     */
+    public Ventana registrarSiCabe(Long cuentaId, long centavos, LocalDateTime instante,
+                                   long limiteDiarioCentavos, long limiteSemanalCentavos) {
+        long hora = hora(instante);
+        long dia = dia(instante);
+
+        Ventanas ventanas = bloquear(cuentaId);
+        try {
+            if (limiteDiarioCentavos > 0 && ventanas.sumaDiaria(hora) + centavos > limiteDiarioCentavos) {
+                return Ventana.DIARIA;
+            }
+            if (limiteSemanalCentavos > 0 && ventanas.sumaSemanal(dia) + centavos > limiteSemanalCentavos) {
+                return Ventana.SEMANAL;
+            }
+            ventanas.sumar(hora, dia, centavos);
+            return null;
+        } finally {
+            ventanas.lock.unlock();
+        }
+    }
+
+    /**
+     * Registra un débito sin verificar límites (reconstrucción al arrancar)
+     */
+    public void registrar(Long cuentaId, long centavos, LocalDateTime instante) {
+        Ventanas ventanas = bloquear(cuentaId);
+        try {
+            ventanas.sumar(hora(instante), dia(instante), centavos);
+        } finally {
+            ventanas.lock.unlock();
+        }
+    }
+
+    /**
+     * Descuenta un débito registrado en el instante dado (anulación o rollback). Si su hora o
+     * su día ya salieron de la ventana no hay nada que descontar en esa cubeta.
+     */
+    public void descontar(Long cuentaId, long centavos, LocalDateTime instante) {
+        Ventanas ventanas = porCuenta.get(cuentaId);
+        if (ventanas == null) {
+            return;
+        }
+        ventanas.lock.lock();
+        try {
+            ventanas.restar(hora(instante), dia(instante), centavos);
+        } finally {
+            ventanas.lock.unlock();
+        }
+    }
+
+    /**
+     * Débitos de la cuenta en la ventana diaria, en centavos
+     */
+    public long getGastoDiario(Long cuentaId, LocalDateTime ahora) {
+        Ventanas ventanas = porCuenta.get(cuentaId);
+        if (ventanas == null) {
+            return 0;
+        }
+        ventanas.lock.lock();
+        try {
+            return ventanas.sumaDiaria(hora(ahora));
+        } finally {
+            ventanas.lock.unlock();
+        }
+    }
+
+    /**
+     * Débitos de la cuenta en la ventana semanal, en centavos
+     */
+    public long getGastoSemanal(Long cuentaId, LocalDateTime ahora) {
+        Ventanas ventanas = porCuenta.get(cuentaId);
+        if (ventanas == null) {
+            return 0;
+        }
+        ventanas.lock.lock();
+        try {
+            return ventanas.sumaSemanal(dia(ahora));
+        } finally {
+            ventanas.lock.unlock();
+        }
+    }
+
+    /**
+     * Elimina las cuentas sin débitos en la última semana. Cada cuenta se verifica y se elimina
+     * con su bloqueo tomado y queda marcada como eliminada: un débito que obtuvo sus ventanas
+     * antes de la purga y espera el bloqueo vuelve a buscarlas en el mapa en lugar de sumarse a
+     * unas que ya no están.
+     *
+     * @return cantidad de cuentas eliminadas
+     */
+    public int purgarInactivas(LocalDateTime ahora) {
+        long dia = dia(ahora);
+        int eliminadas = 0;
+        for (Map.Entry<Long, Ventanas> entrada : porCuenta.entrySet()) {
+            Ventanas ventanas = entrada.getValue();
+            ventanas.lock.lock();
+            try {
+                if (!ventanas.eliminada && ventanas.sumaSemanal(dia) == 0) {
+                    ventanas.eliminada = true;
+                    porCuenta.remove(entrada.getKey(), ventanas);
+                    eliminadas++;
+                }
+            } finally {
+                ventanas.lock.unlock();
+            }
+        }
+        return eliminadas;
+    }
+
+    /**
+     * Cantidad de cuentas con contadores en memoria
+     */
+    public int size() {
+        return porCuenta.size();
+    }
+
+    public void clear() {
+        porCuenta.clear();
+    }
+
+    /**
+     * Ventanas de la cuenta con su bloqueo tomado; si la purga las eliminó mientras se esperaba
+     * el bloqueo, se crean unas nuevas
+     */
+    private Ventanas bloquear(Long cuentaId) {
+        while (true) {
+            Ventanas ventanas = porCuenta.computeIfAbsent(cuentaId, id -> new Ventanas());
+            ventanas.lock.lock();
+            if (!ventanas.eliminada) {
+                return ventanas;
+            }
+            ventanas.lock.unlock();
+        }
+    }
+
+    private static long hora(LocalDateTime instante) {
+        return instante.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    private static long dia(LocalDateTime instante) {
+        return instante.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Arreglos circulares de una cuenta; cada cubeta recuerda el período que representa
+     */
+    private static final class Ventanas {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** Quitada del mapa por la purga; se lee y se escribe con el bloqueo tomado */
+        private boolean eliminada;
+        private final long[] montoHora = new long[HORAS];
+        private final long[] marcaHora = new long[HORAS];
+        private final long[] montoDia = new long[DIAS];
+        private final long[] marcaDia = new long[DIAS];
+
+        private long sumaDiaria(long horaActual) {
+            long suma = 0;
+            for (int i = 0; i < HORAS; i++) {
+                if (marcaHora[i] > horaActual - HORAS && marcaHora[i] <= horaActual) {
+                    suma += montoHora[i];
+                }
+            }
+            return suma;
+        }
+
+        private long sumaSemanal(long diaActual) {
+            long suma = 0;
+            for (int i = 0; i < DIAS; i++) {
+                if (marcaDia[i] > diaActual - DIAS && marcaDia[i] <= diaActual) {
+                    suma += montoDia[i];
+                }
+            }
+            return suma;
+        }
+
+        /**
+         * Si la cubeta ya representa un período más reciente, el débito quedó fuera de esa
+         * ventana y no se suma (pasa al reconstruir, cuando las filas no llegan en orden)
+         */
+        private void sumar(long hora, long dia, long centavos) {
+            int h = (int) Math.floorMod(hora, HORAS);
+            if (marcaHora[h] < hora) {
+                marcaHora[h] = hora;
+                montoHora[h] = 0;
+            }
+            if (marcaHora[h] == hora) {
+                montoHora[h] += centavos;
+            }
+
+            int d = (int) Math.floorMod(dia, DIAS);
+            if (marcaDia[d] < dia) {
+                marcaDia[d] = dia;
+                montoDia[d] = 0;
+            }
+            if (marcaDia[d] == dia) {
+                montoDia[d] += centavos;
+            }
+        }
+
+        private void restar(long hora, long dia, long centavos) {
+            int h = (int) Math.floorMod(hora, HORAS);
+            if (marcaHora[h] == hora) {
+                montoHora[h] = Math.max(0, montoHora[h] - centavos);
+            }
+            int d = (int) Math.floorMod(dia, DIAS);
+            if (marcaDia[d] == dia) {
+                montoDia[d] = Math.max(0, montoDia[d] - centavos);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.unab.dunab.utils;
+
+import com.unab.dunab.dto.response.EventoResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * Calendario en memoria de los eventos activos y futuros, ordenado por fecha (y por id entre los
+ * de la misma fecha), para responder los próximos eventos sin consultar la base de datos.
+ *
+ * Es un mapa concurrente ordenado (fecha, id) → evento más el índice id → (fecha, id), que permite
+ * mover o quitar un evento sin buscarlo. Cada cambio de un evento se hace dentro del compute del
+ * índice sobre su id, así que dos cambios simultáneos del mismo evento no dejan una entrada
+ * huérfana. Los eventos que ya comenzaron se descartan al consultar: siempre están al principio.
+ */
+@Component
+public class EventCalendar {
+
+    private static final Comparator<Clave> ORDEN = Comparator.comparing(Clave::fecha).thenComparing(Clave::id);
+
+    private final ConcurrentNavigableMap<Clave, EventoResponse> porFecha = new ConcurrentSkipListMap<>(ORDEN);
+    private final ConcurrentMap<Long, Clave> clavePorEvento = new ConcurrentHashMap<>();
+
+    private record Clave(LocalDateTime fecha, Long id) {
+    }
+
+    /**
+     * Agrega el evento o lo mueve a su nueva fecha
+     * Complejidad temporal: O(log n)
+     */
+    public void poner(EventoResponse evento) {
+        Clave clave = new Clave(evento.getFechaEvento(), evento.getId());
+        clavePorEvento.compute(evento.getId(), (id, anterior) -> {
+            if (anterior != null && !anterior.equals(clave)) {
+                porFecha.remove(anterior);
+            }
+            porFecha.put(clave, evento);
+            return clave;
+        });
+    }
+
+    /**
+     * Quita el evento (eliminado, inactivo o movido al pasado)
+     * Complejidad temporal: O(log n)
+     */
+    public void quitar(Long eventoId) {
+        clavePorEvento.computeIfPresent(eventoId, (id, clave) -> {
+            porFecha.remove(clave);
+            return null;
+        });
+    }
+
+    /**
+     * Reemplaza el contenido por los eventos dados (recarga desde la base de datos)
+     * Complejidad temporal: O(n log n)
+     */
+    public void reemplazar(Collection<EventoResponse> eventos) {
+        Set<Long> vigentes = eventos.stream().map(EventoResponse::getId).collect(Collectors.toSet());
+        for (Long eventoId : clavePorEvento.keySet()) {
+            if (!vigentes.contains(eventoId)) {
+                quitar(eventoId);
+            }
+        }
+        eventos.forEach(this::poner);
+    }
+
+    /**
+     * Los primeros eventos posteriores a ahora, en orden de fecha; descarta los que ya comenzaron
+     * Complejidad temporal: O(limite + descartados)
+     */
+    public List<EventoResponse> proximos(LocalDateTime ahora, int limite) {
+        Map.Entry<Clave, EventoResponse> primero;
+        while ((primero = porFecha.firstEntry()) != null && !primero.getKey().fecha().isAfter(ahora)) {
+            Clave vencida = primero.getKey();
+            clavePorEvento.computeIfPresent(vencida.id(), (id, clave) -> {
+                if (!clave.equals(vencida)) {
+                    return clave;
+                }
+                porFecha.remove(clave);
+                return null;
+            });
+            porFecha.remove(vencida);
+        }
+
+        List<EventoResponse> eventos = new ArrayList<>(Math.max(0, Math.min(limite, clavePorEvento.size())));
+        for (EventoResponse evento : porFecha.values()) {
+            if (eventos.size() >= limite) {
+                break;
+            }
+            eventos.add(evento);
+        }
+        return eventos;
+    }
+
+    /**
+     * Eventos en el calendario
+     * Complejidad temporal: O(1)
+     */
+    public int size() {
+        return clavePorEvento.size();
+    }
+
+    public void clear() {
+        clavePorEvento.clear();
+        porFecha.clear();
+    }
+}
@@ -0,0 +1,391 @@
+package com.unab.dunab.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Estadísticas de ocupación de los eventos en memoria: capacidad y cupos ocupados de cada evento,
+ * un ranking por tasa de ocupación y un histograma de inscripciones y cancelaciones por hora de
+ * la última semana.
+ *
+ * El histograma de cada evento es un arreglo circular de {@link #HORAS} ranuras, una por hora: la
+ * ranura de una hora se reutiliza una semana después. Cada ranura lleva además lo que aún no se
+ * guardó en la base de datos ({@link #tomarPendientes()}). El ranking es un conjunto ordenado por
+ * tasa de ocupación que se reordena en cada inscripción o cancelación. Cada cambio de un evento se
+ * hace dentro del compute del mapa sobre su id, así que el ranking y el histograma del evento
+ * cambian juntos.
+ */
+@Component
+public class EventOccupancyStats {
+
+    /**
+     * Horas de historial de cada evento (una semana)
+     */
+    public static final int HORAS = 168;
+
+    private static final long HORA_MS = 3_600_000;
+
+    /**
+     * Horas que cuentan como inscripciones recientes en el ranking
+     */
+    private static final int HORAS_RECIENTES = 24;
+
+    /**
+     * Mayor tasa de ocupación primero; con la misma tasa, más cupos ocupados y luego menor id
+     */
+    private static final Comparator<Posicion> POR_OCUPACION = (a, b) -> {
+        int porTasa = Long.compare((long) b.ocupados() * a.capacidad(), (long) a.ocupados() * b.capacidad());
+        if (porTasa != 0) {
+            return porTasa;
+        }
+        int porOcupados = Integer.compare(b.ocupados(), a.ocupados());
+        return porOcupados != 0 ? porOcupados : a.eventoId().compareTo(b.eventoId());
+    };
+
+    /**
+     * Ocupación de un evento e inscripciones de sus últimas 24 horas
+     */
+    public record Ocupacion(Long eventoId, String nombre, LocalDateTime fechaEvento, int capacidad, int ocupados,
+                            int inscripcionesRecientes) {
+    }
+
+    /**
+     * Inscripciones y cancelaciones de una hora (horaMs es el inicio de la hora)
+     */
+    public record Hora(long horaMs, int inscripciones, int cancelaciones) {
+    }
+
+    /**
+     * Inscripciones y cancelaciones de una hora de un evento aún no guardadas
+     */
+    public record Pendiente(Long eventoId, long horaMs, int inscripciones, int cancelaciones) {
+    }
+
+    private record Posicion(Long eventoId, int ocupados, int capacidad) {
+    }
+
+    private final ConcurrentMap<Long, Estadisticas> porEvento = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Posicion> ranking = new ConcurrentSkipListSet<>(POR_OCUPACION);
+    private final Set<Long> conPendientes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Pendientes de eventos que se quitaron antes de guardarlos
+     */
+    private final Queue<Pendiente> pendientesQuitados = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Agrega el evento o actualiza sus datos (capacidad y cupos ocupados según la base de datos)
+     * Complejidad temporal: O(log n)
+     */
+    public void registrarEvento(Long eventoId, String nombre, LocalDateTime fechaEvento, int capacidad, int ocupados) {
+        porEvento.compute(eventoId, (id, estadisticas) -> {
+            if (estadisticas == null) {
+                estadisticas = new Estadisticas();
+            }
+            estadisticas.nombre = nombre;
+            estadisticas.fechaEvento = fechaEvento;
+            estadisticas.capacidad = capacidad;
+            estadisticas.ocupados = ocupados;
+            reubicar(id, estadisticas);
+            return estadisticas;
+        });
+    }
+
+    /**
+     * Quita el evento (eliminado, inactivo o ya ocurrido); lo que tenía pendiente de guardar se
+     * conserva para la próxima escritura
+     * Complejidad temporal: O(log n)
+     */
+    public void quitarEvento(Long eventoId) {
+        porEvento.computeIfPresent(eventoId, (id, estadisticas) -> {
+            if (estadisticas.posicion != null) {
+                ranking.remove(estadisticas.posicion);
+            }
+            estadisticas.tomarPendientes(id, pendientesQuitados);
+            return null;
+        });
+    }
+
+    /**
+     * Quita los eventos que no están entre los vigentes
+     * Complejidad temporal: O(n)
+     */
+    public void retener(Set<Long> vigentes) {
+        for (Long eventoId : porEvento.keySet()) {
+            if (!vigentes.contains(eventoId)) {
+                quitarEvento(eventoId);
+            }
+        }
+    }
+
+    /**
+     * Inscripción que ocupó un cupo del evento, en la hora de ahoraMs
+     * Complejidad temporal: O(log n)
+     */
+    public void inscripcion(Long eventoId, long ahoraMs) {
+        contar(eventoId, ahoraMs, 1, 0);
+    }
+
+    /**
+     * Cancelación que liberó un cupo del evento, en la hora de ahoraMs
+     * Complejidad temporal: O(log n)
+     */
+    public void cancelacion(Long eventoId, long ahoraMs) {
+        contar(eventoId, ahoraMs, 0, 1);
+    }
+
+    /**
+     * Suma al histograma del evento los conteos guardados de una hora (carga inicial); no quedan
+     * pendientes de guardar
+     * Complejidad temporal: O(1)
+     */
+    public void cargarHora(Long eventoId, long horaMs, int inscripciones, int cancelaciones) {
+        porEvento.computeIfPresent(eventoId, (id, estadisticas) -> {
+            estadisticas.sumar(horaMs / HORA_MS, inscripciones, cancelaciones, false);
+            return estadisticas;
+        });
+    }
+
+    /**
+     * Los eventos con mayor tasa de ocupación, de mayor a menor
+     * Complejidad temporal: O(limite)
+     */
+    public List<Ocupacion> ranking(int limite, long ahoraMs) {
+        List<Ocupacion> ocupaciones = new ArrayList<>(Math.max(0, Math.min(limite, porEvento.size())));
+        for (Posicion posicion : ranking) {
+            if (ocupaciones.size() >= limite) {
+                break;
+            }
+            Ocupacion ocupacion = ocupacion(posicion.eventoId(), ahoraMs);
+            if (ocupacion != null) {
+                ocupaciones.add(ocupacion);
+            }
+        }
+        return ocupaciones;
+    }
+
+    /**
+     * Ocupación del evento, o null si no está en las estadísticas
+     * Complejidad temporal: O(1)
+     */
+    public Ocupacion ocupacion(Long eventoId, long ahoraMs) {
+        Ocupacion[] ocupacion = new Ocupacion[1];
+        porEvento.computeIfPresent(eventoId, (id, estadisticas) -> {
+            long hora = ahoraMs / HORA_MS;
+            int recientes = 0;
+            for (int i = 0; i < HORAS_RECIENTES; i++) {
+                recientes += estadisticas.inscripciones(hora - i);
+            }
+            ocupacion[0] = new Ocupacion(id, estadisticas.nombre, estadisticas.fechaEvento,
+                    estadisticas.capacidad, estadisticas.ocupados, recientes);
+            return estadisticas;
+        });
+        return ocupacion[0];
+    }
+
+    /**
+     * Inscripciones y cancelaciones del evento en las últimas horas (hasta {@link #HORAS}), de la
+     * más antigua a la actual, incluidas las horas sin movimiento; null si el evento no está
+     * Complejidad temporal: O(horas)
+     */
+    public List<Hora> serie(Long eventoId, int horas, long ahoraMs) {
+        int cantidad = Math.min(horas, HORAS);
+        List<Hora> serie = new ArrayList<>(cantidad);
+        Estadisticas encontradas = porEvento.computeIfPresent(eventoId, (id, estadisticas) -> {
+            long actual = ahoraMs / HORA_MS;
+            for (long hora = actual - cantidad + 1; hora <= actual; hora++) {
+                serie.add(new Hora(hora * HORA_MS, estadisticas.inscripciones(hora), estadisticas.cancelaciones(hora)));
+            }
+            return estadisticas;
+        });
+        return encontradas == null ? null : serie;
+    }
+
+    /**
+     * Saca los conteos por hora aún no guardados; si no se pueden guardar, se devuelven con
+     * {@link #devolver}
+     * Complejidad temporal: O(eventos con pendientes · HORAS)
+     */
+    public List<Pendiente> tomarPendientes() {
+        List<Pendiente> pendientes = new ArrayList<>();
+        Pendiente quitado;
+        while ((quitado = pendientesQuitados.poll()) != null) {
+            pendientes.add(quitado);
+        }
+        for (Long eventoId : conPendientes) {
+            conPendientes.remove(eventoId);
+            porEvento.computeIfPresent(eventoId, (id, estadisticas) -> {
+                estadisticas.tomarPendientes(id, pendientes);
+                return estadisticas;
+            });
+        }
+        return pendientes;
+    }
+
+    /**
+     * Vuelve a dejar pendientes los conteos que no se pudieron guardar
+     * Complejidad temporal: O(pendientes)
+     */
+    public void devolver(List<Pendiente> pendientes) {
+        for (Pendiente pendiente : pendientes) {
+            Estadisticas estadisticas = porEvento.computeIfPresent(pendiente.eventoId(), (id, actuales) -> {
+                actuales.sumarPendiente(pendiente.horaMs() / HORA_MS, pendiente.inscripciones(),
+                        pendiente.cancelaciones());
+                return actuales;
+            });
+            if (estadisticas == null) {
+                pendientesQuitados.add(pendiente);
+            } else {
+                conPendientes.add(pendiente.eventoId());
+            }
+        }
+    }
+
+    /**
+     * Eventos con estadísticas
+     * Complejidad temporal: O(1)
+     */
+    public int size() {
+        return porEvento.size();
+    }
+
+    public void clear() {
+        porEvento.clear();
+        ranking.clear();
+        conPendientes.clear();
+        pendientesQuitados.clear();
+    }
+
+    private void contar(Long eventoId, long ahoraMs, int inscripciones, int cancelaciones) {
+        porEvento.compute(eventoId, (id, estadisticas) -> {
+            if (estadisticas == null) {
+                // Evento que aún no se cargó (creado en otra instancia): cuenta, pero entra al
+                // ranking cuando se conozca su capacidad
+                estadisticas = new Estadisticas();
+            }
+            estadisticas.ocupados = Math.max(0, estadisticas.ocupados + inscripciones - cancelaciones);
+            estadisticas.sumar(ahoraMs / HORA_MS, inscripciones, cancelaciones, true);
+            reubicar(id, estadisticas);
+            return estadisticas;
+        });
+        conPendientes.add(eventoId);
+    }
+
+    private void reubicar(Long eventoId, Estadisticas estadisticas) {
+        if (estadisticas.posicion != null) {
+            ranking.remove(estadisticas.posicion);
+            estadisticas.posicion = null;
+        }
+        if (estadisticas.capacidad > 0) {
+            estadisticas.posicion = new Posicion(eventoId, estadisticas.ocupados, estadisticas.capacidad);
+            ranking.add(estadisticas.posicion);
+        }
+    }
+
+    /**
+     * Datos y histograma de un evento; solo se leen y escriben dentro del compute de porEvento.
+     * Los arreglos se crean con la primera inscripción o cancelación.
+     */
+    private static final class Estadisticas {
+
+        private String nombre;
+        private LocalDateTime fechaEvento;
+        private int capacidad;
+        private int ocupados;
+        private Posicion posicion;
+
+        /**
+         * Hora (desde la época) que ocupa cada ranura
+         */
+        private long[] horas;
+        private int[] inscripciones;
+        private int[] cancelaciones;
+        private int[] inscripcionesPendientes;
+        private int[] cancelacionesPendientes;
+
+        private void sumar(long hora, int nuevasInscripciones, int nuevasCancelaciones, boolean pendiente) {
+            int ranura = ranura(hora);
+            if (ranura < 0) {
+                return;
+            }
+            inscripciones[ranura] += nuevasInscripciones;
+            cancelaciones[ranura] += nuevasCancelaciones;
+            if (pendiente) {
+                inscripcionesPendientes[ranura] += nuevasInscripciones;
+                cancelacionesPendientes[ranura] += nuevasCancelaciones;
+            }
+        }
+
+        private void sumarPendiente(long hora, int nuevasInscripciones, int nuevasCancelaciones) {
+            int ranura = ranura(hora);
+            if (ranura >= 0) {
+                inscripcionesPendientes[ranura] += nuevasInscripciones;
+                cancelacionesPendientes[ranura] += nuevasCancelaciones;
+            }
+        }
+
+        /**
+         * Ranura de la hora, limpiándola si tenía una hora anterior; -1 si la ranura ya tiene una
+         * hora más reciente (la pedida quedó fuera de la semana)
+         */
+        private int ranura(long hora) {
+            if (horas == null) {
+                horas = new long[HORAS];
+                Arrays.fill(horas, Long.MIN_VALUE);
+                inscripciones = new int[HORAS];
+                cancelaciones = new int[HORAS];
+                inscripcionesPendientes = new int[HORAS];
+                cancelacionesPendientes = new int[HORAS];
+            }
+            int ranura = (int) Math.floorMod(hora, (long) HORAS);
+            if (horas[ranura] > hora) {
+                return -1;
+            }
+            if (horas[ranura] < hora) {
+                // Lo pendiente de hace una semana se pierde solo si no se guardó en todo ese tiempo
+                horas[ranura] = hora;
+                inscripciones[ranura] = 0;
+                cancelaciones[ranura] = 0;
+                inscripcionesPendientes[ranura] = 0;
+                cancelacionesPendientes[ranura] = 0;
+            }
+            return ranura;
+        }
+
+        private int inscripciones(long hora) {
+            int ranura = (int) Math.floorMod(hora, (long) HORAS);
+            return horas != null && horas[ranura] == hora ? inscripciones[ranura] : 0;
+        }
+
+        private int cancelaciones(long hora) {
+            int ranura = (int) Math.floorMod(hora, (long) HORAS);
+            return horas != null && horas[ranura] == hora ? cancelaciones[ranura] : 0;
+        }
+
+        private void tomarPendientes(Long eventoId, Collection<Pendiente> destino) {
+            if (horas == null) {
+                return;
+            }
+            for (int ranura = 0; ranura < HORAS; ranura++) {
+                if (inscripcionesPendientes[ranura] != 0 || cancelacionesPendientes[ranura] != 0) {
+                    destino.add(new Pendiente(eventoId, horas[ranura] * HORA_MS,
+                            inscripcionesPendientes[ranura], cancelacionesPendientes[ranura]));
+                    inscripcionesPendientes[ranura] = 0;
+                    cancelacionesPendientes[ranura] = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.unab.dunab.utils;
+
+import com.unab.dunab.dto.response.EventoResponse;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido de búsqueda sobre un conjunto fijo de eventos (inmutable: un cambio en los
+ * eventos se refleja construyendo otro índice).
+ *
+ * Los eventos se numeran en orden de fecha, así que una ventana de fechas es un rango contiguo de
+ * posiciones que se encuentra con búsqueda binaria. Cada término (palabra en minúsculas y sin
+ * tildes) de nombre, descripción y ubicación guarda las posiciones de los eventos que lo contienen,
+ * y la ubicación tiene además su propio vocabulario para el filtro de lugar. Un término frecuente
+ * las guarda en un BitSet; uno raro, en un arreglo ordenado de posiciones, porque un BitSet ocupa
+ * un bit por evento aunque el término aparezca en uno solo. Gratuito y con recompensa son BitSet
+ * precalculados. Una consulta combina los BitSet con and/andNot, de a 64 eventos por operación, y
+ * solo crea objetos para la página que devuelve.
+ */
+public final class EventSearchIndex {
+
+    /**
+     * Un término de la consulta de al menos este largo también encuentra las palabras que empiezan
+     * con él ("confer" encuentra "conferencia"); uno más corto debe coincidir completo
+     */
+    private static final int LARGO_MINIMO_PREFIJO = 3;
+
+    private static final Comparator<EventoResponse> POR_FECHA =
+            Comparator.comparing(EventoResponse::getFechaEvento).thenComparing(EventoResponse::getId);
+
+    /**
+     * Filtros de una búsqueda; los nulos no filtran. La ventana de fechas incluye sus extremos.
+     *
+     * @param texto     Palabras que deben aparecer todas en nombre, descripción o ubicación
+     * @param ubicacion Palabras que deben aparecer todas en la ubicación
+     * @param gratuito  true solo gratuitos, false solo con costo
+     */
+    public record Consulta(String texto, String ubicacion, LocalDateTime desde, LocalDateTime hasta,
+                           Boolean gratuito, Boolean conRecompensa) {
+    }
+
+    /**
+     * Página de resultados, en orden de fecha, y el total de eventos que cumplen la consulta
+     */
+    public record Resultado(List<EventoResponse> eventos, int total) {
+    }
+
+    private final EventoResponse[] eventos;
+    private final LocalDateTime[] fechas;
+    private final Vocabulario texto;
+    private final Vocabulario ubicaciones;
+    private final BitSet gratuitos;
+    private final BitSet conRecompensa;
+
+    private EventSearchIndex(EventoResponse[] eventos, Vocabulario texto, Vocabulario ubicaciones,
+                             BitSet gratuitos, BitSet conRecompensa) {
+        this.eventos = eventos;
+        this.fechas = Arrays.stream(eventos).map(EventoResponse::getFechaEvento).toArray(LocalDateTime[]::new);
+        this.texto = texto;
+        this.ubicaciones = ubicaciones;
+        this.gratuitos = gratuitos;
+        this.conRecompensa = conRecompensa;
+    }
+
+    /**
+     * Construye el índice de los eventos dados (los que no tienen fecha no se indexan)
+     * Complejidad temporal: O(n log n + palabras)
+     */
+    public static EventSearchIndex construir(Collection<EventoResponse> eventos) {
+        EventoResponse[] ordenados = eventos.stream()
+                .filter(evento -> evento.getFechaEvento() != null)
+                .sorted(POR_FECHA)
+                .toArray(EventoResponse[]::new);
+
+        Map<String, Posiciones> texto = new HashMap<>();
+        Map<String, Posiciones> ubicaciones = new HashMap<>();
+        BitSet gratuitos = new BitSet(ordenados.length);
+        BitSet conRecompensa = new BitSet(ordenados.length);
+        for (int posicion = 0; posicion < ordenados.length; posicion++) {
+            EventoResponse evento = ordenados[posicion];
+            for (String campo : new String[]{evento.getNombre(), evento.getDescripcion(), evento.getUbicacion()}) {
+                for (String termino : terminos(campo)) {
+                    texto.computeIfAbsent(termino, t -> new Posiciones()).agregar(posicion);
+                }
+            }
+            for (String termino : terminos(evento.getUbicacion())) {
+                ubicaciones.computeIfAbsent(termino, t -> new Posiciones()).agregar(posicion);
+            }
+            if (evento.getCostoDunab() != null && evento.getCostoDunab().esCero()) {
+                gratuitos.set(posicion);
+            }
+            if (evento.getRecompensaDunab() != null && evento.getRecompensaDunab().esPositivo()) {
+                conRecompensa.set(posicion);
+            }
+        }
+        return new EventSearchIndex(ordenados, new Vocabulario(texto, ordenados.length),
+                new Vocabulario(ubicaciones, ordenados.length), gratuitos, conRecompensa);
+    }
+
+    /**
+     * Busca los eventos que cumplen la consulta y devuelve los de la página pedida
+     * Complejidad temporal: O(n/64 · términos de la consulta + posiciones saltadas hasta la página)
+     */
+    public Resultado buscar(Consulta consulta, int page, int size) {
+        int inicio = consulta.desde() == null ? 0 : primeraPosterior(consulta.desde(), false);
+        int fin = consulta.hasta() == null ? eventos.length : primeraPosterior(consulta.hasta(), true);
+        if (inicio >= fin) {
+            return new Resultado(List.of(), 0);
+        }
+
+        BitSet coincidencias = new BitSet(eventos.length);
+        coincidencias.set(inicio, fin);
+        if (!filtrarPorTerminos(coincidencias, texto, consulta.texto())
+                || !filtrarPorTerminos(coincidencias, ubicaciones, consulta.ubicacion())) {
+            return new Resultado(List.of(), 0);
+        }
+        filtrar(coincidencias, gratuitos, consulta.gratuito());
+        filtrar(coincidencias, conRecompensa, consulta.conRecompensa());
+
+        int total = coincidencias.cardinality();
+        long saltar = (long) page * size;
+        List<EventoResponse> pagina = new ArrayList<>(Math.max(0, Math.min(size, total)));
+        if (saltar < total) {
+            int posicion = coincidencias.nextSetBit(0);
+            for (long i = 0; i < saltar; i++) {
+                posicion = coincidencias.nextSetBit(posicion + 1);
+            }
+            while (posicion >= 0 && pagina.size() < size) {
+                pagina.add(eventos[posicion]);
+                posicion = coincidencias.nextSetBit(posicion + 1);
+            }
+        }
+        return new Resultado(pagina, total);
+    }
+
+    /**
+     * Eventos en el índice
+     */
+    public int size() {
+        return eventos.length;
+    }
+
+    /**
+     * Términos de un texto: palabras en minúsculas, sin tildes ni diéresis ("Auditorio Mayor,
+     * Edificio Ingenierías" → auditorio, mayor, edificio, ingenierias)
+     */
+    private static List<String> terminos(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        // En NFD las tildes quedan como marcas separadas de la letra, y se descartan
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        List<String> terminos = new ArrayList<>();
+        StringBuilder termino = new StringBuilder();
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                termino.append(Character.toLowerCase(c));
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && !termino.isEmpty()) {
+                terminos.add(termino.toString());
+                termino.setLength(0);
+            }
+        }
+        if (!termino.isEmpty()) {
+            terminos.add(termino.toString());
+        }
+        return terminos;
+    }
+
+    /**
+     * Deja en coincidencias solo los eventos que contienen todos los términos del texto; false si
+     * algún término no aparece en ningún evento
+     */
+    private static boolean filtrarPorTerminos(BitSet coincidencias, Vocabulario vocabulario, String texto) {
+        for (String termino : terminos(texto)) {
+            if (!vocabulario.filtrar(coincidencias, termino)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void filtrar(BitSet coincidencias, BitSet conjunto, Boolean incluir) {
+        if (Boolean.TRUE.equals(incluir)) {
+            coincidencias.and(conjunto);
+        } else if (Boolean.FALSE.equals(incluir)) {
+            coincidencias.andNot(conjunto);
+        }
+    }
+
+    /**
+     * Primera posición con fecha posterior a la dada (o igual, si no se incluye la fecha)
+     * Complejidad temporal: O(log n)
+     */
+    private int primeraPosterior(LocalDateTime fecha, boolean incluirIgual) {
+        int bajo = 0;
+        int alto = fechas.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            int comparacion = fechas[medio].compareTo(fecha);
+            if (comparacion < 0 || (incluirIgual && comparacion == 0)) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Términos en orden alfabético con los eventos de cada uno: los que empiezan con un prefijo
+     * quedan contiguos y se encuentran con búsqueda binaria. Cada término tiene su BitSet (en
+     * densos) o su arreglo de posiciones (en dispersos), según cuál ocupe menos.
+     */
+    private static final class Vocabulario {
+
+        private final String[] terminos;
+        private final BitSet[] densos;
+        private final int[][] dispersos;
+
+        private Vocabulario(Map<String, Posiciones> porTermino, int eventos) {
+            this.terminos = porTermino.keySet().toArray(String[]::new);
+            Arrays.sort(terminos);
+            this.densos = new BitSet[terminos.length];
+            this.dispersos = new int[terminos.length][];
+            for (int i = 0; i < terminos.length; i++) {
+                Posiciones posiciones = porTermino.get(terminos[i]);
+                // Un BitSet ocupa eventos / 8 bytes; el arreglo, 4 bytes por posición
+                if (posiciones.cantidad > eventos / 32) {
+                    BitSet bits = new BitSet(eventos);
+                    for (int j = 0; j < posiciones.cantidad; j++) {
+                        bits.set(posiciones.valores[j]);
+                    }
+                    densos[i] = bits;
+                } else {
+                    dispersos[i] = Arrays.copyOf(posiciones.valores, posiciones.cantidad);
+                }
+            }
+        }
+
+        /**
+         * Deja en coincidencias los eventos con el término (o con una palabra que empieza con él);
+         * false si no queda ninguno
+         */
+        private boolean filtrar(BitSet coincidencias, String termino) {
+            int posicion = Arrays.binarySearch(terminos, termino);
+            int desde = posicion >= 0 ? posicion : -posicion - 1;
+            int hasta = desde;
+            if (termino.length() < LARGO_MINIMO_PREFIJO) {
+                hasta = posicion >= 0 ? desde + 1 : desde;
+            } else {
+                while (hasta < terminos.length && terminos[hasta].startsWith(termino)) {
+                    hasta++;
+                }
+            }
+
+            if (hasta - desde == 1 && densos[desde] != null) {
+                coincidencias.and(densos[desde]);
+            } else {
+                BitSet alguno = new BitSet(coincidencias.length());
+                for (int i = desde; i < hasta; i++) {
+                    if (densos[i] != null) {
+                        alguno.or(densos[i]);
+                    } else {
+                        for (int evento : dispersos[i]) {
+                            alguno.set(evento);
+                        }
+                    }
+                }
+                coincidencias.and(alguno);
+            }
+            return !coincidencias.isEmpty();
+        }
+    }
+
+    /**
+     * Posiciones de los eventos con un término, mientras se construye el índice (crecientes y sin
+     * repetir: los eventos se recorren en orden)
+     */
+    private static final class Posiciones {
+
+        private int[] valores = new int[2];
+        private int cantidad;
+
+        private void agregar(int posicion) {
+            if (cantidad > 0 && valores[cantidad - 1] == posicion) {
+                return;
+            }
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, cantidad * 2);
+            }
+            valores[cantidad++] = posicion;
+        }
+    }
+}
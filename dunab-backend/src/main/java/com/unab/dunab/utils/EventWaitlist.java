@@ -0,0 +1,210 @@
+package com.unab.dunab.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listas de espera de los eventos llenos, en memoria: por evento, los estudiantes en espera
+ * ordenados por turno (FIFO). Es el reflejo de las inscripciones EN_ESPERA, que guardan su turno
+ * en la base de datos, y se reconstruye al arrancar.
+ *
+ * Cada evento tiene un mapa concurrente ordenado turno → estudiante (la fila), el índice inverso
+ * estudiante → turno y un árbol de Fenwick indexado por turno que cuenta los turnos en la fila. Los
+ * turnos de un evento son consecutivos y no se reutilizan, así que la posición de un estudiante es
+ * la cantidad de turnos en la fila antes del suyo, más uno: una suma de prefijos en O(log n) que
+ * descuenta a quienes salieron por delante. El árbol se modifica y se lee con el bloqueo de la fila;
+ * primero y tieneEspera no lo usan.
+ */
+@Component
+public class EventWaitlist {
+
+    private final ConcurrentMap<Long, Fila> porEvento = new ConcurrentHashMap<>();
+
+    /**
+     * Asigna el siguiente turno del evento. El estudiante entra a la fila con {@link #agregar}
+     * cuando su inscripción se confirma; un turno asignado que no llega a la fila queda como hueco.
+     * Complejidad temporal: O(1)
+     */
+    public long siguienteTurno(Long eventoId) {
+        return fila(eventoId).siguienteTurno.getAndIncrement();
+    }
+
+    /**
+     * Pone al estudiante en la fila con el turno dado
+     * Complejidad temporal: O(log n)
+     */
+    public void agregar(Long eventoId, Long estudianteId, long turno) {
+        Fila fila = fila(eventoId);
+        fila.siguienteTurno.accumulateAndGet(turno + 1, Math::max);
+        synchronized (fila) {
+            fila.asegurarCapacidad(turno);
+            Long anterior = fila.turnoPorEstudiante.put(estudianteId, turno);
+            if (anterior != null && anterior != turno && fila.estudiantePorTurno.remove(anterior, estudianteId)) {
+                fila.sumar(anterior, -1);
+            }
+            if (fila.estudiantePorTurno.put(turno, estudianteId) == null) {
+                fila.sumar(turno, 1);
+            }
+        }
+    }
+
+    /**
+     * Saca al estudiante de la fila (promovido o retirado)
+     * Complejidad temporal: O(log n)
+     *
+     * @return true si estaba en la fila
+     */
+    public boolean quitar(Long eventoId, Long estudianteId) {
+        Fila fila = porEvento.get(eventoId);
+        if (fila == null) {
+            return false;
+        }
+        synchronized (fila) {
+            Long turno = fila.turnoPorEstudiante.remove(estudianteId);
+            if (turno == null) {
+                return false;
+            }
+            if (fila.estudiantePorTurno.remove(turno, estudianteId)) {
+                fila.sumar(turno, -1);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Primer estudiante de la fila, sin sacarlo
+     * Complejidad temporal: O(1)
+     *
+     * @return id del estudiante o null si la fila está vacía
+     */
+    public Long primero(Long eventoId) {
+        Fila fila = porEvento.get(eventoId);
+        if (fila == null) {
+            return null;
+        }
+        Map.Entry<Long, Long> primero = fila.estudiantePorTurno.firstEntry();
+        return primero != null ? primero.getValue() : null;
+    }
+
+    /**
+     * Posición del estudiante en la fila (1 es el primero)
+     * Complejidad temporal: O(log n)
+     *
+     * @return la posición o null si el estudiante no está en la fila
+     */
+    public Integer posicion(Long eventoId, Long estudianteId) {
+        Fila fila = porEvento.get(eventoId);
+        if (fila == null) {
+            return null;
+        }
+        synchronized (fila) {
+            Long turno = fila.turnoPorEstudiante.get(estudianteId);
+            return turno != null ? fila.contarHasta(turno - 1) + 1 : null;
+        }
+    }
+
+    /**
+     * Posición que ocupa el turno dado, esté o no en la fila todavía
+     * Complejidad temporal: O(log n)
+     */
+    public int posicionDeTurno(Long eventoId, long turno) {
+        Fila fila = fila(eventoId);
+        synchronized (fila) {
+            return fila.contarHasta(turno - 1) + 1;
+        }
+    }
+
+    public boolean tieneEspera(Long eventoId) {
+        Fila fila = porEvento.get(eventoId);
+        return fila != null && !fila.estudiantePorTurno.isEmpty();
+    }
+
+    /**
+     * Eventos con estudiantes en espera
+     */
+    public Iterable<Long> eventosConEspera() {
+        return porEvento.entrySet().stream()
+                .filter(entrada -> !entrada.getValue().estudiantePorTurno.isEmpty())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Cantidad de estudiantes en espera en todos los eventos
+     */
+    public int size() {
+        return porEvento.values().stream().mapToInt(fila -> fila.turnoPorEstudiante.size()).sum();
+    }
+
+    public void clear() {
+        porEvento.clear();
+    }
+
+    private Fila fila(Long eventoId) {
+        return porEvento.computeIfAbsent(eventoId, id -> new Fila());
+    }
+
+    private static final class Fila {
+
+        private static final int CAPACIDAD_INICIAL = 64;
+
+        private final ConcurrentSkipListMap<Long, Long> estudiantePorTurno = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<Long, Long> turnoPorEstudiante = new ConcurrentHashMap<>();
+        private final AtomicLong siguienteTurno = new AtomicLong(1);
+
+        /**
+         * Árbol de Fenwick (base 1): la suma de prefijos hasta t es la cantidad de turnos en la
+         * fila menores o iguales a t. Se usa con el bloqueo de la fila.
+         */
+        private int[] arbol = new int[CAPACIDAD_INICIAL];
+
+        /**
+         * Duplica el árbol hasta que quepa el turno y lo reconstruye con los turnos de la fila
+         * Complejidad temporal: O(n) amortizado
+         */
+        private void asegurarCapacidad(long turno) {
+            if (turno < 1) {
+                throw new IllegalArgumentException("Los turnos empiezan en 1: " + turno);
+            }
+            if (turno < arbol.length) {
+                return;
+            }
+            int capacidad = arbol.length;
+            while (capacidad <= turno) {
+                capacidad = Math.multiplyExact(capacidad, 2);
+            }
+            arbol = new int[capacidad];
+            for (Long enFila : estudiantePorTurno.keySet()) {
+                arbol[enFila.intValue()]++;
+            }
+            for (int i = 1; i < capacidad; i++) {
+                int padre = i + (i & -i);
+                if (padre < capacidad) {
+                    arbol[padre] += arbol[i];
+                }
+            }
+        }
+
+        private void sumar(long turno, int delta) {
+            for (int i = (int) turno; i < arbol.length; i += i & -i) {
+                arbol[i] += delta;
+            }
+        }
+
+        /**
+         * Turnos en la fila menores o iguales al dado
+         */
+        private int contarHasta(long turno) {
+            int cantidad = 0;
+            for (int i = (int) Math.min(turno, arbol.length - 1); i > 0; i -= i & -i) {
+                cantidad += arbol[i];
+            }
+            return cantidad;
+        }
+    }
+}
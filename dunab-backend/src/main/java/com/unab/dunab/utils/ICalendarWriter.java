@@ -0,0 +1,99 @@
+package com.unab.dunab.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Escritura de un calendario iCalendar (RFC 5545) en un flujo, propiedad por propiedad, sin armar
+ * el documento en memoria.
+ *
+ * Cada propiedad es una línea terminada en CRLF; una línea de más de 75 bytes se parte y la
+ * continuación empieza con un espacio. En los textos se escapan barra invertida, punto y coma, coma
+ * y saltos de línea. Las fechas se escriben en UTC (sufijo Z), así que no hace falta VTIMEZONE.
+ */
+public final class ICalendarWriter {
+
+    private static final int MAXIMO_BYTES_LINEA = 75;
+
+    private static final DateTimeFormatter FECHA_UTC =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final Writer salida;
+
+    public ICalendarWriter(OutputStream salida) {
+        this.salida = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Escribe una propiedad con el valor tal cual (BEGIN, UID, STATUS...)
+     */
+    public void propiedad(String nombre, String valor) throws IOException {
+        escribirLinea(nombre + ":" + valor);
+    }
+
+    /**
+     * Escribe una propiedad de texto con el valor escapado; un valor nulo o vacío no se escribe
+     */
+    public void texto(String nombre, String valor) throws IOException {
+        if (valor == null || valor.isBlank()) {
+            return;
+        }
+        StringBuilder escapado = new StringBuilder(valor.length() + 8);
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\', ';', ',' -> escapado.append('\\').append(c);
+                case '\n' -> escapado.append("\\n");
+                case '\r' -> {
+                    // CRLF se escribe como un solo salto
+                }
+                default -> escapado.append(c);
+            }
+        }
+        escribirLinea(nombre + ":" + escapado);
+    }
+
+    /**
+     * Escribe una propiedad de fecha y hora en UTC (DTSTART, DTSTAMP...)
+     */
+    public void fecha(String nombre, Instant instante) throws IOException {
+        escribirLinea(nombre + ":" + FECHA_UTC.format(instante));
+    }
+
+    /**
+     * Envía al flujo lo escrito hasta ahora
+     */
+    public void flush() throws IOException {
+        salida.flush();
+    }
+
+    /**
+     * Escribe la línea partida cada 75 bytes UTF-8, sin separar los caracteres de varios bytes
+     * Complejidad temporal: O(largo de la línea)
+     */
+    private void escribirLinea(String linea) throws IOException {
+        int bytesLinea = 0;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            boolean par = Character.isHighSurrogate(c) && i + 1 < linea.length();
+            int bytes = par ? 4 : c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            if (bytesLinea + bytes > MAXIMO_BYTES_LINEA) {
+                salida.write("\r\n ");
+                bytesLinea = 1;
+            }
+            salida.write(c);
+            if (par) {
+                salida.write(linea.charAt(++i));
+            }
+            bytesLinea += bytes;
+        }
+        salida.write("\r\n");
+    }
+}
@@ -4,9 +4,10 @@ import com.unab.dunab.model.Notificacion;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.Optional;
-import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 
 /**
@@ -21,15 +22,18 @@ import java.util.stream.Collectors;
  * - peek: Ver la primera notificación sin removerla
  * - isEmpty: Verificar si la cola está vacía
  * - size: Obtener cantidad de notificaciones en cola
+ *
+ * Implementación: LinkedBlockingQueue, segura entre hilos (la cola es un singleton compartido
+ * por todas las peticiones) y basada en ReentrantLock, por lo que no fija hilos virtuales.
  */
 @Slf4j
 @Component
 public class NotificationQueue {
 
-    private final Queue<Notificacion> queue;
+    private final BlockingQueue<Notificacion> queue;
 
     public NotificationQueue() {
-        this.queue = new LinkedList<>();
+        this.queue = new LinkedBlockingQueue<>();
         log.info("NotificationQueue inicializada - Estructura: Queue (FIFO)");
     }
 
@@ -135,9 +139,14 @@ public class NotificationQueue {
      * @return Cantidad de notificaciones removidas
      */
     public int removeNotificacionesByEstudiante(Long estudianteId) {
-        int initialSize = queue.size();
-        queue.removeIf(n -> n.getEstudiante().getId().equals(estudianteId));
-        int removedCount = initialSize - queue.size();
+        // Se cuenta cada remoción: con otros hilos encolando, la diferencia de tamaños no es exacta
+        int removedCount = 0;
+        for (Iterator<Notificacion> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().getEstudiante().getId().equals(estudianteId)) {
+                it.remove();
+                removedCount++;
+            }
+        }
 
         if (removedCount > 0) {
             log.info("Notificaciones removidas de la cola para estudiante {}: {}",
@@ -0,0 +1,203 @@
+package com.unab.dunab.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Recordatorios de eventos programados en una rueda de tiempo jerárquica (timing wheel) con
+ * resolución de un minuto.
+ *
+ * Son cuatro niveles de 64 ranuras: el nivel 0 cubre los próximos 64 minutos con una ranura por
+ * minuto, el nivel 1 los próximos 64² minutos (casi 3 días) con una ranura por cada 64 minutos, y
+ * así hasta el nivel 3 (unos 31 años). Cada recordatorio se pone en el nivel más bajo que alcanza
+ * su minuto de disparo. Al avanzar un minuto solo se revisa la ranura de ese minuto en el nivel 0;
+ * cuando el minuto completa una vuelta de un nivel inferior, la ranura correspondiente del nivel
+ * superior se vacía y sus recordatorios bajan de nivel. Programar y cancelar no dependen de cuántos
+ * recordatorios haya, y avanzar solo toca los que vencen o bajan de nivel.
+ *
+ * Un recordatorio programado en el pasado vence en el siguiente avance.
+ */
+@Component
+public class ReminderTimingWheel {
+
+    private static final long MINUTO_MS = 60_000;
+    private static final int BITS_RANURA = 6;
+    private static final int RANURAS = 1 << BITS_RANURA;
+    private static final int NIVELES = 4;
+
+    /**
+     * Recordatorio de un evento con la antelación dada
+     */
+    public record Recordatorio(Long eventoId, Duration antelacion) {
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Set<Tarea>> ranuras = new ArrayList<>(NIVELES * RANURAS);
+    private final Set<Tarea> vencidas = new LinkedHashSet<>();
+    private final Map<Long, List<Tarea>> porEvento = new HashMap<>();
+
+    /**
+     * Último minuto procesado (minutos desde la época)
+     */
+    private long actual;
+    private volatile int tamano;
+
+    public ReminderTimingWheel() {
+        for (int i = 0; i < NIVELES * RANURAS; i++) {
+            ranuras.add(new HashSet<>());
+        }
+        actual = System.currentTimeMillis() / MINUTO_MS;
+    }
+
+    /**
+     * Programa el recordatorio para el minuto de disparoMs (vence al comenzar ese minuto)
+     * Complejidad temporal: O(1)
+     */
+    public void programar(Recordatorio recordatorio, long disparoMs) {
+        Tarea tarea = new Tarea(recordatorio, disparoMs / MINUTO_MS);
+        lock.lock();
+        try {
+            porEvento.computeIfAbsent(recordatorio.eventoId(), id -> new ArrayList<>()).add(tarea);
+            colocar(tarea);
+            tamano++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Quita los recordatorios programados del evento
+     * Complejidad temporal: O(recordatorios del evento)
+     */
+    public void cancelar(Long eventoId) {
+        lock.lock();
+        try {
+            List<Tarea> tareas = porEvento.remove(eventoId);
+            if (tareas != null) {
+                tareas.forEach(this::sacar);
+                tamano -= tareas.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Avanza la rueda hasta el minuto de ahoraMs y devuelve los recordatorios vencidos, que dejan
+     * de estar programados
+     * Complejidad temporal: O(minutos avanzados + recordatorios vencidos o que bajan de nivel)
+     */
+    public List<Recordatorio> avanzar(long ahoraMs) {
+        long objetivo = ahoraMs / MINUTO_MS;
+        lock.lock();
+        try {
+            List<Tarea> disparadas = new ArrayList<>(vencidas);
+            vencidas.clear();
+            while (actual < objetivo) {
+                actual++;
+                for (int nivel = NIVELES - 1; nivel > 0; nivel--) {
+                    if ((actual & ((1L << (BITS_RANURA * nivel)) - 1)) == 0) {
+                        bajarNivel(nivel);
+                    }
+                }
+                Set<Tarea> ranura = ranuras.get((int) (actual & (RANURAS - 1)));
+                disparadas.addAll(ranura);
+                ranura.clear();
+                disparadas.addAll(vencidas);
+                vencidas.clear();
+            }
+
+            List<Recordatorio> recordatorios = new ArrayList<>(disparadas.size());
+            for (Tarea tarea : disparadas) {
+                List<Tarea> delEvento = porEvento.get(tarea.recordatorio.eventoId());
+                delEvento.remove(tarea);
+                if (delEvento.isEmpty()) {
+                    porEvento.remove(tarea.recordatorio.eventoId());
+                }
+                recordatorios.add(tarea.recordatorio);
+            }
+            tamano -= disparadas.size();
+            return recordatorios;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Recordatorios programados
+     */
+    public int size() {
+        return tamano;
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            ranuras.forEach(Set::clear);
+            vencidas.clear();
+            porEvento.clear();
+            tamano = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Vacía la ranura del nivel que corresponde al minuto actual y vuelve a colocar sus
+     * recordatorios, que caen en niveles inferiores
+     */
+    private void bajarNivel(int nivel) {
+        int indice = nivel * RANURAS + (int) ((actual >>> (BITS_RANURA * nivel)) & (RANURAS - 1));
+        List<Tarea> tareas = new ArrayList<>(ranuras.get(indice));
+        ranuras.get(indice).clear();
+        tareas.forEach(this::colocar);
+    }
+
+    private void colocar(Tarea tarea) {
+        long faltan = tarea.minuto - actual;
+        if (faltan <= 0) {
+            tarea.indice = -1;
+            vencidas.add(tarea);
+            return;
+        }
+        int nivel = 0;
+        while (nivel < NIVELES - 1 && faltan >= 1L << (BITS_RANURA * (nivel + 1))) {
+            nivel++;
+        }
+        tarea.indice = nivel * RANURAS + (int) ((tarea.minuto >>> (BITS_RANURA * nivel)) & (RANURAS - 1));
+        ranuras.get(tarea.indice).add(tarea);
+    }
+
+    private void sacar(Tarea tarea) {
+        if (tarea.indice < 0) {
+            vencidas.remove(tarea);
+        } else {
+            ranuras.get(tarea.indice).remove(tarea);
+        }
+    }
+
+    /**
+     * Recordatorio en la rueda: su minuto de disparo y la ranura donde está (-1 si ya venció).
+     * Se compara por identidad: el mismo recordatorio puede programarse dos veces.
+     */
+    private static final class Tarea {
+
+        private final Recordatorio recordatorio;
+        private final long minuto;
+        private int indice;
+
+        private Tarea(Recordatorio recordatorio, long minuto) {
+            this.recordatorio = recordatorio;
+            this.minuto = minuto;
+        }
+    }
+}
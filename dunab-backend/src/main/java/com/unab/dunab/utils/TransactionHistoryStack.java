@@ -4,11 +4,12 @@ import com.unab.dunab.model.Transaccion;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
-import java.util.Stack;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Pila (Stack) para gestión del historial reciente de transacciones DUNAB.
@@ -24,16 +25,21 @@ import java.util.stream.Collectors;
  * - isEmpty: Verificar si la pila está vacía
  * - size: Obtener cantidad de transacciones en pila
  * - getRecent: Obtener las N transacciones más recientes
+ *
+ * Implementación: ArrayDeque con el tope en la cabeza, de modo que descartar la transacción
+ * más antigua (la cola) también es O(1). El acceso se protege con un ReentrantLock en lugar
+ * de los métodos synchronized de java.util.Stack, que fijan (pin) los hilos virtuales.
  */
 @Slf4j
 @Component
 public class TransactionHistoryStack {
 
-    private final Stack<Transaccion> stack;
+    private final Deque<Transaccion> stack;
+    private final ReentrantLock lock = new ReentrantLock();
     private static final int MAX_SIZE = 100; // Límite de transacciones en memoria
 
     public TransactionHistoryStack() {
-        this.stack = new Stack<>();
+        this.stack = new ArrayDeque<>(MAX_SIZE);
         log.info("TransactionHistoryStack inicializada - Estructura: Stack (LIFO), Tamaño máximo: {}",
                 MAX_SIZE);
     }
@@ -51,13 +57,17 @@ public class TransactionHistoryStack {
             return;
         }
 
-        // Si alcanzamos el tamaño máximo, removemos la transacción más antigua (del fondo)
-        if (stack.size() >= MAX_SIZE) {
-            stack.remove(0);
-            log.debug("Tamaño máximo alcanzado. Transacción más antigua removida.");
+        lock.lock();
+        try {
+            // Si alcanzamos el tamaño máximo, removemos la transacción más antigua (del fondo)
+            if (stack.size() >= MAX_SIZE) {
+                stack.pollLast();
+            }
+            stack.push(transaccion);
+        } finally {
+            lock.unlock();
         }
 
-        stack.push(transaccion);
         log.debug("Transacción agregada a la pila. ID: {}, Cuenta: {}, Monto: {}",
                  transaccion.getId(),
                  transaccion.getCuenta().getId(),
@@ -71,12 +81,19 @@ public class TransactionHistoryStack {
      * @return Optional con la transacción o empty si la pila está vacía
      */
     public Optional<Transaccion> pop() {
-        if (stack.isEmpty()) {
+        Transaccion transaccion;
+        lock.lock();
+        try {
+            transaccion = stack.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+
+        if (transaccion == null) {
             log.debug("Intento de pop en pila vacía");
             return Optional.empty();
         }
 
-        Transaccion transaccion = stack.pop();
         log.debug("Transacción removida de la pila. ID: {}, Cuenta: {}",
                  transaccion.getId(),
                  transaccion.getCuenta().getId());
@@ -90,10 +107,12 @@ public class TransactionHistoryStack {
      * @return Optional con la transacción o empty si la pila está vacía
      */
     public Optional<Transaccion> peek() {
-        if (stack.isEmpty()) {
-            return Optional.empty();
+        lock.lock();
+        try {
+            return Optional.ofNullable(stack.peekFirst());
+        } finally {
+            lock.unlock();
         }
-        return Optional.of(stack.peek());
     }
 
     /**
@@ -103,7 +122,7 @@ public class TransactionHistoryStack {
      * @return true si la pila no tiene elementos
      */
     public boolean isEmpty() {
-        return stack.isEmpty();
+        return size() == 0;
     }
 
     /**
@@ -113,7 +132,12 @@ public class TransactionHistoryStack {
      * @return Cantidad de transacciones en la pila
      */
     public int size() {
-        return stack.size();
+        lock.lock();
+        try {
+            return stack.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -121,8 +145,14 @@ public class TransactionHistoryStack {
      * Complejidad temporal: O(1)
      */
     public void clear() {
-        int size = stack.size();
-        stack.clear();
+        int size;
+        lock.lock();
+        try {
+            size = stack.size();
+            stack.clear();
+        } finally {
+            lock.unlock();
+        }
         log.info("Pila de transacciones limpiada. Elementos removidos: {}", size);
     }
 
@@ -140,12 +170,18 @@ public class TransactionHistoryStack {
             return new ArrayList<>();
         }
 
-        int count = Math.min(limit, stack.size());
-        List<Transaccion> recent = new ArrayList<>();
-
-        // Obtenemos los últimos N elementos sin modificar la pila
-        for (int i = stack.size() - 1; i >= stack.size() - count; i--) {
-            recent.add(stack.get(i));
+        List<Transaccion> recent = new ArrayList<>(Math.min(limit, MAX_SIZE));
+        lock.lock();
+        try {
+            // Recorremos desde el tope sin modificar la pila
+            for (Transaccion transaccion : stack) {
+                if (recent.size() == limit) {
+                    break;
+                }
+                recent.add(transaccion);
+            }
+        } finally {
+            lock.unlock();
         }
 
         log.debug("Obtenidas {} transacciones recientes de la pila", recent.size());
@@ -159,10 +195,12 @@ public class TransactionHistoryStack {
      * @return Lista con todas las transacciones (ordenadas de más reciente a más antigua)
      */
     public List<Transaccion> getAll() {
-        List<Transaccion> all = new ArrayList<>(stack);
-        // Revertir para que las más recientes estén primero
-        java.util.Collections.reverse(all);
-        return all;
+        lock.lock();
+        try {
+            return new ArrayList<>(stack);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -170,12 +208,10 @@ public class TransactionHistoryStack {
      * Complejidad temporal: O(n)
      *
      * @param cuentaId ID de la cuenta
-     * @return Lista de transacciones de la cuenta
+     * @return Lista de transacciones de la cuenta (ordenadas de más reciente a más antigua)
      */
     public List<Transaccion> getTransaccionesByCuenta(Long cuentaId) {
-        return stack.stream()
-                .filter(t -> t.getCuenta().getId().equals(cuentaId))
-                .collect(Collectors.toList());
+        return getRecentByCuenta(cuentaId, MAX_SIZE);
     }
 
     /**
@@ -187,10 +223,21 @@ public class TransactionHistoryStack {
      * @return Lista con las transacciones más recientes de la cuenta
      */
     public List<Transaccion> getRecentByCuenta(Long cuentaId, int limit) {
-        return stack.stream()
-                .filter(t -> t.getCuenta().getId().equals(cuentaId))
-                .limit(limit)
-                .collect(Collectors.toList());
+        List<Transaccion> recientes = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Transaccion transaccion : stack) {
+                if (recientes.size() >= limit) {
+                    break;
+                }
+                if (transaccion.getCuenta().getId().equals(cuentaId)) {
+                    recientes.add(transaccion);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return recientes;
     }
 
     /**
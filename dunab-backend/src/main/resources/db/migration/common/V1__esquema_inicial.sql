@@ -0,0 +1,119 @@
+-- Esquema inicial DUNAB (equivalente al que generaba Hibernate con ddl-auto=update).
+-- SQL compatible con PostgreSQL y con H2 en modo PostgreSQL (perfil dev).
+
+CREATE TABLE users (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre              VARCHAR(100) NOT NULL,
+    apellido            VARCHAR(100) NOT NULL,
+    email               VARCHAR(150) NOT NULL,
+    password            VARCHAR(255) NOT NULL,
+    codigo_estudiante   VARCHAR(20),
+    telefono            VARCHAR(20),
+    programa            VARCHAR(150),
+    semestre            INTEGER,
+    activo              BOOLEAN      NOT NULL,
+    fecha_creacion      TIMESTAMP(6) NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_codigo_estudiante UNIQUE (codigo_estudiante)
+);
+
+CREATE TABLE cuentas_dunab (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    estudiante_id       BIGINT         NOT NULL,
+    saldo_actual        NUMERIC(10, 2) NOT NULL,
+    total_ganado        NUMERIC(10, 2) NOT NULL,
+    total_gastado       NUMERIC(10, 2) NOT NULL,
+    estado              VARCHAR(20)    NOT NULL,
+    limite_transaccion  NUMERIC(10, 2),
+    fecha_creacion      TIMESTAMP(6)   NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    CONSTRAINT uk_cuentas_dunab_estudiante UNIQUE (estudiante_id),
+    CONSTRAINT fk_cuentas_dunab_estudiante FOREIGN KEY (estudiante_id) REFERENCES users (id)
+);
+
+CREATE TABLE categorias_transaccion (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre         VARCHAR(50)  NOT NULL,
+    descripcion    VARCHAR(200),
+    tipo           VARCHAR(20)  NOT NULL,
+    activa         BOOLEAN      NOT NULL,
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_categorias_transaccion_nombre UNIQUE (nombre)
+);
+
+CREATE TABLE transacciones (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cuenta_id               BIGINT         NOT NULL,
+    tipo                    VARCHAR(20)    NOT NULL,
+    monto                   NUMERIC(10, 2) NOT NULL,
+    categoria_id            BIGINT,
+    descripcion             VARCHAR(500)   NOT NULL,
+    referencia              VARCHAR(100),
+    estado                  VARCHAR(20)    NOT NULL,
+    saldo_anterior          NUMERIC(10, 2),
+    saldo_posterior         NUMERIC(10, 2),
+    creado_por              BIGINT,
+    justificacion_anulacion VARCHAR(500),
+    anulado_por             BIGINT,
+    fecha_anulacion         TIMESTAMP(6),
+    fecha_creacion          TIMESTAMP(6)   NOT NULL,
+    fecha_actualizacion     TIMESTAMP(6),
+    CONSTRAINT fk_transacciones_cuenta FOREIGN KEY (cuenta_id) REFERENCES cuentas_dunab (id),
+    CONSTRAINT fk_transacciones_categoria FOREIGN KEY (categoria_id) REFERENCES categorias_transaccion (id),
+    CONSTRAINT fk_transacciones_creado_por FOREIGN KEY (creado_por) REFERENCES users (id),
+    CONSTRAINT fk_transacciones_anulado_por FOREIGN KEY (anulado_por) REFERENCES users (id)
+);
+
+CREATE TABLE notificaciones (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    estudiante_id  BIGINT       NOT NULL,
+    tipo           VARCHAR(50)  NOT NULL,
+    mensaje        VARCHAR(500) NOT NULL,
+    leida          BOOLEAN      NOT NULL,
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    fecha_lectura  TIMESTAMP(6),
+    CONSTRAINT fk_notificaciones_estudiante FOREIGN KEY (estudiante_id) REFERENCES users (id)
+);
+
+CREATE TABLE eventos (
+    id                     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre                 VARCHAR(200)   NOT NULL,
+    descripcion            VARCHAR(1000),
+    fecha_evento           TIMESTAMP(6)   NOT NULL,
+    ubicacion              VARCHAR(200),
+    capacidad_maxima       INTEGER,
+    costo_dunab            NUMERIC(10, 2),
+    recompensa_dunab       NUMERIC(10, 2),
+    activo                 BOOLEAN        NOT NULL,
+    requiere_confirmacion  BOOLEAN        NOT NULL,
+    fecha_creacion         TIMESTAMP(6)   NOT NULL,
+    fecha_actualizacion    TIMESTAMP(6)
+);
+
+CREATE TABLE inscripciones_evento (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    evento_id                 BIGINT       NOT NULL,
+    estudiante_id             BIGINT       NOT NULL,
+    estado                    VARCHAR(20)  NOT NULL,
+    transaccion_pago_id       BIGINT,
+    transaccion_recompensa_id BIGINT,
+    fecha_inscripcion         TIMESTAMP(6) NOT NULL,
+    fecha_confirmacion        TIMESTAMP(6),
+    fecha_actualizacion       TIMESTAMP(6),
+    CONSTRAINT uk_inscripciones_evento_estudiante UNIQUE (evento_id, estudiante_id),
+    CONSTRAINT fk_inscripciones_evento FOREIGN KEY (evento_id) REFERENCES eventos (id),
+    CONSTRAINT fk_inscripciones_estudiante FOREIGN KEY (estudiante_id) REFERENCES users (id),
+    CONSTRAINT fk_inscripciones_transaccion_pago FOREIGN KEY (transaccion_pago_id) REFERENCES transacciones (id),
+    CONSTRAINT fk_inscripciones_transaccion_recompensa FOREIGN KEY (transaccion_recompensa_id) REFERENCES transacciones (id)
+);
+
+CREATE TABLE materias (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    codigo      VARCHAR(20)   NOT NULL,
+    nombre      VARCHAR(200)  NOT NULL,
+    creditos    INTEGER       NOT NULL,
+    descripcion VARCHAR(1000),
+    activa      BOOLEAN       NOT NULL,
+    CONSTRAINT uk_materias_codigo UNIQUE (codigo)
+);
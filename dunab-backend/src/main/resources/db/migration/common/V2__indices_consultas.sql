@@ -0,0 +1,31 @@
+-- Índices para las consultas de TransaccionRepository, NotificacionRepository y EventoRepository.
+-- PostgreSQL no indexa las llaves foráneas automáticamente; cada índice empieza por la
+-- columna de filtro (cuenta_id, estudiante_id) para que también cubra las búsquedas por FK.
+
+-- findByCuentaId (paginado), findByCuentaIdOrderByFechaCreacionDesc, findByCuentaIdAndFechaBetween
+CREATE INDEX idx_transacciones_cuenta_fecha ON transacciones (cuenta_id, fecha_creacion);
+
+-- findByCuentaIdAndTipo, findByCuentaIdAndTipoAndEstado, getTotalByTipo
+-- (monto al final: SUM(monto) se resuelve solo con el índice)
+CREATE INDEX idx_transacciones_cuenta_tipo_estado ON transacciones (cuenta_id, tipo, estado, monto);
+
+-- findByCuentaIdAndEstado, countTransaccionesCompletadas
+CREATE INDEX idx_transacciones_cuenta_estado ON transacciones (cuenta_id, estado);
+
+-- findByCuentaIdAndCategoriaId
+CREATE INDEX idx_transacciones_cuenta_categoria ON transacciones (cuenta_id, categoria_id);
+
+-- countNoLeidas, findByEstudianteIdAndLeida
+CREATE INDEX idx_notificaciones_estudiante_leida ON notificaciones (estudiante_id, leida);
+
+-- findByEstudianteIdOrderByFechaCreacionDesc
+CREATE INDEX idx_notificaciones_estudiante_fecha ON notificaciones (estudiante_id, fecha_creacion);
+
+-- findEventosProximos, findByActivoTrue
+CREATE INDEX idx_eventos_activo_fecha ON eventos (activo, fecha_evento);
+
+-- findByFechaEventoAfter, findByFechaEventoBetween
+CREATE INDEX idx_eventos_fecha ON eventos (fecha_evento);
+
+-- Inscripciones de un estudiante (la restricción única cubre las búsquedas por evento)
+CREATE INDEX idx_inscripciones_evento_estudiante ON inscripciones_evento (estudiante_id);
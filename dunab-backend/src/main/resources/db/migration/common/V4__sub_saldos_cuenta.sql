@@ -0,0 +1,15 @@
+-- Sub-saldos de cuentas con mucha concurrencia de créditos (cafetería, organizadores de eventos).
+-- sub_saldos es la cantidad de filas de sub_saldos_cuenta de la cuenta (0: modo normal).
+-- Los créditos se suman a una de esas filas en lugar de la fila de la cuenta, y la compactación
+-- los pasa periódicamente a saldo_actual y total_ganado.
+ALTER TABLE cuentas_dunab ADD COLUMN sub_saldos INTEGER DEFAULT 0 NOT NULL;
+
+CREATE TABLE sub_saldos_cuenta (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cuenta_id BIGINT         NOT NULL,
+    indice    INTEGER        NOT NULL,
+    monto     NUMERIC(10, 2) NOT NULL,
+    -- También cubre la suma de los sub-saldos de una cuenta y la llave foránea
+    CONSTRAINT uk_sub_saldos_cuenta_indice UNIQUE (cuenta_id, indice),
+    CONSTRAINT fk_sub_saldos_cuenta FOREIGN KEY (cuenta_id) REFERENCES cuentas_dunab (id)
+);
@@ -0,0 +1,3 @@
+-- Deduplicación de débitos sin conexión por referencia de terminal (LiquidacionLotesPosService).
+-- La fecha acota la búsqueda: en PostgreSQL descarta las particiones anteriores al lote.
+CREATE INDEX idx_transacciones_referencia ON transacciones (referencia, fecha_creacion);
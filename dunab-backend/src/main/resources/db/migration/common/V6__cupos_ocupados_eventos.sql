@@ -0,0 +1,7 @@
+-- Cupos ocupados de cada evento (inscripciones no canceladas). Las inscripciones lo reservan con
+-- un UPDATE condicional contra capacidad_maxima, así que no hace falta contar las inscripciones.
+ALTER TABLE eventos ADD COLUMN cupos_ocupados INTEGER DEFAULT 0 NOT NULL;
+
+UPDATE eventos SET cupos_ocupados = (
+    SELECT COUNT(*) FROM inscripciones_evento i
+    WHERE i.evento_id = eventos.id AND i.estado <> 'CANCELADA');
@@ -0,0 +1,3 @@
+-- Turno de las inscripciones EN_ESPERA en la lista de espera de su evento (orden FIFO). Se conserva
+-- al promover la inscripción.
+ALTER TABLE inscripciones_evento ADD COLUMN turno_espera BIGINT;
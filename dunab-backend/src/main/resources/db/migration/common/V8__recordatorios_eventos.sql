@@ -0,0 +1,12 @@
+-- Recordatorios de eventos ya enviados, uno por evento, antelación y fecha del evento: si el evento
+-- cambia de fecha sus recordatorios se envían de nuevo. Cada envío registra su fila en la misma
+-- transacción que las notificaciones, así que un reinicio u otra instancia no lo repite.
+CREATE TABLE recordatorios_evento (
+    evento_id          BIGINT       NOT NULL,
+    antelacion_minutos BIGINT       NOT NULL,
+    fecha_evento       TIMESTAMP(6) NOT NULL,
+    fecha_envio        TIMESTAMP(6) NOT NULL,
+    notificados        INTEGER      NOT NULL,
+    CONSTRAINT pk_recordatorios_evento PRIMARY KEY (evento_id, antelacion_minutos, fecha_evento),
+    CONSTRAINT fk_recordatorios_evento FOREIGN KEY (evento_id) REFERENCES eventos (id)
+);
@@ -0,0 +1,14 @@
+-- Inscripciones y cancelaciones de cada evento por hora (hora = inicio de la hora). Las escribe
+-- EstadisticaEventoService sumando lo acumulado en memoria desde la escritura anterior, así que
+-- varias instancias suman sobre la misma fila.
+CREATE TABLE estadisticas_evento_hora (
+    evento_id     BIGINT       NOT NULL,
+    hora          TIMESTAMP(6) NOT NULL,
+    inscripciones INTEGER      NOT NULL,
+    cancelaciones INTEGER      NOT NULL,
+    CONSTRAINT pk_estadisticas_evento_hora PRIMARY KEY (evento_id, hora),
+    CONSTRAINT fk_estadisticas_evento_hora FOREIGN KEY (evento_id) REFERENCES eventos (id)
+);
+
+-- Carga al arrancar: las horas de la última semana de todos los eventos
+CREATE INDEX idx_estadisticas_evento_hora_hora ON estadisticas_evento_hora (hora);
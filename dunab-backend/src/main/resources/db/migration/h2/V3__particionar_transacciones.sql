@@ -0,0 +1,3 @@
+-- H2 (perfil dev) no soporta particionamiento declarativo: la tabla transacciones
+-- se mantiene sin particiones. Ver db/migration/postgresql/V3__particionar_transacciones.sql
+SELECT 1;
@@ -0,0 +1,112 @@
+-- Particionamiento mensual de transacciones por fecha_creacion (solo PostgreSQL).
+--
+-- PostgreSQL exige que la llave primaria de una tabla particionada incluya la columna de
+-- partición, por lo que la PK pasa a ser (id, fecha_creacion) y se eliminan las llaves
+-- foráneas que apuntaban a transacciones(id) (inscripciones_evento). El id sigue siendo
+-- único porque lo genera una única secuencia.
+
+-- 1. Llaves foráneas hacia transacciones (los nombres varían si Hibernate creó el esquema)
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN SELECT conname, conrelid::regclass AS tabla
+              FROM pg_constraint
+              WHERE contype = 'f' AND confrelid = 'transacciones'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.tabla, fk.conname);
+    END LOOP;
+END $$;
+
+-- 2. La tabla actual se conserva mientras se copian los datos
+ALTER TABLE transacciones RENAME TO transacciones_anterior;
+DROP INDEX IF EXISTS idx_transacciones_cuenta_fecha;
+DROP INDEX IF EXISTS idx_transacciones_cuenta_tipo_estado;
+DROP INDEX IF EXISTS idx_transacciones_cuenta_estado;
+DROP INDEX IF EXISTS idx_transacciones_cuenta_categoria;
+
+-- Antes de PostgreSQL 17 las tablas particionadas no admiten columnas IDENTITY
+CREATE SEQUENCE transacciones_id_nueva_seq;
+
+CREATE TABLE transacciones (
+    id                      BIGINT         NOT NULL DEFAULT nextval('transacciones_id_nueva_seq'),
+    cuenta_id               BIGINT         NOT NULL,
+    tipo                    VARCHAR(20)    NOT NULL,
+    monto                   NUMERIC(10, 2) NOT NULL,
+    categoria_id            BIGINT,
+    descripcion             VARCHAR(500)   NOT NULL,
+    referencia              VARCHAR(100),
+    estado                  VARCHAR(20)    NOT NULL,
+    saldo_anterior          NUMERIC(10, 2),
+    saldo_posterior         NUMERIC(10, 2),
+    creado_por              BIGINT,
+    justificacion_anulacion VARCHAR(500),
+    anulado_por             BIGINT,
+    fecha_anulacion         TIMESTAMP(6),
+    fecha_creacion          TIMESTAMP(6)   NOT NULL,
+    fecha_actualizacion     TIMESTAMP(6),
+    CONSTRAINT pk_transacciones PRIMARY KEY (id, fecha_creacion),
+    CONSTRAINT fk_transacciones_cuenta FOREIGN KEY (cuenta_id) REFERENCES cuentas_dunab (id),
+    CONSTRAINT fk_transacciones_categoria FOREIGN KEY (categoria_id) REFERENCES categorias_transaccion (id),
+    CONSTRAINT fk_transacciones_creado_por FOREIGN KEY (creado_por) REFERENCES users (id),
+    CONSTRAINT fk_transacciones_anulado_por FOREIGN KEY (anulado_por) REFERENCES users (id)
+) PARTITION BY RANGE (fecha_creacion);
+
+-- Red de seguridad: recibe filas de meses sin partición hasta que el job la cree
+CREATE TABLE transacciones_default PARTITION OF transacciones DEFAULT;
+
+-- 3. Crea (si no existe) la partición del mes que contiene la fecha dada. Si la partición
+--    por defecto tiene filas de ese mes, se mueven a la nueva partición.
+CREATE OR REPLACE FUNCTION crear_particion_transacciones(mes DATE) RETURNS TEXT AS $$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::date;
+    fin    DATE := (date_trunc('month', mes) + INTERVAL '1 month')::date;
+    nombre TEXT := 'transacciones_p' || to_char(date_trunc('month', mes), 'YYYYMM');
+BEGIN
+    IF to_regclass(nombre) IS NOT NULL THEN
+        RETURN nombre;
+    END IF;
+
+    CREATE TEMP TABLE transacciones_pendientes (LIKE transacciones) ON COMMIT DROP;
+    WITH movidas AS (
+        DELETE FROM transacciones_default
+        WHERE fecha_creacion >= inicio AND fecha_creacion < fin
+        RETURNING *
+    )
+    INSERT INTO transacciones_pendientes SELECT * FROM movidas;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF transacciones FOR VALUES FROM (%L) TO (%L)',
+                   nombre, inicio, fin);
+
+    INSERT INTO transacciones SELECT * FROM transacciones_pendientes;
+    DROP TABLE transacciones_pendientes;
+    RETURN nombre;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 4. Particiones para los datos existentes y los próximos tres meses
+SELECT crear_particion_transacciones(mes::date)
+FROM generate_series(
+        date_trunc('month', COALESCE((SELECT MIN(fecha_creacion) FROM transacciones_anterior), now())),
+        date_trunc('month', now()) + INTERVAL '3 months',
+        INTERVAL '1 month') AS mes;
+
+INSERT INTO transacciones (id, cuenta_id, tipo, monto, categoria_id, descripcion, referencia, estado,
+                           saldo_anterior, saldo_posterior, creado_por, justificacion_anulacion,
+                           anulado_por, fecha_anulacion, fecha_creacion, fecha_actualizacion)
+SELECT id, cuenta_id, tipo, monto, categoria_id, descripcion, referencia, estado,
+       saldo_anterior, saldo_posterior, creado_por, justificacion_anulacion,
+       anulado_por, fecha_anulacion, fecha_creacion, fecha_actualizacion
+FROM transacciones_anterior;
+
+SELECT setval('transacciones_id_nueva_seq', COALESCE((SELECT MAX(id) FROM transacciones), 0) + 1, false);
+
+DROP TABLE transacciones_anterior;
+ALTER SEQUENCE transacciones_id_nueva_seq RENAME TO transacciones_id_seq;
+ALTER SEQUENCE transacciones_id_seq OWNED BY transacciones.id;
+
+-- 5. Índices de V2, ahora sobre la tabla particionada (se crean en cada partición)
+CREATE INDEX idx_transacciones_cuenta_fecha ON transacciones (cuenta_id, fecha_creacion);
+CREATE INDEX idx_transacciones_cuenta_tipo_estado ON transacciones (cuenta_id, tipo, estado, monto);
+CREATE INDEX idx_transacciones_cuenta_estado ON transacciones (cuenta_id, estado);
+CREATE INDEX idx_transacciones_cuenta_categoria ON transacciones (cuenta_id, categoria_id);
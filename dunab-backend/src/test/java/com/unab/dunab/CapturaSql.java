@@ -0,0 +1,138 @@
+package com.unab.dunab;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registra el SQL que ejecuta la aplicación para volver a ejecutarlo con EXPLAIN.
+ *
+ * Envuelve el DataSource de la aplicación: mientras {@link #capturar} corre en un hilo, cada
+ * sentencia que ese hilo prepara o ejecuta queda registrada con los parámetros que se le asignan
+ * (solo los de la primera fila de un batch). Los demás hilos (jobs programados) no se registran.
+ */
+@TestConfiguration
+public class CapturaSql implements BeanPostProcessor {
+
+    private static final ThreadLocal<List<Sentencia>> CAPTURADAS = new ThreadLocal<>();
+
+    /**
+     * Sentencia ejecutada y las llamadas set* de sus parámetros
+     */
+    public record Sentencia(String sql, List<Parametro> parametros) {
+
+        /**
+         * Prepara la sentencia con EXPLAIN delante y le asigna los mismos parámetros
+         */
+        public PreparedStatement preparar(Connection conexion, String explain) throws SQLException {
+            PreparedStatement statement = conexion.prepareStatement(explain + " " + sql);
+            for (Parametro parametro : parametros) {
+                try {
+                    parametro.metodo().invoke(statement, parametro.argumentos());
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new SQLException("No se pudo asignar el parámetro de " + sql, e);
+                }
+            }
+            return statement;
+        }
+    }
+
+    public record Parametro(Method metodo, Object[] argumentos) {
+    }
+
+    /**
+     * Ejecuta la acción en el hilo actual y devuelve las sentencias que ejecutó, en orden
+     */
+    public List<Sentencia> capturar(Runnable accion) {
+        List<Sentencia> sentencias = new ArrayList<>();
+        CAPTURADAS.set(sentencias);
+        try {
+            accion.run();
+        } finally {
+            CAPTURADAS.remove();
+        }
+        return sentencias;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return (Connection) envolver(Connection.class, super.getConnection(), CapturaSql::conexion);
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return (Connection) envolver(Connection.class, super.getConnection(username, password),
+                        CapturaSql::conexion);
+            }
+        };
+    }
+
+    private static Object conexion(Object conexion, Method metodo, Object[] args) throws Throwable {
+        Object resultado = invocar(conexion, metodo, args);
+        if (resultado instanceof PreparedStatement statement && args != null && args[0] instanceof String sql) {
+            List<Sentencia> capturadas = CAPTURADAS.get();
+            if (capturadas == null) {
+                return statement;
+            }
+            Sentencia sentencia = new Sentencia(sql, new ArrayList<>());
+            capturadas.add(sentencia);
+            boolean[] enBatch = {false};
+            return envolver(metodo.getReturnType(), statement, (objetivo, llamado, argumentos) -> {
+                if (llamado.getName().equals("addBatch")) {
+                    enBatch[0] = true;
+                } else if (!enBatch[0] && llamado.getName().startsWith("set") && argumentos != null
+                        && argumentos.length >= 2 && argumentos[0] instanceof Integer) {
+                    sentencia.parametros().add(new Parametro(llamado, argumentos.clone()));
+                }
+                return invocar(objetivo, llamado, argumentos);
+            });
+        }
+        if (resultado instanceof Statement statement && !(resultado instanceof PreparedStatement)) {
+            return envolver(Statement.class, statement, (objetivo, llamado, argumentos) -> {
+                List<Sentencia> capturadas = CAPTURADAS.get();
+                if (capturadas != null && argumentos != null && argumentos.length > 0 && argumentos[0] instanceof String sql
+                        && (llamado.getName().startsWith("execute") || llamado.getName().equals("addBatch"))) {
+                    capturadas.add(new Sentencia(sql, List.of()));
+                }
+                return invocar(objetivo, llamado, argumentos);
+            });
+        }
+        return resultado;
+    }
+
+    @FunctionalInterface
+    private interface Manejador {
+        Object invocar(Object objetivo, Method metodo, Object[] args) throws Throwable;
+    }
+
+    private static Object envolver(Class<?> tipo, Object objetivo, Manejador manejador) {
+        InvocationHandler handler = (proxy, metodo, args) -> manejador.invocar(objetivo, metodo, args);
+        return Proxy.newProxyInstance(CapturaSql.class.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+
+    private static Object invocar(Object objetivo, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(objetivo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.unab.dunab;
+
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.model.TransactionType;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.repository.InscripcionEventoRepository;
+import com.unab.dunab.repository.NotificacionRepository;
+import com.unab.dunab.repository.SubSaldoCuentaRepository;
+import com.unab.dunab.repository.TransaccionRepository;
+import com.unab.dunab.service.AsistenciaEventoService;
+import com.unab.dunab.service.ConciliacionCuentasService;
+import com.unab.dunab.service.DunabService;
+import com.unab.dunab.service.EstadisticaEventoService;
+import com.unab.dunab.service.RecordatorioEventoService;
+import com.unab.dunab.service.SuscripcionCalendarioService;
+import com.unab.dunab.utils.ReminderTimingWheel.Recordatorio;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifica con EXPLAIN que las consultas frecuentes usan un índice.
+ *
+ * Cada prueba ejecuta los métodos reales de los repositorios y servicios, captura el SQL que
+ * generan con sus parámetros (CapturaSql) y falla si el plan de alguna sentencia recorre la
+ * tabla completa: tableScan en H2, Seq Scan en PostgreSQL. Por defecto usa H2 (perfil dev); para
+ * PostgreSQL se pasan los datos de conexión como propiedades del sistema (ver la sección
+ * "Verificación de índices" del README). Los datos sembrados se revierten al terminar cada prueba.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.h2.console.enabled=false",
+        "logging.level.com.unab.dunab=WARN",
+        "logging.level.org.hibernate.SQL=WARN"})
+@ActiveProfiles("dev")
+@Import(CapturaSql.class)
+@Transactional
+class IndicesConsultasTest {
+
+    private static final LocalDateTime DESDE = LocalDateTime.now().minusMonths(3);
+
+    @Autowired
+    private CapturaSql capturaSql;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransaccionRepository transaccionRepository;
+
+    @Autowired
+    private SubSaldoCuentaRepository subSaldoCuentaRepository;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private InscripcionEventoRepository inscripcionEventoRepository;
+
+    @Autowired
+    private ConciliacionCuentasService conciliacionCuentasService;
+
+    @Autowired
+    private AsistenciaEventoService asistenciaEventoService;
+
+    @Autowired
+    private RecordatorioEventoService recordatorioEventoService;
+
+    @Autowired
+    private EstadisticaEventoService estadisticaEventoService;
+
+    @Autowired
+    private SuscripcionCalendarioService suscripcionCalendarioService;
+
+    private List<Long> estudiantes;
+    private Long cuentaId;
+    private Long eventoPasado;
+    private Long eventoProximo;
+
+    @BeforeEach
+    void sembrar() {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            usuarios.add(new Object[]{"Estudiante", "Indices" + i, "indices" + i + "@unab.edu.co", "-",
+                    String.format("I%08d", i), Boolean.TRUE, ahora, ahora});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (nombre, apellido, email, password, codigo_estudiante, "
+                + "activo, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", usuarios);
+        estudiantes = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE email LIKE 'indices%' ORDER BY id", Long.class);
+
+        jdbcTemplate.batchUpdate("INSERT INTO cuentas_dunab (estudiante_id, saldo_actual, total_ganado, "
+                        + "total_gastado, estado, limite_transaccion, fecha_creacion, fecha_actualizacion) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                estudiantes.stream().map(id -> new Object[]{id, DunabService.SALDO_INICIAL.toBigDecimal(),
+                        DunabService.SALDO_INICIAL.toBigDecimal(), Dunab.CERO.toBigDecimal(),
+                        AccountStatus.ACTIVA.name(), DunabService.LIMITE_TRANSACCION_INICIAL.toBigDecimal(),
+                        ahora, ahora}).toList());
+        cuentaId = jdbcTemplate.queryForObject(
+                "SELECT id FROM cuentas_dunab WHERE estudiante_id = ?", Long.class, estudiantes.get(0));
+
+        eventoPasado = guardarEvento("Evento pasado", LocalDateTime.now().minusHours(2));
+        eventoProximo = guardarEvento("Evento próximo", LocalDateTime.now().plusMinutes(30));
+        List<Object[]> inscripciones = new ArrayList<>();
+        for (Long eventoId : List.of(eventoPasado, eventoProximo)) {
+            estudiantes.forEach(id -> inscripciones.add(new Object[]{eventoId, id, "CONFIRMADA", ahora, ahora}));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inscripciones_evento (evento_id, estudiante_id, estado, "
+                + "fecha_inscripcion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?)", inscripciones);
+    }
+
+    @Test
+    void historialDeCuenta() {
+        verificar(() -> {
+            transaccionRepository.findByCuentaIdDesde(cuentaId, DESDE,
+                    PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "fechaCreacion")));
+            transaccionRepository.findByCuentaIdDesdeOrderByFechaCreacionDesc(cuentaId, DESDE);
+            transaccionRepository.findByCuentaIdAndTipoDesde(cuentaId, TransactionType.CREDITO, DESDE);
+            transaccionRepository.findByCuentaIdAndFechaBetween(cuentaId, DESDE, LocalDateTime.now());
+            transaccionRepository.findByCuentaIdAndCategoriaIdDesde(cuentaId, 1L, DESDE);
+        });
+    }
+
+    @Test
+    void totalesDeCuenta() {
+        verificar(() -> {
+            transaccionRepository.getTotalByTipo(cuentaId, TransactionType.CREDITO, DESDE);
+            transaccionRepository.countTransaccionesCompletadas(cuentaId, DESDE);
+            subSaldoCuentaRepository.getPendienteByCuentaId(cuentaId);
+        });
+    }
+
+    @Test
+    void anulacionDeTransferencia() {
+        verificar(() -> {
+            transaccionRepository.findByReferenciaDesde("TRF-1", DESDE);
+            transaccionRepository.findEstadoById(1L, DESDE);
+        });
+    }
+
+    @Test
+    void conciliacionDeUnBloque() {
+        verificar(() -> ReflectionTestUtils.invokeMethod(
+                conciliacionCuentasService, "compararBloque", cuentaId, cuentaId + 999, false));
+    }
+
+    @Test
+    void notificaciones() {
+        Long estudianteId = estudiantes.get(0);
+        verificar(() -> {
+            notificacionRepository.countNoLeidas(estudianteId);
+            notificacionRepository.findByEstudianteIdAndLeida(estudianteId, false);
+            notificacionRepository.findByEstudianteIdOrderByFechaCreacionDesc(estudianteId);
+        });
+    }
+
+    @Test
+    void eventosEInscripciones() {
+        Long estudianteId = estudiantes.get(0);
+        verificar(() -> {
+            eventoRepository.findEventosProximos(LocalDateTime.now());
+            eventoRepository.findByFechaEventoBetween(LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+            inscripcionEventoRepository.findByEventoIdAndEstudianteIdForUpdate(eventoProximo, estudianteId);
+            inscripcionEventoRepository.findByEstudianteIdConEvento(estudianteId);
+        });
+    }
+
+    @Test
+    void asistenciaPorLotes() {
+        verificar(() -> asistenciaEventoService.confirmarLista(
+                eventoPasado, estudiantes.subList(1, estudiantes.size()), estudiantes.get(0)));
+    }
+
+    @Test
+    void recordatorios() {
+        verificar(() -> {
+            recordatorioEventoService.recargar();
+            ReflectionTestUtils.invokeMethod(recordatorioEventoService, "enviar",
+                    new Recordatorio(eventoProximo, Duration.ofHours(1)));
+        });
+    }
+
+    @Test
+    void estadisticasDeEventos() {
+        verificar(() -> {
+            estadisticaEventoService.getEstadisticas(eventoPasado, 24);
+            estadisticaEventoService.recargar();
+            estadisticaEventoService.registrarInscripcion(eventoProximo);
+            estadisticaEventoService.guardar();
+        });
+    }
+
+    @Test
+    void calendarioDeInscripciones() {
+        Long estudianteId = estudiantes.get(0);
+        verificar(() -> {
+            suscripcionCalendarioService.getVersion(suscripcionCalendarioService.generarToken(estudianteId));
+            try {
+                suscripcionCalendarioService.escribirCalendario(estudianteId, OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la acción y verifica el plan de cada sentencia que ejecutó
+     */
+    private void verificar(Runnable accion) {
+        List<CapturaSql.Sentencia> sentencias = capturaSql.capturar(accion);
+        Assertions.assertThat(sentencias).as("sentencias ejecutadas").isNotEmpty();
+
+        List<String> recorridos = jdbcTemplate.execute((ConnectionCallback<List<String>>) conexion -> {
+            boolean postgres = conexion.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres");
+            if (postgres) {
+                // Con tablas casi vacías PostgreSQL prefiere Seq Scan; se desactiva para que solo
+                // aparezca cuando no existe un índice utilizable
+                try (Statement statement = conexion.createStatement()) {
+                    statement.execute("SET LOCAL enable_seqscan = off");
+                }
+            }
+            List<String> conRecorrido = new ArrayList<>();
+            for (CapturaSql.Sentencia sentencia : sentencias) {
+                StringBuilder plan = new StringBuilder();
+                try (PreparedStatement explain = sentencia.preparar(conexion, "EXPLAIN");
+                     ResultSet rs = explain.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                if (postgres ? plan.toString().contains("Seq Scan") : plan.toString().contains("tableScan")) {
+                    conRecorrido.add(sentencia.sql() + "\n" + plan);
+                }
+            }
+            return conRecorrido;
+        });
+        Assertions.assertThat(recorridos).as("sentencias que recorren la tabla completa").isEmpty();
+    }
+
+    private Long guardarEvento(String nombre, LocalDateTime fecha) {
+        return eventoRepository.save(Evento.builder()
+                .nombre(nombre)
+                .fechaEvento(fecha)
+                .capacidadMaxima(100)
+                .costoDunab(Dunab.CERO)
+                .recompensaDunab(Dunab.valueOf("10.00"))
+                .requiereConfirmacion(true)
+                .activo(true)
+                .build()).getId();
+    }
+}
@@ -0,0 +1,88 @@
+package com.unab.dunab.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+class DunabTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void redondeaADosDecimalesComoLasColumnas() {
+        Assertions.assertThat(Dunab.valueOf("1.005").getCentavos()).isEqualTo(101);
+        Assertions.assertThat(Dunab.valueOf("1.004").getCentavos()).isEqualTo(100);
+        Assertions.assertThat(Dunab.valueOf("-1.005").getCentavos()).isEqualTo(-101);
+        Assertions.assertThat(Dunab.valueOf("2.5").getCentavos()).isEqualTo(250);
+        Assertions.assertThat(Dunab.valueOf(new BigDecimal("1E+2")).getCentavos()).isEqualTo(10_000);
+    }
+
+    @Test
+    void escribeLoMismoQueBigDecimal() {
+        for (long centavos = -1_050; centavos <= 1_050; centavos++) {
+            Dunab monto = Dunab.deCentavos(centavos);
+            Assertions.assertThat(monto.toString()).isEqualTo(BigDecimal.valueOf(centavos, 2).toPlainString());
+            Assertions.assertThat(monto.toBigDecimal()).isEqualTo(BigDecimal.valueOf(centavos, 2));
+        }
+        Assertions.assertThat(Dunab.deCentavos(Long.MIN_VALUE).toString())
+                .isEqualTo(BigDecimal.valueOf(Long.MIN_VALUE, 2).toPlainString());
+    }
+
+    @Test
+    void operaSobreCentavos() {
+        Dunab a = Dunab.valueOf("10.10");
+        Dunab b = Dunab.valueOf("0.20");
+
+        Assertions.assertThat(a.sumar(b)).isEqualTo(Dunab.valueOf("10.30"));
+        Assertions.assertThat(b.restar(a)).isEqualTo(Dunab.valueOf("-9.90"));
+        Assertions.assertThat(b.multiplicar(3)).isEqualTo(Dunab.valueOf("0.60"));
+        Assertions.assertThat(b.restar(a).signum()).isEqualTo(-1);
+        Assertions.assertThat(a.sumar(Dunab.CERO)).isSameAs(a);
+        Assertions.assertThat(Dunab.deCentavos(0)).isSameAs(Dunab.CERO);
+    }
+
+    @Test
+    void comparaPorMonto() {
+        Assertions.assertThat(Dunab.valueOf("1.5")).isEqualTo(Dunab.valueOf("1.50"))
+                .hasSameHashCodeAs(Dunab.valueOf("1.50"));
+        Assertions.assertThat(Dunab.valueOf("1.49")).isLessThan(Dunab.valueOf("1.50"));
+        Assertions.assertThat(Dunab.valueOf("1.49").esMenorQue(Dunab.valueOf("1.50"))).isTrue();
+        Assertions.assertThat(Dunab.valueOf("1.50").esMayorQue(Dunab.valueOf("1.50"))).isFalse();
+        Assertions.assertThat(Dunab.valueOf("0.01").esPositivo()).isTrue();
+        Assertions.assertThat(Dunab.valueOf("0.001").esCero()).isTrue();
+    }
+
+    @Test
+    void noDaLaVueltaAlDesbordar() {
+        Dunab maximo = Dunab.deCentavos(Long.MAX_VALUE);
+
+        Assertions.assertThatThrownBy(() -> maximo.sumar(Dunab.deCentavos(1)))
+                .isInstanceOf(ArithmeticException.class);
+        Assertions.assertThatThrownBy(() -> Dunab.deCentavos(Long.MIN_VALUE).restar(Dunab.deCentavos(1)))
+                .isInstanceOf(ArithmeticException.class);
+        Assertions.assertThatThrownBy(() -> maximo.multiplicar(2))
+                .isInstanceOf(ArithmeticException.class);
+        Assertions.assertThatThrownBy(() -> Dunab.valueOf("100000000000000000"))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void seEscribeEnJsonConDosDecimales() throws Exception {
+        Assertions.assertThat(objectMapper.writeValueAsString(Dunab.valueOf("8.5"))).isEqualTo("8.50");
+        Assertions.assertThat(objectMapper.writeValueAsString(Dunab.valueOf("-0.05"))).isEqualTo("-0.05");
+    }
+
+    @Test
+    void seLeeDeNumerosYTextosJson() throws Exception {
+        Assertions.assertThat(objectMapper.readValue("8.5", Dunab.class)).isEqualTo(Dunab.valueOf("8.50"));
+        Assertions.assertThat(objectMapper.readValue("12", Dunab.class)).isEqualTo(Dunab.valueOf("12.00"));
+        Assertions.assertThat(objectMapper.readValue("\" 8.505 \"", Dunab.class)).isEqualTo(Dunab.valueOf("8.51"));
+        Assertions.assertThatThrownBy(() -> objectMapper.readValue("\"ocho\"", Dunab.class))
+                .isInstanceOf(InvalidFormatException.class);
+        Assertions.assertThatThrownBy(() -> objectMapper.readValue("1e30", Dunab.class))
+                .isInstanceOf(InvalidFormatException.class);
+    }
+}
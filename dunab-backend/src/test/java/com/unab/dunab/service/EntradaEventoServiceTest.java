@@ -0,0 +1,129 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.AsistenciaEventoResponse;
+import com.unab.dunab.dto.response.AsistenciaEventoResponse.IncidenciaAsistente;
+import com.unab.dunab.dto.response.AsistenciaEventoResponse.ResultadoAsistente;
+import com.unab.dunab.exception.ResourceNotFoundException;
+import com.unab.dunab.utils.CheckInBuffer;
+import com.unab.dunab.utils.CheckInBuffer.Entrada;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+class EntradaEventoServiceTest {
+
+    private static final Long EVENTO = 1L;
+    private static final Long PORTERO = 99L;
+
+    private final Deque<Function<List<Long>, AsistenciaEventoResponse>> respuestas = new ArrayDeque<>();
+    private final List<List<Long>> envios = new ArrayList<>();
+    private final CheckInBuffer buffer = new CheckInBuffer();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AsistenciaEventoService asistenciaEventoService =
+            new AsistenciaEventoService(null, null, null, null, null, meterRegistry) {
+                @Override
+                public AsistenciaEventoResponse confirmarEntradas(Long eventoId, List<Long> estudianteIds,
+                                                                  Long organizadorId) {
+                    envios.add(List.copyOf(estudianteIds));
+                    return respuestas.removeFirst().apply(estudianteIds);
+                }
+            };
+
+    private final EntradaEventoService service =
+            new EntradaEventoService(null, asistenciaEventoService, buffer, meterRegistry);
+
+    @Test
+    void unLoteQueFallaPorLaBaseDeDatosSeReintentaEnLaSiguienteEscritura() {
+        registrar(10L, 20L);
+        respuestas.add(ids -> {
+            throw new CannotAcquireLockException("Timeout trying to lock table");
+        });
+        respuestas.add(ids -> {
+            throw new CannotCreateTransactionException("Connection refused");
+        });
+        respuestas.add(EntradaEventoServiceTest::confirmadas);
+
+        service.escribirPendientes();
+        Assertions.assertThat(envios).hasSize(1);
+        Assertions.assertThat(buffer.pendientes()).isEqualTo(2);
+        // Siguen registradas: un nuevo escaneo es repetido
+        Assertions.assertThat(buffer.registrar(new Entrada(EVENTO, 10L, PORTERO))).isFalse();
+
+        service.escribirPendientes();
+        service.escribirPendientes();
+
+        Assertions.assertThat(envios).containsExactly(List.of(10L, 20L), List.of(10L, 20L), List.of(10L, 20L));
+        Assertions.assertThat(buffer.pendientes()).isZero();
+        Assertions.assertThat(escritas("reintento")).isEqualTo(4);
+        Assertions.assertThat(escritas("confirmada")).isEqualTo(2);
+        Assertions.assertThat(escritas("rechazada")).isZero();
+    }
+
+    /**
+     * Solo se olvidan las entradas rechazadas por su inscripción; las de un bloque fallido se
+     * reintentan
+     */
+    @Test
+    void soloSeOlvidanLasEntradasConIncidenciaDelEstudiante() {
+        registrar(10L, 20L, 30L);
+        respuestas.add(ids -> AsistenciaEventoResponse.builder()
+                .confirmadas(1)
+                .incidencias(List.of(
+                        new IncidenciaAsistente(1, "10", ResultadoAsistente.NO_INSCRITO, "No inscrito"),
+                        new IncidenciaAsistente(2, "20", ResultadoAsistente.ERROR, "Error al guardar el bloque")))
+                .build());
+        respuestas.add(EntradaEventoServiceTest::confirmadas);
+
+        service.escribirPendientes();
+
+        Assertions.assertThat(buffer.pendientes()).isEqualTo(1);
+        Assertions.assertThat(buffer.registrar(new Entrada(EVENTO, 10L, PORTERO))).isTrue();
+        Assertions.assertThat(buffer.registrar(new Entrada(EVENTO, 30L, PORTERO))).isFalse();
+
+        service.escribirPendientes();
+
+        Assertions.assertThat(envios).containsExactly(List.of(10L, 20L, 30L), List.of(20L, 10L));
+        Assertions.assertThat(escritas("rechazada")).isEqualTo(1);
+        Assertions.assertThat(escritas("reintento")).isEqualTo(1);
+    }
+
+    @Test
+    void unEventoInexistenteOlvidaElLote() {
+        registrar(10L);
+        respuestas.add(ids -> {
+            throw new ResourceNotFoundException("Evento", "id", EVENTO);
+        });
+
+        service.escribirPendientes();
+
+        Assertions.assertThat(buffer.pendientes()).isZero();
+        Assertions.assertThat(buffer.registrar(new Entrada(EVENTO, 10L, PORTERO))).isTrue();
+        Assertions.assertThat(escritas("rechazada")).isEqualTo(1);
+    }
+
+    private void registrar(Long... estudianteIds) {
+        for (Long estudianteId : estudianteIds) {
+            buffer.registrar(new Entrada(EVENTO, estudianteId, PORTERO));
+        }
+    }
+
+    private double escritas(String resultado) {
+        return meterRegistry.counter("dunab.eventos.entradas.escritas", "resultado", resultado).count();
+    }
+
+    private static AsistenciaEventoResponse confirmadas(List<Long> estudianteIds) {
+        return AsistenciaEventoResponse.builder()
+                .confirmadas(estudianteIds.size())
+                .incidencias(List.of())
+                .build();
+    }
+}
@@ -0,0 +1,171 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.EstadoInscripcion;
+import com.unab.dunab.model.Evento;
+import com.unab.dunab.model.Notificacion;
+import com.unab.dunab.model.Transaccion;
+import com.unab.dunab.repository.EventoRepository;
+import com.unab.dunab.utils.EventWaitlist;
+import com.unab.dunab.utils.NotificationQueue;
+import com.unab.dunab.utils.TransactionHistoryStack;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Inscripciones concurrentes al último cupo de un evento con costo. Los datos se confirman (las
+ * inscripciones abren sus propias transacciones) y se borran al terminar.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.h2.console.enabled=false",
+        "logging.level.com.unab.dunab=WARN",
+        "logging.level.org.hibernate.SQL=WARN"})
+@ActiveProfiles("dev")
+class InscripcionEventoServiceTest {
+
+    private static final int EVENTOS = 3;
+    private static final int ESTUDIANTES_POR_EVENTO = 16;
+    private static final Dunab COSTO = Dunab.valueOf("5.00");
+
+    @Autowired
+    private InscripcionEventoService inscripcionEventoService;
+
+    @Autowired
+    private EstadisticaEventoService estadisticaEventoService;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private TransactionHistoryStack transactionHistoryStack;
+
+    @Autowired
+    private NotificationQueue notificationQueue;
+
+    @Autowired
+    private EventWaitlist eventWaitlist;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> estudiantes = new ArrayList<>();
+    private final List<Long> eventos = new ArrayList<>();
+
+    /**
+     * Quienes pierden el último cupo ya pasaron la lectura sin bloqueo y se cobraron antes de que
+     * la reserva fallara: su cobro se revierte y no debe quedar en la pila del historial reciente
+     * ni en la cola de notificaciones
+     */
+    @Test
+    void elCobroDeQuienPierdeElUltimoCupoNoLlegaALaPilaNiALaCola() {
+        sembrarEstudiantes(EVENTOS * ESTUDIANTES_POR_EVENTO);
+        for (int i = 0; i < EVENTOS; i++) {
+            Long eventoId = crearEvento("Último cupo " + i);
+            List<Long> competidores = estudiantes.subList(i * ESTUDIANTES_POR_EVENTO, (i + 1) * ESTUDIANTES_POR_EVENTO);
+
+            Map<Long, EstadoInscripcion> estados = inscribirALaVez(eventoId, competidores);
+
+            Assertions.assertThat(estados).hasSize(ESTUDIANTES_POR_EVENTO);
+            Assertions.assertThat(estados.values().stream().filter(e -> e == EstadoInscripcion.CONFIRMADA))
+                    .hasSize(1);
+            Assertions.assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM transacciones WHERE referencia = ?", Integer.class, "EVT-" + eventoId))
+                    .isEqualTo(1);
+            Assertions.assertThat(transactionHistoryStack.getAll().stream().map(Transaccion::getReferencia))
+                    .containsOnlyOnce("EVT-" + eventoId);
+            Assertions.assertThat(competidores.stream()
+                            .flatMap(id -> notificationQueue.getNotificacionesByEstudiante(id).stream())
+                            .filter(n -> Notificacion.TIPO_DEBITO.equals(n.getTipo()))
+                            .map(Notificacion::getMensaje))
+                    .hasSize(1);
+        }
+    }
+
+    @AfterEach
+    void borrar() {
+        estadisticaEventoService.guardar();
+        for (Long eventoId : eventos) {
+            estudiantes.forEach(id -> eventWaitlist.quitar(eventoId, id));
+            estadisticaEventoService.quitarEvento(eventoId);
+            jdbcTemplate.update("DELETE FROM inscripciones_evento WHERE evento_id = ?", eventoId);
+            jdbcTemplate.update("DELETE FROM estadisticas_evento_hora WHERE evento_id = ?", eventoId);
+        }
+        for (Long id : estudiantes) {
+            notificationQueue.removeNotificacionesByEstudiante(id);
+            jdbcTemplate.update("DELETE FROM notificaciones WHERE estudiante_id = ?", id);
+            jdbcTemplate.update("DELETE FROM transacciones WHERE cuenta_id IN "
+                    + "(SELECT id FROM cuentas_dunab WHERE estudiante_id = ?)", id);
+            jdbcTemplate.update("DELETE FROM cuentas_dunab WHERE estudiante_id = ?", id);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+        }
+        eventos.forEach(eventoRepository::deleteById);
+    }
+
+    private Map<Long, EstadoInscripcion> inscribirALaVez(Long eventoId, List<Long> competidores) {
+        Map<Long, EstadoInscripcion> estados = new ConcurrentHashMap<>();
+        CountDownLatch salida = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(competidores.size())) {
+            for (Long estudianteId : competidores) {
+                executor.submit(() -> {
+                    salida.await();
+                    estados.put(estudianteId, inscripcionEventoService.inscribir(eventoId, estudianteId).getEstado());
+                    return null;
+                });
+            }
+            salida.countDown();
+        }
+        return estados;
+    }
+
+    private Long crearEvento(String nombre) {
+        Evento evento = eventoRepository.save(Evento.builder()
+                .nombre(nombre)
+                .fechaEvento(LocalDateTime.now().plusDays(7))
+                .capacidadMaxima(1)
+                .costoDunab(COSTO)
+                .recompensaDunab(Dunab.CERO)
+                .requiereConfirmacion(false)
+                .activo(true)
+                .build());
+        eventos.add(evento.getId());
+        return evento.getId();
+    }
+
+    private void sembrarEstudiantes(int cantidad) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 1; i <= cantidad; i++) {
+            usuarios.add(new Object[]{"Estudiante", "Cupo" + i, "cupo" + i + "@unab.edu.co", "-",
+                    String.format("C%08d", i), Boolean.TRUE, ahora, ahora});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (nombre, apellido, email, password, codigo_estudiante, "
+                + "activo, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", usuarios);
+        estudiantes.addAll(jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE email LIKE 'cupo%' ORDER BY id", Long.class));
+
+        jdbcTemplate.batchUpdate("INSERT INTO cuentas_dunab (estudiante_id, saldo_actual, total_ganado, "
+                        + "total_gastado, estado, limite_transaccion, fecha_creacion, fecha_actualizacion) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                estudiantes.stream().map(id -> new Object[]{id, DunabService.SALDO_INICIAL.toBigDecimal(),
+                        DunabService.SALDO_INICIAL.toBigDecimal(), Dunab.CERO.toBigDecimal(),
+                        AccountStatus.ACTIVA.name(), DunabService.LIMITE_TRANSACCION_INICIAL.toBigDecimal(),
+                        ahora, ahora}).toList());
+    }
+}
@@ -0,0 +1,137 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.LiquidacionLotePosResponse;
+import com.unab.dunab.dto.response.LiquidacionLotePosResponse.IncidenciaLinea;
+import com.unab.dunab.dto.response.LiquidacionLotePosResponse.ResultadoLinea;
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.utils.NotificationQueue;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+/**
+ * Liquidación de un lote sin conexión con compras dentro y fuera del período que cubre la
+ * búsqueda de duplicados. Los datos se confirman y se borran al terminar.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.h2.console.enabled=false",
+        "logging.level.com.unab.dunab=WARN",
+        "logging.level.org.hibernate.SQL=WARN"})
+@ActiveProfiles("dev")
+class LiquidacionLotesPosServiceTest {
+
+    private static final String TERMINAL = "CAF-PRUEBA";
+    private static final String CODIGO = "L00000001";
+
+    @Autowired
+    private LiquidacionLotesPosService liquidacionLotesPosService;
+
+    @Autowired
+    private ArchivoTransaccionesService archivoTransaccionesService;
+
+    @Autowired
+    private NotificationQueue notificationQueue;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${dunab.pos.lotes.secreto}")
+    private String secreto;
+
+    private Long estudianteId;
+
+    @BeforeEach
+    void sembrar() {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (nombre, apellido, email, password, codigo_estudiante, activo, "
+                + "fecha_creacion, fecha_actualizacion) VALUES ('Estudiante', 'Terminal', "
+                + "'terminal@unab.edu.co', '-', ?, TRUE, ?, ?)", CODIGO, ahora, ahora);
+        estudianteId = jdbcTemplate.queryForObject(
+                "SELECT id FROM users WHERE codigo_estudiante = ?", Long.class, CODIGO);
+        jdbcTemplate.update("INSERT INTO cuentas_dunab (estudiante_id, saldo_actual, total_ganado, total_gastado, "
+                        + "estado, limite_transaccion, fecha_creacion, fecha_actualizacion) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                estudianteId, DunabService.SALDO_INICIAL.toBigDecimal(), DunabService.SALDO_INICIAL.toBigDecimal(),
+                Dunab.CERO.toBigDecimal(), AccountStatus.ACTIVA.name(),
+                DunabService.LIMITE_TRANSACCION_INICIAL.toBigDecimal(), ahora, ahora);
+    }
+
+    /**
+     * El aviso del débito se envía en segundo plano: se espera antes de borrar al estudiante
+     */
+    @AfterEach
+    void borrar() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (notificaciones() == 0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        notificationQueue.removeNotificacionesByEstudiante(estudianteId);
+        jdbcTemplate.update("DELETE FROM notificaciones WHERE estudiante_id = ?", estudianteId);
+        jdbcTemplate.update("DELETE FROM transacciones WHERE cuenta_id IN "
+                + "(SELECT id FROM cuentas_dunab WHERE estudiante_id = ?)", estudianteId);
+        jdbcTemplate.update("DELETE FROM cuentas_dunab WHERE estudiante_id = ?", estudianteId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", estudianteId);
+    }
+
+    /**
+     * Una compra que el archivo podría haber movido ya no se puede verificar como duplicada: se
+     * rechaza en vez de debitarse otra vez
+     */
+    @Test
+    void rechazaLasComprasQueElArchivoPodriaHaberMovido() throws Exception {
+        LocalDateTime limite = archivoTransaccionesService.getInicioRetencion().plusMonths(1).atDay(1).atStartOfDay();
+        String lote = "referencia,codigoEstudiante,monto,fecha\n"
+                + "R-1," + CODIGO + ",2.50," + fecha(LocalDateTime.now().minusDays(1)) + "\n"
+                + "R-2," + CODIGO + ",3.00," + fecha(limite.plusHours(1)) + "\n"
+                + "R-3," + CODIGO + ",4.00," + fecha(limite.minusDays(1)) + "\n";
+
+        LiquidacionLotePosResponse primera = liquidar(lote);
+
+        Assertions.assertThat(primera.getAplicados()).isEqualTo(2);
+        Assertions.assertThat(primera.getIncidencias())
+                .extracting(IncidenciaLinea::getReferencia, IncidenciaLinea::getResultado)
+                .containsExactly(Assertions.tuple("R-3", ResultadoLinea.RECHAZADA));
+
+        LiquidacionLotePosResponse repetida = liquidar(lote);
+
+        Assertions.assertThat(repetida.getAplicados()).isZero();
+        Assertions.assertThat(repetida.getDuplicados()).isEqualTo(2);
+        Assertions.assertThat(repetida.getRechazados()).isEqualTo(1);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transacciones WHERE referencia LIKE ?",
+                Integer.class, "OFF-" + TERMINAL + "-%")).isEqualTo(2);
+    }
+
+    private int notificaciones() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notificaciones WHERE estudiante_id = ?", Integer.class, estudianteId);
+    }
+
+    private LiquidacionLotePosResponse liquidar(String lote) throws Exception {
+        byte[] cuerpo = lote.getBytes(StandardCharsets.UTF_8);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return liquidacionLotesPosService.liquidar(TERMINAL, HexFormat.of().formatHex(mac.doFinal(cuerpo)),
+                new ByteArrayInputStream(cuerpo), estudianteId);
+    }
+
+    private static String fecha(LocalDateTime fecha) {
+        return fecha.withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+}
@@ -0,0 +1,167 @@
+package com.unab.dunab.service;
+
+import com.unab.dunab.dto.response.TransaccionResponse;
+import com.unab.dunab.exception.InvalidOperationException;
+import com.unab.dunab.model.AccountStatus;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.model.TransactionType;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Listados de historial de una cuenta con transacciones en el archivo. Los datos se confirman
+ * (el archivo borra filas en sus propias transacciones) y se borran de la base al terminar.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.h2.console.enabled=false",
+        "logging.level.com.unab.dunab=WARN",
+        "logging.level.org.hibernate.SQL=WARN"})
+@ActiveProfiles("dev")
+class TransactionServiceTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.now();
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ArchivoTransaccionesService archivoTransaccionesService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long estudianteId;
+    private Long cuentaId;
+
+    /**
+     * Historial esperado, del más reciente al más antiguo
+     */
+    private List<Long> historial;
+
+    /**
+     * Diez transacciones de hace 13 y 14 meses que se archivan, siete recientes, y una de hace 13
+     * meses que queda en la base de datos (como las ligadas a inscripciones de eventos)
+     */
+    @BeforeEach
+    void sembrar() {
+        Timestamp creacion = Timestamp.valueOf(AHORA.minusMonths(15));
+        jdbcTemplate.update("INSERT INTO users (nombre, apellido, email, password, codigo_estudiante, activo, "
+                + "fecha_creacion, fecha_actualizacion) VALUES ('Estudiante', 'Historial', "
+                + "'historial@unab.edu.co', '-', 'H00000001', TRUE, ?, ?)", creacion, creacion);
+        estudianteId = jdbcTemplate.queryForObject(
+                "SELECT id FROM users WHERE email = 'historial@unab.edu.co'", Long.class);
+        jdbcTemplate.update("INSERT INTO cuentas_dunab (estudiante_id, saldo_actual, total_ganado, total_gastado, "
+                        + "estado, limite_transaccion, fecha_creacion, fecha_actualizacion) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                estudianteId, DunabService.SALDO_INICIAL.toBigDecimal(), DunabService.SALDO_INICIAL.toBigDecimal(),
+                Dunab.CERO.toBigDecimal(), AccountStatus.ACTIVA.name(),
+                DunabService.LIMITE_TRANSACCION_INICIAL.toBigDecimal(), creacion, creacion);
+        cuentaId = jdbcTemplate.queryForObject(
+                "SELECT id FROM cuentas_dunab WHERE estudiante_id = ?", Long.class, estudianteId);
+
+        for (int i = 0; i < 10; i++) {
+            insertar(i, AHORA.minusMonths(14 - i / 5).withDayOfMonth(2).plusDays(i % 5));
+        }
+        for (int i = 0; i < 7; i++) {
+            insertar(10 + i, AHORA.minusDays(7 - i));
+        }
+        Assertions.assertThat(archivoTransaccionesService.archivar().getArchivadas()).isGreaterThanOrEqualTo(10);
+        insertar(17, AHORA.minusMonths(13).withDayOfMonth(1));
+
+        historial = jdbcTemplate.queryForList("SELECT id FROM transacciones WHERE cuenta_id = ? "
+                + "AND fecha_creacion > ? ORDER BY fecha_creacion DESC, id DESC", Long.class,
+                cuentaId, Timestamp.valueOf(AHORA.minusMonths(12)));
+        Assertions.assertThat(historial).hasSize(7);
+        historial = new ArrayList<>(historial);
+        transactionService.getTransaccionesByFechas(cuentaId, AHORA.minusMonths(15), AHORA.minusMonths(12)).stream()
+                .sorted((a, b) -> b.getFechaCreacion().compareTo(a.getFechaCreacion()))
+                .map(TransaccionResponse::getId)
+                .forEach(historial::add);
+        Assertions.assertThat(historial).hasSize(18).doesNotHaveDuplicates();
+    }
+
+    @AfterEach
+    void borrar() {
+        jdbcTemplate.update("DELETE FROM transacciones WHERE cuenta_id = ?", cuentaId);
+        jdbcTemplate.update("DELETE FROM cuentas_dunab WHERE id = ?", cuentaId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", estudianteId);
+    }
+
+    @Test
+    void elHistorialIncluyeLasArchivadas() {
+        List<TransaccionResponse> transacciones = transactionService.getTransaccionesByCuenta(cuentaId, estudianteId);
+        Assertions.assertThat(transacciones).extracting(TransaccionResponse::getId)
+                .containsExactlyElementsOf(historial);
+        Assertions.assertThat(transactionService.getTransaccionesByTipo(cuentaId, TransactionType.CREDITO))
+                .extracting(TransaccionResponse::getId)
+                .hasSize(9)
+                .containsExactlyInAnyOrderElementsOf(transacciones.stream()
+                        .filter(transaccion -> transaccion.getTipo() == TransactionType.CREDITO)
+                        .map(TransaccionResponse::getId)
+                        .toList());
+    }
+
+    /**
+     * Recorriendo las páginas, en los dos sentidos y con tamaños que cortan entre la base de
+     * datos y el archivo, se obtiene el historial completo en orden
+     */
+    @Test
+    void lasPaginasRecorrenLaBaseDeDatosYElArchivo() {
+        List<Long> ascendente = new ArrayList<>(historial);
+        Collections.reverse(ascendente);
+        for (int tamano : new int[]{1, 3, 4, 7, 8, 18, 50}) {
+            Assertions.assertThat(recorrer(tamano, Sort.unsorted())).as("tamaño %d", tamano)
+                    .containsExactlyElementsOf(historial);
+            Assertions.assertThat(recorrer(tamano, Sort.by(Sort.Direction.ASC, "fechaCreacion")))
+                    .as("tamaño %d ascendente", tamano)
+                    .containsExactlyElementsOf(ascendente);
+        }
+
+        Page<TransaccionResponse> pagina = transactionService.getMisTransaccionesPaginadas(
+                estudianteId, PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "fechaCreacion")));
+        Assertions.assertThat(pagina.getTotalElements()).isEqualTo(18);
+        Assertions.assertThat(pagina.getContent()).extracting(TransaccionResponse::getId)
+                .containsExactlyElementsOf(historial.subList(5, 10));
+
+        // Con transacciones archivadas el historial solo se ordena por fecha
+        Assertions.assertThatThrownBy(() -> transactionService.getTransaccionesByCuentaPaginado(
+                        cuentaId, PageRequest.of(0, 5, Sort.by("monto")), estudianteId))
+                .isInstanceOf(InvalidOperationException.class);
+    }
+
+    private List<Long> recorrer(int tamano, Sort orden) {
+        List<Long> ids = new ArrayList<>();
+        Page<TransaccionResponse> pagina;
+        int numero = 0;
+        do {
+            pagina = transactionService.getTransaccionesByCuentaPaginado(
+                    cuentaId, PageRequest.of(numero++, tamano, orden), estudianteId);
+            Assertions.assertThat(pagina.getTotalElements()).isEqualTo(18);
+            pagina.getContent().forEach(transaccion -> ids.add(transaccion.getId()));
+        } while (pagina.hasNext());
+        return ids;
+    }
+
+    private void insertar(int i, LocalDateTime fecha) {
+        jdbcTemplate.update("INSERT INTO transacciones (cuenta_id, tipo, monto, descripcion, estado, "
+                        + "fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, 'COMPLETADA', ?, ?)",
+                cuentaId, i % 2 == 0 ? "CREDITO" : "DEBITO", Dunab.valueOf("1.00").toBigDecimal(),
+                "Transacción " + i, Timestamp.valueOf(fecha), Timestamp.valueOf(fecha));
+    }
+}
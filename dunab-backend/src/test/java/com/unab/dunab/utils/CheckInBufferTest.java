@@ -0,0 +1,118 @@
+package com.unab.dunab.utils;
+
+import com.unab.dunab.utils.CheckInBuffer.Entrada;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CheckInBufferTest {
+
+    private static final Long EVENTO = 1L;
+    private static final Long PORTERO = 99L;
+
+    private final CheckInBuffer buffer = new CheckInBuffer();
+
+    @Test
+    void registraUnaSolaVezPorEstudianteYEvento() {
+        Assertions.assertThat(buffer.registrar(entrada(EVENTO, 10L))).isTrue();
+        Assertions.assertThat(buffer.registrar(entrada(EVENTO, 10L))).isFalse();
+        Assertions.assertThat(buffer.registrar(entrada(2L, 10L))).isTrue();
+
+        Assertions.assertThat(buffer.pendientes()).isEqualTo(2);
+        Assertions.assertThat(buffer.registrados()).isEqualTo(2);
+    }
+
+    @Test
+    void drenaEnOrdenDeLlegadaHastaElMaximo() {
+        for (long estudiante = 1; estudiante <= 5; estudiante++) {
+            buffer.registrar(entrada(EVENTO, estudiante));
+        }
+
+        Assertions.assertThat(buffer.drenar(3)).extracting(Entrada::estudianteId).containsExactly(1L, 2L, 3L);
+        Assertions.assertThat(buffer.pendientes()).isEqualTo(2);
+        Assertions.assertThat(buffer.drenar(10)).extracting(Entrada::estudianteId).containsExactly(4L, 5L);
+        Assertions.assertThat(buffer.drenar(10)).isEmpty();
+        Assertions.assertThat(buffer.pendientes()).isZero();
+
+        // Drenar no olvida a quien ya entró
+        Assertions.assertThat(buffer.registrar(entrada(EVENTO, 1L))).isFalse();
+    }
+
+    @Test
+    void unaEntradaOlvidadaSePuedeRegistrarDeNuevo() {
+        buffer.registrar(entrada(EVENTO, 10L));
+        buffer.drenar(10);
+
+        buffer.olvidar(EVENTO, 10L);
+        buffer.olvidar(3L, 10L);
+
+        Assertions.assertThat(buffer.registrar(entrada(EVENTO, 10L))).isTrue();
+        Assertions.assertThat(buffer.pendientes()).isEqualTo(1);
+    }
+
+    @Test
+    void lasEntradasDevueltasQuedanPendientesYRegistradas() {
+        buffer.registrar(entrada(EVENTO, 10L));
+        buffer.registrar(entrada(EVENTO, 20L));
+        List<Entrada> drenadas = buffer.drenar(10);
+
+        buffer.devolver(drenadas);
+
+        Assertions.assertThat(buffer.pendientes()).isEqualTo(2);
+        Assertions.assertThat(buffer.registrar(entrada(EVENTO, 10L))).isFalse();
+        Assertions.assertThat(buffer.drenar(10)).extracting(Entrada::estudianteId).containsExactly(10L, 20L);
+    }
+
+    @Test
+    void purgaLosEventosSinEntradasRecientes() {
+        buffer.registrar(entrada(EVENTO, 10L));
+
+        buffer.purgarInactivos(System.currentTimeMillis() - 60_000);
+        Assertions.assertThat(buffer.registrados()).isEqualTo(1);
+
+        buffer.purgarInactivos(System.currentTimeMillis() + 1);
+        Assertions.assertThat(buffer.registrados()).isZero();
+        // Las entradas pendientes de escribir no se pierden con la purga
+        Assertions.assertThat(buffer.pendientes()).isEqualTo(1);
+    }
+
+    @Test
+    void losEscaneosConcurrentesDelMismoTokenRegistranUno() {
+        AtomicInteger registradas = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 16_000; i++) {
+                long estudiante = i % 1_000;
+                executor.submit(() -> {
+                    if (buffer.registrar(entrada(EVENTO, estudiante))) {
+                        registradas.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        Assertions.assertThat(registradas.get()).isEqualTo(1_000);
+        List<Entrada> drenadas = new ArrayList<>(buffer.drenar(2_000));
+        Assertions.assertThat(drenadas).hasSize(1_000).doesNotHaveDuplicates();
+        Assertions.assertThat(buffer.pendientes()).isZero();
+    }
+
+    @Test
+    void clearVaciaLaColaYLosRegistrados() {
+        buffer.registrar(entrada(EVENTO, 10L));
+
+        buffer.clear();
+
+        Assertions.assertThat(buffer.pendientes()).isZero();
+        Assertions.assertThat(buffer.registrados()).isZero();
+        Assertions.assertThat(buffer.registrar(entrada(EVENTO, 10L))).isTrue();
+    }
+
+    private static Entrada entrada(Long eventoId, Long estudianteId) {
+        return new Entrada(eventoId, estudianteId, PORTERO);
+    }
+}
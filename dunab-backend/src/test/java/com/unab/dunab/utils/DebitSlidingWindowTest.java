@@ -0,0 +1,165 @@
+package com.unab.dunab.utils;
+
+import com.unab.dunab.utils.DebitSlidingWindow.Ventana;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DebitSlidingWindowTest {
+
+    private static final Long CUENTA = 1L;
+    private static final LocalDateTime AHORA = LocalDateTime.of(2026, 3, 4, 10, 15);
+
+    private final DebitSlidingWindow ventanas = new DebitSlidingWindow();
+
+    @Test
+    void registraMientrasNoSupereLosLimites() {
+        Assertions.assertThat(ventanas.registrarSiCabe(CUENTA, 600, AHORA, 1_000, 5_000)).isNull();
+        Assertions.assertThat(ventanas.registrarSiCabe(CUENTA, 400, AHORA, 1_000, 5_000)).isNull();
+        Assertions.assertThat(ventanas.registrarSiCabe(CUENTA, 1, AHORA, 1_000, 5_000)).isEqualTo(Ventana.DIARIA);
+
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA)).isEqualTo(1_000);
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA)).isEqualTo(1_000);
+    }
+
+    @Test
+    void elLimiteSemanalSumaLosDiasAnteriores() {
+        for (int dias = 6; dias >= 1; dias--) {
+            ventanas.registrar(CUENTA, 800, AHORA.minusDays(dias));
+        }
+
+        Assertions.assertThat(ventanas.registrarSiCabe(CUENTA, 300, AHORA, 1_000, 5_000)).isEqualTo(Ventana.SEMANAL);
+        Assertions.assertThat(ventanas.registrarSiCabe(CUENTA, 200, AHORA, 1_000, 5_000)).isNull();
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA)).isEqualTo(5_000);
+    }
+
+    @Test
+    void sinLimiteConCeroONegativo() {
+        Assertions.assertThat(ventanas.registrarSiCabe(CUENTA, 1_000_000, AHORA, 0, -1)).isNull();
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void unDebitoSaleDeLaVentanaDiariaConSuHora() {
+        ventanas.registrar(CUENTA, 500, AHORA);
+
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA.plusHours(23).plusMinutes(44))).isEqualTo(500);
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA.plusHours(23).plusMinutes(45))).isZero();
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA.plusDays(6))).isEqualTo(500);
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA.plusDays(7))).isZero();
+    }
+
+    /**
+     * La cubeta de una hora se reutiliza 24 horas después: el monto anterior no se arrastra
+     */
+    @Test
+    void reutilizarUnaCubetaLaReinicia() {
+        ventanas.registrar(CUENTA, 500, AHORA);
+        ventanas.registrar(CUENTA, 300, AHORA.plusDays(1));
+
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA.plusDays(1))).isEqualTo(300);
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA.plusDays(1))).isEqualTo(800);
+    }
+
+    /**
+     * Al reconstruir, un débito anterior al período de su cubeta ya salió de la ventana
+     */
+    @Test
+    void unDebitoMasAntiguoQueSuCubetaNoSeSuma() {
+        ventanas.registrar(CUENTA, 300, AHORA.plusDays(7));
+        ventanas.registrar(CUENTA, 500, AHORA);
+
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA.plusDays(7))).isEqualTo(300);
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA.plusDays(7))).isEqualTo(300);
+    }
+
+    @Test
+    void descontarSoloAfectaLaCubetaDelDebito() {
+        ventanas.registrar(CUENTA, 500, AHORA);
+        ventanas.registrar(CUENTA, 200, AHORA.minusDays(2));
+
+        ventanas.descontar(CUENTA, 200, AHORA);
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA)).isEqualTo(300);
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA)).isEqualTo(500);
+
+        ventanas.descontar(CUENTA, 1_000, AHORA);
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA)).isZero();
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA)).isEqualTo(200);
+
+        // Su día ya no está en la cubeta: no hay nada que descontar
+        ventanas.descontar(CUENTA, 200, AHORA.minusDays(9));
+        Assertions.assertThat(ventanas.getGastoSemanal(CUENTA, AHORA)).isEqualTo(200);
+        ventanas.descontar(2L, 200, AHORA);
+        Assertions.assertThat(ventanas.size()).isEqualTo(1);
+    }
+
+    @Test
+    void purgaLasCuentasSinDebitosEnLaSemana() {
+        ventanas.registrar(1L, 100, AHORA.minusDays(8));
+        ventanas.registrar(2L, 100, AHORA.minusDays(6));
+        ventanas.registrar(3L, 100, AHORA);
+        ventanas.descontar(3L, 100, AHORA);
+
+        Assertions.assertThat(ventanas.purgarInactivas(AHORA)).isEqualTo(2);
+        Assertions.assertThat(ventanas.size()).isEqualTo(1);
+        Assertions.assertThat(ventanas.getGastoSemanal(2L, AHORA)).isEqualTo(100);
+        Assertions.assertThat(ventanas.purgarInactivas(AHORA)).isZero();
+    }
+
+    @Test
+    void losDebitosConcurrentesNoPasanJuntosElLimite() {
+        AtomicInteger aceptados = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 800; i++) {
+                executor.submit(() -> {
+                    if (ventanas.registrarSiCabe(CUENTA, 1, AHORA, 100, 0) == null) {
+                        aceptados.incrementAndGet();
+                    }
+                });
+            }
+        }
+        Assertions.assertThat(aceptados.get()).isEqualTo(100);
+        Assertions.assertThat(ventanas.getGastoDiario(CUENTA, AHORA)).isEqualTo(100);
+    }
+
+    /**
+     * Las ventanas recién creadas están vacías, así que una purga concurrente puede eliminarlas
+     * antes de que el débito que las creó tome el bloqueo. Ese débito debe volver a buscarlas en
+     * el mapa: ninguno puede perderse en unas ventanas que ya no están. Cada débito es de una
+     * cuenta nueva para que todos compitan con la purga.
+     */
+    @Test
+    void laPurgaConcurrenteNoPierdeDebitos() {
+        int debitos = 20_000;
+        int hilos = 8;
+        CountDownLatch terminados = new CountDownLatch(hilos);
+        try (ExecutorService executor = Executors.newFixedThreadPool(hilos + 1)) {
+            executor.submit(() -> {
+                while (terminados.getCount() > 0) {
+                    ventanas.purgarInactivas(AHORA);
+                }
+            });
+            for (int hilo = 0; hilo < hilos; hilo++) {
+                int primera = hilo;
+                executor.submit(() -> {
+                    for (long cuenta = primera; cuenta < debitos; cuenta += hilos) {
+                        ventanas.registrarSiCabe(cuenta, 1, AHORA, 0, 0);
+                    }
+                    terminados.countDown();
+                });
+            }
+        }
+
+        long total = 0;
+        for (long cuenta = 0; cuenta < debitos; cuenta++) {
+            total += ventanas.getGastoDiario(cuenta, AHORA);
+        }
+        Assertions.assertThat(total).isEqualTo(debitos);
+        Assertions.assertThat(ventanas.size()).isEqualTo(debitos);
+    }
+}
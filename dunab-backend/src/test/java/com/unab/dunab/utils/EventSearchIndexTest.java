@@ -0,0 +1,141 @@
+package com.unab.dunab.utils;
+
+import com.unab.dunab.dto.response.EventoResponse;
+import com.unab.dunab.model.Dunab;
+import com.unab.dunab.utils.EventSearchIndex.Consulta;
+import com.unab.dunab.utils.EventSearchIndex.Resultado;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class EventSearchIndexTest {
+
+    private static final LocalDateTime DIA = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    private final EventoResponse conferencia = evento(1L, "Conferencia de Inteligencia Artificial",
+            "Charla abierta", "Auditorio Mayor", DIA.plusDays(1), "0.00", "10.00");
+    private final EventoResponse taller = evento(2L, "Taller de Programación",
+            null, "Edificio Ingenierías", DIA.plusDays(2), "5.00", "0.00");
+    private final EventoResponse feria = evento(3L, "Feria de emprendimiento",
+            "Stands de los semilleros", "Auditorio Menor", DIA.plusDays(3), "0.00", null);
+    private final EventoResponse sinFecha = evento(4L, "Conferencia sin fecha",
+            null, "Auditorio Mayor", null, "0.00", "10.00");
+
+    private final EventSearchIndex indice = EventSearchIndex.construir(List.of(feria, sinFecha, taller, conferencia));
+
+    @Test
+    void ordenaPorFechaYDescartaLosEventosSinFecha() {
+        Assertions.assertThat(indice.size()).isEqualTo(3);
+        Assertions.assertThat(buscar(consulta(null, null)).eventos()).containsExactly(conferencia, taller, feria);
+    }
+
+    @Test
+    void ignoraMayusculasYTildes() {
+        Assertions.assertThat(buscar(consulta("PROGRAMACION", null)).eventos()).containsExactly(taller);
+        Assertions.assertThat(buscar(consulta("ingenierías", null)).eventos()).containsExactly(taller);
+    }
+
+    @Test
+    void losTerminosLargosSonPrefijosYLosCortosCoincidenCompletos() {
+        Assertions.assertThat(buscar(consulta("confer", null)).eventos()).containsExactly(conferencia);
+        Assertions.assertThat(buscar(consulta("de", null)).total()).isEqualTo(3);
+        Assertions.assertThat(buscar(consulta("co", null)).total()).isZero();
+    }
+
+    @Test
+    void exigeTodosLosTerminos() {
+        Assertions.assertThat(buscar(consulta("auditorio mayor", null)).eventos()).containsExactly(conferencia);
+        Assertions.assertThat(buscar(consulta("taller auditorio", null)).total()).isZero();
+        Assertions.assertThat(buscar(consulta("semilleros", null)).eventos()).containsExactly(feria);
+    }
+
+    @Test
+    void filtraLaUbicacionSoloEnLaUbicacion() {
+        Assertions.assertThat(buscar(consulta(null, "auditorio")).eventos()).containsExactly(conferencia, feria);
+        Assertions.assertThat(buscar(consulta(null, "taller")).total()).isZero();
+        Assertions.assertThat(buscar(consulta("feria", "auditorio")).eventos()).containsExactly(feria);
+    }
+
+    @Test
+    void laVentanaDeFechasIncluyeSusExtremos() {
+        Resultado resultado = buscar(new Consulta(null, null, DIA.plusDays(2), DIA.plusDays(3), null, null));
+        Assertions.assertThat(resultado.eventos()).containsExactly(taller, feria);
+
+        Assertions.assertThat(buscar(new Consulta(null, null, DIA.plusDays(4), null, null, null)).total()).isZero();
+        Assertions.assertThat(buscar(new Consulta(null, null, DIA.plusDays(3), DIA.plusDays(1), null, null)).total())
+                .isZero();
+    }
+
+    @Test
+    void filtraGratuitosYConRecompensa() {
+        Assertions.assertThat(buscar(new Consulta(null, null, null, null, true, null)).eventos())
+                .containsExactly(conferencia, feria);
+        Assertions.assertThat(buscar(new Consulta(null, null, null, null, false, null)).eventos())
+                .containsExactly(taller);
+        Assertions.assertThat(buscar(new Consulta(null, null, null, null, null, true)).eventos())
+                .containsExactly(conferencia);
+        Assertions.assertThat(buscar(new Consulta(null, null, null, null, true, false)).eventos())
+                .containsExactly(feria);
+    }
+
+    @Test
+    void paginaSobreElTotal() {
+        Resultado segunda = indice.buscar(consulta(null, null), 1, 2);
+        Assertions.assertThat(segunda.eventos()).containsExactly(feria);
+        Assertions.assertThat(segunda.total()).isEqualTo(3);
+
+        Resultado fuera = indice.buscar(consulta(null, null), 5, 2);
+        Assertions.assertThat(fuera.eventos()).isEmpty();
+        Assertions.assertThat(fuera.total()).isEqualTo(3);
+    }
+
+    /**
+     * Con muchos eventos los términos frecuentes se guardan como BitSet y los raros como arreglos
+     * de posiciones; las consultas combinan ambos
+     */
+    @Test
+    void combinaTerminosFrecuentesYRaros() {
+        List<EventoResponse> eventos = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String nombre = "Seminario " + (i % 10 == 0 ? "robótica " : "") + (i % 7 == 0 ? "robots " : "")
+                    + (i == 150 ? "especial" : "");
+            eventos.add(evento((long) i, nombre, null, "Sala " + i, DIA.plusMinutes(i), "0.00", "0.00"));
+        }
+        EventSearchIndex grande = EventSearchIndex.construir(eventos);
+
+        Assertions.assertThat(grande.buscar(consulta("seminario robotica", null), 0, 500).total()).isEqualTo(30);
+        Assertions.assertThat(grande.buscar(consulta("robotica especial", null), 0, 500).eventos())
+                .containsExactly(eventos.get(150));
+        // "robot" es prefijo de "robots" (frecuente) y de "robotica" (frecuente): cuenta los que tienen alguno
+        Assertions.assertThat(grande.buscar(consulta("robot", null), 0, 500).total()).isEqualTo(30 + 43 - 5);
+        // "29" es corto y coincide completo; "290" es prefijo, pero ninguna sala pasa de 299
+        Assertions.assertThat(grande.buscar(consulta(null, "sala 29"), 0, 500).eventos())
+                .containsExactly(eventos.get(29));
+        Assertions.assertThat(grande.buscar(consulta(null, "290"), 0, 500).eventos())
+                .containsExactly(eventos.get(290));
+    }
+
+    private Resultado buscar(Consulta consulta) {
+        return indice.buscar(consulta, 0, 20);
+    }
+
+    private static Consulta consulta(String texto, String ubicacion) {
+        return new Consulta(texto, ubicacion, null, null, null, null);
+    }
+
+    private static EventoResponse evento(Long id, String nombre, String descripcion, String ubicacion,
+                                         LocalDateTime fecha, String costo, String recompensa) {
+        return EventoResponse.builder()
+                .id(id)
+                .nombre(nombre)
+                .descripcion(descripcion)
+                .ubicacion(ubicacion)
+                .fechaEvento(fecha)
+                .costoDunab(Dunab.valueOf(costo))
+                .recompensaDunab(recompensa == null ? null : Dunab.valueOf(recompensa))
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.unab.dunab.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class EventWaitlistTest {
+
+    private static final Long EVENTO = 1L;
+    private static final Long OTRO_EVENTO = 2L;
+
+    private final EventWaitlist lista = new EventWaitlist();
+
+    @Test
+    void atiendePorTurnoAunqueLleguenDesordenados() {
+        long primero = lista.siguienteTurno(EVENTO);
+        long segundo = lista.siguienteTurno(EVENTO);
+        long tercero = lista.siguienteTurno(EVENTO);
+
+        lista.agregar(EVENTO, 20L, segundo);
+        lista.agregar(EVENTO, 30L, tercero);
+        lista.agregar(EVENTO, 10L, primero);
+
+        Assertions.assertThat(lista.primero(EVENTO)).isEqualTo(10L);
+        Assertions.assertThat(lista.posicion(EVENTO, 10L)).isEqualTo(1);
+        Assertions.assertThat(lista.posicion(EVENTO, 20L)).isEqualTo(2);
+        Assertions.assertThat(lista.posicion(EVENTO, 30L)).isEqualTo(3);
+
+        Assertions.assertThat(lista.quitar(EVENTO, 10L)).isTrue();
+        Assertions.assertThat(lista.primero(EVENTO)).isEqualTo(20L);
+        Assertions.assertThat(lista.posicion(EVENTO, 30L)).isEqualTo(2);
+        Assertions.assertThat(lista.posicion(EVENTO, 10L)).isNull();
+    }
+
+    /**
+     * Quien sale de la fila por delante de otro adelanta su posición
+     */
+    @Test
+    void laPosicionDescuentaAQuienesSalenPorDelante() {
+        lista.agregar(EVENTO, 10L, lista.siguienteTurno(EVENTO));
+        lista.agregar(EVENTO, 20L, lista.siguienteTurno(EVENTO));
+        lista.agregar(EVENTO, 30L, lista.siguienteTurno(EVENTO));
+        long hueco = lista.siguienteTurno(EVENTO);
+        lista.agregar(EVENTO, 40L, lista.siguienteTurno(EVENTO));
+
+        lista.quitar(EVENTO, 20L);
+
+        Assertions.assertThat(lista.posicion(EVENTO, 30L)).isEqualTo(2);
+        Assertions.assertThat(lista.posicion(EVENTO, 40L)).isEqualTo(3);
+        Assertions.assertThat(lista.posicionDeTurno(EVENTO, hueco)).isEqualTo(3);
+        Assertions.assertThat(lista.size()).isEqualTo(3);
+    }
+
+    @Test
+    void laPosicionDeUnTurnoNoDependeDeQueYaEsteEnLaFila() {
+        Assertions.assertThat(lista.posicionDeTurno(EVENTO, lista.siguienteTurno(EVENTO))).isEqualTo(1);
+
+        long turno = lista.siguienteTurno(EVENTO);
+        lista.agregar(EVENTO, 10L, turno);
+        long siguiente = lista.siguienteTurno(EVENTO);
+
+        Assertions.assertThat(lista.posicionDeTurno(EVENTO, siguiente)).isEqualTo(2);
+    }
+
+    /**
+     * Al reconstruir la fila con los turnos guardados, los turnos nuevos siguen después del mayor
+     */
+    @Test
+    void agregarConUnTurnoGuardadoAdelantaLosSiguientes() {
+        lista.agregar(EVENTO, 10L, 41);
+        lista.agregar(EVENTO, 20L, 7);
+
+        Assertions.assertThat(lista.siguienteTurno(EVENTO)).isEqualTo(42);
+        Assertions.assertThat(lista.primero(EVENTO)).isEqualTo(20L);
+        Assertions.assertThat(lista.posicion(EVENTO, 10L)).isEqualTo(2);
+    }
+
+    /**
+     * Los turnos guardados pueden superar la capacidad inicial del árbol de conteo
+     */
+    @Test
+    void laPosicionSigueExactaConTurnosAltos() {
+        for (long turno = 1; turno <= 1_000; turno++) {
+            lista.agregar(EVENTO, turno, turno * 97);
+        }
+        for (long estudiante = 1; estudiante <= 1_000; estudiante += 2) {
+            lista.quitar(EVENTO, estudiante);
+        }
+
+        Assertions.assertThat(lista.posicion(EVENTO, 2L)).isEqualTo(1);
+        Assertions.assertThat(lista.posicion(EVENTO, 1_000L)).isEqualTo(500);
+        Assertions.assertThat(lista.posicionDeTurno(EVENTO, lista.siguienteTurno(EVENTO))).isEqualTo(501);
+    }
+
+    @Test
+    void agregarDeNuevoCambiaElTurnoDelEstudiante() {
+        lista.agregar(EVENTO, 10L, lista.siguienteTurno(EVENTO));
+        lista.agregar(EVENTO, 20L, lista.siguienteTurno(EVENTO));
+        lista.agregar(EVENTO, 10L, lista.siguienteTurno(EVENTO));
+
+        Assertions.assertThat(lista.size()).isEqualTo(2);
+        Assertions.assertThat(lista.primero(EVENTO)).isEqualTo(20L);
+        Assertions.assertThat(lista.posicion(EVENTO, 10L)).isEqualTo(2);
+    }
+
+    @Test
+    void lasFilasDeCadaEventoSonIndependientes() {
+        lista.agregar(EVENTO, 10L, lista.siguienteTurno(EVENTO));
+        lista.agregar(OTRO_EVENTO, 10L, lista.siguienteTurno(OTRO_EVENTO));
+        lista.agregar(OTRO_EVENTO, 20L, lista.siguienteTurno(OTRO_EVENTO));
+
+        Assertions.assertThat(lista.quitar(EVENTO, 10L)).isTrue();
+        Assertions.assertThat(lista.quitar(EVENTO, 10L)).isFalse();
+        Assertions.assertThat(lista.quitar(3L, 10L)).isFalse();
+        Assertions.assertThat(lista.tieneEspera(EVENTO)).isFalse();
+        Assertions.assertThat(lista.tieneEspera(OTRO_EVENTO)).isTrue();
+        Assertions.assertThat(lista.eventosConEspera()).containsExactly(OTRO_EVENTO);
+        Assertions.assertThat(lista.primero(EVENTO)).isNull();
+        Assertions.assertThat(lista.posicion(OTRO_EVENTO, 20L)).isEqualTo(2);
+        Assertions.assertThat(lista.size()).isEqualTo(2);
+
+        lista.clear();
+        Assertions.assertThat(lista.size()).isZero();
+        Assertions.assertThat(lista.eventosConEspera()).isEmpty();
+    }
+
+    @Test
+    void lasPosicionesSonExactasTrasAltasYBajasConcurrentes() {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (long estudiante = 1; estudiante <= 4_000; estudiante++) {
+                long id = estudiante;
+                executor.submit(() -> {
+                    lista.agregar(EVENTO, id, lista.siguienteTurno(EVENTO));
+                    if (id % 3 == 0) {
+                        lista.quitar(EVENTO, id);
+                    }
+                });
+            }
+        }
+
+        // Quedan 2.667 estudiantes y sus posiciones son exactamente 1..2.667
+        Set<Integer> posiciones = new HashSet<>();
+        for (long estudiante = 1; estudiante <= 4_000; estudiante++) {
+            Integer posicion = lista.posicion(EVENTO, estudiante);
+            Assertions.assertThat(posicion == null).isEqualTo(estudiante % 3 == 0);
+            if (posicion != null) {
+                posiciones.add(posicion);
+            }
+        }
+        Assertions.assertThat(posiciones).hasSize(2_667);
+        Assertions.assertThat(posiciones.stream().mapToInt(Integer::intValue).max().orElse(0)).isEqualTo(2_667);
+    }
+
+    @Test
+    void losTurnosConcurrentesNoSeRepiten() {
+        Set<Long> turnos = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8_000; i++) {
+                executor.submit(() -> turnos.add(lista.siguienteTurno(EVENTO)));
+            }
+        }
+        Assertions.assertThat(turnos).hasSize(8_000);
+        Assertions.assertThat(lista.siguienteTurno(EVENTO)).isEqualTo(8_001);
+    }
+}
@@ -0,0 +1,131 @@
+package com.unab.dunab.utils;
+
+import com.unab.dunab.utils.ReminderTimingWheel.Recordatorio;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ReminderTimingWheelTest {
+
+    private static final long MINUTO_MS = 60_000;
+
+    private ReminderTimingWheel rueda;
+
+    /**
+     * Comienzo del minuto en que quedó la rueda
+     */
+    private long inicio;
+
+    @BeforeEach
+    void crear() {
+        rueda = new ReminderTimingWheel();
+        // La rueda arranca en el minuto actual; si cambió desde entonces, avanzar la alinea
+        inicio = System.currentTimeMillis() / MINUTO_MS * MINUTO_MS;
+        rueda.avanzar(inicio);
+    }
+
+    @Test
+    void venceAlComenzarSuMinuto() {
+        Recordatorio recordatorio = recordatorio(1L, 60);
+        rueda.programar(recordatorio, minuto(5) + 30_000);
+
+        Assertions.assertThat(rueda.avanzar(minuto(5) - 1)).isEmpty();
+        Assertions.assertThat(rueda.avanzar(minuto(5))).containsExactly(recordatorio);
+        Assertions.assertThat(rueda.size()).isZero();
+        Assertions.assertThat(rueda.avanzar(minuto(6))).isEmpty();
+    }
+
+    /**
+     * Avanzando de a un minuto, cada recordatorio vence en su minuto aunque haya empezado en un
+     * nivel superior y bajado de nivel al completarse las vueltas de los inferiores
+     */
+    @Test
+    void bajaDeNivelSinAdelantarNiAtrasarse() {
+        int[] minutos = {1, 63, 64, 65, 127, 128, 200, 4_095, 4_096, 4_097, 5_000, 9_000};
+        Map<Recordatorio, Long> programados = new HashMap<>();
+        for (int i = 0; i < minutos.length; i++) {
+            Recordatorio recordatorio = recordatorio((long) i, minutos[i]);
+            rueda.programar(recordatorio, minuto(minutos[i]));
+            programados.put(recordatorio, (long) minutos[i]);
+        }
+
+        Map<Recordatorio, Long> vencidos = new HashMap<>();
+        for (long m = 1; m <= 9_000; m++) {
+            for (Recordatorio recordatorio : rueda.avanzar(minuto(m))) {
+                vencidos.put(recordatorio, m);
+            }
+        }
+        Assertions.assertThat(vencidos).isEqualTo(programados);
+        Assertions.assertThat(rueda.size()).isZero();
+    }
+
+    @Test
+    void unSaltoDevuelveTodoLoVencido() {
+        rueda.programar(recordatorio(1L, 1), minuto(3));
+        rueda.programar(recordatorio(2L, 1), minuto(300));
+        rueda.programar(recordatorio(3L, 1), minuto(70_000));
+
+        Assertions.assertThat(rueda.avanzar(minuto(301)))
+                .containsExactlyInAnyOrder(recordatorio(1L, 1), recordatorio(2L, 1));
+        Assertions.assertThat(rueda.size()).isEqualTo(1);
+    }
+
+    @Test
+    void loProgramadoEnElPasadoVenceEnElSiguienteAvance() {
+        Recordatorio recordatorio = recordatorio(1L, 60);
+        rueda.programar(recordatorio, minuto(-10));
+
+        Assertions.assertThat(rueda.size()).isEqualTo(1);
+        Assertions.assertThat(rueda.avanzar(inicio)).containsExactly(recordatorio);
+        Assertions.assertThat(rueda.size()).isZero();
+    }
+
+    @Test
+    void cancelarQuitaLosRecordatoriosDelEvento() {
+        rueda.programar(recordatorio(1L, 1_440), minuto(10));
+        rueda.programar(recordatorio(1L, 60), minuto(5_000));
+        rueda.programar(recordatorio(1L, 15), minuto(-1));
+        rueda.programar(recordatorio(2L, 60), minuto(10));
+
+        rueda.cancelar(1L);
+
+        Assertions.assertThat(rueda.size()).isEqualTo(1);
+        Assertions.assertThat(rueda.avanzar(minuto(6_000))).containsExactly(recordatorio(2L, 60));
+        rueda.cancelar(3L);
+        Assertions.assertThat(rueda.size()).isZero();
+    }
+
+    @Test
+    void elMismoRecordatorioProgramadoDosVecesVenceDosVeces() {
+        Recordatorio recordatorio = recordatorio(1L, 60);
+        rueda.programar(recordatorio, minuto(2));
+        rueda.programar(recordatorio, minuto(2));
+
+        List<Recordatorio> vencidos = rueda.avanzar(minuto(2));
+        Assertions.assertThat(vencidos).containsExactly(recordatorio, recordatorio);
+    }
+
+    @Test
+    void clearVaciaLaRueda() {
+        rueda.programar(recordatorio(1L, 60), minuto(-1));
+        rueda.programar(recordatorio(2L, 60), minuto(100));
+
+        rueda.clear();
+
+        Assertions.assertThat(rueda.size()).isZero();
+        Assertions.assertThat(rueda.avanzar(minuto(200))).isEmpty();
+    }
+
+    private long minuto(long minutos) {
+        return inicio + minutos * MINUTO_MS;
+    }
+
+    private static Recordatorio recordatorio(Long eventoId, long antelacionMinutos) {
+        return new Recordatorio(eventoId, Duration.ofMinutes(antelacionMinutos));
+    }
+}